@@ -0,0 +1,205 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.util.Log;
+import android.webkit.WebResourceResponse;
+import androidx.webkit.WebViewAssetLoader;
+import com.getcapacitor.Bridge;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import org.brotli.dec.BrotliInputStream;
+
+
+// Serves the web app's bundled files under /assets/ straight from the APK, ahead of Capacitor's local server,
+// with immutable caching for content-hashed names. Plain files stored uncompressed are memory-mapped once and
+// served from the mapping; .br and .gz copies are decoded here, the WebView does not decode intercepted
+// responses. index.html and the rest stay with Capacitor, it injects its bridge into the page.
+// The mode is read once per process, a change applies from the next start so first paint can be compared.
+public class AssetServer implements WebViewAssetLoader.PathHandler {
+    private static final String TAG = "AssetServer";
+    private static final String PREFERENCES = "asset_server";
+    public static final String URL_PATH = "/assets/";
+    // Capacitor copies the web build into the APK's assets under public/
+    private static final String ASSET_DIRECTORY = "public/assets/";
+    private static final int GZIP_BUFFER_BYTES = 16 * 1024;
+
+    private static AssetVariants.Mode mode;
+
+    // Served responses and the time spent opening them, per source
+    private static final long[] servedCounts = new long[AssetVariants.Source.values().length];
+    private static final long[] openNanos = new long[AssetVariants.Source.values().length];
+    private static long mappedBytes;
+    private static long misses;
+
+    private final AssetManager assets;
+    private final AssetVariants.Mode order;
+    // Mappings stay valid for the life of the process, the APK does not change under it
+    private final Map<String, ByteBuffer> mapped = new ConcurrentHashMap<>();
+    // The variant that answered a path, so the ones missing from the APK are not probed again
+    private final Map<String, AssetVariants.Source> resolved = new ConcurrentHashMap<>();
+
+    public static synchronized AssetVariants.Mode getMode(Context context) {
+        if (mode == null) {
+            mode = getConfiguredMode(context);
+            Log.i(TAG, "Serving assets " + mode);
+        }
+        return mode;
+    }
+
+    // The mode the next start will use
+    public static AssetVariants.Mode getConfiguredMode(Context context) {
+        AssetVariants.Mode configured = AssetVariants.parseMode(preferences(context).getString("mode", null));
+        return configured != null ? configured : AssetVariants.DEFAULT_MODE;
+    }
+
+    public static void setConfiguredMode(Context context, AssetVariants.Mode configured) {
+        preferences(context).edit().putString("mode", configured.name()).apply();
+    }
+
+    // Null when the mode is off, or when the page comes from a dev server rather than the APK
+    public static WebViewAssetLoader createLoader(Bridge bridge) {
+        Context context = bridge.getContext();
+        if (getMode(context) == AssetVariants.Mode.OFF || bridge.getServerUrl() != null) {
+            return null;
+        }
+        return new WebViewAssetLoader.Builder()
+                .setDomain(bridge.getHost())
+                .addPathHandler(URL_PATH, new AssetServer(context.getAssets(), getMode(context)))
+                .build();
+    }
+
+    public static synchronized long getServedCount(AssetVariants.Source source) {
+        return servedCounts[source.ordinal()];
+    }
+
+    public static synchronized long getOpenNanos(AssetVariants.Source source) {
+        return openNanos[source.ordinal()];
+    }
+
+    public static synchronized long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    // Requests under /assets/ that fell through to Capacitor
+    public static synchronized long getMissCount() {
+        return misses;
+    }
+
+    AssetServer(AssetManager assets, AssetVariants.Mode order) {
+        this.assets = assets;
+        this.order = order;
+    }
+
+    // Called on the WebView's IO threads with the path below /assets/
+    @Override
+    public WebResourceResponse handle(String path) {
+        if (!AssetVariants.isServable(path)) {
+            return null;
+        }
+        String mimeType = AssetVariants.mimeType(path);
+        long start = System.nanoTime();
+
+        AssetVariants.Source known = resolved.get(path);
+        AssetVariants.Source[] candidates = known != null
+                ? new AssetVariants.Source[] {known} : AssetVariants.order(order, mimeType);
+        for (AssetVariants.Source source : candidates) {
+            InputStream data;
+            try {
+                data = open(path, source);
+            } catch (FileNotFoundException e) {
+                // Not in the APK, or compressed when a mapping was asked for
+                continue;
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to open " + AssetVariants.fileFor(path, source), e);
+                continue;
+            }
+            resolved.put(path, source);
+            recordServed(source, System.nanoTime() - start);
+            return buildResponse(path, mimeType, data);
+        }
+
+        recordMiss();
+        return null;
+    }
+
+    private InputStream open(String path, AssetVariants.Source source) throws IOException {
+        String file = ASSET_DIRECTORY + AssetVariants.fileFor(path, source);
+        switch (source) {
+            case MAPPED:
+                return new MediaDiskCache.ByteBufferInputStream(map(path, file).duplicate());
+            case BROTLI:
+                return decoding(assets.open(file, AssetManager.ACCESS_STREAMING), true);
+            case GZIP:
+                return decoding(assets.open(file, AssetManager.ACCESS_STREAMING), false);
+            default:
+                return assets.open(file, AssetManager.ACCESS_STREAMING);
+        }
+    }
+
+    // openFd only works for entries stored uncompressed, it throws FileNotFoundException for the others
+    private ByteBuffer map(String path, String file) throws IOException {
+        ByteBuffer buffer = mapped.get(path);
+        if (buffer != null) {
+            return buffer;
+        }
+        try (AssetFileDescriptor descriptor = assets.openFd(file);
+                FileInputStream in = new FileInputStream(descriptor.getFileDescriptor())) {
+            // The entry is a slice of the APK, the mapping stays valid after the descriptor is closed
+            FileChannel channel = in.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, descriptor.getStartOffset(), descriptor.getLength());
+        }
+        // Two requests for the same file can race here, the first mapping is kept
+        ByteBuffer existing = mapped.putIfAbsent(path, buffer);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (AssetServer.class) {
+            mappedBytes += buffer.capacity();
+        }
+        return buffer;
+    }
+
+    // Both decoders read their header in the constructor, the asset is closed if that fails
+    private static InputStream decoding(InputStream compressed, boolean brotli) throws IOException {
+        try {
+            return brotli ? new BrotliInputStream(compressed) : new GZIPInputStream(compressed, GZIP_BUFFER_BYTES);
+        } catch (IOException e) {
+            compressed.close();
+            throw e;
+        }
+    }
+
+    private static WebResourceResponse buildResponse(String path, String mimeType, InputStream data) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Cache-Control", AssetVariants.cacheControl(path));
+        String hash = AssetVariants.contentHash(path);
+        if (hash != null) {
+            headers.put("ETag", "\"" + hash + "\"");
+        }
+        return new WebResourceResponse(mimeType, AssetVariants.charset(mimeType), 200, "OK", headers, data);
+    }
+
+    private static synchronized void recordServed(AssetVariants.Source source, long nanos) {
+        servedCounts[source.ordinal()]++;
+        openNanos[source.ordinal()] += nanos;
+    }
+
+    private static synchronized void recordMiss() {
+        misses++;
+    }
+
+    private static SharedPreferences preferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,139 @@
+package com.gymtracker.app;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+// Which file in the APK answers a request under the web app's /assets/ path, and the headers it is served
+// with. Vite names every bundled file <name>-<content hash>.<ext>, so a hashed name never changes content and
+// is cached as immutable. The plain files are stored uncompressed so they can be memory-mapped (see
+// build.gradle); only a build:mobile:precompressed build also writes .br and .gz copies next to the text files
+// (see vite.config.ts). Pure Java, AssetServer does the reading.
+public class AssetVariants {
+    // Where a response's bytes come from: the stored file mapped in place, a precompressed copy decoded on
+    // the fly, or the plain file inflated by the AssetManager when the packager compressed it after all
+    public enum Source { MAPPED, BROTLI, GZIP, INFLATED }
+
+    // OFF leaves the assets to Capacitor's local server. MAPPED and PRECOMPRESSED only differ in which
+    // variant is tried first, the two are compared on first paint. Without the copies in the APK,
+    // PRECOMPRESSED serves the mapped files like MAPPED does.
+    public enum Mode { OFF, MAPPED, PRECOMPRESSED }
+
+    public static final Mode DEFAULT_MODE = Mode.MAPPED;
+
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    static final String REVALIDATE = "no-cache";
+
+    // Vite's default [name]-[hash], eight base64url characters
+    private static final Pattern HASHED_NAME = Pattern.compile("^.*-([A-Za-z0-9_-]{8})\\.[A-Za-z0-9]+$");
+
+    private static final Source[] MAPPED_FIRST = {Source.MAPPED, Source.BROTLI, Source.GZIP, Source.INFLATED};
+    private static final Source[] PRECOMPRESSED_FIRST = {Source.BROTLI, Source.GZIP, Source.MAPPED, Source.INFLATED};
+    // Images and fonts are compressed already, the build writes no copies of them
+    private static final Source[] PLAIN_ONLY = {Source.MAPPED, Source.INFLATED};
+
+    public static Mode parseMode(String name) {
+        if (name != null) {
+            for (Mode mode : Mode.values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+        }
+        return null;
+    }
+
+    // The variants to try in order, the first one present in the APK is served
+    static Source[] order(Mode mode, String mimeType) {
+        if (!isCompressible(mimeType)) {
+            return PLAIN_ONLY;
+        }
+        return mode == Mode.PRECOMPRESSED ? PRECOMPRESSED_FIRST : MAPPED_FIRST;
+    }
+
+    static String fileFor(String path, Source source) {
+        switch (source) {
+            case BROTLI:
+                return path + ".br";
+            case GZIP:
+                return path + ".gz";
+            default:
+                return path;
+        }
+    }
+
+    // The content hash in a bundled file's name, null for a name without one. A hash of lowercase letters only
+    // cannot be told from a word (workout-overview.js), such a file is just revalidated.
+    static String contentHash(String path) {
+        Matcher matcher = HASHED_NAME.matcher(path.substring(path.lastIndexOf('/') + 1));
+        if (!matcher.matches()) {
+            return null;
+        }
+        String hash = matcher.group(1);
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return hash;
+            }
+        }
+        return null;
+    }
+
+    static String cacheControl(String path) {
+        return contentHash(path) != null ? IMMUTABLE : REVALIDATE;
+    }
+
+    // Relative paths below /assets/ only, anything that climbs out is left to Capacitor
+    static boolean isServable(String path) {
+        return !path.isEmpty() && !path.startsWith("/") && !path.contains("..") && mimeType(path) != null;
+    }
+
+    // Null for types this server does not handle
+    static String mimeType(String path) {
+        String extension = path.substring(path.lastIndexOf('.') + 1).toLowerCase(Locale.US);
+        switch (extension) {
+            case "js":
+            case "mjs":
+                return "text/javascript";
+            case "css":
+                return "text/css";
+            case "json":
+                return "application/json";
+            case "wasm":
+                return "application/wasm";
+            case "svg":
+                return "image/svg+xml";
+            case "woff2":
+                return "font/woff2";
+            case "woff":
+                return "font/woff";
+            case "ttf":
+                return "font/ttf";
+            case "png":
+                return "image/png";
+            case "jpg":
+            case "jpeg":
+                return "image/jpeg";
+            case "webp":
+                return "image/webp";
+            case "avif":
+                return "image/avif";
+            case "gif":
+                return "image/gif";
+            default:
+                return null;
+        }
+    }
+
+    static boolean isCompressible(String mimeType) {
+        return mimeType.startsWith("text/") || mimeType.equals("application/json")
+                || mimeType.equals("application/wasm") || mimeType.equals("image/svg+xml");
+    }
+
+    // Charset for the WebResourceResponse, null for binary types
+    static String charset(String mimeType) {
+        return mimeType.startsWith("text/") || mimeType.equals("application/json") || mimeType.equals("image/svg+xml")
+                ? "utf-8" : null;
+    }
+}
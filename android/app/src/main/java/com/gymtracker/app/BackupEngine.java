@@ -0,0 +1,434 @@
+package com.gymtracker.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+// Full history backup as NDJSON, optionally gzipped. One record per line, so both directions hold a single
+// row (export) or one insert chunk (import) in memory however long the history is. The first line describes
+// the file, the last line carries the record counts and a CRC32 of every line before it, so a truncated or
+// edited file is refused and the import rolls back instead of leaving half a history behind.
+// Field names match the WorkoutStore plugin, so a backup line reads like a row from src/types/workout.ts.
+public class BackupEngine {
+    static final String FORMAT = "gymtracker-ndjson";
+    static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Rows handed to WorkoutStore at once on import
+    private static final int IMPORT_CHUNK_SIZE = 2000;
+    private static final long PROGRESS_INTERVAL = 10_000;
+
+    private static final String TABLE_METADATA = "metadata";
+    private static final String TABLE_EXERCISES = "exercises";
+    private static final String TABLE_WORKOUTS = "workouts";
+    private static final String TABLE_SETS = "workout_sets";
+    private static final String TABLE_SUMMARY = "summary";
+
+    public interface Progress {
+        void onProgress(String table, long records);
+    }
+
+    public static class Summary {
+        public long exercises;
+        public long workouts;
+        public long sets;
+        // Uncompressed NDJSON bytes
+        public long bytes;
+        public boolean compressed;
+        public long durationMs;
+
+        public long records() {
+            return exercises + workouts + sets;
+        }
+    }
+
+    private BackupEngine() {
+    }
+
+    // Written next to the target and renamed over it, so an interrupted export never replaces a good file
+    public static Summary export(WorkoutStore store, File file, boolean compress, Progress progress)
+            throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        Summary summary;
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            summary = export(store, out, compress, progress);
+        } catch (IOException | RuntimeException e) {
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot move backup to " + file);
+        }
+        return summary;
+    }
+
+    public static Summary export(WorkoutStore store, OutputStream target, boolean compress, Progress progress)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        Summary summary = new Summary();
+        summary.compressed = compress;
+
+        GZIPOutputStream gzip = compress ? new GZIPOutputStream(target, BUFFER_SIZE) : null;
+        LineWriter writer = new LineWriter(new BufferedOutputStream(gzip != null ? gzip : target, BUFFER_SIZE));
+
+        StringBuilder line = writer.line;
+        line.append("{\"table\":\"").append(TABLE_METADATA).append('"');
+        appendString(line, "format", FORMAT);
+        appendLong(line, "version", VERSION);
+        appendLong(line, "createdAt", start);
+        line.append(",\"compressed\":").append(compress).append('}');
+        writer.endLine();
+
+        store.forEachExercise(exercise -> {
+            StringBuilder l = writer.line;
+            l.append("{\"table\":\"").append(TABLE_EXERCISES).append('"');
+            appendString(l, "id", exercise.id);
+            appendString(l, "name", exercise.name);
+            appendString(l, "category", exercise.category);
+            appendString(l, "data", exercise.data);
+            appendLong(l, "updated_at", exercise.updatedAt);
+            l.append('}');
+            writer.endLine();
+            report(progress, TABLE_EXERCISES, ++summary.exercises);
+        });
+
+        store.forEachWorkout(workout -> {
+            StringBuilder l = writer.line;
+            l.append("{\"table\":\"").append(TABLE_WORKOUTS).append('"');
+            appendString(l, "id", workout.id);
+            appendString(l, "user_id", workout.userId);
+            appendString(l, "name", workout.name);
+            l.append(",\"is_completed\":").append(workout.completed);
+            appendTimestamp(l, "started_at", workout.startedAt);
+            appendTimestamp(l, "completed_at", workout.completedAt);
+            appendDouble(l, "total_volume", workout.totalVolume);
+            appendString(l, "data", workout.data);
+            appendLong(l, "updated_at", workout.updatedAt);
+            l.append('}');
+            writer.endLine();
+            report(progress, TABLE_WORKOUTS, ++summary.workouts);
+        });
+
+        store.forEachSet(set -> {
+            StringBuilder l = writer.line;
+            l.append("{\"table\":\"").append(TABLE_SETS).append('"');
+            appendString(l, "id", set.id);
+            appendString(l, "workout_id", set.workoutId);
+            appendString(l, "exercise_id", set.exerciseId);
+            appendLong(l, "set_number", set.setNumber);
+            appendString(l, "type", set.type);
+            appendDouble(l, "weight", set.weight);
+            appendLong(l, "reps", set.reps);
+            appendDouble(l, "rpe", set.rpe);
+            appendTimestamp(l, "rest_time", set.restTime);
+            l.append(",\"completed\":").append(set.completed);
+            appendTimestamp(l, "completed_at", set.completedAt);
+            appendString(l, "notes", set.notes);
+            l.append('}');
+            writer.endLine();
+            report(progress, TABLE_SETS, ++summary.sets);
+        });
+
+        // Not covered by its own checksum
+        long checksum = writer.crc.getValue();
+        line.append("{\"table\":\"").append(TABLE_SUMMARY).append('"');
+        appendLong(line, "exercises", summary.exercises);
+        appendLong(line, "workouts", summary.workouts);
+        appendLong(line, "workout_sets", summary.sets);
+        appendLong(line, "crc32", checksum);
+        line.append('}');
+        writer.endLine();
+
+        writer.out.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        target.flush();
+
+        summary.bytes = writer.bytes;
+        summary.durationMs = System.currentTimeMillis() - start;
+        return summary;
+    }
+
+    // replace clears the store first, otherwise rows are merged over what is there by id
+    public static Summary restore(WorkoutStore store, InputStream source, boolean replace, Progress progress)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        BufferedInputStream buffered = new BufferedInputStream(source, BUFFER_SIZE);
+        boolean compressed = isGzip(buffered);
+        InputStream in = compressed ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        Summary summary = new Summary();
+        summary.compressed = compressed;
+        store.runInTransaction(() -> {
+            if (replace) {
+                store.deleteAll();
+            }
+            readRecords(store, reader, summary, progress);
+        });
+        summary.durationMs = System.currentTimeMillis() - start;
+        return summary;
+    }
+
+    private static void readRecords(WorkoutStore store, BufferedReader reader, Summary summary, Progress progress)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        List<WorkoutStore.ExerciseRow> exercises = new ArrayList<>();
+        List<WorkoutStore.WorkoutRow> workouts = new ArrayList<>();
+        List<WorkoutStore.SetRow> sets = new ArrayList<>();
+        JSONObject footer = null;
+        long lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (footer != null) {
+                throw new IOException("Unexpected data after the summary on line " + lineNumber);
+            }
+
+            JSONObject record;
+            try {
+                record = new JSONObject(line);
+            } catch (JSONException e) {
+                throw new IOException("Malformed record on line " + lineNumber, e);
+            }
+            String table = record.optString("table", "");
+            if (lineNumber == 1) {
+                if (!TABLE_METADATA.equals(table) || !FORMAT.equals(record.optString("format", null))) {
+                    throw new IOException("Not a GymTracker backup");
+                }
+                if (record.optInt("version", 0) > VERSION) {
+                    throw new IOException("Backup version " + record.optInt("version", 0) + " is newer than "
+                            + VERSION);
+                }
+            } else if (TABLE_SUMMARY.equals(table)) {
+                footer = record;
+                continue;
+            }
+
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            crc.update(bytes, 0, bytes.length);
+            crc.update('\n');
+            summary.bytes += bytes.length + 1;
+
+            try {
+                switch (table) {
+                    case TABLE_METADATA:
+                        break;
+                    case TABLE_EXERCISES:
+                        exercises.add(parseExercise(record));
+                        if (exercises.size() == IMPORT_CHUNK_SIZE) {
+                            store.saveExercises(exercises);
+                            exercises.clear();
+                        }
+                        report(progress, table, ++summary.exercises);
+                        break;
+                    case TABLE_WORKOUTS:
+                        workouts.add(parseWorkout(record));
+                        if (workouts.size() == IMPORT_CHUNK_SIZE) {
+                            store.insertWorkouts(workouts);
+                            workouts.clear();
+                        }
+                        report(progress, table, ++summary.workouts);
+                        break;
+                    case TABLE_SETS:
+                        sets.add(parseSet(record));
+                        if (sets.size() == IMPORT_CHUNK_SIZE) {
+                            store.insertSets(sets);
+                            sets.clear();
+                        }
+                        report(progress, table, ++summary.sets);
+                        break;
+                    default:
+                        throw new IOException("Unknown table '" + table + "' on line " + lineNumber);
+                }
+            } catch (JSONException e) {
+                throw new IOException("Invalid " + table + " record on line " + lineNumber, e);
+            }
+        }
+
+        if (footer == null) {
+            throw new IOException("Backup is truncated, the summary line is missing");
+        }
+        if (footer.optLong("crc32", -1) != crc.getValue()) {
+            throw new IOException("Backup checksum does not match");
+        }
+        if (footer.optLong("exercises", -1) != summary.exercises || footer.optLong("workouts", -1) != summary.workouts
+                || footer.optLong("workout_sets", -1) != summary.sets) {
+            throw new IOException("Backup record counts do not match its summary");
+        }
+
+        store.saveExercises(exercises);
+        store.insertWorkouts(workouts);
+        store.insertSets(sets);
+    }
+
+    private static boolean isGzip(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == 0x1f && second == 0x8b;
+    }
+
+    private static WorkoutStore.ExerciseRow parseExercise(JSONObject record) throws JSONException {
+        WorkoutStore.ExerciseRow row = new WorkoutStore.ExerciseRow();
+        row.id = record.getString("id");
+        row.name = record.optString("name", row.id);
+        row.category = optString(record, "category");
+        row.data = optString(record, "data");
+        row.updatedAt = record.optLong("updated_at", 0);
+        return row;
+    }
+
+    private static WorkoutStore.WorkoutRow parseWorkout(JSONObject record) throws JSONException {
+        WorkoutStore.WorkoutRow row = new WorkoutStore.WorkoutRow();
+        row.id = record.getString("id");
+        row.userId = optString(record, "user_id");
+        row.name = optString(record, "name");
+        row.completed = record.optBoolean("is_completed", false);
+        row.startedAt = record.optLong("started_at", -1);
+        row.completedAt = record.optLong("completed_at", -1);
+        row.totalVolume = record.optDouble("total_volume", 0);
+        row.data = optString(record, "data");
+        row.updatedAt = record.optLong("updated_at", 0);
+        return row;
+    }
+
+    private static WorkoutStore.SetRow parseSet(JSONObject record) throws JSONException {
+        WorkoutStore.SetRow row = new WorkoutStore.SetRow();
+        row.id = record.getString("id");
+        row.workoutId = record.getString("workout_id");
+        row.exerciseId = record.getString("exercise_id");
+        row.setNumber = record.optInt("set_number", 1);
+        row.type = optString(record, "type");
+        row.weight = record.optDouble("weight", 0);
+        row.reps = record.optInt("reps", 0);
+        row.rpe = record.optDouble("rpe", Double.NaN);
+        row.restTime = record.optLong("rest_time", -1);
+        row.completed = record.optBoolean("completed", false);
+        row.completedAt = record.optLong("completed_at", -1);
+        row.notes = optString(record, "notes");
+        return row;
+    }
+
+    // optString(name, null) would turn an explicit null into "null"
+    private static String optString(JSONObject record, String name) {
+        return record.isNull(name) ? null : record.optString(name, null);
+    }
+
+    private static void report(Progress progress, String table, long records) {
+        if (progress != null && records % PROGRESS_INTERVAL == 0) {
+            progress.onProgress(table, records);
+        }
+    }
+
+    // Absent values are left out of the line, as in WorkoutStorePlugin
+    private static void appendString(StringBuilder line, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        line.append(",\"").append(name).append("\":");
+        appendQuoted(line, value);
+    }
+
+    private static void appendLong(StringBuilder line, String name, long value) {
+        line.append(",\"").append(name).append("\":").append(value);
+    }
+
+    private static void appendTimestamp(StringBuilder line, String name, long value) {
+        if (value >= 0) {
+            appendLong(line, name, value);
+        }
+    }
+
+    private static void appendDouble(StringBuilder line, String name, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        line.append(",\"").append(name).append("\":");
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            line.append((long) value);
+        } else {
+            line.append(value);
+        }
+    }
+
+    static void appendQuoted(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    // Line and paragraph separators are legal JSON but break line-based readers in JS
+                    if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                        line.append(String.format(Locale.US, "\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+
+    // One reusable line buffer, encoded and checksummed as each line is finished
+    private static class LineWriter {
+        final StringBuilder line = new StringBuilder(512);
+        final CRC32 crc = new CRC32();
+        final OutputStream out;
+        long bytes;
+
+        LineWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        void endLine() throws IOException {
+            line.append('\n');
+            byte[] encoded = line.toString().getBytes(StandardCharsets.UTF_8);
+            crc.update(encoded, 0, encoded.length);
+            out.write(encoded);
+            bytes += encoded.length;
+            line.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.gymtracker.app;
+
+import android.net.Uri;
+import androidx.core.content.FileProvider;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+// Backups are written under the cache directory, which file_paths.xml already exposes through the
+// FileProvider, so the returned uri can go straight to a share sheet or the Storage Access Framework.
+// Progress is reported as "backupProgress" events every 10k records. Exports and imports run one at a time on
+// the plugin's own thread, a million sets would otherwise hold up every other plugin call for their duration.
+@CapacitorPlugin(name = "Backup")
+public class BackupPlugin extends Plugin {
+    private static final String BACKUP_DIRECTORY = "backups";
+
+    private WorkoutStore store;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Backup");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    @Override
+    public void load() {
+        store = WorkoutStore.getInstance(getContext());
+    }
+
+    // A backup in progress still finishes
+    @Override
+    protected void handleOnDestroy() {
+        executor.shutdown();
+    }
+
+    @PluginMethod
+    public void exportHistory(PluginCall call) {
+        boolean compress = call.getBoolean("compress", true);
+        String fileName = call.getString("fileName",
+                "gymtracker-backup-" + System.currentTimeMillis() + (compress ? ".ndjson.gz" : ".ndjson"));
+        if (fileName.contains("/") || fileName.startsWith(".")) {
+            call.reject("fileName must be a plain file name");
+            return;
+        }
+
+        File file = new File(new File(getContext().getCacheDir(), BACKUP_DIRECTORY), fileName);
+        executor.execute(() -> {
+            try {
+                BackupEngine.Summary summary = BackupEngine.export(store, file, compress, this::notifyProgress);
+                JSObject result = toJson(summary);
+                result.put("path", file.getAbsolutePath());
+                result.put("uri", FileProvider.getUriForFile(getContext(),
+                        getContext().getPackageName() + ".fileprovider", file).toString());
+                result.put("fileBytes", file.length());
+                call.resolve(result);
+            } catch (IOException | RuntimeException e) {
+                call.reject("Failed to export workout history", e);
+            }
+        });
+    }
+
+    // Takes a path from exportHistory or a content:// uri from a document picker
+    @PluginMethod
+    public void importHistory(PluginCall call) {
+        String path = call.getString("path");
+        String uri = call.getString("uri");
+        if (path == null && uri == null) {
+            call.reject("path or uri is required");
+            return;
+        }
+        boolean replace = call.getBoolean("replace", false);
+
+        executor.execute(() -> {
+            try (InputStream in = path != null
+                    ? new FileInputStream(path)
+                    : getContext().getContentResolver().openInputStream(Uri.parse(uri))) {
+                if (in == null) {
+                    call.reject("Cannot open " + uri);
+                    return;
+                }
+                call.resolve(toJson(BackupEngine.restore(store, in, replace, this::notifyProgress)));
+            } catch (IOException | RuntimeException e) {
+                // The import runs in one transaction, so nothing from the file was kept
+                call.reject("Failed to import workout history: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    private void notifyProgress(String table, long records) {
+        JSObject event = new JSObject();
+        event.put("table", table);
+        event.put("records", records);
+        notifyListeners("backupProgress", event);
+    }
+
+    private static JSObject toJson(BackupEngine.Summary summary) {
+        JSObject result = new JSObject();
+        result.put("exercises", summary.exercises);
+        result.put("workouts", summary.workouts);
+        result.put("sets", summary.sets);
+        result.put("bytes", summary.bytes);
+        result.put("compressed", summary.compressed);
+        result.put("durationMs", summary.durationMs);
+        return result;
+    }
+}
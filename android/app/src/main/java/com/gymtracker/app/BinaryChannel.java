@@ -0,0 +1,103 @@
+package com.gymtracker.app;
+
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.WebView;
+import androidx.webkit.WebMessageCompat;
+import androidx.webkit.WebMessagePortCompat;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+// A MessageChannel between native code and the page for bulk data. Frames from BinaryFrameWriter arrive in
+// JS as ArrayBuffers, with no JSON or base64 step. The JS end is handed over in a window message whose
+// data is HANDSHAKE, the page asks for it through BinaryChannelPlugin.open after every load.
+public class BinaryChannel {
+    private static final String TAG = "BinaryChannel";
+
+    public static final String HANDSHAKE = "gymtracker:binary-channel";
+
+    private static final BinaryChannel instance = new BinaryChannel();
+
+    private final AtomicInteger nextStreamId = new AtomicInteger(1);
+
+    private WebView webView;
+    // Native end of the current channel, replaced on every connect
+    private volatile WebMessagePortCompat port;
+
+    public static BinaryChannel getInstance() {
+        return instance;
+    }
+
+    public static boolean isSupported() {
+        return WebViewFeature.isFeatureSupported(WebViewFeature.CREATE_WEB_MESSAGE_CHANNEL)
+                && WebViewFeature.isFeatureSupported(WebViewFeature.POST_WEB_MESSAGE)
+                && WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_PORT_POST_MESSAGE)
+                && WebViewFeature.isFeatureSupported(WebViewFeature.WEB_MESSAGE_ARRAY_BUFFER);
+    }
+
+    // Called from MainActivity once the bridge has its WebView
+    public void attach(WebView webView) {
+        this.webView = webView;
+    }
+
+    public void detach() {
+        closePort();
+        webView = null;
+    }
+
+    // Must run on the main thread. A reload leaves the old JS port dead, so each call starts a new channel.
+    // The port is only handed to a page of the app's own origin, not to whatever the WebView navigated to.
+    public boolean connect(Uri origin) {
+        if (webView == null || !isSupported()) {
+            return false;
+        }
+        closePort();
+        try {
+            WebMessagePortCompat[] ports = WebViewCompat.createWebMessageChannel(webView);
+            WebViewCompat.postWebMessage(webView, new WebMessageCompat(HANDSHAKE, new WebMessagePortCompat[] {ports[1]}),
+                    origin);
+            port = ports[0];
+            return true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not open binary channel", e);
+            return false;
+        }
+    }
+
+    public boolean isConnected() {
+        return port != null;
+    }
+
+    public int newStreamId() {
+        return nextStreamId.getAndIncrement();
+    }
+
+    // Safe from any thread, the frame is handed to the renderer without touching the main thread
+    public boolean send(byte[] frame) {
+        WebMessagePortCompat current = port;
+        if (current == null) {
+            return false;
+        }
+        try {
+            current.postMessage(new WebMessageCompat(frame));
+            return true;
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Binary frame dropped", e);
+            return false;
+        }
+    }
+
+    private void closePort() {
+        WebMessagePortCompat current = port;
+        port = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (RuntimeException e) {
+                // Already closed with its page
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.gymtracker.app;
+
+import android.net.Uri;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.ArrayList;
+import java.util.List;
+
+
+// Bulk reads go out over BinaryChannel, the call itself only resolves with a summary. JS picks the stream
+// id and listens for it before calling, since frames and the resolve travel on different paths.
+@CapacitorPlugin(name = "BinaryChannel")
+public class BinaryChannelPlugin extends Plugin {
+    // Keeps single messages around 1 MB for a typical set row
+    static final int ROWS_PER_FRAME = 16384;
+
+    private BinaryChannel channel;
+
+    @Override
+    public void load() {
+        channel = BinaryChannel.getInstance();
+    }
+
+    @PluginMethod
+    public void open(PluginCall call) {
+        getBridge().executeOnMainThread(() -> {
+            JSObject result = new JSObject();
+            result.put("connected", channel.connect(Uri.parse(getBridge().getLocalUrl())));
+            result.put("handshake", BinaryChannel.HANDSHAKE);
+            call.resolve(result);
+        });
+    }
+
+    // Columns: id, exerciseId, setNumber, weight, reps, rpe (NaN for none), restTime, completed, completedAt
+    @PluginMethod
+    public void streamWorkoutSets(PluginCall call) {
+        JSArray workoutIds = call.getArray("workoutIds");
+        if (workoutIds == null) {
+            call.reject("workoutIds is required");
+            return;
+        }
+        if (!channel.isConnected()) {
+            call.reject("Binary channel is not open");
+            return;
+        }
+
+        WorkoutStore store = WorkoutStore.getInstance(getContext());
+        List<WorkoutStore.SetRow> sets = new ArrayList<>();
+        for (int i = 0; i < workoutIds.length(); i++) {
+            String workoutId = workoutIds.optString(i, null);
+            if (workoutId != null) {
+                sets.addAll(store.getWorkoutSets(workoutId));
+            }
+        }
+
+        int streamId = call.getInt("streamId", channel.newStreamId());
+        int frames = 0;
+        long bytes = 0;
+        int from = 0;
+        do {
+            int to = Math.min(sets.size(), from + ROWS_PER_FRAME);
+            byte[] frame = encodeSets(streamId, frames, sets, from, to, to == sets.size());
+            if (!channel.send(frame)) {
+                call.reject("Binary channel closed");
+                return;
+            }
+            frames++;
+            bytes += frame.length;
+            from = to;
+        } while (from < sets.size());
+
+        call.resolve(summary(streamId, frames, sets.size(), bytes));
+    }
+
+    // On-device comparison with the JSON bridge: the same float64 payload either as frames or as a result array
+    @PluginMethod
+    public void benchmark(PluginCall call) {
+        int bytes = call.getInt("bytes", 1 << 20);
+        String via = call.getString("via", "channel");
+        int values = Math.max(1, bytes / 8);
+        double[] payload = new double[values];
+        for (int i = 0; i < values; i++) {
+            payload[i] = i * 0.25;
+        }
+
+        if ("bridge".equals(via)) {
+            JSArray array = new JSArray();
+            for (double value : payload) {
+                array.put((Object) value);
+            }
+            JSObject result = new JSObject();
+            result.put("values", array);
+            call.resolve(result);
+            return;
+        }
+
+        if (!channel.isConnected()) {
+            call.reject("Binary channel is not open");
+            return;
+        }
+        int streamId = call.getInt("streamId", channel.newStreamId());
+        int valuesPerFrame = ROWS_PER_FRAME * 8;
+        int frames = 0;
+        long sent = 0;
+        for (int from = 0; from < values; from += valuesPerFrame) {
+            int count = Math.min(valuesPerFrame, values - from);
+            double[] chunk = new double[count];
+            System.arraycopy(payload, from, chunk, 0, count);
+            byte[] frame = new BinaryFrameWriter(streamId, frames, count)
+                    .addFloat64("values", chunk)
+                    .finish(from + count == values);
+            if (!channel.send(frame)) {
+                call.reject("Binary channel closed");
+                return;
+            }
+            frames++;
+            sent += frame.length;
+        }
+        call.resolve(summary(streamId, frames, values, sent));
+    }
+
+    static byte[] encodeSets(int streamId, int sequence, List<WorkoutStore.SetRow> sets, int from, int to,
+                             boolean last) {
+        int rows = to - from;
+        String[] ids = new String[rows];
+        String[] exerciseIds = new String[rows];
+        int[] setNumbers = new int[rows];
+        double[] weights = new double[rows];
+        int[] reps = new int[rows];
+        double[] rpe = new double[rows];
+        double[] restTimes = new double[rows];
+        byte[] completed = new byte[rows];
+        double[] completedAt = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            WorkoutStore.SetRow set = sets.get(from + i);
+            ids[i] = set.id;
+            exerciseIds[i] = set.exerciseId;
+            setNumbers[i] = set.setNumber;
+            weights[i] = set.weight;
+            reps[i] = set.reps;
+            rpe[i] = set.rpe;
+            restTimes[i] = set.restTime;
+            completed[i] = (byte) (set.completed ? 1 : 0);
+            completedAt[i] = set.completedAt;
+        }
+
+        return new BinaryFrameWriter(streamId, sequence, rows)
+                .addStrings("id", ids)
+                .addStrings("exerciseId", exerciseIds)
+                .addInt32("setNumber", setNumbers)
+                .addFloat64("weight", weights)
+                .addInt32("reps", reps)
+                .addFloat64("rpe", rpe)
+                .addFloat64("restTime", restTimes)
+                .addUint8("completed", completed)
+                .addFloat64("completedAt", completedAt)
+                .finish(last);
+    }
+
+    private static JSObject summary(int streamId, int frames, int rows, long bytes) {
+        JSObject result = new JSObject();
+        result.put("streamId", streamId);
+        result.put("frames", frames);
+        result.put("rows", rows);
+        result.put("bytes", bytes);
+        return result;
+    }
+}
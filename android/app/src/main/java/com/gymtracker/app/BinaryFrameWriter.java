@@ -0,0 +1,181 @@
+package com.gymtracker.app;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+
+// Builds one columnar frame for BinaryChannel. Little-endian, and every column starts on an 8-byte
+// boundary so JS can wrap it in a typed array without copying. Layout, mirrored in src/utils/binaryChannel.ts:
+//
+//   header   u32 magic "GTBF", u32 frame length, u8 version, u8 flags, u16 column count,
+//            u32 row count, u32 stream id, u32 sequence                              (24 bytes)
+//   column   u8 type, u8 name length, u16 reserved, u32 data length, name, pad to 8, data, pad to 8
+//
+// String columns hold row count + 1 int32 offsets into the UTF-8 bytes that follow them.
+public class BinaryFrameWriter {
+    public static final int MAGIC = 0x46425447;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 24;
+
+    public static final int FLAG_LAST = 1;
+
+    public static final int TYPE_FLOAT64 = 1;
+    public static final int TYPE_FLOAT32 = 2;
+    public static final int TYPE_INT32 = 3;
+    public static final int TYPE_UINT8 = 4;
+    public static final int TYPE_STRING = 5;
+
+    private static class Column {
+        final int type;
+        final byte[] name;
+        final Object values;
+        // UTF-8 bytes of string columns, encoded once when the column is added
+        final byte[][] strings;
+        final int dataLength;
+
+        Column(int type, byte[] name, Object values, byte[][] strings, int dataLength) {
+            this.type = type;
+            this.name = name;
+            this.values = values;
+            this.strings = strings;
+            this.dataLength = dataLength;
+        }
+    }
+
+    private final int streamId;
+    private final int sequence;
+    private final int rowCount;
+    private final List<Column> columns = new ArrayList<>();
+
+    public BinaryFrameWriter(int streamId, int sequence, int rowCount) {
+        this.streamId = streamId;
+        this.sequence = sequence;
+        this.rowCount = rowCount;
+    }
+
+    public BinaryFrameWriter addFloat64(String name, double[] values) {
+        checkLength(values.length);
+        return add(new Column(TYPE_FLOAT64, encodeName(name), values, null, rowCount * 8));
+    }
+
+    public BinaryFrameWriter addFloat32(String name, float[] values) {
+        checkLength(values.length);
+        return add(new Column(TYPE_FLOAT32, encodeName(name), values, null, rowCount * 4));
+    }
+
+    public BinaryFrameWriter addInt32(String name, int[] values) {
+        checkLength(values.length);
+        return add(new Column(TYPE_INT32, encodeName(name), values, null, rowCount * 4));
+    }
+
+    public BinaryFrameWriter addUint8(String name, byte[] values) {
+        checkLength(values.length);
+        return add(new Column(TYPE_UINT8, encodeName(name), values, null, rowCount));
+    }
+
+    // Null entries come out as empty strings
+    public BinaryFrameWriter addStrings(String name, String[] values) {
+        checkLength(values.length);
+        byte[][] strings = new byte[rowCount][];
+        int length = (rowCount + 1) * 4;
+        for (int i = 0; i < rowCount; i++) {
+            strings[i] = values[i] == null ? new byte[0] : values[i].getBytes(StandardCharsets.UTF_8);
+            length += strings[i].length;
+        }
+        return add(new Column(TYPE_STRING, encodeName(name), null, strings, length));
+    }
+
+    public int size() {
+        int size = HEADER_SIZE;
+        for (Column column : columns) {
+            size += align(8 + column.name.length) + align(column.dataLength);
+        }
+        return size;
+    }
+
+    public byte[] finish(boolean last) {
+        byte[] frame = new byte[size()];
+        ByteBuffer buffer = ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(frame.length);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) (last ? FLAG_LAST : 0));
+        buffer.putShort((short) columns.size());
+        buffer.putInt(rowCount);
+        buffer.putInt(streamId);
+        buffer.putInt(sequence);
+
+        for (Column column : columns) {
+            int start = buffer.position();
+            buffer.put((byte) column.type);
+            buffer.put((byte) column.name.length);
+            buffer.putShort((short) 0);
+            buffer.putInt(column.dataLength);
+            buffer.put(column.name);
+            buffer.position(start + align(8 + column.name.length));
+
+            int dataStart = buffer.position();
+            writeData(buffer, column);
+            buffer.position(dataStart + align(column.dataLength));
+        }
+        return frame;
+    }
+
+    private void writeData(ByteBuffer buffer, Column column) {
+        switch (column.type) {
+            case TYPE_FLOAT64:
+                buffer.asDoubleBuffer().put((double[]) column.values, 0, rowCount);
+                break;
+            case TYPE_FLOAT32:
+                buffer.asFloatBuffer().put((float[]) column.values, 0, rowCount);
+                break;
+            case TYPE_INT32:
+                buffer.asIntBuffer().put((int[]) column.values, 0, rowCount);
+                break;
+            case TYPE_UINT8:
+                buffer.put((byte[]) column.values, 0, rowCount);
+                break;
+            default: {
+                int offset = 0;
+                buffer.putInt(0);
+                for (byte[] string : column.strings) {
+                    offset += string.length;
+                    buffer.putInt(offset);
+                }
+                for (byte[] string : column.strings) {
+                    buffer.put(string);
+                }
+                break;
+            }
+        }
+    }
+
+    private BinaryFrameWriter add(Column column) {
+        if (columns.size() == 0xFFFF) {
+            throw new IllegalStateException("Too many columns");
+        }
+        columns.add(column);
+        return this;
+    }
+
+    private void checkLength(int length) {
+        if (length < rowCount) {
+            throw new IllegalArgumentException("Column has " + length + " values, the frame has " + rowCount + " rows");
+        }
+    }
+
+    private static byte[] encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 255) {
+            throw new IllegalArgumentException("Column name too long: " + name);
+        }
+        return bytes;
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+}
@@ -0,0 +1,134 @@
+package com.gymtracker.app;
+
+import android.graphics.Bitmap;
+import java.util.Iterator;
+import java.util.LinkedList;
+
+
+// Size-bounded pool of mutable bitmaps for the photo pipeline. Decodes reuse a pooled allocation through
+// inBitmap and the scaled output is drawn into one, so processing a batch of photos does not allocate and
+// collect a multi-megabyte bitmap per image. Trimmed together with the media memory cache.
+public class BitmapPool {
+    private static BitmapPool instance;
+
+    private final long maxBytes;
+    private long sizeBytes;
+
+    // Least recently released first
+    private final LinkedList<Bitmap> bitmaps = new LinkedList<>();
+
+    private long hits;
+    private long misses;
+
+    public static synchronized BitmapPool getInstance() {
+        if (instance == null) {
+            // Room for the decode and output buffers of one 12MP photo at the default photo size
+            instance = new BitmapPool(Math.min(Runtime.getRuntime().maxMemory() / 8, 32L * 1024 * 1024));
+        }
+        return instance;
+    }
+
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // A bitmap BitmapFactory can decode into, the decoder reconfigures it to the decoded size
+    public synchronized Bitmap getForDecode(int byteCount) {
+        Bitmap bitmap = takeSmallest(byteCount);
+        if (bitmap == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return bitmap;
+    }
+
+    // A cleared ARGB_8888 bitmap of exactly this size, pooled if possible
+    public Bitmap get(int width, int height) {
+        Bitmap bitmap;
+        synchronized (this) {
+            bitmap = takeSmallest(width * height * 4);
+            if (bitmap != null) {
+                hits++;
+            } else {
+                misses++;
+            }
+        }
+        if (bitmap == null) {
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        }
+        bitmap.reconfigure(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(0);
+        return bitmap;
+    }
+
+    // Bitmaps that cannot be reused, or do not fit, are recycled
+    public void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable() || bitmap.getAllocationByteCount() > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        synchronized (this) {
+            bitmaps.addLast(bitmap);
+            sizeBytes += bitmap.getAllocationByteCount();
+            evictTo(maxBytes);
+        }
+    }
+
+    public synchronized long trimToSize(long targetBytes) {
+        return evictTo(targetBytes);
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int getCount() {
+        return bitmaps.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Smallest allocation that fits wastes the least of the pool
+    private Bitmap takeSmallest(int byteCount) {
+        Bitmap best = null;
+        for (Bitmap bitmap : bitmaps) {
+            int size = bitmap.getAllocationByteCount();
+            if (size >= byteCount && (best == null || size < best.getAllocationByteCount())) {
+                best = bitmap;
+            }
+        }
+        if (best != null) {
+            bitmaps.remove(best);
+            sizeBytes -= best.getAllocationByteCount();
+        }
+        return best;
+    }
+
+    private long evictTo(long targetBytes) {
+        long freed = 0;
+        Iterator<Bitmap> iterator = bitmaps.iterator();
+        while (sizeBytes > targetBytes && iterator.hasNext()) {
+            Bitmap eldest = iterator.next();
+            int size = eldest.getAllocationByteCount();
+            iterator.remove();
+            sizeBytes -= size;
+            freed += size;
+            eldest.recycle();
+        }
+        return freed;
+    }
+}
@@ -0,0 +1,85 @@
+package com.gymtracker.app;
+
+
+// A short CPU and memory-bandwidth measurement for DeviceTierClassifier, run once on a background thread.
+// The CPU part runs four independent xorshift chains, so a wide out-of-order core gets ahead of an in-order
+// little one by more than its clock. The memory part copies a buffer well beyond any SoC cache.
+// Each part is repeated and the best round counts, the first rounds also get the loop compiled.
+public class DeviceMicroBenchmark {
+    private static final int CPU_STEPS = 1 << 19;
+    private static final int MEMORY_WORDS = 1 << 20;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    // Keeps the work from being optimized away
+    private static volatile long sink;
+
+    public static final class Result {
+        // xorshift64 steps per nanosecond, over all four chains
+        public double cpuOpsPerNano;
+        // Bytes copied per second, in MB
+        public double memoryBandwidthMbPerSecond;
+        public long durationMs;
+    }
+
+    public static Result run() {
+        long start = System.nanoTime();
+        Result result = new Result();
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long roundStart = System.nanoTime();
+            sink = cpuRound(round + 1);
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, System.nanoTime() - roundStart);
+            }
+        }
+        result.cpuOpsPerNano = 4.0 * CPU_STEPS / Math.max(1, best);
+
+        long[] source = new long[MEMORY_WORDS];
+        long[] target = new long[MEMORY_WORDS];
+        for (int i = 0; i < MEMORY_WORDS; i += 512) {
+            source[i] = i;
+        }
+        best = Long.MAX_VALUE;
+        for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+            long roundStart = System.nanoTime();
+            // Alternate directions so each round reads what the last one wrote
+            if ((round & 1) == 0) {
+                System.arraycopy(source, 0, target, 0, MEMORY_WORDS);
+            } else {
+                System.arraycopy(target, 0, source, 0, MEMORY_WORDS);
+            }
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.min(best, System.nanoTime() - roundStart);
+            }
+        }
+        sink += source[MEMORY_WORDS - 512] + target[MEMORY_WORDS / 2];
+        result.memoryBandwidthMbPerSecond = MEMORY_WORDS * 8.0 / (1024 * 1024) / (Math.max(1, best) / 1e9);
+
+        result.durationMs = (System.nanoTime() - start) / 1_000_000;
+        return result;
+    }
+
+    private static long cpuRound(long seed) {
+        long a = seed * 0x9E3779B97F4A7C15L;
+        long b = a + 1;
+        long c = a + 2;
+        long d = a + 3;
+        for (int i = 0; i < CPU_STEPS; i++) {
+            a ^= a << 13;
+            a ^= a >>> 7;
+            a ^= a << 17;
+            b ^= b << 13;
+            b ^= b >>> 7;
+            b ^= b << 17;
+            c ^= c << 13;
+            c ^= c >>> 7;
+            c ^= c << 17;
+            d ^= d << 13;
+            d ^= d >>> 7;
+            d ^= d << 17;
+        }
+        return a ^ b ^ c ^ d;
+    }
+}
@@ -0,0 +1,172 @@
+package com.gymtracker.app;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.opengl.EGL14;
+import android.opengl.EGLConfig;
+import android.opengl.EGLContext;
+import android.opengl.EGLDisplay;
+import android.opengl.EGLSurface;
+import android.opengl.GLES20;
+import android.os.Build;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+
+// The device's tier for this process. RAM and CPU frequencies are read on first use. The GPU renderer and
+// the micro-benchmark are measured once per OS build, on a background thread once the web app is ready, and
+// persisted; until then the tier is scored from what is known. The profile stays the same for the whole
+// process, caches and WebView settings are sized from it, so a first-run measurement applies from the
+// next start.
+public class DeviceTier {
+    private static final String TAG = "DeviceTier";
+    private static final String PREFERENCES = "device_tier";
+    // Bump when the measurement changes, results stored by an older version are measured again
+    private static final int MEASUREMENT_VERSION = 1;
+    private static final String CPU_DIRECTORY = "/sys/devices/system/cpu/cpu";
+
+    private static DeviceTierClassifier.Signals signals;
+    private static DeviceTierClassifier.Classification classification;
+    private static boolean measuring;
+
+    public static synchronized DeviceTierClassifier.Classification getClassification(Context context) {
+        if (classification == null) {
+            signals = readSignals(context.getApplicationContext());
+            classification = DeviceTierClassifier.classify(signals);
+            Log.i(TAG, "Device tier " + classification.tier + ", score " + classification.score
+                    + (isMeasured() ? "" : " before the first-run measurement"));
+        }
+        return classification;
+    }
+
+    public static DeviceTierClassifier.Profile getProfile(Context context) {
+        return DeviceTierClassifier.profileFor(getClassification(context).tier);
+    }
+
+    // The signals the tier in effect was scored from
+    public static synchronized DeviceTierClassifier.Signals getSignals(Context context) {
+        getClassification(context);
+        return signals;
+    }
+
+    // Whether the tier in effect includes the GPU and the micro-benchmark
+    public static synchronized boolean isMeasured() {
+        return signals != null && signals.cpuOpsPerNano > 0;
+    }
+
+    // Starts the first-run measurement unless this OS build has one stored
+    public static void measureIfNeeded(Context context) {
+        final Context appContext = context.getApplicationContext();
+        synchronized (DeviceTier.class) {
+            getClassification(appContext);
+            if (measuring || isMeasured()) {
+                return;
+            }
+            measuring = true;
+        }
+
+        // Normal priority on purpose, a background thread would be measured on the little cores
+        Thread thread = new Thread(() -> {
+            String gpuRenderer = readGpuRenderer();
+            DeviceMicroBenchmark.Result result = DeviceMicroBenchmark.run();
+            preferences(appContext).edit()
+                    .putString("fingerprint", Build.FINGERPRINT)
+                    .putInt("version", MEASUREMENT_VERSION)
+                    .putString("gpuRenderer", gpuRenderer)
+                    .putFloat("cpuOpsPerNano", (float) result.cpuOpsPerNano)
+                    .putFloat("memoryBandwidthMbPerSecond", (float) result.memoryBandwidthMbPerSecond)
+                    .apply();
+            Log.i(TAG, String.format("Measured in %dms: %.2f ops/ns, %.0f MB/s, GPU %s", result.durationMs,
+                    result.cpuOpsPerNano, result.memoryBandwidthMbPerSecond, gpuRenderer));
+        }, "DeviceTierBenchmark");
+        thread.start();
+    }
+
+    private static DeviceTierClassifier.Signals readSignals(Context context) {
+        DeviceTierClassifier.Signals signals = new DeviceTierClassifier.Signals();
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
+        activityManager.getMemoryInfo(memoryInfo);
+        signals.totalRamMb = memoryInfo.totalMem / (1024 * 1024);
+        signals.lowRamDevice = activityManager.isLowRamDevice();
+        signals.coreMaxFreqKhz = readCoreMaxFreqKhz();
+
+        SharedPreferences preferences = preferences(context);
+        if (Build.FINGERPRINT.equals(preferences.getString("fingerprint", null))
+                && preferences.getInt("version", 0) == MEASUREMENT_VERSION) {
+            signals.gpuRenderer = preferences.getString("gpuRenderer", null);
+            signals.cpuOpsPerNano = preferences.getFloat("cpuOpsPerNano", 0);
+            signals.memoryBandwidthMbPerSecond = preferences.getFloat("memoryBandwidthMbPerSecond", 0);
+        }
+        return signals;
+    }
+
+    private static SharedPreferences preferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+
+    // Every present core, offline ones included: availableProcessors only counts the cores online right now
+    private static long[] readCoreMaxFreqKhz() {
+        int cores = 0;
+        while (new File(CPU_DIRECTORY + cores).isDirectory()) {
+            cores++;
+        }
+        cores = Math.max(cores, Runtime.getRuntime().availableProcessors());
+        long[] maxFreqKhz = new long[cores];
+        for (int i = 0; i < cores; i++) {
+            try (BufferedReader reader = new BufferedReader(
+                    new FileReader(CPU_DIRECTORY + i + "/cpufreq/cpuinfo_max_freq"))) {
+                maxFreqKhz[i] = Long.parseLong(reader.readLine().trim());
+            } catch (IOException | NumberFormatException | NullPointerException e) {
+                maxFreqKhz[i] = 0;
+            }
+        }
+        return maxFreqKhz;
+    }
+
+    // GL_RENDERER from a throwaway 1x1 pbuffer context, null when the driver will not make one
+    private static String readGpuRenderer() {
+        EGLDisplay display = EGL14.eglGetDisplay(EGL14.EGL_DEFAULT_DISPLAY);
+        int[] version = new int[2];
+        if (display == EGL14.EGL_NO_DISPLAY || !EGL14.eglInitialize(display, version, 0, version, 1)) {
+            return null;
+        }
+        EGLContext context = EGL14.EGL_NO_CONTEXT;
+        EGLSurface surface = EGL14.EGL_NO_SURFACE;
+        try {
+            int[] configAttributes = {
+                    EGL14.EGL_RENDERABLE_TYPE, EGL14.EGL_OPENGL_ES2_BIT,
+                    EGL14.EGL_SURFACE_TYPE, EGL14.EGL_PBUFFER_BIT,
+                    EGL14.EGL_NONE
+            };
+            EGLConfig[] configs = new EGLConfig[1];
+            int[] configCount = new int[1];
+            if (!EGL14.eglChooseConfig(display, configAttributes, 0, configs, 0, 1, configCount, 0)
+                    || configCount[0] == 0) {
+                return null;
+            }
+            context = EGL14.eglCreateContext(display, configs[0], EGL14.EGL_NO_CONTEXT,
+                    new int[] {EGL14.EGL_CONTEXT_CLIENT_VERSION, 2, EGL14.EGL_NONE}, 0);
+            surface = EGL14.eglCreatePbufferSurface(display, configs[0],
+                    new int[] {EGL14.EGL_WIDTH, 1, EGL14.EGL_HEIGHT, 1, EGL14.EGL_NONE}, 0);
+            if (context == EGL14.EGL_NO_CONTEXT || surface == EGL14.EGL_NO_SURFACE
+                    || !EGL14.eglMakeCurrent(display, surface, surface, context)) {
+                return null;
+            }
+            return GLES20.glGetString(GLES20.GL_RENDERER);
+        } finally {
+            EGL14.eglMakeCurrent(display, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_SURFACE, EGL14.EGL_NO_CONTEXT);
+            if (surface != EGL14.EGL_NO_SURFACE) {
+                EGL14.eglDestroySurface(display, surface);
+            }
+            if (context != EGL14.EGL_NO_CONTEXT) {
+                EGL14.eglDestroyContext(display, context);
+            }
+            // The display is shared with the UI's hardware renderer, it is not terminated
+        }
+    }
+}
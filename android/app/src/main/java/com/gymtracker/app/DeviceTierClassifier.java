@@ -0,0 +1,280 @@
+package com.gymtracker.app;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+// Scores a device from what it is (RAM, CPU clusters, GPU) and what it measured (DeviceMicroBenchmark) and
+// puts it into a tier, each tier with its own WebView, cache, prefetch and animation profile. Pure Java,
+// DeviceTier collects the signals and keeps the result.
+public class DeviceTierClassifier {
+    public enum Tier { LOW, MID, HIGH }
+
+    // Out of 100: RAM 30, CPU topology 20, GPU 20, micro-benchmark 30. Missing signals are left out and the
+    // score is scaled to what is known.
+    private static final int RAM_POINTS = 30;
+    private static final int TOPOLOGY_POINTS = 20;
+    private static final int GPU_POINTS = 20;
+    private static final int BENCHMARK_POINTS = 30;
+    private static final int MID_SCORE = 40;
+    private static final int HIGH_SCORE = 70;
+    // Below these the tier is capped whatever the rest scores, the WebView alone needs a few hundred MB
+    private static final long LOW_RAM_CAP_MB = 2 * 1024 + 512;
+    private static final long MID_RAM_CAP_MB = 4 * 1024 - 512;
+    // A single cluster at this clock is made of big cores (emulators, some tablets), below it of little ones
+    private static final long SINGLE_CLUSTER_BIG_KHZ = 2_000_000;
+
+    private static final Pattern ADRENO = Pattern.compile("adreno[^0-9]*([0-9]{3})");
+    private static final Pattern MALI = Pattern.compile("mali-?([gt])?([0-9]{2,3})");
+
+    public static final class Signals {
+        public long totalRamMb;
+        public boolean lowRamDevice;
+        // Max frequency of every core, 0 where it could not be read
+        public long[] coreMaxFreqKhz = new long[0];
+        // GL_RENDERER, null when no GL context could be made
+        public String gpuRenderer;
+        // From DeviceMicroBenchmark, 0 when it has not run
+        public double cpuOpsPerNano;
+        public double memoryBandwidthMbPerSecond;
+    }
+
+    public static final class Classification {
+        public final Tier tier;
+        public final int score;
+        public final int ramPoints;
+        public final int topologyPoints;
+        // -1 when the signal was missing
+        public final int gpuPoints;
+        public final int benchmarkPoints;
+        public final int bigCores;
+        public final int clusters;
+
+        Classification(Tier tier, int score, int ramPoints, int topologyPoints, int gpuPoints, int benchmarkPoints,
+                int bigCores, int clusters) {
+            this.tier = tier;
+            this.score = score;
+            this.ramPoints = ramPoints;
+            this.topologyPoints = topologyPoints;
+            this.gpuPoints = gpuPoints;
+            this.benchmarkPoints = benchmarkPoints;
+            this.bigCores = bigCores;
+            this.clusters = clusters;
+        }
+    }
+
+    // What a tier gets. Prefetching and animations are up to the web app, it reads them through the plugin.
+    public static final class Profile {
+        public final Tier tier;
+        public final long mediaMemoryCacheBytes;
+        public final long mediaDiskCacheBytes;
+        // Rasterizes the WebView's offscreen tiles ahead of scrolling, smoother but costs GPU memory
+        public final boolean offscreenPreRaster;
+        // Exercise videos and GIFs start without a tap
+        public final boolean autoplayMedia;
+        public final int prefetchConcurrency;
+        // "full", "reduced" or "minimal"
+        public final String animationLevel;
+
+        Profile(Tier tier, long mediaMemoryCacheBytes, long mediaDiskCacheBytes, boolean offscreenPreRaster,
+                boolean autoplayMedia, int prefetchConcurrency, String animationLevel) {
+            this.tier = tier;
+            this.mediaMemoryCacheBytes = mediaMemoryCacheBytes;
+            this.mediaDiskCacheBytes = mediaDiskCacheBytes;
+            this.offscreenPreRaster = offscreenPreRaster;
+            this.autoplayMedia = autoplayMedia;
+            this.prefetchConcurrency = prefetchConcurrency;
+            this.animationLevel = animationLevel;
+        }
+    }
+
+    private static final long MB = 1024 * 1024;
+    private static final Profile LOW_PROFILE = new Profile(Tier.LOW, 4 * MB, 50 * MB, false, false, 1, "minimal");
+    private static final Profile MID_PROFILE = new Profile(Tier.MID, 8 * MB, 100 * MB, false, true, 2, "reduced");
+    private static final Profile HIGH_PROFILE = new Profile(Tier.HIGH, 16 * MB, 200 * MB, true, true, 4, "full");
+
+    public static Profile profileFor(Tier tier) {
+        switch (tier) {
+            case LOW:
+                return LOW_PROFILE;
+            case MID:
+                return MID_PROFILE;
+            default:
+                return HIGH_PROFILE;
+        }
+    }
+
+    public static Classification classify(Signals signals) {
+        int ramPoints = ramPoints(signals.totalRamMb);
+
+        long maxKhz = 0;
+        for (long khz : signals.coreMaxFreqKhz) {
+            maxKhz = Math.max(maxKhz, khz);
+        }
+        int clusters = clusterCount(signals.coreMaxFreqKhz);
+        int bigCores = bigCoreCount(signals.coreMaxFreqKhz, maxKhz, clusters);
+        int topologyPoints = topologyPoints(maxKhz, bigCores);
+
+        int gpuPoints = signals.gpuRenderer == null ? -1 : gpuPoints(signals.gpuRenderer);
+        int benchmarkPoints = signals.cpuOpsPerNano > 0 && signals.memoryBandwidthMbPerSecond > 0
+                ? benchmarkPoints(signals.cpuOpsPerNano, signals.memoryBandwidthMbPerSecond) : -1;
+
+        int points = ramPoints + topologyPoints;
+        int possible = RAM_POINTS + TOPOLOGY_POINTS;
+        if (gpuPoints >= 0) {
+            points += gpuPoints;
+            possible += GPU_POINTS;
+        }
+        if (benchmarkPoints >= 0) {
+            points += benchmarkPoints;
+            possible += BENCHMARK_POINTS;
+        }
+        int score = Math.round(points * 100f / possible);
+
+        Tier tier = score >= HIGH_SCORE ? Tier.HIGH : score >= MID_SCORE ? Tier.MID : Tier.LOW;
+        if (signals.lowRamDevice || signals.totalRamMb < LOW_RAM_CAP_MB) {
+            tier = Tier.LOW;
+        } else if (signals.totalRamMb < MID_RAM_CAP_MB && tier == Tier.HIGH) {
+            tier = Tier.MID;
+        }
+        return new Classification(tier, score, ramPoints, topologyPoints, gpuPoints, benchmarkPoints, bigCores,
+                clusters);
+    }
+
+    static int ramPoints(long totalRamMb) {
+        if (totalRamMb < 2 * 1024) {
+            return 0;
+        } else if (totalRamMb < 3 * 1024) {
+            return 8;
+        } else if (totalRamMb < 4 * 1024) {
+            return 14;
+        } else if (totalRamMb < 6 * 1024) {
+            return 20;
+        } else if (totalRamMb < 8 * 1024) {
+            return 25;
+        }
+        return RAM_POINTS;
+    }
+
+    // Cores sharing a max frequency form a cluster
+    static int clusterCount(long[] coreMaxFreqKhz) {
+        int clusters = 0;
+        for (int i = 0; i < coreMaxFreqKhz.length; i++) {
+            if (coreMaxFreqKhz[i] <= 0) {
+                continue;
+            }
+            boolean seen = false;
+            for (int j = 0; j < i; j++) {
+                seen |= coreMaxFreqKhz[j] == coreMaxFreqKhz[i];
+            }
+            if (!seen) {
+                clusters++;
+            }
+        }
+        return clusters;
+    }
+
+    // Cores above the slowest cluster. On big.LITTLE the little cores run background work, the UI thread and
+    // the renderer get the big ones.
+    static int bigCoreCount(long[] coreMaxFreqKhz, long maxKhz, int clusters) {
+        long minKhz = Long.MAX_VALUE;
+        for (long khz : coreMaxFreqKhz) {
+            if (khz > 0) {
+                minKhz = Math.min(minKhz, khz);
+            }
+        }
+        int big = 0;
+        for (long khz : coreMaxFreqKhz) {
+            if (khz > 0 && (clusters > 1 ? khz > minKhz : maxKhz >= SINGLE_CLUSTER_BIG_KHZ)) {
+                big++;
+            }
+        }
+        return big;
+    }
+
+    static int topologyPoints(long maxKhz, int bigCores) {
+        int clockPoints;
+        if (maxKhz < 1_800_000) {
+            clockPoints = 0;
+        } else if (maxKhz < 2_200_000) {
+            clockPoints = 4;
+        } else if (maxKhz < 2_600_000) {
+            clockPoints = 7;
+        } else {
+            clockPoints = 10;
+        }
+        return clockPoints + Math.round(Math.min(bigCores, 4) * 2.5f);
+    }
+
+    // From the renderer string's family and model number. Families that are not recognised score the middle.
+    static int gpuPoints(String renderer) {
+        String name = renderer.toLowerCase(Locale.US);
+        Matcher adreno = ADRENO.matcher(name);
+        if (adreno.find()) {
+            int model = Integer.parseInt(adreno.group(1));
+            int generation = model / 100;
+            // Within a generation the last two digits rank the part, x10 to x19 are the budget ones
+            int rank = model % 100;
+            if (generation >= 7) {
+                return GPU_POINTS;
+            } else if (generation == 6) {
+                return rank >= 40 ? 18 : rank >= 20 ? 14 : 8;
+            } else if (generation == 5) {
+                return rank >= 30 ? 10 : 6;
+            }
+            return 2;
+        }
+        if (name.contains("immortalis")) {
+            return GPU_POINTS;
+        }
+        Matcher mali = MALI.matcher(name);
+        if (mali.find()) {
+            if ("t".equals(mali.group(1)) || mali.group(1) == null) {
+                // Midgard and Utgard, Mali-T8xx and Mali-400
+                return 2;
+            }
+            String model = mali.group(2);
+            int first = model.charAt(0) - '0';
+            if (model.length() == 3) {
+                // Valhall and later: G710, G610, G310
+                return first >= 7 ? 18 : first == 6 ? 12 : 4;
+            }
+            int number = Integer.parseInt(model);
+            return number >= 76 ? 16 : number >= 72 ? 12 : number >= 57 ? 10 : number >= 52 ? 6 : 3;
+        }
+        if (name.contains("xclipse")) {
+            return 16;
+        }
+        if (name.contains("powervr")) {
+            return 4;
+        }
+        return GPU_POINTS / 2;
+    }
+
+    // Compiled integer throughput and large-copy bandwidth, 15 points each. An in-order little core does about
+    // 0.3 xorshift steps per cycle over the four chains, a wide big core about twice that.
+    static int benchmarkPoints(double cpuOpsPerNano, double memoryBandwidthMbPerSecond) {
+        int cpu;
+        if (cpuOpsPerNano < 0.5) {
+            cpu = 0;
+        } else if (cpuOpsPerNano < 0.9) {
+            cpu = 5;
+        } else if (cpuOpsPerNano < 1.3) {
+            cpu = 10;
+        } else {
+            cpu = 15;
+        }
+        int memory;
+        if (memoryBandwidthMbPerSecond < 3_000) {
+            memory = 0;
+        } else if (memoryBandwidthMbPerSecond < 6_000) {
+            memory = 5;
+        } else if (memoryBandwidthMbPerSecond < 10_000) {
+            memory = 10;
+        } else {
+            memory = 15;
+        }
+        return cpu + memory;
+    }
+}
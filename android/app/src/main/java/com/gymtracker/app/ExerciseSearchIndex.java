@@ -0,0 +1,767 @@
+package com.gymtracker.app;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+
+// Search over the exercise library for the exercise picker. Names (English, Spanish, aliases) and tags (muscle
+// groups, body parts, equipment, category) are accent-folded and split into words. The distinct words are kept
+// sorted, so the words a query token starts are one binary search away, and every word is indexed by the
+// trigrams inside it for tokens typed from the middle of a word. Each word lists the exercises it appears in,
+// as doc numbers in one int array per field sliced by offsets. Every token has to match. Hits rank by where
+// the tokens matched, then by the muscle group and equipment the picker is filtered to, then by recent use.
+// Immutable apart from the use counts, rebuilt when the catalog changes.
+public class ExerciseSearchIndex {
+    public static final int DEFAULT_LIMIT = 50;
+
+    // Per query token, the best place it matched
+    static final int NAME_START = 14;
+    static final int NAME_PREFIX = 10;
+    // Tags of the exercise's main muscle group or body part, the first ones listed
+    static final int TAG_PRIMARY = 8;
+    static final int TAG_PREFIX = 6;
+    static final int NAME_INFIX = 3;
+    static final int TAG_INFIX = 2;
+    static final int MUSCLE_MATCH = 8;
+    static final int SECONDARY_MUSCLE_MATCH = 4;
+    static final int EQUIPMENT_MATCH = 5;
+    // A favourite used today gets the full boost, halved every two weeks without use
+    static final float RECENT_MAX = 8;
+    static final long RECENT_HALF_LIFE_MS = 14L * 24 * 60 * 60 * 1000;
+
+    private static final int MAX_TOKENS = 8;
+    // Shorter tokens only match names: "s" would otherwise match every exercise through "strength"
+    private static final int MIN_TAG_TOKEN = 3;
+    // a-z and 0-9
+    private static final int ALPHABET = 36;
+    private static final int TRIGRAMS = ALPHABET * ALPHABET * ALPHABET;
+
+    // Dropped unless they are the token being typed: "press de banca" finds "Press banca"
+    private static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
+            "de", "del", "la", "el", "los", "las", "con", "en", "y", "a", "al", "the", "with", "of", "and", "on"));
+
+    // Latin letters folded to a-z, 0 for everything else, which separates words
+    private static final char[] FOLD = new char[0x250];
+
+    static {
+        for (char c = 0; c < FOLD.length; c++) {
+            char base = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD).charAt(0);
+            if (base >= 'A' && base <= 'Z') {
+                base = (char) (base + ('a' - 'A'));
+            }
+            FOLD[c] = (base >= 'a' && base <= 'z') || (base >= '0' && base <= '9') ? base : 0;
+        }
+        // Letters NFD leaves alone
+        FOLD['\u00d8'] = 'o';
+        FOLD['\u00f8'] = 'o';
+        FOLD['\u0110'] = 'd';
+        FOLD['\u0111'] = 'd';
+        FOLD['\u0141'] = 'l';
+        FOLD['\u0142'] = 'l';
+    }
+
+    public static final class Exercise {
+        public String id;
+        public String name;
+        public String nameEs;
+        public String[] aliases = new String[0];
+        public String[] muscleGroups = new String[0];
+        public String[] bodyParts = new String[0];
+        public String equipment;
+        public String category;
+    }
+
+    public static final class Hit {
+        public final String id;
+        public final float score;
+
+        Hit(String id, float score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+
+    private final String[] ids;
+    private final Map<String, Integer> docById;
+    private final int[] nameLengths;
+
+    // Every distinct word of every exercise, sorted
+    private final String[] terms;
+    // Per term, the docs it appears in as doc << 1 | flag, the flagged ones first. In names the flag marks the
+    // first word of the English or Spanish name, in tags a word of the main muscle group, body part or category.
+    private final Postings namePostings;
+    // Per term, where the flagged name postings end
+    private final int[] nameStartEnds;
+    private final Postings tagPostings;
+    // Per trigram, the terms containing it, ascending
+    private final Postings termTrigrams;
+
+    // Muscle groups, body parts and category as ids into tagIds, a doc's from muscleOffsets[doc], the main
+    // ones before primaryMuscleEnds[doc]; -1 for no equipment
+    private final int[] muscleOffsets;
+    private final int[] muscleIds;
+    private final int[] primaryMuscleEnds;
+    private final int[] equipmentIds;
+    private final Map<String, Integer> tagIds = new HashMap<>();
+
+    private final int[] useCounts;
+    private final long[] lastUsedMs;
+    private boolean anyUse;
+
+    // Query scratch, one long per doc so a posting touches one slot: the query's epoch in the high half, then
+    // the tokens matched, the current token's best score and the text score so far. Stale when the epoch
+    // is not the current query's.
+    private final long[] states;
+    private final int[] complete;
+    private final int[] candidates;
+    private final int[] intersection;
+    private int epoch;
+
+    public ExerciseSearchIndex(List<Exercise> exercises) {
+        int count = exercises.size();
+        ids = new String[count];
+        docById = new HashMap<>(count * 2);
+        nameLengths = new int[count];
+        muscleOffsets = new int[count + 1];
+        primaryMuscleEnds = new int[count];
+        equipmentIds = new int[count];
+
+        List<String[]> nameWords = new ArrayList<>(count);
+        List<boolean[]> nameFlags = new ArrayList<>(count);
+        List<String[]> tagWords = new ArrayList<>(count);
+        List<boolean[]> tagFlags = new ArrayList<>(count);
+        List<Integer> muscles = new ArrayList<>();
+        Set<String> vocabulary = new TreeSet<>();
+        List<String> words = new ArrayList<>();
+        List<Boolean> flags = new ArrayList<>();
+
+        for (int doc = 0; doc < count; doc++) {
+            Exercise exercise = exercises.get(doc);
+            ids[doc] = exercise.id;
+            docById.put(exercise.id, doc);
+
+            String name = fold(exercise.name);
+            nameLengths[doc] = name.length();
+            addWords(words, flags, name, true);
+            addWords(words, flags, fold(exercise.nameEs), true);
+            for (String alias : exercise.aliases) {
+                addWords(words, flags, fold(alias), false);
+            }
+            vocabulary.addAll(words);
+            nameWords.add(words.toArray(new String[0]));
+            nameFlags.add(toArray(flags));
+            words.clear();
+            flags.clear();
+
+            muscleOffsets[doc] = muscles.size();
+            if (exercise.muscleGroups.length > 0) {
+                addTag(words, flags, muscles, exercise.muscleGroups[0], true);
+            }
+            if (exercise.bodyParts.length > 0) {
+                addTag(words, flags, muscles, exercise.bodyParts[0], true);
+            }
+            // The category is what the picker's cardio filter matches, it counts as a main tag
+            addTag(words, flags, muscles, exercise.category, true);
+            primaryMuscleEnds[doc] = muscles.size();
+            for (int i = 1; i < exercise.muscleGroups.length; i++) {
+                addTag(words, flags, muscles, exercise.muscleGroups[i], false);
+            }
+            for (int i = 1; i < exercise.bodyParts.length; i++) {
+                addTag(words, flags, muscles, exercise.bodyParts[i], false);
+            }
+            String equipment = fold(exercise.equipment);
+            equipmentIds[doc] = equipment.isEmpty() ? -1 : tagId(equipment);
+            addWords(words, flags, equipment, false);
+            vocabulary.addAll(words);
+            tagWords.add(words.toArray(new String[0]));
+            tagFlags.add(toArray(flags));
+            words.clear();
+            flags.clear();
+        }
+        muscleOffsets[count] = muscles.size();
+        muscleIds = new int[muscles.size()];
+        for (int i = 0; i < muscleIds.length; i++) {
+            muscleIds[i] = muscles.get(i);
+        }
+
+        terms = vocabulary.toArray(new String[0]);
+        Map<String, Integer> termIds = new HashMap<>(terms.length * 2);
+        for (int term = 0; term < terms.length; term++) {
+            termIds.put(terms[term], term);
+        }
+        namePostings = docPostings(terms.length, nameWords, nameFlags, termIds);
+        tagPostings = docPostings(terms.length, tagWords, tagFlags, termIds);
+        nameStartEnds = new int[terms.length];
+        for (int term = 0; term < terms.length; term++) {
+            int p = namePostings.offsets[term];
+            while (p < namePostings.offsets[term + 1] && (namePostings.values[p] & 1) != 0) {
+                p++;
+            }
+            nameStartEnds[term] = p;
+        }
+
+        Postings.Builder trigrams = new Postings.Builder(TRIGRAMS);
+        int[] lastTerm = new int[TRIGRAMS];
+        Arrays.fill(lastTerm, -1);
+        for (int term = 0; term < terms.length; term++) {
+            String word = terms[term];
+            for (int i = 0; i + 2 < word.length(); i++) {
+                int key = trigram(word, i);
+                if (lastTerm[key] != term) {
+                    lastTerm[key] = term;
+                    trigrams.add(key, term);
+                }
+            }
+        }
+        termTrigrams = trigrams.build();
+
+        useCounts = new int[count];
+        lastUsedMs = new long[count];
+        states = new long[count];
+        complete = new int[count];
+        candidates = new int[terms.length];
+        intersection = new int[terms.length];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // Size of the postings and per-doc tag arrays, for the debug overlay
+    public long postingsBytes() {
+        return namePostings.bytes() + tagPostings.bytes() + termTrigrams.bytes()
+                + 4L * (nameStartEnds.length + muscleOffsets.length + muscleIds.length + primaryMuscleEnds.length
+                        + equipmentIds.length);
+    }
+
+    public synchronized void recordUse(String id, long usedAtMs) {
+        Integer doc = docById.get(id);
+        if (doc != null) {
+            useCounts[doc]++;
+            lastUsedMs[doc] = Math.max(lastUsedMs[doc], usedAtMs);
+            anyUse = true;
+        }
+    }
+
+    public synchronized void setUse(String id, int count, long lastUsedAtMs) {
+        Integer doc = docById.get(id);
+        if (doc != null) {
+            useCounts[doc] = count;
+            lastUsedMs[doc] = lastUsedAtMs;
+            anyUse |= count > 0;
+        }
+    }
+
+    // Carries use counts over to a rebuilt index, for the exercises both have
+    public synchronized void copyUseFrom(ExerciseSearchIndex previous) {
+        synchronized (previous) {
+            for (int doc = 0; doc < previous.ids.length; doc++) {
+                if (previous.useCounts[doc] > 0) {
+                    setUse(previous.ids[doc], previous.useCounts[doc], previous.lastUsedMs[doc]);
+                }
+            }
+        }
+    }
+
+    // muscleGroup and equipment rank matching exercises higher and may be null. An empty query lists the
+    // library by those and by recent use.
+    public synchronized List<Hit> search(String query, String muscleGroup, String equipment, int limit, long nowMs) {
+        limit = Math.max(1, Math.min(limit, ids.length));
+        Integer muscle = tagIds.get(fold(muscleGroup));
+        Integer equipmentTag = tagIds.get(fold(equipment));
+        int muscleId = muscle != null ? muscle : -1;
+        int equipmentId = equipmentTag != null ? equipmentTag : -1;
+        // The most context can add: a doc whose text score is further behind the worst hit is not scored
+        float maxContext = (muscleId >= 0 ? MUSCLE_MATCH : 0) + (equipmentId >= 0 ? EQUIPMENT_MATCH : 0)
+                + (anyUse ? RECENT_MAX : 0);
+
+        String[] tokens = tokenize(query);
+        TopK top = new TopK(limit, tokens.length > 0);
+        if (tokens.length == 0) {
+            for (int doc = 0; doc < ids.length; doc++) {
+                top.offer(doc, contextScore(doc, muscleId, equipmentId, nowMs));
+            }
+            return top.hits();
+        }
+
+        epoch++;
+        int completeCount = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            boolean last = i == tokens.length - 1;
+            boolean withTags = token.length() >= MIN_TAG_TOKEN;
+            // A letter on its own lists the names starting with it, not every name with a word that does
+            boolean startsOnly = tokens.length == 1 && token.length() == 1;
+
+            // The words starting with the token are a run of the sorted terms
+            for (int term = lowerBound(terms, token); term < terms.length && terms[term].startsWith(token);
+                    term++) {
+                completeCount = matchTerm(term, i, false, withTags, startsOnly, last, completeCount);
+            }
+            if (token.length() >= 3) {
+                int found = trigramTerms(token);
+                for (int c = 0; c < found; c++) {
+                    int term = candidates[c];
+                    if (terms[term].indexOf(token, 1) > 0 && !terms[term].startsWith(token)) {
+                        completeCount = matchTerm(term, i, true, withTags, false, last, completeCount);
+                    }
+                }
+            }
+        }
+
+        for (int c = 0; c < completeCount; c++) {
+            int doc = complete[c];
+            int textScore = (int) states[doc] & 0xFFFF;
+            if (!top.isFull() || textScore + maxContext >= top.worstScore()) {
+                top.offer(doc, textScore + contextScore(doc, muscleId, equipmentId, nowMs));
+            }
+        }
+        return top.hits();
+    }
+
+    // Folded words, without stopwords unless the stopword is the last token, the one still being typed
+    static String[] tokenize(String query) {
+        String folded = fold(query);
+        if (folded.isEmpty()) {
+            return new String[0];
+        }
+        String[] words = folded.split(" ");
+        List<String> tokens = new ArrayList<>(words.length);
+        for (int i = 0; i < words.length && tokens.size() < MAX_TOKENS; i++) {
+            if (i == words.length - 1 || !STOPWORDS.contains(words[i])) {
+                tokens.add(words[i]);
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    // Lowercase a-z and 0-9 words separated by single spaces; accents dropped, other characters separate
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        boolean separated = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char folded = c < FOLD.length ? FOLD[c] : 0;
+            String expanded = null;
+            if (c == '\u00df') {
+                expanded = "ss";
+            } else if (c == '\u00e6' || c == '\u00c6') {
+                expanded = "ae";
+            } else if (c == '\u0153' || c == '\u0152') {
+                expanded = "oe";
+            }
+            if (expanded != null) {
+                out.append(expanded);
+                separated = false;
+            } else if (folded != 0) {
+                out.append(folded);
+                separated = false;
+            } else if (!separated) {
+                out.append(' ');
+                separated = true;
+            }
+        }
+        int length = out.length();
+        if (length > 0 && out.charAt(length - 1) == ' ') {
+            out.setLength(length - 1);
+        }
+        return out.toString();
+    }
+
+    // The words of folded text, the first one flagged when first is set
+    private static void addWords(List<String> words, List<Boolean> flags, String folded, boolean first) {
+        if (folded.isEmpty()) {
+            return;
+        }
+        String[] split = folded.split(" ");
+        for (int i = 0; i < split.length; i++) {
+            words.add(split[i]);
+            flags.add(first && i == 0);
+        }
+    }
+
+    private void addTag(List<String> words, List<Boolean> flags, List<Integer> muscles, String tag,
+            boolean primary) {
+        String folded = fold(tag);
+        if (folded.isEmpty()) {
+            return;
+        }
+        muscles.add(tagId(folded));
+        for (String word : folded.split(" ")) {
+            words.add(word);
+            flags.add(primary);
+        }
+    }
+
+    private int tagId(String tag) {
+        Integer id = tagIds.get(tag);
+        if (id == null) {
+            id = tagIds.size();
+            tagIds.put(tag, id);
+        }
+        return id;
+    }
+
+    private static boolean[] toArray(List<Boolean> flags) {
+        boolean[] array = new boolean[flags.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = flags.get(i);
+        }
+        return array;
+    }
+
+    // A doc once per term, flagged when any of its occurrences is. The flagged docs go first.
+    private static Postings docPostings(int termCount, List<String[]> words, List<boolean[]> flags,
+            Map<String, Integer> termIds) {
+        Postings.Builder builder = new Postings.Builder(termCount);
+        int[] lastDoc = new int[termCount];
+        int[] lastIndex = new int[termCount];
+        Arrays.fill(lastDoc, -1);
+        for (int doc = 0; doc < words.size(); doc++) {
+            String[] docWords = words.get(doc);
+            boolean[] docFlags = flags.get(doc);
+            for (int i = 0; i < docWords.length; i++) {
+                int term = termIds.get(docWords[i]);
+                int entry = doc << 1 | (docFlags[i] ? 1 : 0);
+                if (lastDoc[term] == doc) {
+                    builder.or(lastIndex[term], entry);
+                } else {
+                    lastDoc[term] = doc;
+                    lastIndex[term] = builder.add(term, entry);
+                }
+            }
+        }
+        Postings postings = builder.build();
+        int[] unflagged = new int[16];
+        for (int term = 0; term < termCount; term++) {
+            int flagged = postings.offsets[term];
+            int others = 0;
+            for (int p = postings.offsets[term]; p < postings.offsets[term + 1]; p++) {
+                int entry = postings.values[p];
+                if ((entry & 1) != 0) {
+                    postings.values[flagged++] = entry;
+                } else {
+                    if (others == unflagged.length) {
+                        unflagged = Arrays.copyOf(unflagged, others * 2);
+                    }
+                    unflagged[others++] = entry;
+                }
+            }
+            System.arraycopy(unflagged, 0, postings.values, flagged, others);
+        }
+        return postings;
+    }
+
+    // Counts token i for every doc the term appears in, in names only from the start of one when startsOnly.
+    // Returns the new number of docs every token matched.
+    private int matchTerm(int term, int token, boolean infix, boolean withTags, boolean startsOnly, boolean last,
+            int completeCount) {
+        int[] entries = namePostings.values;
+        int end = startsOnly ? nameStartEnds[term] : namePostings.offsets[term + 1];
+        for (int p = namePostings.offsets[term]; p < end; p++) {
+            int entry = entries[p];
+            int score = infix ? NAME_INFIX : (entry & 1) != 0 ? NAME_START : NAME_PREFIX;
+            completeCount = match(entry >>> 1, token, score, last, completeCount);
+        }
+        if (withTags) {
+            entries = tagPostings.values;
+            for (int p = tagPostings.offsets[term]; p < tagPostings.offsets[term + 1]; p++) {
+                int entry = entries[p];
+                int score = infix ? TAG_INFIX : (entry & 1) != 0 ? TAG_PRIMARY : TAG_PREFIX;
+                completeCount = match(entry >>> 1, token, score, last, completeCount);
+            }
+        }
+        return completeCount;
+    }
+
+    // A doc only counts for token i when it matched every token before; matching the same token again keeps
+    // the better score
+    private int match(int doc, int token, int score, boolean last, int completeCount) {
+        long state = states[doc];
+        int matched = 0;
+        int tokenScore = 0;
+        int textScore = 0;
+        if ((int) (state >>> 32) == epoch) {
+            matched = (int) (state >>> 24) & 0xFF;
+            tokenScore = (int) (state >>> 16) & 0xFF;
+            textScore = (int) state & 0xFFFF;
+        }
+
+        if (matched == token) {
+            matched++;
+            tokenScore = score;
+            textScore += score;
+            if (last) {
+                complete[completeCount++] = doc;
+            }
+        } else if (matched == token + 1 && score > tokenScore) {
+            textScore += score - tokenScore;
+            tokenScore = score;
+        } else {
+            return completeCount;
+        }
+        states[doc] = (long) epoch << 32 | matched << 24 | tokenScore << 16 | textScore;
+        return completeCount;
+    }
+
+    private float contextScore(int doc, int muscle, int equipment, long nowMs) {
+        float score = 0;
+        if (muscle >= 0) {
+            for (int i = muscleOffsets[doc]; i < muscleOffsets[doc + 1]; i++) {
+                if (muscleIds[i] == muscle) {
+                    score += i < primaryMuscleEnds[doc] ? MUSCLE_MATCH : SECONDARY_MUSCLE_MATCH;
+                    break;
+                }
+            }
+        }
+        if (equipment >= 0 && equipmentIds[doc] == equipment) {
+            score += EQUIPMENT_MATCH;
+        }
+        if (useCounts[doc] > 0) {
+            float frequency = Math.min(RECENT_MAX, 2 * (float) (Math.log(1 + useCounts[doc]) / Math.log(2)));
+            double age = Math.max(0, nowMs - lastUsedMs[doc]) / (double) RECENT_HALF_LIFE_MS;
+            score += frequency * (float) Math.pow(0.5, age);
+        }
+        return score;
+    }
+
+    // The terms holding every trigram of the token into candidates, starting from the shortest list
+    private int trigramTerms(String token) {
+        int trigramCount = token.length() - 2;
+        int shortest = -1;
+        int shortestLength = Integer.MAX_VALUE;
+        for (int i = 0; i < trigramCount; i++) {
+            int key = trigram(token, i);
+            int length = termTrigrams.offsets[key + 1] - termTrigrams.offsets[key];
+            if (length < shortestLength) {
+                shortest = key;
+                shortestLength = length;
+            }
+        }
+        if (shortestLength == 0) {
+            return 0;
+        }
+        int count = shortestLength;
+        System.arraycopy(termTrigrams.values, termTrigrams.offsets[shortest], candidates, 0, count);
+
+        for (int i = 0; i < trigramCount && count > 0; i++) {
+            int key = trigram(token, i);
+            if (key != shortest) {
+                count = intersect(candidates, count, termTrigrams.values, termTrigrams.offsets[key],
+                        termTrigrams.offsets[key + 1], intersection);
+                System.arraycopy(intersection, 0, candidates, 0, count);
+            }
+        }
+        return count;
+    }
+
+    // Sorted a[0, count) and b[from, to) into out, galloping through b
+    private static int intersect(int[] a, int count, int[] b, int from, int to, int[] out) {
+        int found = 0;
+        int j = from;
+        for (int i = 0; i < count && j < to; i++) {
+            int value = a[i];
+            if (b[j] < value) {
+                int step = 1;
+                while (j + step < to && b[j + step] < value) {
+                    j += step;
+                    step <<= 1;
+                }
+                j = lowerBound(b, j + 1, Math.min(to, j + step + 1), value);
+            }
+            if (j < to && b[j] == value) {
+                out[found++] = value;
+                j++;
+            }
+        }
+        return found;
+    }
+
+    private static int lowerBound(int[] values, int from, int to, int value) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (values[middle] < value) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    private static int lowerBound(String[] values, String value) {
+        int index = Arrays.binarySearch(values, value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static int trigram(String word, int at) {
+        return (code(word.charAt(at)) * ALPHABET + code(word.charAt(at + 1))) * ALPHABET + code(word.charAt(at + 2));
+    }
+
+    private static int code(char c) {
+        return c >= 'a' ? c - 'a' : c - '0' + 26;
+    }
+
+    // Values grouped by key: key k's are values[offsets[k], offsets[k + 1]), in the order they were added
+    static final class Postings {
+        final int[] offsets;
+        final int[] values;
+
+        Postings(int[] offsets, int[] values) {
+            this.offsets = offsets;
+            this.values = values;
+        }
+
+        long bytes() {
+            return 4L * (offsets.length + values.length);
+        }
+
+        static final class Builder {
+            private final int keyCount;
+            private int[] keys = new int[1024];
+            private int[] values = new int[1024];
+            private int size;
+
+            Builder(int keyCount) {
+                this.keyCount = keyCount;
+            }
+
+            // Returns the pair's position, for or()
+            int add(int key, int value) {
+                if (size == keys.length) {
+                    keys = Arrays.copyOf(keys, size * 2);
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                keys[size] = key;
+                values[size] = value;
+                return size++;
+            }
+
+            void or(int position, int bits) {
+                values[position] |= bits;
+            }
+
+            // A stable counting sort by key
+            Postings build() {
+                int[] offsets = new int[keyCount + 1];
+                for (int i = 0; i < size; i++) {
+                    offsets[keys[i] + 1]++;
+                }
+                for (int key = 0; key < keyCount; key++) {
+                    offsets[key + 1] += offsets[key];
+                }
+                int[] next = Arrays.copyOf(offsets, keyCount);
+                int[] sorted = new int[size];
+                for (int i = 0; i < size; i++) {
+                    sorted[next[keys[i]]++] = values[i];
+                }
+                return new Postings(offsets, sorted);
+            }
+        }
+    }
+
+    // The best hits so far in a min-heap, the worst at the root. Ties go to the shorter name when preferShort
+    // (a closer match for the same tokens), then to catalog order.
+    private final class TopK {
+        private final int[] docs;
+        private final float[] scores;
+        private final boolean preferShort;
+        private int size;
+
+        TopK(int limit, boolean preferShort) {
+            this.docs = new int[limit];
+            this.scores = new float[limit];
+            this.preferShort = preferShort;
+        }
+
+        boolean isFull() {
+            return size == docs.length;
+        }
+
+        float worstScore() {
+            return scores[0];
+        }
+
+        void offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (better(doc, score, docs[0], scores[0])) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<Hit> hits() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (x, y) -> better(docs[x], scores[x], docs[y], scores[y]) ? -1
+                    : better(docs[y], scores[y], docs[x], scores[x]) ? 1 : 0);
+            List<Hit> hits = new ArrayList<>(size);
+            for (int i : order) {
+                hits.add(new Hit(ids[docs[i]], scores[i]));
+            }
+            return hits;
+        }
+
+        private boolean better(int doc, float score, int otherDoc, float otherScore) {
+            if (score != otherScore) {
+                return score > otherScore;
+            }
+            if (preferShort && nameLengths[doc] != nameLengths[otherDoc]) {
+                return nameLengths[doc] < nameLengths[otherDoc];
+            }
+            return doc < otherDoc;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!better(docs[parent], scores[parent], docs[i], scores[i])) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (better(docs[worst], scores[worst], docs[child], scores[child])) {
+                        worst = child;
+                    }
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int doc = docs[i];
+            docs[i] = docs[j];
+            docs[j] = doc;
+            float score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
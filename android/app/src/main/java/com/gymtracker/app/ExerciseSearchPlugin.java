@@ -0,0 +1,127 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+// Field names follow src/schemas/exercise.ts, timestamps are epoch milliseconds. The web app sends the whole
+// catalog (sample exercises and database rows) whenever it changes; use counts carry over to the new index.
+@CapacitorPlugin(name = "ExerciseSearch")
+public class ExerciseSearchPlugin extends Plugin {
+    private volatile ExerciseSearchIndex index;
+
+    @PluginMethod
+    public void setExercises(PluginCall call) {
+        JSArray exercises = call.getArray("exercises");
+        if (exercises == null) {
+            call.reject("exercises is required");
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            List<ExerciseSearchIndex.Exercise> catalog = new ArrayList<>(exercises.length());
+            for (int i = 0; i < exercises.length(); i++) {
+                catalog.add(parseExercise(exercises.getJSONObject(i)));
+            }
+            ExerciseSearchIndex rebuilt = new ExerciseSearchIndex(catalog);
+            if (index != null) {
+                rebuilt.copyUseFrom(index);
+            }
+
+            JSArray recent = call.getArray("recent");
+            if (recent != null) {
+                for (int i = 0; i < recent.length(); i++) {
+                    JSONObject use = recent.getJSONObject(i);
+                    rebuilt.setUse(use.getString("id"), use.optInt("count", 1), use.optLong("last_used_at", 0));
+                }
+            }
+            index = rebuilt;
+
+            JSObject result = new JSObject();
+            result.put("count", rebuilt.size());
+            result.put("postingsKb", rebuilt.postingsBytes() / 1024);
+            result.put("buildMs", (System.nanoTime() - start) / 1_000_000);
+            call.resolve(result);
+        } catch (JSONException e) {
+            call.reject("Invalid exercise", e);
+        }
+    }
+
+    // query may be empty, muscleGroup and equipment are the picker's filters and only rank
+    @PluginMethod
+    public void search(PluginCall call) {
+        ExerciseSearchIndex current = index;
+        if (current == null) {
+            call.reject("setExercises has not been called");
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<ExerciseSearchIndex.Hit> hits = current.search(call.getString("query", ""),
+                call.getString("muscleGroup"), call.getString("equipment"),
+                call.getInt("limit", ExerciseSearchIndex.DEFAULT_LIMIT), System.currentTimeMillis());
+        long tookNanos = System.nanoTime() - start;
+
+        JSArray ids = new JSArray();
+        JSArray scores = new JSArray();
+        for (ExerciseSearchIndex.Hit hit : hits) {
+            ids.put(hit.id);
+            scores.put((Object) (double) hit.score);
+        }
+
+        JSObject result = new JSObject();
+        result.put("ids", ids);
+        result.put("scores", scores);
+        result.put("tookUs", tookNanos / 1000);
+        call.resolve(result);
+    }
+
+    // Called when an exercise is added to a workout
+    @PluginMethod
+    public void recordUse(PluginCall call) {
+        String id = call.getString("id");
+        if (id == null) {
+            call.reject("id is required");
+            return;
+        }
+        ExerciseSearchIndex current = index;
+        if (current != null) {
+            current.recordUse(id, call.getLong("used_at", System.currentTimeMillis()));
+        }
+        call.resolve();
+    }
+
+    private static ExerciseSearchIndex.Exercise parseExercise(JSONObject json) throws JSONException {
+        ExerciseSearchIndex.Exercise exercise = new ExerciseSearchIndex.Exercise();
+        exercise.id = json.getString("id");
+        exercise.name = json.optString("name", "");
+        exercise.nameEs = json.optString("name_es", null);
+        exercise.aliases = strings(json.optJSONArray("aliases"));
+        exercise.muscleGroups = strings(json.optJSONArray("muscle_groups"));
+        exercise.bodyParts = strings(json.optJSONArray("body_parts"));
+        exercise.equipment = json.optString("equipment", null);
+        exercise.category = json.optString("category", null);
+        return exercise;
+    }
+
+    private static String[] strings(JSONArray array) {
+        if (array == null) {
+            return new String[0];
+        }
+        String[] values = new String[array.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.optString(i, "");
+        }
+        return values;
+    }
+}
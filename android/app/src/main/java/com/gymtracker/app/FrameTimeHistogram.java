@@ -0,0 +1,126 @@
+package com.gymtracker.app;
+
+import java.util.Arrays;
+
+
+// Frame durations in fixed buckets, fine around the 60/90/120Hz deadlines and coarse towards frozen frames.
+// Fixed buckets keep recording allocation-free and let histograms from different sessions be added up.
+// Not thread-safe, JankTracker guards it.
+public class FrameTimeHistogram {
+    // Upper bounds in ms, inclusive. The last bucket takes everything above the last bound.
+    private static final long[] BUCKET_UPPER_MS = {
+            4, 8, 10, 12, 16, 20, 25, 33, 42, 50, 67, 83, 100, 150, 200, 300, 500, 700
+    };
+    private static final long NANOS_PER_MS = 1_000_000L;
+    // Android vitals counts a frame as frozen from 700ms on
+    public static final long FROZEN_FRAME_NANOS = 700 * NANOS_PER_MS;
+    // Same heuristic as JankStats: a frame is janky when it takes more than twice its deadline, a frame
+    // that just misses one vsync is not noticed
+    public static final int JANK_DEADLINE_MULTIPLIER = 2;
+
+    private final long[] counts = new long[BUCKET_UPPER_MS.length + 1];
+    private long frames;
+    private long slowFrames;
+    private long frozenFrames;
+    private long totalNanos;
+    // Time spent past the deadline, what the user actually waited for
+    private long jankNanos;
+    private long maxNanos;
+
+    public static int bucketCount() {
+        return BUCKET_UPPER_MS.length + 1;
+    }
+
+    // Upper bound of a bucket in ms, -1 for the last one which has none
+    public static long bucketUpperMs(int bucket) {
+        return bucket < BUCKET_UPPER_MS.length ? BUCKET_UPPER_MS[bucket] : -1;
+    }
+
+    // deadlineNanos is the time the frame had, one refresh interval unless the system says otherwise
+    public void record(long durationNanos, long deadlineNanos) {
+        counts[bucketOf(durationNanos)]++;
+        frames++;
+        totalNanos += durationNanos;
+        maxNanos = Math.max(maxNanos, durationNanos);
+        if (durationNanos > deadlineNanos * JANK_DEADLINE_MULTIPLIER) {
+            slowFrames++;
+            jankNanos += durationNanos - deadlineNanos;
+        }
+        if (durationNanos >= FROZEN_FRAME_NANOS) {
+            frozenFrames++;
+        }
+    }
+
+    public void add(FrameTimeHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        frames += other.frames;
+        slowFrames += other.slowFrames;
+        frozenFrames += other.frozenFrames;
+        totalNanos += other.totalNanos;
+        jankNanos += other.jankNanos;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        frames = 0;
+        slowFrames = 0;
+        frozenFrames = 0;
+        totalNanos = 0;
+        jankNanos = 0;
+        maxNanos = 0;
+    }
+
+    public long countAt(int bucket) {
+        return counts[bucket];
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public long getSlowFrames() {
+        return slowFrames;
+    }
+
+    public long getFrozenFrames() {
+        return frozenFrames;
+    }
+
+    public long getJankNanos() {
+        return jankNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanMs() {
+        return frames == 0 ? 0 : totalNanos / (double) frames / NANOS_PER_MS;
+    }
+
+    // Nearest-rank percentile as the upper bound of its bucket, never above the longest frame. -1 when empty.
+    public double percentileMs(double p) {
+        if (frames == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * frames));
+        double maxMs = maxNanos / (double) NANOS_PER_MS;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_UPPER_MS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_UPPER_MS[i], maxMs);
+            }
+        }
+        return maxMs;
+    }
+
+    private static int bucketOf(long durationNanos) {
+        long ms = (durationNanos + NANOS_PER_MS - 1) / NANOS_PER_MS;
+        int bucket = Arrays.binarySearch(BUCKET_UPPER_MS, ms);
+        return bucket >= 0 ? bucket : -bucket - 1;
+    }
+}
@@ -0,0 +1,63 @@
+package com.gymtracker.app;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+
+public class GymTrackerApplication extends Application {
+    private static final String PREFERENCES = "startup";
+
+    public enum StartupMode {
+        // Bridge and WebView set up synchronously, all optimizations applied in onCreate
+        LEGACY,
+        // WebView provider loaded in the background, non-critical setup deferred past first paint
+        PREWARMED
+    }
+
+    private static final StartupMode DEFAULT_STARTUP_MODE = StartupMode.PREWARMED;
+
+    // Read once per process, a change applies from the next cold start so the two can be compared
+    private static StartupMode startupMode = DEFAULT_STARTUP_MODE;
+
+    public static StartupMode getStartupMode() {
+        return startupMode;
+    }
+
+    public static StartupMode parseStartupMode(String name) {
+        if (name != null) {
+            for (StartupMode mode : StartupMode.values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+        }
+        return null;
+    }
+
+    // The mode the next start will use
+    public static StartupMode getConfiguredStartupMode(Context context) {
+        StartupMode configured = parseStartupMode(preferences(context).getString("mode", null));
+        return configured != null ? configured : DEFAULT_STARTUP_MODE;
+    }
+
+    public static void setConfiguredStartupMode(Context context, StartupMode configured) {
+        preferences(context).edit().putString("mode", configured.name()).apply();
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        StartupTracer.onApplicationCreate();
+
+        startupMode = getConfiguredStartupMode(this);
+        if (startupMode == StartupMode.PREWARMED) {
+            WebViewPrewarmer.prewarm(this);
+        }
+    }
+
+    private static SharedPreferences preferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+}
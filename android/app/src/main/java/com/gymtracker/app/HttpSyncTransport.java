@@ -0,0 +1,147 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+// Sends batches to the Supabase REST endpoint: upserts as one bulk POST, deletes as one id=in.(...) filter.
+public class HttpSyncTransport implements NativeSyncQueue.Transport {
+    private static final String PREFERENCES = "native_sync";
+    private static final int CONNECT_TIMEOUT_MS = 15000;
+    private static final int READ_TIMEOUT_MS = 30000;
+
+    private final String baseUrl;
+    private final String apiKey;
+    private final String accessToken;
+
+    public HttpSyncTransport(String baseUrl, String apiKey, String accessToken) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.accessToken = accessToken;
+    }
+
+    // Null until the web layer has called NativeSyncQueue.configure
+    public static HttpSyncTransport fromPreferences(Context context) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        String baseUrl = preferences.getString("baseUrl", null);
+        String apiKey = preferences.getString("apiKey", null);
+        if (baseUrl == null || apiKey == null) {
+            return null;
+        }
+        return new HttpSyncTransport(baseUrl, apiKey, preferences.getString("accessToken", null));
+    }
+
+    public static void saveConfiguration(Context context, String baseUrl, String apiKey, String accessToken) {
+        context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE).edit()
+                .putString("baseUrl", baseUrl)
+                .putString("apiKey", apiKey)
+                .putString("accessToken", accessToken)
+                .apply();
+    }
+
+    @Override
+    public Outcome send(SyncBatchPlanner.Batch batch) throws IOException {
+        String table = baseUrl + "/rest/v1/" + URLEncoder.encode(batch.entity, "UTF-8");
+        if (batch.delete) {
+            StringBuilder ids = new StringBuilder();
+            for (SyncOperation operation : batch.operations) {
+                if (ids.length() > 0) {
+                    ids.append(',');
+                }
+                ids.append('"').append(operation.recordId.replace("\"", "\\\"")).append('"');
+            }
+            return request("DELETE", table + "?id=in." + URLEncoder.encode("(" + ids + ")", "UTF-8"), null);
+        }
+
+        // PostgREST wants the same keys on every row of a bulk insert, partial updates are split by key set
+        Outcome outcome = Outcome.SUCCESS;
+        for (JSONArray rows : rowsByKeySet(batch)) {
+            Outcome rowsOutcome = request("POST", table, rows.toString());
+            if (rowsOutcome != Outcome.SUCCESS) {
+                outcome = rowsOutcome;
+            }
+        }
+        return outcome;
+    }
+
+    private Outcome request(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("apikey", apiKey);
+        connection.setRequestProperty("Authorization", "Bearer " + (accessToken != null ? accessToken : apiKey));
+        connection.setRequestProperty("Prefer", "resolution=merge-duplicates,return=minimal");
+
+        try {
+            if (body != null) {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                connection.setFixedLengthStreamingMode(bytes.length);
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(bytes);
+                }
+            }
+            return outcomeFor(connection.getResponseCode());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    static Outcome outcomeFor(int status) {
+        if (status >= 200 && status < 300) {
+            return Outcome.SUCCESS;
+        }
+        // An expired token is refreshed by the web layer on its next configure call
+        if (status == 401 || status == 408 || status == 429 || status >= 500) {
+            return Outcome.RETRY;
+        }
+        return Outcome.REJECTED;
+    }
+
+    private static List<JSONArray> rowsByKeySet(SyncBatchPlanner.Batch batch) {
+        Map<String, JSONArray> groups = new LinkedHashMap<>();
+        for (SyncOperation operation : batch.operations) {
+            JSONObject row;
+            try {
+                row = operation.data != null ? new JSONObject(operation.data) : new JSONObject();
+                if (!row.has("id")) {
+                    row.put("id", operation.recordId);
+                }
+            } catch (JSONException e) {
+                batch.rejected.add(operation);
+                continue;
+            }
+
+            TreeSet<String> keys = new TreeSet<>();
+            Iterator<String> iterator = row.keys();
+            while (iterator.hasNext()) {
+                keys.add(iterator.next());
+            }
+            String keySet = keys.toString();
+            JSONArray rows = groups.get(keySet);
+            if (rows == null) {
+                rows = new JSONArray();
+                groups.put(keySet, rows);
+            }
+            rows.put(row);
+        }
+        return new ArrayList<>(groups.values());
+    }
+}
@@ -0,0 +1,118 @@
+package com.gymtracker.app;
+
+import android.app.Activity;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.View;
+import android.view.Window;
+
+
+// Frame timings of the activity window from FrameMetrics, which includes the WebView's draw whether it
+// goes through the hardware renderer or a software layer. Frames are reported on a background thread and
+// recorded per layer type and route in a JankTracker. Only runs while the activity is in the foreground.
+public class JankMonitor {
+    private static final String TAG = "JankMonitor";
+
+    private static final float FALLBACK_REFRESH_RATE = 60f;
+
+    private static JankMonitor instance;
+
+    // The WebView starts out with a hardware layer, see WebViewOptimizer
+    private final JankTracker tracker = new JankTracker(layerProfileName(View.LAYER_TYPE_HARDWARE));
+
+    private HandlerThread thread;
+    private Handler handler;
+    private Window window;
+    // Frame deadline before Android 12, where FrameMetrics does not report one
+    private volatile long refreshIntervalNanos = (long) (1e9 / FALLBACK_REFRESH_RATE);
+
+    private final Window.OnFrameMetricsAvailableListener listener = (metricsWindow, frameMetrics, dropCount) -> {
+        if (dropCount > 0) {
+            tracker.onDroppedReports(dropCount);
+        }
+        // The first frame of a window includes inflation and layout, that is startup time, not jank
+        if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 1) {
+            return;
+        }
+        long deadline = refreshIntervalNanos;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            long reported = frameMetrics.getMetric(FrameMetrics.DEADLINE);
+            if (reported > 0) {
+                deadline = reported;
+            }
+        }
+        tracker.record(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION), deadline);
+    };
+
+    public static synchronized JankMonitor getInstance() {
+        if (instance == null) {
+            instance = new JankMonitor();
+        }
+        return instance;
+    }
+
+    public JankTracker getTracker() {
+        return tracker;
+    }
+
+    public static String layerProfileName(int layerType) {
+        switch (layerType) {
+            case View.LAYER_TYPE_HARDWARE:
+                return "hardware";
+            case View.LAYER_TYPE_SOFTWARE:
+                return "software";
+            default:
+                return "none";
+        }
+    }
+
+    // Called wherever the WebView's layer type is set, frames after this count towards the new profile
+    public void onLayerTypeChanged(int layerType) {
+        tracker.setLayerProfile(layerProfileName(layerType));
+    }
+
+    public synchronized void start(Activity activity) {
+        Window activityWindow = activity.getWindow();
+        if (activityWindow == null || activityWindow == window) {
+            return;
+        }
+        if (window != null) {
+            window.removeOnFrameMetricsAvailableListener(listener);
+        }
+        if (thread == null) {
+            thread = new HandlerThread("JankMonitor", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        Display display = activityWindow.getDecorView().getDisplay();
+        float refreshRate = display != null && display.getRefreshRate() > 0
+                ? display.getRefreshRate() : FALLBACK_REFRESH_RATE;
+        refreshIntervalNanos = (long) (1e9 / refreshRate);
+
+        window = activityWindow;
+        window.addOnFrameMetricsAvailableListener(listener, handler);
+        Log.d(TAG, "Monitoring frames at " + refreshRate + "Hz, layer " + tracker.getLayerProfile());
+    }
+
+    // Keeps the thread and the collected frames, monitoring picks up again on start
+    public synchronized void stop() {
+        if (window == null) {
+            return;
+        }
+        window.removeOnFrameMetricsAvailableListener(listener);
+        window = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return window != null;
+    }
+
+    public long getRefreshIntervalNanos() {
+        return refreshIntervalNanos;
+    }
+}
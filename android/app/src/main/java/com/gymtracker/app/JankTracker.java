@@ -0,0 +1,136 @@
+package com.gymtracker.app;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+// Frame durations keyed by the WebView layer type in effect and the route the web app is on, so slow and
+// frozen frames can be pinned on a screen and the hardware and software layer profiles can be compared on
+// the same device. Frames arrive on the frame metrics thread, route and layer changes on others.
+public class JankTracker {
+    public static final String UNKNOWN_ROUTE = "unknown";
+    // Routes beyond the limit share one entry, the web app is expected to report route patterns, not URLs
+    public static final String OTHER_ROUTE = "other";
+    public static final int MAX_ROUTES = 64;
+
+    // layer profile -> route -> durations
+    private final Map<String, Map<String, FrameTimeHistogram>> histograms = new LinkedHashMap<>();
+    private final int maxRoutes;
+    private String route = UNKNOWN_ROUTE;
+    private String layerProfile;
+    // Where frames go until the route or layer changes, saves two map lookups per frame
+    private FrameTimeHistogram current;
+    private long droppedReports;
+
+    public JankTracker(String layerProfile) {
+        this(layerProfile, MAX_ROUTES);
+    }
+
+    JankTracker(String layerProfile, int maxRoutes) {
+        this.layerProfile = layerProfile;
+        this.maxRoutes = maxRoutes;
+    }
+
+    public static final class RouteStats {
+        public final String route;
+        public final String layerProfile;
+        public final FrameTimeHistogram histogram;
+
+        RouteStats(String route, String layerProfile, FrameTimeHistogram histogram) {
+            this.route = route;
+            this.layerProfile = layerProfile;
+            this.histogram = histogram;
+        }
+    }
+
+    public synchronized void setRoute(String route) {
+        String next = route == null || route.isEmpty() ? UNKNOWN_ROUTE : route;
+        if (!next.equals(this.route)) {
+            this.route = next;
+            current = null;
+        }
+    }
+
+    public synchronized String getRoute() {
+        return route;
+    }
+
+    public synchronized void setLayerProfile(String layerProfile) {
+        if (!layerProfile.equals(this.layerProfile)) {
+            this.layerProfile = layerProfile;
+            current = null;
+        }
+    }
+
+    public synchronized String getLayerProfile() {
+        return layerProfile;
+    }
+
+    public synchronized void record(long durationNanos, long deadlineNanos) {
+        if (current == null) {
+            current = histogramFor(layerProfile, route);
+        }
+        current.record(durationNanos, deadlineNanos);
+    }
+
+    // Frames the system measured but could not hand over because the listener fell behind
+    public synchronized void onDroppedReports(int count) {
+        droppedReports += count;
+    }
+
+    public synchronized long getDroppedReports() {
+        return droppedReports;
+    }
+
+    // All routes added up, one copy per layer profile that has frames
+    public synchronized Map<String, FrameTimeHistogram> byLayerProfile() {
+        Map<String, FrameTimeHistogram> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, FrameTimeHistogram>> profile : histograms.entrySet()) {
+            FrameTimeHistogram total = new FrameTimeHistogram();
+            for (FrameTimeHistogram histogram : profile.getValue().values()) {
+                total.add(histogram);
+            }
+            result.put(profile.getKey(), total);
+        }
+        return result;
+    }
+
+    // Copies, in the order the route was first seen under each layer profile
+    public synchronized List<RouteStats> byRoute() {
+        List<RouteStats> result = new ArrayList<>();
+        for (Map.Entry<String, Map<String, FrameTimeHistogram>> profile : histograms.entrySet()) {
+            for (Map.Entry<String, FrameTimeHistogram> entry : profile.getValue().entrySet()) {
+                FrameTimeHistogram copy = new FrameTimeHistogram();
+                copy.add(entry.getValue());
+                result.add(new RouteStats(entry.getKey(), profile.getKey(), copy));
+            }
+        }
+        return result;
+    }
+
+    public synchronized void clear() {
+        histograms.clear();
+        current = null;
+        droppedReports = 0;
+    }
+
+    private FrameTimeHistogram histogramFor(String profile, String route) {
+        Map<String, FrameTimeHistogram> routes = histograms.get(profile);
+        if (routes == null) {
+            routes = new LinkedHashMap<>();
+            histograms.put(profile, routes);
+        }
+        FrameTimeHistogram histogram = routes.get(route);
+        if (histogram == null) {
+            String key = routes.size() < maxRoutes ? route : OTHER_ROUTE;
+            histogram = routes.get(key);
+            if (histogram == null) {
+                histogram = new FrameTimeHistogram();
+                routes.put(key, histogram);
+            }
+        }
+        return histogram;
+    }
+}
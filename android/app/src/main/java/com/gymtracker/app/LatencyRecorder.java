@@ -0,0 +1,56 @@
+package com.gymtracker.app;
+
+import java.util.Arrays;
+
+
+// Keeps the most recent latencies of one kind (e.g. foreground returns) for percentile reporting.
+public class LatencyRecorder {
+    private final long[] samples;
+    private int head;
+    private int count;
+    private long total;
+    private long last = -1;
+    private long max = -1;
+
+    public LatencyRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        samples = new long[capacity];
+    }
+
+    public synchronized void record(long latencyMs) {
+        samples[head] = latencyMs;
+        head = (head + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        total++;
+        last = latencyMs;
+        max = Math.max(max, latencyMs);
+    }
+
+    // Number of latencies recorded, including those no longer retained
+    public synchronized long getCount() {
+        return total;
+    }
+
+    public synchronized long getLast() {
+        return last;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    // Nearest-rank percentile over the retained latencies, -1 when there are none
+    public synchronized long percentile(double p) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100.0 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,369 @@
+package com.gymtracker.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+// Standings of one league group or weekly competition, kept ordered as points change instead of re-sorted:
+// an order-statistic treap whose nodes live in parallel arrays, one slot per member. Members rank by points,
+// then by who reached their points first, like LeagueManager's weeklyPoints order with ties settled. Updates,
+// rank lookups and the rank -> member lookup behind range queries are O(log n).
+//
+// The top promotionSize ranks promote and the bottom relegationSize relegate. Apart from the member whose
+// points changed, a change moves everyone at most one rank, so only the members now at either side of the two
+// zone boundaries can have changed zone; they are checked after every change and the moves queued for
+// drainZoneChanges().
+public class Leaderboard {
+    public enum Zone {
+        PROMOTION, SAFE, RELEGATION
+    }
+
+    public static final class Entry {
+        public final String id;
+        public final long points;
+        public final int rank;
+        public final Zone zone;
+
+        Entry(String id, long points, int rank, Zone zone) {
+            this.id = id;
+            this.points = points;
+            this.rank = rank;
+            this.zone = zone;
+        }
+    }
+
+    public static final class ZoneChange {
+        public final String id;
+        // null when the member just joined
+        public final Zone from;
+        // null when the member left
+        public final Zone to;
+
+        ZoneChange(String id, Zone from, Zone to) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    // Slot 0 is the empty tree, with size 0
+    private static final int NIL = 0;
+    private static final Zone[] ZONES = Zone.values();
+
+    private final int promotionSize;
+    private final int relegationSize;
+
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private String[] ids = new String[16];
+    private long[] points = new long[16];
+    // When the member reached their points, earlier ranks higher on a tie
+    private long[] reachedAtMs = new long[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private int[] sizes = new int[16];
+    private int[] priorities = new int[16];
+    // Zone last reported for the slot, -1 before the first report
+    private byte[] zones = new byte[16];
+    private int slotCount = 1;
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private int root = NIL;
+    private int seed = 0x2545F491;
+
+    // Results of split(), the slots before the key and the rest
+    private int splitBefore;
+    private int splitAfter;
+
+    private final List<ZoneChange> zoneChanges = new ArrayList<>();
+
+    public Leaderboard(int promotionSize, int relegationSize) {
+        if (promotionSize < 0 || relegationSize < 0) {
+            throw new IllegalArgumentException("zone sizes must not be negative");
+        }
+        this.promotionSize = promotionSize;
+        this.relegationSize = relegationSize;
+    }
+
+    public synchronized int size() {
+        return sizes[root];
+    }
+
+    public synchronized boolean contains(String id) {
+        return slotById.containsKey(id);
+    }
+
+    // Sets a member's points, adding the member when new
+    public synchronized void put(String id, long memberPoints, long reachedAt) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            slot = allocate(id);
+        } else if (points[slot] == memberPoints) {
+            return;
+        } else {
+            root = without(root, slot);
+        }
+        points[slot] = memberPoints;
+        reachedAtMs[slot] = reachedAt;
+        insert(slot);
+        checkZones(slot);
+    }
+
+    // Returns the member's new points
+    public synchronized long add(String id, long delta, long atMs) {
+        Integer slot = slotById.get(id);
+        long updated = (slot == null ? 0 : points[slot]) + delta;
+        put(id, updated, atMs);
+        return updated;
+    }
+
+    public synchronized boolean remove(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot == null) {
+            return false;
+        }
+        root = without(root, slot);
+        if (zones[slot] >= 0) {
+            zoneChanges.add(new ZoneChange(id, ZONES[zones[slot]], null));
+        }
+        ids[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(16, freeCount * 2));
+        }
+        freeSlots[freeCount++] = slot;
+        checkZones(NIL);
+        return true;
+    }
+
+    // 1 for the leader, 0 when the member is not on the board
+    public synchronized int rank(String id) {
+        Integer slot = slotById.get(id);
+        return slot == null ? 0 : rankOf(slot);
+    }
+
+    public synchronized long points(String id) {
+        Integer slot = slotById.get(id);
+        return slot == null ? 0 : points[slot];
+    }
+
+    public synchronized Zone zone(String id) {
+        Integer slot = slotById.get(id);
+        return slot == null ? null : zoneAt(rankOf(slot));
+    }
+
+    // Up to count entries from fromRank (1-based) down
+    public synchronized List<Entry> range(int fromRank, int count) {
+        int from = Math.max(1, fromRank);
+        int to = Math.min(sizes[root], from + Math.max(0, count) - 1);
+        List<Entry> entries = new ArrayList<>(Math.max(0, to - from + 1));
+        for (int rank = from; rank <= to; rank++) {
+            int slot = select(rank);
+            entries.add(new Entry(ids[slot], points[slot], rank, zoneAt(rank)));
+        }
+        return entries;
+    }
+
+    // The member with up to before members above and after members below, empty when not on the board
+    public synchronized List<Entry> around(String id, int before, int after) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return new ArrayList<>();
+        }
+        int rank = rankOf(slot);
+        int from = Math.max(1, rank - Math.max(0, before));
+        return range(from, rank + Math.max(0, after) - from + 1);
+    }
+
+    // Points of the last promoted rank, what a member has to beat to promote; 0 without a promotion zone
+    public synchronized long promotionCutoff() {
+        int rank = Math.min(promotionSize, sizes[root]);
+        return rank == 0 ? 0 : points[select(rank)];
+    }
+
+    // Points of the last safe rank, what a relegated member has to beat; 0 when nobody relegates
+    public synchronized long relegationCutoff() {
+        int safe = relegationBoundary();
+        return safe == 0 || safe >= sizes[root] ? 0 : points[select(safe)];
+    }
+
+    // Zone moves since the last call, in the order they happened
+    public synchronized List<ZoneChange> drainZoneChanges() {
+        List<ZoneChange> drained = new ArrayList<>(zoneChanges);
+        zoneChanges.clear();
+        return drained;
+    }
+
+    private Zone zoneAt(int rank) {
+        if (rank <= promotionSize) {
+            return Zone.PROMOTION;
+        }
+        return rank > relegationBoundary() ? Zone.RELEGATION : Zone.SAFE;
+    }
+
+    // The last rank that does not relegate; promotion wins where the zones would overlap in a small board
+    private int relegationBoundary() {
+        return Math.max(promotionSize, sizes[root] - relegationSize);
+    }
+
+    // Only the changed member and the members on either side of a boundary can have moved zone
+    private void checkZones(int changed) {
+        if (changed != NIL) {
+            reportZone(changed, rankOf(changed));
+        }
+        int size = sizes[root];
+        int relegation = relegationBoundary();
+        int[] boundaries = {promotionSize, promotionSize + 1, relegation, relegation + 1};
+        for (int rank : boundaries) {
+            if (rank >= 1 && rank <= size) {
+                reportZone(select(rank), rank);
+            }
+        }
+    }
+
+    private void reportZone(int slot, int rank) {
+        Zone zone = zoneAt(rank);
+        if (zones[slot] != zone.ordinal()) {
+            zoneChanges.add(new ZoneChange(ids[slot], zones[slot] < 0 ? null : ZONES[zones[slot]], zone));
+            zones[slot] = (byte) zone.ordinal();
+        }
+    }
+
+    private int allocate(String id) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == ids.length) {
+                grow(slotCount * 2);
+            }
+            slot = slotCount++;
+        }
+        ids[slot] = id;
+        zones[slot] = -1;
+        // xorshift, the treap only needs the priorities spread
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        priorities[slot] = seed;
+        slotById.put(id, slot);
+        return slot;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        points = Arrays.copyOf(points, capacity);
+        reachedAtMs = Arrays.copyOf(reachedAtMs, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        zones = Arrays.copyOf(zones, capacity);
+    }
+
+    // Ranking order: more points, then reached first, then the older slot
+    private boolean precedes(int a, int b) {
+        if (points[a] != points[b]) {
+            return points[a] > points[b];
+        }
+        if (reachedAtMs[a] != reachedAtMs[b]) {
+            return reachedAtMs[a] < reachedAtMs[b];
+        }
+        return a < b;
+    }
+
+    private void insert(int slot) {
+        left[slot] = NIL;
+        right[slot] = NIL;
+        sizes[slot] = 1;
+        split(root, slot);
+        int after = splitAfter;
+        root = merge(merge(splitBefore, slot), after);
+    }
+
+    // The tree without slot, which must be in it
+    private int without(int tree, int slot) {
+        split(tree, slot);
+        int before = splitBefore;
+        return merge(before, withoutFirst(splitAfter));
+    }
+
+    private int withoutFirst(int tree) {
+        if (left[tree] == NIL) {
+            return right[tree];
+        }
+        left[tree] = withoutFirst(left[tree]);
+        sizes[tree]--;
+        return tree;
+    }
+
+    // Splits tree into the slots preceding key (splitBefore) and the rest (splitAfter)
+    private void split(int tree, int key) {
+        if (tree == NIL) {
+            splitBefore = NIL;
+            splitAfter = NIL;
+        } else if (precedes(tree, key)) {
+            split(right[tree], key);
+            right[tree] = splitBefore;
+            sizes[tree] = sizes[left[tree]] + sizes[right[tree]] + 1;
+            splitBefore = tree;
+        } else {
+            split(left[tree], key);
+            left[tree] = splitAfter;
+            sizes[tree] = sizes[left[tree]] + sizes[right[tree]] + 1;
+            splitAfter = tree;
+        }
+    }
+
+    // Every slot of a precedes every slot of b
+    private int merge(int a, int b) {
+        if (a == NIL) {
+            return b;
+        }
+        if (b == NIL) {
+            return a;
+        }
+        if (priorities[a] > priorities[b]) {
+            right[a] = merge(right[a], b);
+            sizes[a] = sizes[left[a]] + sizes[right[a]] + 1;
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        sizes[b] = sizes[left[b]] + sizes[right[b]] + 1;
+        return b;
+    }
+
+    private int rankOf(int slot) {
+        int rank = 0;
+        int node = root;
+        while (node != NIL) {
+            if (node == slot) {
+                return rank + sizes[left[node]] + 1;
+            }
+            if (precedes(slot, node)) {
+                node = left[node];
+            } else {
+                rank += sizes[left[node]] + 1;
+                node = right[node];
+            }
+        }
+        return 0;
+    }
+
+    private int select(int rank) {
+        int node = root;
+        while (node != NIL) {
+            int leftSize = sizes[left[node]];
+            if (rank <= leftSize) {
+                node = left[node];
+            } else if (rank == leftSize + 1) {
+                return node;
+            } else {
+                rank -= leftSize + 1;
+                node = right[node];
+            }
+        }
+        return NIL;
+    }
+}
@@ -0,0 +1,191 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+// One board per league group or competition id (LeagueGroup.id in src/types/league.ts). Points are weekly
+// XP, timestamps epoch milliseconds. Zones come back as "promotion", "safe" or "relegation".
+@CapacitorPlugin(name = "Leaderboard")
+public class LeaderboardPlugin extends Plugin {
+    private static final int DEFAULT_ZONE_SIZE = 5;
+
+    private final Map<String, Leaderboard> boards = new ConcurrentHashMap<>();
+
+    // Replaces the board with members [{userId, weeklyPoints, reachedAt}]
+    @PluginMethod
+    public void setBoard(PluginCall call) {
+        String boardId = call.getString("board");
+        JSArray members = call.getArray("members");
+        if (boardId == null || members == null) {
+            call.reject("board and members are required");
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            Leaderboard board = new Leaderboard(call.getInt("promotionSize", DEFAULT_ZONE_SIZE),
+                    call.getInt("relegationSize", DEFAULT_ZONE_SIZE));
+            for (int i = 0; i < members.length(); i++) {
+                JSONObject member = members.getJSONObject(i);
+                board.put(member.getString("userId"), member.optLong("weeklyPoints", 0),
+                        member.optLong("reachedAt", 0));
+            }
+            board.drainZoneChanges();
+            boards.put(boardId, board);
+
+            JSObject result = new JSObject();
+            result.put("size", board.size());
+            result.put("buildMs", (System.nanoTime() - start) / 1_000_000);
+            call.resolve(result);
+        } catch (IllegalArgumentException | JSONException e) {
+            call.reject("Invalid board", e);
+        }
+    }
+
+    // Adds XP and answers with the member's standing and every zone move the update caused
+    @PluginMethod
+    public void addPoints(PluginCall call) {
+        Leaderboard board = board(call);
+        String userId = call.getString("userId");
+        Long points = call.getLong("points");
+        if (board == null) {
+            return;
+        }
+        if (userId == null || points == null) {
+            call.reject("userId and points are required");
+            return;
+        }
+
+        JSObject result;
+        synchronized (board) {
+            board.add(userId, points, call.getLong("at", System.currentTimeMillis()));
+            result = standing(board, userId, call.getInt("before", 0), call.getInt("after", 0));
+            result.put("zoneChanges", zoneChanges(board.drainZoneChanges()));
+        }
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void removeMember(PluginCall call) {
+        Leaderboard board = board(call);
+        String userId = call.getString("userId");
+        if (board == null) {
+            return;
+        }
+        if (userId == null) {
+            call.reject("userId is required");
+            return;
+        }
+
+        JSObject result = new JSObject();
+        synchronized (board) {
+            result.put("removed", board.remove(userId));
+            result.put("zoneChanges", zoneChanges(board.drainZoneChanges()));
+        }
+        call.resolve(result);
+    }
+
+    // Rank, points and zone of userId with before/after neighbours, plus the zone cutoffs
+    @PluginMethod
+    public void getStanding(PluginCall call) {
+        Leaderboard board = board(call);
+        String userId = call.getString("userId");
+        if (board == null) {
+            return;
+        }
+        if (userId == null) {
+            call.reject("userId is required");
+            return;
+        }
+
+        JSObject result;
+        synchronized (board) {
+            result = standing(board, userId, call.getInt("before", 5), call.getInt("after", 5));
+        }
+        call.resolve(result);
+    }
+
+    // count entries from rank from (1-based)
+    @PluginMethod
+    public void getRange(PluginCall call) {
+        Leaderboard board = board(call);
+        if (board == null) {
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("size", board.size());
+        result.put("entries", entries(board.range(call.getInt("from", 1), call.getInt("count", 50))));
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void dropBoard(PluginCall call) {
+        String boardId = call.getString("board");
+        JSObject result = new JSObject();
+        result.put("dropped", boardId != null && boards.remove(boardId) != null);
+        call.resolve(result);
+    }
+
+    // The board named in the call, or null after rejecting it
+    private Leaderboard board(PluginCall call) {
+        String boardId = call.getString("board");
+        Leaderboard board = boardId == null ? null : boards.get(boardId);
+        if (board == null) {
+            call.reject(boardId == null ? "board is required" : "Unknown board " + boardId);
+        }
+        return board;
+    }
+
+    private static JSObject standing(Leaderboard board, String userId, int before, int after) {
+        JSObject result = new JSObject();
+        Leaderboard.Zone zone = board.zone(userId);
+        result.put("rank", board.rank(userId));
+        result.put("points", board.points(userId));
+        result.put("zone", zone == null ? null : name(zone));
+        result.put("size", board.size());
+        result.put("promotionCutoff", board.promotionCutoff());
+        result.put("relegationCutoff", board.relegationCutoff());
+        result.put("around", entries(board.around(userId, before, after)));
+        return result;
+    }
+
+    private static JSArray entries(List<Leaderboard.Entry> entries) {
+        JSArray array = new JSArray();
+        for (Leaderboard.Entry entry : entries) {
+            JSObject json = new JSObject();
+            json.put("userId", entry.id);
+            json.put("points", entry.points);
+            json.put("rank", entry.rank);
+            json.put("zone", name(entry.zone));
+            array.put(json);
+        }
+        return array;
+    }
+
+    private static JSArray zoneChanges(List<Leaderboard.ZoneChange> changes) {
+        JSArray array = new JSArray();
+        for (Leaderboard.ZoneChange change : changes) {
+            JSObject json = new JSObject();
+            json.put("userId", change.id);
+            json.put("from", change.from == null ? null : name(change.from));
+            json.put("to", change.to == null ? null : name(change.to));
+            array.put(json);
+        }
+        return array;
+    }
+
+    private static String name(Leaderboard.Zone zone) {
+        return zone.name().toLowerCase(Locale.ROOT);
+    }
+}
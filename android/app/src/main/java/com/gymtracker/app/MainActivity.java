@@ -1,37 +1,146 @@
 package com.gymtracker.app;
 
 import android.os.Bundle;
+import android.view.ViewGroup;
 import android.webkit.WebView;
 import com.getcapacitor.BridgeActivity;
+import com.getcapacitor.CapacitorWebView;
+import com.getcapacitor.android.R;
 
-public class MainActivity extends BridgeActivity {
+public class MainActivity extends BridgeActivity implements RendererRecovery.Host {
+    
+    // Set when sampling was stopped because the activity went to the background
+    private boolean memorySamplingPaused = false;
     
     @Override
     public void onCreate(Bundle savedInstanceState) {
+        // Replays in-progress workout edits from the journal, a crashed session resumes where it stopped
+        WorkoutJournal.recoverAtStartup(this);
+        
+        // Native plugins must be registered before the bridge is created
+        registerPlugin(WorkoutStorePlugin.class);
+        registerPlugin(MediaCachePlugin.class);
+        registerPlugin(PerformancePlugin.class);
+        registerPlugin(WorkoutCalculationsPlugin.class);
+        registerPlugin(PercentilesPlugin.class);
+        registerPlugin(SyncQueuePlugin.class);
+        registerPlugin(BinaryChannelPlugin.class);
+        registerPlugin(NativeHttpPlugin.class);
+        registerPlugin(BackupPlugin.class);
+        registerPlugin(PhotoPipelinePlugin.class);
+        registerPlugin(SensorsPlugin.class);
+        registerPlugin(WorkoutJournalPlugin.class);
+        registerPlugin(ExerciseSearchPlugin.class);
+        registerPlugin(LeaderboardPlugin.class);
+        registerPlugin(StreaksPlugin.class);
+        
         super.onCreate(savedInstanceState);
+        StartupTracer.mark(StartupTimeline.BRIDGE_READY);
+        StartupTracer.trackFirstPaint(getBridge());
         
         // Apply WebView optimizations for better performance
         WebView webView = getBridge().getWebView();
-        if (webView != null) {
+        if (webView == null) {
+            return;
+        }
+        
+        // Bulk data channel, the page opens it through BinaryChannelPlugin once it has loaded
+        BinaryChannel.getInstance().attach(webView);
+        
+        if (GymTrackerApplication.getStartupMode() == GymTrackerApplication.StartupMode.PREWARMED) {
+            // The bridge queued the first load but it has not committed yet, so these still apply to it
+            WebViewOptimizer.applyCriticalSettings(webView);
+            WebViewOptimizer.installMediaCache(getBridge());
+            
+            // Nothing on the first screen depends on these
+            StartupTracer.runAfterFirstPaint(() -> WebViewOptimizer.applyDeferredSettings(webView));
+            StartupTracer.runAfterFirstPaint(() -> MemoryManager.optimizeMemoryUsage(this, webView));
+            StartupTracer.runAfterFirstPaint(() -> MemoryManager.startSampling(this, webView));
+        } else {
             WebViewOptimizer.optimizeWebView(webView);
+            WebViewOptimizer.installMediaCache(getBridge());
             MemoryManager.optimizeMemoryUsage(this, webView);
+            MemoryManager.startSampling(this, webView);
         }
     }
     
+    @Override
+    public void onRestart() {
+        super.onRestart();
+        StartupTracer.onForegroundReturnStart();
+    }
+    
     @Override
     public void onResume() {
         super.onResume();
         
-        // Ensure WebView optimizations are maintained
+        // Frame timings are only collected in the foreground, like memory samples
+        JankMonitor.getInstance().start(this);
+        
+        // Only reconfigures when the memory class changed, the layer type is left to the memory policy
         WebView webView = getBridge().getWebView();
         if (webView != null) {
-            // Re-apply memory optimizations
-            MemoryManager.optimizeMemoryUsage(this, webView);
-            
-            // Enable hardware acceleration if not already enabled
-            if (webView.getLayerType() != WebView.LAYER_TYPE_HARDWARE) {
-                webView.setLayerType(WebView.LAYER_TYPE_HARDWARE, null);
+            if (memorySamplingPaused) {
+                memorySamplingPaused = false;
+                MemoryManager.startSampling(this, webView);
             }
+            MemoryManager.onForeground(this, webView);
+        }
+        StartupTracer.onForegroundReturnResumed();
+    }
+    
+    @Override
+    public void onStop() {
+        super.onStop();
+        JankMonitor.getInstance().stop();
+        
+        // No memory samples while in the background, the chart only covers foreground use
+        if (MemorySampler.getInstance().isRunning()) {
+            MemoryManager.stopSampling();
+            memorySamplingPaused = true;
+        }
+    }
+    
+    @Override
+    public void onDestroy() {
+        BinaryChannel.getInstance().detach();
+        super.onDestroy();
+    }
+    
+    // The renderer died and took the page with it. A new WebView and bridge take the old one's place in this
+    // activity, the process and everything native stay up, so this is much cheaper than a cold start.
+    @Override
+    public void rebuildWebView(String restoreUrl) {
+        WebView dead = getBridge().getWebView();
+        ViewGroup parent = (ViewGroup) dead.getParent();
+        int index = parent.indexOfChild(dead);
+        ViewGroup.LayoutParams layoutParams = dead.getLayoutParams();
+        
+        BinaryChannel.getInstance().detach();
+        // Quits the old bridge's thread and runs its plugins' onDestroy, the new bridge creates them again.
+        // Plugins see RendererRecovery.isRebuilding(), sensor recording and rep counting carry on through it.
+        getBridge().onDestroy();
+        parent.removeView(dead);
+        dead.destroy();
+        
+        // Bridge.Builder finds the WebView by its id, as it did the one from the layout
+        CapacitorWebView webView = new CapacitorWebView(this, null);
+        webView.setId(R.id.webview);
+        parent.addView(webView, index, layoutParams);
+        // The saved state was for the first bridge
+        bridgeBuilder.setInstanceState(null);
+        bridge = bridgeBuilder.create();
+        RendererRecovery.trackRecovery(bridge);
+        
+        WebViewOptimizer.optimizeWebView(webView);
+        WebViewOptimizer.installMediaCache(bridge);
+        MemoryManager.onWebViewReplaced(this, webView);
+        BinaryChannel.getInstance().attach(webView);
+        
+        // The bridge queued the app's start page and it has not committed yet, go back to where the user was.
+        // The page takes an open workout back from the native workout journal, as on any reload.
+        if (restoreUrl != null && restoreUrl.startsWith(bridge.getLocalUrl() + "/")) {
+            webView.loadUrl(restoreUrl);
         }
     }
     
@@ -42,7 +151,7 @@ public class MainActivity extends BridgeActivity {
         // Handle low memory situations
         WebView webView = getBridge().getWebView();
         if (webView != null) {
-            MemoryManager.onLowMemory(webView);
+            MemoryManager.onLowMemory(this, webView);
         }
     }
     
@@ -50,12 +159,10 @@ public class MainActivity extends BridgeActivity {
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
         
-        // Handle memory trim requests
-        if (level >= TRIM_MEMORY_MODERATE) {
-            WebView webView = getBridge().getWebView();
-            if (webView != null) {
-                MemoryManager.clearMemoryCache(webView);
-            }
+        // Every trim level feeds the memory policy, which decides how hard to react
+        WebView webView = getBridge().getWebView();
+        if (webView != null) {
+            MemoryManager.onTrimMemory(this, webView, level);
         }
     }
 }
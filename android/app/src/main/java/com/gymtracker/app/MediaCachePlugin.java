@@ -0,0 +1,49 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+
+
+@CapacitorPlugin(name = "MediaCache")
+public class MediaCachePlugin extends Plugin {
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        MediaDiskCache disk = MediaCacheWebViewClient.getDiskCache(getContext());
+        MediaMemoryCache memory = MediaMemoryCache.getInstance();
+
+        JSObject diskStats = new JSObject();
+        diskStats.put("hits", disk.getHits());
+        diskStats.put("misses", disk.getMisses());
+        diskStats.put("bytesServed", disk.getBytesServed());
+        diskStats.put("bytesDownloaded", disk.getBytesStored());
+        diskStats.put("evictions", disk.getEvictions());
+        diskStats.put("entries", disk.getEntryCount());
+        diskStats.put("sizeBytes", disk.getSizeBytes());
+        diskStats.put("maxBytes", disk.getMaxBytes());
+
+        JSObject memoryStats = new JSObject();
+        memoryStats.put("hits", memory.getHits());
+        memoryStats.put("misses", memory.getMisses());
+        memoryStats.put("sizeBytes", memory.getSizeBytes());
+        memoryStats.put("budgetBytes", memory.getBudgetBytes());
+        memoryStats.put("bytesReclaimed", memory.getBytesReclaimed());
+        memoryStats.put("bytesReloaded", memory.getBytesReloaded());
+        memoryStats.put("bytesRefetched", memory.getBytesRefetched());
+
+        JSObject result = new JSObject();
+        result.put("disk", diskStats);
+        result.put("memory", memoryStats);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        MediaCacheWebViewClient.getDiskCache(getContext()).clear();
+        MediaMemoryCache.getInstance().clear();
+        call.resolve();
+    }
+}
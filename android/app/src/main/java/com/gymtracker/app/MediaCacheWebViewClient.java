@@ -0,0 +1,340 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import android.webkit.RenderProcessGoneDetail;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import android.webkit.WebView;
+import androidx.webkit.WebViewAssetLoader;
+import com.getcapacitor.Bridge;
+import com.getcapacitor.BridgeWebViewClient;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+// Serves exercise media (GIFs, muscle diagrams, thumbnails) from the native cache, and progress photo
+// thumbnails from the PhotoPipeline under its own path on the app's local host. The web app's bundled files
+// under /assets/ come from the AssetServer; everything else, including the app shell, goes through the
+// regular bridge client.
+// Also the client that sees the renderer die, RendererRecovery rebuilds the WebView then.
+public class MediaCacheWebViewClient extends BridgeWebViewClient {
+    private static final String TAG = "MediaCacheWebViewClient";
+    // Small media is also kept in memory, larger files are only memory-mapped
+    private static final int MEMORY_CACHE_MAX_ENTRY_BYTES = 256 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 20_000;
+
+    private static MediaDiskCache diskCache;
+    // URLs being downloaded, requests for one of them wait for it instead of downloading it again
+    private static final Map<String, CountDownLatch> downloads = new HashMap<>();
+
+    private final Bridge bridge;
+    private final MediaDiskCache cache;
+    private final MediaMemoryCache memoryCache;
+    // Null when the AssetServer is off
+    private final WebViewAssetLoader assetLoader;
+
+    public static synchronized MediaDiskCache getDiskCache(Context context) {
+        if (diskCache == null) {
+            diskCache = new MediaDiskCache(new File(context.getCacheDir(), "exercise_media"),
+                    DeviceTier.getProfile(context).mediaDiskCacheBytes);
+        }
+        return diskCache;
+    }
+
+    public MediaCacheWebViewClient(Bridge bridge) {
+        super(bridge);
+        this.bridge = bridge;
+        this.cache = getDiskCache(bridge.getContext());
+        this.memoryCache = MediaMemoryCache.getInstance();
+        this.assetLoader = AssetServer.createLoader(bridge);
+    }
+
+    @Override
+    public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+        // Checked first, the bridge would answer any path on the local host with the app shell
+        if (isPhotoThumbnail(request)) {
+            return servePhotoThumbnail(request.getUrl());
+        }
+        if (assetLoader != null && "GET".equals(request.getMethod()) && !isRangeRequest(request)) {
+            WebResourceResponse asset = assetLoader.shouldInterceptRequest(request.getUrl());
+            if (asset != null) {
+                return asset;
+            }
+        }
+
+        WebResourceResponse bridgeResponse = super.shouldInterceptRequest(view, request);
+        if (bridgeResponse != null || !isCacheableMedia(request)) {
+            return bridgeResponse;
+        }
+
+        String key = request.getUrl().toString();
+        // The disk cache is only consulted on a memory miss, so each request counts once
+        byte[] inMemory = memoryCache.get(key);
+        if (inMemory != null) {
+            return buildResponse(mimeTypeFor(request.getUrl()), new ByteArrayInputStream(inMemory));
+        }
+        try {
+            MediaDiskCache.Entry entry = cache.get(key);
+            if (entry != null) {
+                rememberSmallEntry(key, entry);
+                return buildResponse(entry.mimeType, cache.openMapped(entry));
+            }
+            return downloadOnce(key, request);
+        } catch (IOException e) {
+            Log.w(TAG, "Falling back to network for " + key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean onRenderProcessGone(WebView view, RenderProcessGoneDetail detail) {
+        // Web view listeners get the first say, the recovery takes over when none of them handled it
+        if (super.onRenderProcessGone(view, detail)) {
+            return true;
+        }
+        return RendererRecovery.onRenderProcessGone(bridge, view, detail);
+    }
+
+    private void rememberSmallEntry(String key, MediaDiskCache.Entry entry) throws IOException {
+        rememberSmallEntry(key, entry, false);
+    }
+
+    // Downloaded entries are told apart so the memory cache can count evicted media fetched from the network again
+    private void rememberSmallEntry(String key, MediaDiskCache.Entry entry, boolean downloaded) throws IOException {
+        if (entry.size <= MEMORY_CACHE_MAX_ENTRY_BYTES) {
+            byte[] bytes = readFully(cache.openMapped(entry), (int) entry.size);
+            if (downloaded) {
+                memoryCache.putDownloaded(key, bytes);
+            } else {
+                memoryCache.put(key, bytes);
+            }
+        }
+    }
+
+    private boolean isPhotoThumbnail(WebResourceRequest request) {
+        Uri url = request.getUrl();
+        String path = url.getPath();
+        return "GET".equals(request.getMethod()) && path != null && path.startsWith(PhotoPipeline.THUMBNAIL_PATH)
+                && url.getHost() != null && url.getHost().equals(bridge.getHost());
+    }
+
+    // <local url>/_photo_thumbnail_/<size>/<photo file name>
+    private WebResourceResponse servePhotoThumbnail(Uri url) {
+        String[] parts = url.getPath().substring(PhotoPipeline.THUMBNAIL_PATH.length()).split("/");
+        PhotoPipeline pipeline = PhotoPipeline.getInstance(bridge.getContext());
+        File photo = parts.length == 2 ? pipeline.resolvePhoto(parts[1]) : null;
+        int size;
+        try {
+            size = parts.length == 2 ? Integer.parseInt(parts[0]) : 0;
+        } catch (NumberFormatException e) {
+            size = 0;
+        }
+        if (photo == null || size <= 0 || size > PhotoPipeline.DEFAULT_MAX_DIMENSION) {
+            return new WebResourceResponse("text/plain", null, 404, "Not Found", null, null);
+        }
+
+        try {
+            MediaDiskCache.Entry entry = pipeline.thumbnail(photo, size);
+            if (entry != null) {
+                return buildResponse(entry.mimeType, pipeline.getThumbnailCache().openMapped(entry));
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to create thumbnail for " + photo.getName(), e);
+        }
+        return new WebResourceResponse("text/plain", null, 500, "Thumbnail Unavailable", null, null);
+    }
+
+    static boolean isCacheableMedia(WebResourceRequest request) {
+        if (!"GET".equals(request.getMethod()) || request.isForMainFrame()) {
+            return false;
+        }
+
+        Uri url = request.getUrl();
+        if (!"https".equals(url.getScheme())) {
+            return false;
+        }
+
+        // Range requests (video scrubbing) need partial responses, which the WebView handles better itself
+        if (isRangeRequest(request)) {
+            return false;
+        }
+
+        String path = url.getPath();
+        if (path == null) {
+            return false;
+        }
+        path = path.toLowerCase(Locale.US);
+        return path.endsWith(".gif") || path.endsWith(".png") || path.endsWith(".jpg") || path.endsWith(".jpeg")
+                || path.endsWith(".webp") || path.endsWith(".svg");
+    }
+
+    private static boolean isRangeRequest(WebResourceRequest request) {
+        Map<String, String> headers = request.getRequestHeaders();
+        return headers != null && (headers.containsKey("Range") || headers.containsKey("range"));
+    }
+
+    // The first miss for a URL downloads it, concurrent ones wait and are served from the cache
+    private WebResourceResponse downloadOnce(String key, WebResourceRequest request) throws IOException {
+        CountDownLatch inFlight;
+        CountDownLatch own = null;
+        synchronized (downloads) {
+            inFlight = downloads.get(key);
+            if (inFlight == null) {
+                own = new CountDownLatch(1);
+                downloads.put(key, own);
+            }
+        }
+
+        if (own == null) {
+            try {
+                if (inFlight.await(CONNECT_TIMEOUT_MS + READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    MediaDiskCache.Entry entry = cache.get(key);
+                    if (entry != null) {
+                        rememberSmallEntry(key, entry);
+                        return buildResponse(entry.mimeType, cache.openMapped(entry));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // The other download was not cacheable or did not finish, the WebView loads this one itself
+            return null;
+        }
+
+        try {
+            return download(key, request);
+        } finally {
+            synchronized (downloads) {
+                downloads.remove(key);
+            }
+            own.countDown();
+        }
+    }
+
+    // Sent with the page's request headers. A response that is not cached (an error, no-store, larger than the
+    // cache) is still the answer to this request, it is passed through rather than fetched by the WebView again.
+    private WebResourceResponse download(String key, WebResourceRequest request) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(key).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+        connection.setReadTimeout(READ_TIMEOUT_MS);
+        Map<String, String> headers = request.getRequestHeaders();
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+        }
+
+        boolean passedThrough = false;
+        try {
+            int status = connection.getResponseCode();
+            String contentType = connection.getContentType();
+            String mimeType = contentType == null ? "application/octet-stream"
+                    : contentType.indexOf(';') > 0 ? contentType.substring(0, contentType.indexOf(';')).trim()
+                    : contentType;
+            String cacheControl = connection.getHeaderField("Cache-Control");
+            boolean cacheable = status == HttpURLConnection.HTTP_OK
+                    && (cacheControl == null || !cacheControl.contains("no-store"))
+                    && connection.getContentLengthLong() <= cache.getMaxBytes();
+
+            if (cacheable) {
+                MediaDiskCache.Entry entry;
+                try (InputStream in = connection.getInputStream()) {
+                    entry = cache.put(key, mimeType, in);
+                }
+                if (entry == null) {
+                    // Had no length and turned out larger than the whole cache, the body is gone
+                    return null;
+                }
+                rememberSmallEntry(key, entry, true);
+                return buildResponse(entry.mimeType, cache.openMapped(entry));
+            }
+
+            // WebResourceResponse does not take redirects, those only remain when they switch protocol
+            if (status < 200 || (status >= 300 && status < 400) || status > 599) {
+                return null;
+            }
+            InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+            passedThrough = true;
+            return passThrough(connection, status, mimeType, body);
+        } finally {
+            if (!passedThrough) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    // Streams the response as the server sent it, the connection is released when the WebView closes the body
+    private static WebResourceResponse passThrough(HttpURLConnection connection, int status, String mimeType,
+                                                   InputStream body) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        for (Map.Entry<String, List<String>> field : connection.getHeaderFields().entrySet()) {
+            // The null key is the status line
+            if (field.getKey() != null) {
+                headers.put(field.getKey(), String.join(", ", field.getValue()));
+            }
+        }
+        String reason = connection.getResponseMessage();
+        InputStream data = new FilterInputStream(body != null ? body : new ByteArrayInputStream(new byte[0])) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    connection.disconnect();
+                }
+            }
+        };
+        return new WebResourceResponse(mimeType, null, status, reason != null && !reason.isEmpty() ? reason : "OK",
+                headers, data);
+    }
+
+    // Memory hits carry no content type, the extension is all isCacheableMedia let through
+    private static String mimeTypeFor(Uri url) {
+        String path = url.getPath().toLowerCase(Locale.US);
+        if (path.endsWith(".gif")) {
+            return "image/gif";
+        }
+        if (path.endsWith(".png")) {
+            return "image/png";
+        }
+        if (path.endsWith(".webp")) {
+            return "image/webp";
+        }
+        if (path.endsWith(".svg")) {
+            return "image/svg+xml";
+        }
+        return "image/jpeg";
+    }
+
+    private static WebResourceResponse buildResponse(String mimeType, InputStream data) {
+        Map<String, String> headers = new HashMap<>();
+        // Exercise media is public, preloads made with fetch() must not fail CORS checks
+        headers.put("Access-Control-Allow-Origin", "*");
+        headers.put("Cache-Control", "public, max-age=86400");
+        return new WebResourceResponse(mimeType, null, 200, "OK", headers, data);
+    }
+
+    private static byte[] readFully(InputStream in, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        int read;
+        while (offset < size && (read = in.read(bytes, offset, size - offset)) != -1) {
+            offset += read;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,392 @@
+package com.gymtracker.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+// Content-addressed, size-bounded LRU disk cache for exercise media.
+// Blobs are stored once per SHA-256 of their content, the index maps request URLs to blobs. The index is
+// rewritten on a background thread a moment after a change, a burst of puts costs one write. Entries not in
+// the index when the process dies are dropped with their blobs on the next start and downloaded again.
+public class MediaDiskCache {
+    private static final int INDEX_VERSION = 1;
+    private static final String INDEX_FILE = "index";
+    private static final String BLOB_DIR = "blobs";
+    private static final long INDEX_WRITE_DELAY_MS = 2_000;
+
+    private static final ScheduledExecutorService indexWriter = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "MediaDiskCacheIndex");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public static class Entry {
+        public final String key;
+        public final String contentHash;
+        public final String mimeType;
+        public final long size;
+        long lastAccess;
+
+        Entry(String key, String contentHash, String mimeType, long size, long lastAccess) {
+            this.key = key;
+            this.contentHash = contentHash;
+            this.mimeType = mimeType;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final File directory;
+    private final File blobDirectory;
+    private long maxBytes;
+    private long sizeBytes;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Integer> blobReferences = new HashMap<>();
+    // Taken before the cache's own lock, so index writes happen in order and outside of it
+    private final Object indexLock = new Object();
+    private boolean indexDirty;
+    private boolean indexWriteScheduled;
+
+    private long hits;
+    private long misses;
+    private long bytesServed;
+    private long bytesStored;
+    private long evictions;
+
+    public MediaDiskCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.blobDirectory = new File(directory, BLOB_DIR);
+        this.maxBytes = maxBytes;
+        blobDirectory.mkdirs();
+        loadIndex();
+    }
+
+    public synchronized Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || !blobFile(entry.contentHash).exists()) {
+            if (entry != null) {
+                removeEntry(entry);
+            }
+            misses++;
+            return null;
+        }
+        entry.lastAccess = System.currentTimeMillis();
+        hits++;
+        bytesServed += entry.size;
+        return entry;
+    }
+
+    // Maps the blob read-only, the WebView reads straight from the page cache without copying into the Java heap
+    public InputStream openMapped(Entry entry) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(blobFile(entry.contentHash), "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ByteBufferInputStream(buffer);
+        } finally {
+            // The mapping stays valid after the channel is closed
+            file.close();
+        }
+    }
+
+    public Entry put(String key, String mimeType, InputStream source) throws IOException {
+        File temp = File.createTempFile("download", ".tmp", directory);
+        String hash;
+        long size = 0;
+
+        try {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[16 * 1024];
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(temp));
+            try {
+                int read;
+                while ((read = source.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    size += read;
+                }
+            } finally {
+                out.close();
+            }
+            hash = toHex(digest.digest());
+
+            synchronized (this) {
+                File blob = blobFile(hash);
+                if (!blob.exists() && !temp.renameTo(blob)) {
+                    throw new IOException("Failed to move media into cache: " + blob);
+                }
+
+                Entry entry = new Entry(key, hash, mimeType, size, System.currentTimeMillis());
+                Entry previous = entries.put(key, entry);
+                if (addReference(hash)) {
+                    sizeBytes += size;
+                    bytesStored += size;
+                }
+                // Released after the new reference so re-downloading identical content keeps the blob
+                if (previous != null) {
+                    releaseBlob(previous);
+                }
+                trimToSize(maxBytes);
+                scheduleIndexWrite();
+
+                // Larger than the whole budget, it was evicted straight away
+                return entries.containsKey(key) ? entry : null;
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        if (trimToSize(maxBytes) > 0) {
+            scheduleIndexWrite();
+        }
+    }
+
+    public synchronized void clear() {
+        for (Entry entry : new ArrayList<>(entries.values())) {
+            removeEntry(entry);
+        }
+        scheduleIndexWrite();
+    }
+
+    // Writes pending index changes now instead of after the delay
+    public void flushIndex() {
+        synchronized (indexLock) {
+            List<Entry> snapshot;
+            synchronized (this) {
+                indexWriteScheduled = false;
+                if (!indexDirty) {
+                    return;
+                }
+                indexDirty = false;
+                snapshot = new ArrayList<>(entries.values());
+            }
+            writeIndex(snapshot);
+        }
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getBytesServed() {
+        return bytesServed;
+    }
+
+    public synchronized long getBytesStored() {
+        return bytesStored;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private int trimToSize(long targetBytes) {
+        int removed = 0;
+        Iterator<Entry> iterator = new ArrayList<>(entries.values()).iterator();
+        while (sizeBytes > targetBytes && iterator.hasNext()) {
+            removeEntry(iterator.next());
+            evictions++;
+            removed++;
+        }
+        return removed;
+    }
+
+    private void removeEntry(Entry entry) {
+        entries.remove(entry.key);
+        releaseBlob(entry);
+    }
+
+    private void releaseBlob(Entry entry) {
+        Integer references = blobReferences.get(entry.contentHash);
+        if (references == null || references <= 1) {
+            blobReferences.remove(entry.contentHash);
+            blobFile(entry.contentHash).delete();
+            sizeBytes -= entry.size;
+        } else {
+            blobReferences.put(entry.contentHash, references - 1);
+        }
+    }
+
+    // Returns true when this is the first reference, i.e. the blob is new to the cache
+    private boolean addReference(String hash) {
+        Integer references = blobReferences.get(hash);
+        blobReferences.put(hash, references == null ? 1 : references + 1);
+        return references == null;
+    }
+
+    private File blobFile(String hash) {
+        return new File(blobDirectory, hash);
+    }
+
+    private void loadIndex() {
+        File indexFile = new File(directory, INDEX_FILE);
+        List<Entry> loaded = new ArrayList<>();
+
+        if (indexFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                if (in.readInt() == INDEX_VERSION) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        loaded.add(new Entry(in.readUTF(), in.readUTF(), in.readUTF(), in.readLong(), in.readLong()));
+                    }
+                }
+            } catch (IOException e) {
+                // A corrupt index only costs re-downloads, start empty
+                loaded.clear();
+            }
+        }
+
+        // The index is written in LRU order, eldest first
+        Set<String> liveBlobs = new HashSet<>();
+        for (Entry entry : loaded) {
+            if (blobFile(entry.contentHash).exists()) {
+                entries.put(entry.key, entry);
+                if (addReference(entry.contentHash)) {
+                    sizeBytes += entry.size;
+                }
+                liveBlobs.add(entry.contentHash);
+            }
+        }
+
+        File[] blobs = blobDirectory.listFiles();
+        if (blobs != null) {
+            for (File blob : blobs) {
+                if (!liveBlobs.contains(blob.getName())) {
+                    blob.delete();
+                }
+            }
+        }
+        trimToSize(maxBytes);
+    }
+
+    private void scheduleIndexWrite() {
+        indexDirty = true;
+        if (!indexWriteScheduled) {
+            indexWriteScheduled = true;
+            indexWriter.schedule(this::flushIndex, INDEX_WRITE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeIndex(List<Entry> snapshot) {
+        File indexFile = new File(directory, INDEX_FILE);
+        File temp = new File(directory, INDEX_FILE + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(INDEX_VERSION);
+            out.writeInt(snapshot.size());
+            for (Entry entry : snapshot) {
+                out.writeUTF(entry.key);
+                out.writeUTF(entry.contentHash);
+                out.writeUTF(entry.mimeType);
+                out.writeLong(entry.size);
+                out.writeLong(entry.lastAccess);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        temp.renameTo(indexFile);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(target, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.gymtracker.app;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+// Size-bounded LRU of encoded exercise media bytes, kept in front of the disk cache.
+// Tracks how many evicted bytes were needed again, and how many of those had to come from the network
+// because the disk cache had lost them too, so trimming can be tuned against real re-use.
+public class MediaMemoryCache {
+    private static final int MAX_TRACKED_EVICTIONS = 4096;
+
+    private static MediaMemoryCache instance;
+
+    private long maxBytes;
+    private double budgetFraction = 1;
+    private long budgetBytes;
+    private long sizeBytes;
+
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // Keys evicted by a trim, with their size, so a later put can be counted as a reload
+    private final LinkedHashMap<String, Integer> evicted = new LinkedHashMap<String, Integer>(64, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > MAX_TRACKED_EVICTIONS;
+        }
+    };
+
+    private long hits;
+    private long misses;
+    private long bytesReclaimed;
+    private long bytesReloaded;
+    private long bytesRefetched;
+
+    public static synchronized MediaMemoryCache getInstance() {
+        if (instance == null) {
+            // An eighth of the heap, capped so the WebView keeps most of the memory
+            instance = new MediaMemoryCache(Math.min(Runtime.getRuntime().maxMemory() / 8, 16L * 1024 * 1024));
+        }
+        return instance;
+    }
+
+    public MediaMemoryCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.budgetBytes = maxBytes;
+    }
+
+    public synchronized byte[] get(String key) {
+        byte[] value = entries.get(key);
+        if (value != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return value;
+    }
+
+    // Bytes read back from the disk cache
+    public synchronized void put(String key, byte[] value) {
+        put(key, value, false);
+    }
+
+    // Bytes that were just downloaded
+    public synchronized void putDownloaded(String key, byte[] value) {
+        put(key, value, true);
+    }
+
+    private void put(String key, byte[] value, boolean downloaded) {
+        Integer evictedSize = evicted.remove(key);
+        if (evictedSize != null) {
+            bytesReloaded += value.length;
+            if (downloaded) {
+                bytesRefetched += value.length;
+            }
+        }
+
+        // Entries larger than the budget would just evict everything else
+        if (value.length > budgetBytes) {
+            return;
+        }
+
+        byte[] previous = entries.put(key, value);
+        if (previous != null) {
+            sizeBytes -= previous.length;
+        }
+        sizeBytes += value.length;
+        evictTo(budgetBytes, false);
+    }
+
+    // Shrinks the budget to a fraction of the maximum and evicts down to it, returns the bytes freed
+    public synchronized long setBudgetFraction(double fraction) {
+        budgetFraction = Math.max(0, Math.min(1, fraction));
+        budgetBytes = (long) (maxBytes * budgetFraction);
+        return evictTo(budgetBytes, true);
+    }
+
+    // The device tier sets the maximum, memory pressure the fraction of it in use
+    public synchronized void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+        budgetBytes = (long) (maxBytes * budgetFraction);
+        evictTo(budgetBytes, false);
+    }
+
+    public synchronized long trimToSize(long targetBytes) {
+        return evictTo(targetBytes, true);
+    }
+
+    // Drops everything without counting it as a pressure trim
+    public synchronized void clear() {
+        evictTo(0, false);
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getBytesReclaimed() {
+        return bytesReclaimed;
+    }
+
+    // Evicted bytes put back, from the disk cache or the network
+    public synchronized long getBytesReloaded() {
+        return bytesReloaded;
+    }
+
+    // Evicted bytes put back after downloading them again
+    public synchronized long getBytesRefetched() {
+        return bytesRefetched;
+    }
+
+    private long evictTo(long targetBytes, boolean pressureTrim) {
+        long freed = 0;
+        Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+        while (sizeBytes > targetBytes && iterator.hasNext()) {
+            Map.Entry<String, byte[]> eldest = iterator.next();
+            int length = eldest.getValue().length;
+            iterator.remove();
+            sizeBytes -= length;
+            freed += length;
+            if (pressureTrim) {
+                evicted.put(eldest.getKey(), length);
+            }
+        }
+
+        if (pressureTrim) {
+            bytesReclaimed += freed;
+        }
+        return freed;
+    }
+}
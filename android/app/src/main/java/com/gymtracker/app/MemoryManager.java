@@ -2,16 +2,98 @@ package com.gymtracker.app;
 
 import android.app.ActivityManager;
 import android.content.Context;
-import android.os.Debug;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 import android.webkit.WebView;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 
 
 public class MemoryManager {
     private static final String TAG = "MemoryManager";
-    private static final long LOW_MEMORY_THRESHOLD = 50 * 1024 * 1024; // 50MB
+    
+    // PSS covers Java, native and graphics memory, so the budget is a multiple of the heap class
+    private static final int PSS_BUDGET_HEAP_MULTIPLIER = 2;
+    
+    private static MemoryPolicyEngine policyEngine;
+    
+    // Device memory profile the last full pass was made for
+    private static MemoryClassProfile appliedProfile;
+    
+    // The WebView level changes from background samples are applied to, replaced after a renderer loss
+    private static WeakReference<WebView> sampledWebView = new WeakReference<>(null);
+    
+    public static synchronized MemoryPolicyEngine getPolicyEngine(Context context) {
+        if (policyEngine == null) {
+            policyEngine = createPolicyEngine(context);
+        }
+        return policyEngine;
+    }
+    
+    // PSS budget and low-RAM floor for the device's current memory class
+    private static MemoryPolicyEngine createPolicyEngine(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean largeHeap = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_LARGE_HEAP) != 0;
+        int heapClassMb = largeHeap ? activityManager.getLargeMemoryClass() : activityManager.getMemoryClass();
+        // Low tier devices run with the same reduced floor as those the system calls low-RAM
+        boolean lowTier = DeviceTier.getProfile(context).tier == DeviceTierClassifier.Tier.LOW;
+        return new MemoryPolicyEngine(activityManager.isLowRamDevice() || lowTier,
+                (long) heapClassMb * 1024 * PSS_BUDGET_HEAP_MULTIPLIER);
+    }
+    
+    // Swaps the decision core, e.g. for a differently tuned config
+    public static synchronized void setPolicyEngine(MemoryPolicyEngine engine) {
+        policyEngine = engine;
+        MemorySampler.getInstance().setPolicyEngine(engine);
+    }
+    
+    // Background PSS sampling, also the engine's PSS trend signal. Each sample re-evaluates the policy, so
+    // the level also steps down while the app stays in the foreground; changes are applied on the main thread.
+    public static void startSampling(Context context, WebView webView) {
+        sampledWebView = new WeakReference<>(webView);
+        MemoryPolicyEngine engine = getPolicyEngine(context);
+        // The trend starts over, samples from before the app went to the background are unrelated
+        engine.clearPssTrend();
+        
+        MemorySampler sampler = MemorySampler.getInstance();
+        sampler.setPolicyEngine(engine);
+        sampler.setActionHandler(new MainThreadActionHandler(context.getApplicationContext()));
+        sampler.start();
+    }
+    
+    public static void stopSampling() {
+        MemorySampler.getInstance().stop();
+    }
+    
+    // Foreground return: only a full pass when the device's memory class changed since the last one,
+    // otherwise the engine re-evaluates the signals it already has
+    public static void onForeground(Context context, WebView webView) {
+        if (appliedProfile == null) {
+            // First resume of a cold start, the startup path runs the first full pass
+            return;
+        }
+        MemoryClassProfile profile = MemoryClassProfile.read(context);
+        if (profile.equals(appliedProfile)) {
+            getPolicyEngine(context).evaluate(SystemClock.elapsedRealtime(),
+                    new WebViewActionHandler(context, webView));
+            return;
+        }
+        
+        Log.d(TAG, "Memory class changed to " + profile + ", reconfiguring");
+        // Budget and floor were derived from the old memory class, the rebuilt engine takes over its level
+        MemoryPolicyEngine engine = createPolicyEngine(context);
+        engine.continueFrom(getPolicyEngine(context).getPressure());
+        setPolicyEngine(engine);
+        optimizeMemoryUsage(context, webView);
+    }
     
     public static void optimizeMemoryUsage(Context context, WebView webView) {
+        appliedProfile = MemoryClassProfile.read(context);
+        
         // Get memory info
         ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
         ActivityManager.MemoryInfo memoryInfo = new ActivityManager.MemoryInfo();
@@ -20,21 +102,66 @@ public class MemoryManager {
         // Log memory status in debug builds
         logMemoryStatus(memoryInfo);
         
-        // Apply memory optimizations based on available memory
-        if (memoryInfo.availMem < LOW_MEMORY_THRESHOLD) {
-            applyLowMemoryOptimizations(webView);
+        // PSS reaches the engine from the background sampler
+        MemoryPolicyEngine engine = getPolicyEngine(context);
+        long now = SystemClock.elapsedRealtime();
+        engine.onSystemMemory(memoryInfo.availMem, memoryInfo.threshold, memoryInfo.lowMemory);
+        engine.evaluate(now, new WebViewActionHandler(context, webView));
+    }
+    
+    public static void onTrimMemory(Context context, WebView webView, int level) {
+        MemoryPolicyEngine engine = getPolicyEngine(context);
+        long now = SystemClock.elapsedRealtime();
+        engine.onTrimMemory(level, now);
+        engine.evaluate(now, new WebViewActionHandler(context, webView));
+        
+        if (level >= MemoryPolicyEngine.TRIM_MEMORY_MODERATE) {
+            clearMemoryCache(webView);
+        }
+    }
+    
+    // A new WebView after a renderer loss starts out with defaults, it gets the current pressure's profile
+    public static void onWebViewReplaced(Context context, WebView webView) {
+        sampledWebView = new WeakReference<>(webView);
+        MemoryPolicyEngine.Pressure pressure = getPolicyEngine(context).getPressure();
+        int actions = MemoryPolicyEngine.actionsFor(pressure);
+        // Every action counts as changed
+        new WebViewActionHandler(context, webView).onPressureChanged(pressure, actions, ~actions);
+    }
+    
+    // Called when a workout starts or ends, the memory policy's renderer priority only applies without one
+    public static void updateRendererPriority(Context context, WebView webView) {
+        int actions = MemoryPolicyEngine.actionsFor(getPolicyEngine(context).getPressure());
+        applyRendererPriority(context, webView, (actions & MemoryPolicyEngine.ACTION_RELEASE_RENDERER_PRIORITY) != 0);
+    }
+    
+    // While a workout is in progress the renderer stays important, also in the background: the phone is
+    // locked between sets, and a renderer killed there takes the workout screen with it
+    private static void applyRendererPriority(Context context, WebView webView, boolean release) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+        if (isWorkoutActive(context)) {
+            webView.setRendererPriorityPolicy(WebView.RENDERER_PRIORITY_IMPORTANT, false);
+        } else if (release) {
+            webView.setRendererPriorityPolicy(WebView.RENDERER_PRIORITY_WAIVED, true);
         } else {
-            applyStandardOptimizations(webView);
+            webView.setRendererPriorityPolicy(WebView.RENDERER_PRIORITY_IMPORTANT, true);
+        }
+    }
+    
+    private static boolean isWorkoutActive(Context context) {
+        try {
+            return WorkoutJournal.getInstance(context).getWorkoutCount() > 0;
+        } catch (IOException e) {
+            return false;
         }
     }
     
     private static void applyLowMemoryOptimizations(WebView webView) {
         if (webView != null) {
-            // Reduce cache size for low memory devices
-            webView.getSettings().setCacheMode(android.webkit.WebSettings.LOAD_NO_CACHE);
-            
             // Disable hardware acceleration on low memory devices
-            webView.setLayerType(WebView.LAYER_TYPE_SOFTWARE, null);
+            setLayerTypeIfChanged(webView, WebView.LAYER_TYPE_SOFTWARE);
             
             Log.d(TAG, "Applied low memory optimizations");
         }
@@ -46,34 +173,48 @@ public class MemoryManager {
             webView.getSettings().setCacheMode(android.webkit.WebSettings.LOAD_DEFAULT);
             
             // Enable hardware acceleration
-            webView.setLayerType(WebView.LAYER_TYPE_HARDWARE, null);
+            setLayerTypeIfChanged(webView, WebView.LAYER_TYPE_HARDWARE);
             
             Log.d(TAG, "Applied standard memory optimizations");
         }
     }
     
+    // Changing the layer type re-creates the layer and costs a visible frame, skip it when nothing changes
+    private static void setLayerTypeIfChanged(WebView webView, int layerType) {
+        if (webView.getLayerType() != layerType) {
+            webView.setLayerType(layerType, null);
+            JankMonitor.getInstance().onLayerTypeChanged(layerType);
+        }
+    }
+    
+    // Frees in-memory structures only, the WebView disk cache stays warm so exercise media is not downloaded again
     public static void clearMemoryCache(WebView webView) {
         if (webView != null) {
-            webView.clearCache(true);
-            webView.clearHistory();
-            webView.clearFormData();
-            
-            // Force garbage collection
-            System.gc();
-            
-            Log.d(TAG, "Cleared WebView memory cache");
+            webView.clearCache(false);
         }
+        
+        MediaMemoryCache mediaCache = MediaMemoryCache.getInstance();
+        long reclaimed = mediaCache.trimToSize(0);
+        // Pooled photo bitmaps are only a head start for the next decode
+        reclaimed += BitmapPool.getInstance().trimToSize(0);
+        
+        Log.d(TAG, String.format("Cleared in-memory caches - Reclaimed: %dKB, Total reclaimed: %dKB, "
+                        + "Reloaded after eviction: %dKB, Re-downloaded after eviction: %dKB",
+                reclaimed / 1024, mediaCache.getBytesReclaimed() / 1024, mediaCache.getBytesReloaded() / 1024,
+                mediaCache.getBytesRefetched() / 1024));
     }
     
-    public static void onLowMemory(WebView webView) {
+    public static void onLowMemory(Context context, WebView webView) {
         Log.w(TAG, "Low memory warning received");
         
+        MemoryPolicyEngine engine = getPolicyEngine(context);
+        long now = SystemClock.elapsedRealtime();
+        engine.onLowMemory(now);
+        engine.evaluate(now, new WebViewActionHandler(context, webView));
+        
         if (webView != null) {
             // Clear caches to free memory
             clearMemoryCache(webView);
-            
-            // Apply low memory optimizations
-            applyLowMemoryOptimizations(webView);
         }
     }
     
@@ -85,15 +226,135 @@ public class MemoryManager {
         Log.d(TAG, String.format("Memory Status - Total: %dMB, Used: %dMB, Available: %dMB, Low Memory: %s",
                 totalMemory, usedMemory, availableMemory, memoryInfo.lowMemory ? "YES" : "NO"));
         
-        // Log heap memory
-        Debug.MemoryInfo debugMemoryInfo = new Debug.MemoryInfo();
-        Debug.getMemoryInfo(debugMemoryInfo);
-        Log.d(TAG, String.format("Heap Memory - Total: %dKB, Used: %dKB",
-                debugMemoryInfo.getTotalPss(), debugMemoryInfo.getTotalPrivateDirty()));
+        // Process memory comes from the last background sample, Debug.getMemoryInfo is too slow for the main thread
+        MemorySampleBuffer samples = MemorySampler.getInstance().getBuffer();
+        synchronized (samples) {
+            int latest = samples.size() - 1;
+            if (latest >= 0) {
+                Log.d(TAG, String.format("Heap Memory - Total: %dKB, Used: %dKB",
+                        samples.pssAt(latest), samples.privateDirtyAt(latest)));
+            }
+        }
     }
     
     public static boolean isLowMemoryDevice(Context context) {
         ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
         return activityManager.isLowRamDevice();
     }
-}
\ No newline at end of file
+    
+    // The inputs the memory budget is derived from, these only change with a system update or configuration change
+    private static final class MemoryClassProfile {
+        final int memoryClassMb;
+        final int largeMemoryClassMb;
+        final boolean lowRamDevice;
+        
+        MemoryClassProfile(int memoryClassMb, int largeMemoryClassMb, boolean lowRamDevice) {
+            this.memoryClassMb = memoryClassMb;
+            this.largeMemoryClassMb = largeMemoryClassMb;
+            this.lowRamDevice = lowRamDevice;
+        }
+        
+        // System properties, no binder call
+        static MemoryClassProfile read(Context context) {
+            ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+            return new MemoryClassProfile(activityManager.getMemoryClass(), activityManager.getLargeMemoryClass(),
+                    activityManager.isLowRamDevice());
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MemoryClassProfile)) {
+                return false;
+            }
+            MemoryClassProfile other = (MemoryClassProfile) o;
+            return memoryClassMb == other.memoryClassMb && largeMemoryClassMb == other.largeMemoryClassMb
+                    && lowRamDevice == other.lowRamDevice;
+        }
+        
+        @Override
+        public int hashCode() {
+            return (memoryClassMb * 31 + largeMemoryClassMb) * 31 + (lowRamDevice ? 1 : 0);
+        }
+        
+        @Override
+        public String toString() {
+            return memoryClassMb + "MB/" + largeMemoryClassMb + "MB" + (lowRamDevice ? " low-RAM" : "");
+        }
+    }
+    
+    // Level changes from the sampler thread, carried out on the main thread on the current WebView
+    private static class MainThreadActionHandler implements MemoryPolicyEngine.ActionHandler {
+        private final Context context;
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+        
+        MainThreadActionHandler(Context context) {
+            this.context = context;
+        }
+        
+        @Override
+        public void onPressureChanged(MemoryPolicyEngine.Pressure pressure, int actions, int previousActions) {
+            mainHandler.post(() -> new WebViewActionHandler(context, sampledWebView.get())
+                    .onPressureChanged(pressure, actions, previousActions));
+        }
+    }
+    
+    // Carries out the engine's decisions on the WebView, JS-side work is signalled with a window event
+    private static class WebViewActionHandler implements MemoryPolicyEngine.ActionHandler {
+        private final Context context;
+        private final WebView webView;
+        
+        WebViewActionHandler(Context context, WebView webView) {
+            this.context = context;
+            this.webView = webView;
+        }
+        
+        @Override
+        public void onPressureChanged(MemoryPolicyEngine.Pressure pressure, int actions, int previousActions) {
+            Log.d(TAG, "Memory pressure changed to " + pressure + ", actions=" + Integer.toBinaryString(actions));
+            if (webView == null) {
+                return;
+            }
+            
+            if (changed(MemoryPolicyEngine.ACTION_LOW_MEMORY_PROFILE, actions, previousActions)) {
+                if ((actions & MemoryPolicyEngine.ACTION_LOW_MEMORY_PROFILE) != 0) {
+                    applyLowMemoryOptimizations(webView);
+                } else {
+                    applyStandardOptimizations(webView);
+                }
+            }
+            
+            if (changed(MemoryPolicyEngine.ACTION_RELEASE_RENDERER_PRIORITY, actions, previousActions)) {
+                applyRendererPriority(context, webView,
+                        (actions & MemoryPolicyEngine.ACTION_RELEASE_RENDERER_PRIORITY) != 0);
+            }
+            
+            MediaMemoryCache.getInstance().setBudgetFraction(mediaCacheBudgetFraction(pressure));
+            
+            // Decoded images and prefetching are owned by the web app, it also shrinks its own caches
+            String detail = String.format("{level:'%s',shrinkCaches:%b,dropDecodedImages:%b,pausePrefetch:%b}",
+                    pressure.name().toLowerCase(),
+                    (actions & MemoryPolicyEngine.ACTION_SHRINK_CACHES) != 0,
+                    (actions & MemoryPolicyEngine.ACTION_DROP_DECODED_IMAGES) != 0,
+                    (actions & MemoryPolicyEngine.ACTION_PAUSE_PREFETCH) != 0);
+            webView.evaluateJavascript(
+                    "window.dispatchEvent(new CustomEvent('nativememorypressure',{detail:" + detail + "}))", null);
+        }
+        
+        private static double mediaCacheBudgetFraction(MemoryPolicyEngine.Pressure pressure) {
+            switch (pressure) {
+                case CRITICAL:
+                    return 0;
+                case HIGH:
+                    return 0.25;
+                case ELEVATED:
+                    return 0.5;
+                default:
+                    return 1;
+            }
+        }
+        
+        private static boolean changed(int action, int actions, int previousActions) {
+            return (actions & action) != (previousActions & action);
+        }
+    }
+}
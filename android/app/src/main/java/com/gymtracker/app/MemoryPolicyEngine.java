@@ -0,0 +1,264 @@
+package com.gymtracker.app;
+
+
+// Pure decision core for memory pressure handling, no Android types so it can be tested on the JVM.
+// Signals raise the pressure level immediately, lowering it needs a sustained calm period (hysteresis).
+public class MemoryPolicyEngine {
+    // Mirrors android.content.ComponentCallbacks2 trim levels
+    public static final int TRIM_MEMORY_RUNNING_MODERATE = 5;
+    public static final int TRIM_MEMORY_RUNNING_LOW = 10;
+    public static final int TRIM_MEMORY_RUNNING_CRITICAL = 15;
+    public static final int TRIM_MEMORY_UI_HIDDEN = 20;
+    public static final int TRIM_MEMORY_BACKGROUND = 40;
+    public static final int TRIM_MEMORY_MODERATE = 60;
+    public static final int TRIM_MEMORY_COMPLETE = 80;
+
+    // Graduated actions, combined as a bit mask
+    public static final int ACTION_SHRINK_CACHES = 1;
+    public static final int ACTION_DROP_DECODED_IMAGES = 1 << 1;
+    public static final int ACTION_PAUSE_PREFETCH = 1 << 2;
+    public static final int ACTION_RELEASE_RENDERER_PRIORITY = 1 << 3;
+    public static final int ACTION_LOW_MEMORY_PROFILE = 1 << 4;
+
+    public enum Pressure { NORMAL, ELEVATED, HIGH, CRITICAL }
+
+    public interface ActionHandler {
+        void onPressureChanged(Pressure pressure, int actions, int previousActions);
+    }
+
+    public static class Config {
+        // How long a trim callback keeps counting as a pressure signal
+        public long trimSignalHoldMs = 60_000;
+        // A lower target must hold this long before the level steps down by one
+        public long recoveryWindowMs = 30_000;
+        // PSS as a fraction of the budget
+        public double elevatedPssRatio = 0.75;
+        public double highPssRatio = 0.9;
+        // Escalate one level when the PSS trend reaches the budget within this horizon
+        public long trendHorizonMs = 60_000;
+        public int trendWindow = 6;
+    }
+
+    private final Config config;
+    private final boolean lowRamDevice;
+    private final long pssBudgetKb;
+
+    private Pressure current = Pressure.NORMAL;
+    private long lowerTargetSinceMs = -1;
+
+    private Pressure trimPressure = Pressure.NORMAL;
+    private long trimSignalAtMs = -1;
+    private Pressure systemPressure = Pressure.NORMAL;
+
+    private final long[] pssTimes;
+    private final long[] pssValues;
+    private int pssCount;
+    private int pssHead;
+
+    public MemoryPolicyEngine(boolean lowRamDevice, long pssBudgetKb) {
+        this(lowRamDevice, pssBudgetKb, new Config());
+    }
+
+    public MemoryPolicyEngine(boolean lowRamDevice, long pssBudgetKb, Config config) {
+        this.config = config;
+        this.lowRamDevice = lowRamDevice;
+        this.pssBudgetKb = pssBudgetKb;
+        this.pssTimes = new long[config.trendWindow];
+        this.pssValues = new long[config.trendWindow];
+    }
+
+    public static Pressure pressureForTrimLevel(int level) {
+        if (level >= TRIM_MEMORY_COMPLETE) {
+            return Pressure.CRITICAL;
+        }
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            // In the LRU list, the next steps are being killed
+            return Pressure.HIGH;
+        }
+        if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            return Pressure.ELEVATED;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            return Pressure.CRITICAL;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            return Pressure.HIGH;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return Pressure.ELEVATED;
+        }
+        return Pressure.NORMAL;
+    }
+
+    public static int actionsFor(Pressure pressure) {
+        switch (pressure) {
+            case CRITICAL:
+                return ACTION_SHRINK_CACHES | ACTION_DROP_DECODED_IMAGES | ACTION_PAUSE_PREFETCH
+                        | ACTION_RELEASE_RENDERER_PRIORITY | ACTION_LOW_MEMORY_PROFILE;
+            case HIGH:
+                return ACTION_SHRINK_CACHES | ACTION_DROP_DECODED_IMAGES | ACTION_PAUSE_PREFETCH;
+            case ELEVATED:
+                return ACTION_SHRINK_CACHES;
+            default:
+                return 0;
+        }
+    }
+
+    public synchronized void onTrimMemory(int level, long nowMs) {
+        Pressure pressure = pressureForTrimLevel(level);
+        // A newer, milder callback does not cancel a recent stronger one
+        if (pressure.compareTo(activeTrimPressure(nowMs)) >= 0) {
+            trimPressure = pressure;
+        }
+        trimSignalAtMs = nowMs;
+    }
+
+    public synchronized void onLowMemory(long nowMs) {
+        trimPressure = Pressure.CRITICAL;
+        trimSignalAtMs = nowMs;
+    }
+
+    public synchronized void onSystemMemory(long availableBytes, long thresholdBytes, boolean lowMemory) {
+        if (lowMemory) {
+            systemPressure = Pressure.CRITICAL;
+        } else if (thresholdBytes > 0 && availableBytes < thresholdBytes * 2) {
+            systemPressure = Pressure.HIGH;
+        } else if (thresholdBytes > 0 && availableBytes < thresholdBytes * 4) {
+            systemPressure = Pressure.ELEVATED;
+        } else {
+            systemPressure = Pressure.NORMAL;
+        }
+    }
+
+    public synchronized void onPssSample(long pssKb, long nowMs) {
+        pssTimes[pssHead] = nowMs;
+        pssValues[pssHead] = pssKb;
+        pssHead = (pssHead + 1) % pssTimes.length;
+        if (pssCount < pssTimes.length) {
+            pssCount++;
+        }
+    }
+
+    // An engine rebuilt for a new memory class continues from the level already applied, the next evaluation
+    // then only reports what the new budget and floor actually change, stepping down through the recovery window
+    public synchronized void continueFrom(Pressure pressure) {
+        current = pressure;
+        lowerTargetSinceMs = -1;
+    }
+
+    // Samples from before a stretch in the background say nothing about the trend after it
+    public synchronized void clearPssTrend() {
+        pssCount = 0;
+        pssHead = 0;
+    }
+
+    // Returns true when the level changed and the handler was notified
+    public synchronized boolean evaluate(long nowMs, ActionHandler handler) {
+        Pressure target = targetPressure(nowMs);
+        Pressure previous = current;
+
+        if (target.compareTo(current) > 0) {
+            current = target;
+            lowerTargetSinceMs = -1;
+        } else if (target.compareTo(current) < 0) {
+            if (lowerTargetSinceMs < 0) {
+                lowerTargetSinceMs = nowMs;
+            } else if (nowMs - lowerTargetSinceMs >= config.recoveryWindowMs) {
+                // Step down one level at a time, each step needs its own calm window
+                current = Pressure.values()[current.ordinal() - 1];
+                lowerTargetSinceMs = target.compareTo(current) < 0 ? nowMs : -1;
+            }
+        } else {
+            lowerTargetSinceMs = -1;
+        }
+
+        if (current == previous) {
+            return false;
+        }
+        if (handler != null) {
+            handler.onPressureChanged(current, actionsFor(current), actionsFor(previous));
+        }
+        return true;
+    }
+
+    public synchronized Pressure getPressure() {
+        return current;
+    }
+
+    synchronized Pressure targetPressure(long nowMs) {
+        Pressure target = max(floor(), systemPressure);
+        target = max(target, activeTrimPressure(nowMs));
+        return max(target, pssPressure());
+    }
+
+    private Pressure floor() {
+        // Low-RAM devices never run with full-size caches
+        return lowRamDevice ? Pressure.ELEVATED : Pressure.NORMAL;
+    }
+
+    private Pressure activeTrimPressure(long nowMs) {
+        if (trimSignalAtMs < 0 || nowMs - trimSignalAtMs > config.trimSignalHoldMs) {
+            return Pressure.NORMAL;
+        }
+        return trimPressure;
+    }
+
+    private Pressure pssPressure() {
+        if (pssCount == 0 || pssBudgetKb <= 0) {
+            return Pressure.NORMAL;
+        }
+
+        int newest = (pssHead - 1 + pssTimes.length) % pssTimes.length;
+        double ratio = (double) pssValues[newest] / pssBudgetKb;
+        Pressure pressure = Pressure.NORMAL;
+        if (ratio >= config.highPssRatio) {
+            pressure = Pressure.HIGH;
+        } else if (ratio >= config.elevatedPssRatio) {
+            pressure = Pressure.ELEVATED;
+        }
+
+        if (pressure != Pressure.HIGH && projectedPssKb(config.trendHorizonMs) >= pssBudgetKb) {
+            pressure = Pressure.values()[pressure.ordinal() + 1];
+        }
+        return pressure;
+    }
+
+    // Least-squares slope over the sample window, extrapolated from the newest sample
+    long projectedPssKb(long horizonMs) {
+        if (pssCount < 3) {
+            return 0;
+        }
+
+        int oldest = (pssHead - pssCount + pssTimes.length) % pssTimes.length;
+        long baseTime = pssTimes[oldest];
+        double sumX = 0;
+        double sumY = 0;
+        double sumXY = 0;
+        double sumXX = 0;
+        for (int i = 0; i < pssCount; i++) {
+            int index = (oldest + i) % pssTimes.length;
+            double x = pssTimes[index] - baseTime;
+            double y = pssValues[index];
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+        }
+
+        double denominator = pssCount * sumXX - sumX * sumX;
+        if (denominator == 0) {
+            return 0;
+        }
+        double slopeKbPerMs = (pssCount * sumXY - sumX * sumY) / denominator;
+        if (slopeKbPerMs <= 0) {
+            return 0;
+        }
+
+        int newest = (pssHead - 1 + pssTimes.length) % pssTimes.length;
+        return pssValues[newest] + (long) (slopeKbPerMs * horizonMs);
+    }
+
+    private static Pressure max(Pressure a, Pressure b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
@@ -0,0 +1,112 @@
+package com.gymtracker.app;
+
+
+// Fixed-capacity ring of memory samples stored column-wise in primitive arrays,
+// so recording a sample never allocates. Index 0 is the oldest retained sample.
+public class MemorySampleBuffer {
+    private final int capacity;
+    private final long[] timestamps;
+    private final int[] pssKb;
+    private final int[] privateDirtyKb;
+    private final int[] javaHeapKb;
+    private final int[] nativeHeapKb;
+    private final int[] webViewGraphicsKb;
+
+    // Position the next sample is written to, and how many samples are retained
+    private int head;
+    private int count;
+    private long totalRecorded;
+
+    public MemorySampleBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        timestamps = new long[capacity];
+        pssKb = new int[capacity];
+        privateDirtyKb = new int[capacity];
+        javaHeapKb = new int[capacity];
+        nativeHeapKb = new int[capacity];
+        webViewGraphicsKb = new int[capacity];
+    }
+
+    public synchronized void record(long timestampMs, int pss, int privateDirty, int javaHeap, int nativeHeap,
+                                    int webViewGraphics) {
+        timestamps[head] = timestampMs;
+        pssKb[head] = pss;
+        privateDirtyKb[head] = privateDirty;
+        javaHeapKb[head] = javaHeap;
+        nativeHeapKb[head] = nativeHeap;
+        webViewGraphicsKb[head] = webViewGraphics;
+
+        head = (head + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+        totalRecorded++;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // Including samples that have since been overwritten
+    public synchronized long getTotalRecorded() {
+        return totalRecorded;
+    }
+
+    public synchronized long timestampAt(int index) {
+        return timestamps[slot(index)];
+    }
+
+    public synchronized int pssAt(int index) {
+        return pssKb[slot(index)];
+    }
+
+    public synchronized int privateDirtyAt(int index) {
+        return privateDirtyKb[slot(index)];
+    }
+
+    public synchronized int javaHeapAt(int index) {
+        return javaHeapKb[slot(index)];
+    }
+
+    public synchronized int nativeHeapAt(int index) {
+        return nativeHeapKb[slot(index)];
+    }
+
+    public synchronized int webViewGraphicsAt(int index) {
+        return webViewGraphicsKb[slot(index)];
+    }
+
+    // Index of the first sample taken at or after the given time, size() if there is none
+    public synchronized int indexAtOrAfter(long timestampMs) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[slot(mid)] < timestampMs) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+        }
+        return (head - count + index + capacity) % capacity;
+    }
+}
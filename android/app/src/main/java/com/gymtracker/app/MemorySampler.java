@@ -0,0 +1,164 @@
+package com.gymtracker.app;
+
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+
+// Samples process memory on its own thread, Debug.getMemoryInfo can take tens of milliseconds
+// and must not run on the main thread. Samples go into a ring buffer the plugin reads from.
+public class MemorySampler {
+    private static final String TAG = "MemorySampler";
+
+    public static final long DEFAULT_INTERVAL_MS = 5_000;
+    public static final long MIN_INTERVAL_MS = 250;
+    // 30 minutes at the default interval
+    private static final int BUFFER_CAPACITY = 360;
+    // getMemoryStat returns a new String, so graphics memory is only read on every 12th sample (once a
+    // minute at the default interval) and repeated in between
+    private static final int GRAPHICS_SAMPLE_EVERY = 12;
+
+    private static MemorySampler instance;
+
+    private final MemorySampleBuffer buffer = new MemorySampleBuffer(BUFFER_CAPACITY);
+    // Reused for every sample
+    private final Debug.MemoryInfo memoryInfo = new Debug.MemoryInfo();
+    private final Runtime runtime = Runtime.getRuntime();
+
+    private MemoryPolicyEngine policyEngine;
+    private MemoryPolicyEngine.ActionHandler actionHandler;
+    private HandlerThread thread;
+    private Handler handler;
+    private volatile long intervalMs = DEFAULT_INTERVAL_MS;
+    private volatile boolean running;
+    // Only touched on the sampler thread
+    private int samplesSinceGraphics = GRAPHICS_SAMPLE_EVERY;
+    private int graphicsKb = -1;
+
+    private final Runnable sampleTask = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) {
+                return;
+            }
+            sample();
+            handler.postDelayed(this, intervalMs);
+        }
+    };
+
+    public static synchronized MemorySampler getInstance() {
+        if (instance == null) {
+            instance = new MemorySampler();
+        }
+        return instance;
+    }
+
+    public MemorySampleBuffer getBuffer() {
+        return buffer;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    // Every sample is also handed to the policy engine as its PSS signal, and the engine re-evaluated:
+    // sampling runs while the app is in the foreground, so this is what lets the level step back down
+    public synchronized void setPolicyEngine(MemoryPolicyEngine engine) {
+        policyEngine = engine;
+    }
+
+    // Told about level changes the samples cause, called on the sampler thread
+    public synchronized void setActionHandler(MemoryPolicyEngine.ActionHandler handler) {
+        actionHandler = handler;
+    }
+
+    public synchronized void setIntervalMs(long intervalMs) {
+        this.intervalMs = Math.max(MIN_INTERVAL_MS, intervalMs);
+        if (running) {
+            // Apply the new interval right away instead of after the pending delay
+            handler.removeCallbacks(sampleTask);
+            handler.post(sampleTask);
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (thread == null) {
+            thread = new HandlerThread("MemorySampler", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        running = true;
+        handler.post(sampleTask);
+        Log.d(TAG, "Sampling memory every " + intervalMs + "ms");
+    }
+
+    // Keeps the thread and the collected samples, sampling picks up again on start
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        handler.removeCallbacks(sampleTask);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Most recent total PSS, or -1 before the first sample
+    public long getLatestPssKb() {
+        synchronized (buffer) {
+            int size = buffer.size();
+            return size == 0 ? -1 : buffer.pssAt(size - 1);
+        }
+    }
+
+    private void sample() {
+        long now = SystemClock.elapsedRealtime();
+        Debug.getMemoryInfo(memoryInfo);
+
+        int pss = memoryInfo.getTotalPss();
+        int javaHeapKb = (int) ((runtime.totalMemory() - runtime.freeMemory()) / 1024);
+        int nativeHeapKb = (int) (Debug.getNativeHeapAllocatedSize() / 1024);
+        if (++samplesSinceGraphics >= GRAPHICS_SAMPLE_EVERY) {
+            samplesSinceGraphics = 0;
+            graphicsKb = webViewGraphicsKb();
+        }
+        buffer.record(now, pss, memoryInfo.getTotalPrivateDirty(), javaHeapKb, nativeHeapKb, graphicsKb);
+
+        MemoryPolicyEngine engine;
+        MemoryPolicyEngine.ActionHandler handler;
+        synchronized (this) {
+            engine = policyEngine;
+            handler = actionHandler;
+        }
+        if (engine != null) {
+            engine.onPssSample(pss, now);
+            engine.evaluate(now, handler);
+        }
+    }
+
+    // The renderer runs in an isolated process the app cannot measure, what is attributed to us
+    // is the WebView's GPU and compositor memory, reported under graphics
+    private int webViewGraphicsKb() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return -1;
+        }
+        String graphics = memoryInfo.getMemoryStat("summary.graphics");
+        if (graphics == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(graphics);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.brotli.BrotliInterceptor;
+
+
+// Process-wide OkHttp client: one connection pool (HTTP/2 where the server offers it, keep-alive otherwise),
+// brotli and gzip decoding, an on-disk cache that revalidates with ETag / Last-Modified, and identical GETs
+// that are already in flight share one network call. Outlives renderer restarts, unlike the JS pool.
+public class NativeHttpClient {
+    private static final String CACHE_DIRECTORY = "native_http_cache";
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+    private static final int MAX_IDLE_CONNECTIONS = 8;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // Requests per host beyond OkHttp's default of 5, HTTP/2 multiplexes them over one connection
+    private static final int MAX_REQUESTS_PER_HOST = 16;
+
+    private static NativeHttpClient instance;
+
+    private final OkHttpClient client;
+    private final Cache cache;
+
+    // GETs on the network right now, keyed by URL and headers, with everyone waiting for them
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+    private final AtomicLong sharedResponses = new AtomicLong();
+
+    public interface Callback {
+        void onResponse(Response response);
+
+        void onFailure(IOException e);
+    }
+
+    public static class Response {
+        public final int status;
+        public final String url;
+        public final Map<String, String> headers;
+        public final byte[] body;
+        public final String protocol;
+        // Served from the disk cache without touching the network
+        public final boolean fromCache;
+        // The server answered 304 to a conditional request, the body came from the cache
+        public final boolean revalidated;
+        // Answered by another caller's network request
+        public final boolean shared;
+
+        Response(int status, String url, Map<String, String> headers, byte[] body, String protocol,
+                 boolean fromCache, boolean revalidated, boolean shared) {
+            this.status = status;
+            this.url = url;
+            this.headers = headers;
+            this.body = body;
+            this.protocol = protocol;
+            this.fromCache = fromCache;
+            this.revalidated = revalidated;
+            this.shared = shared;
+        }
+
+        Response asShared() {
+            return new Response(status, url, headers, body, protocol, fromCache, revalidated, true);
+        }
+    }
+
+    public static synchronized NativeHttpClient getInstance(Context context) {
+        if (instance == null) {
+            instance = new NativeHttpClient(new File(context.getCacheDir(), CACHE_DIRECTORY),
+                    new OkHttpClient.Builder());
+        }
+        return instance;
+    }
+
+    NativeHttpClient(File cacheDirectory, OkHttpClient.Builder builder) {
+        cache = new Cache(cacheDirectory, CACHE_SIZE_BYTES);
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+        client = builder
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .cache(cache)
+                // Asks for br and gzip and decodes both, the cache keeps the compressed body
+                .addInterceptor(BrotliInterceptor.INSTANCE)
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    public void enqueue(String method, String url, Map<String, String> headers, byte[] body, String contentType,
+                        Callback callback) {
+        Request request;
+        try {
+            request = buildRequest(method, url, headers, body, contentType);
+        } catch (IllegalArgumentException e) {
+            callback.onFailure(new IOException(e.getMessage(), e));
+            return;
+        }
+
+        if (!"GET".equals(request.method())) {
+            client.newCall(request).enqueue(new ResponseCallback(null, Collections.singletonList(callback)));
+            return;
+        }
+
+        String key = dedupeKey(request.url().toString(), headers);
+        List<Callback> waiters;
+        synchronized (inFlight) {
+            waiters = inFlight.get(key);
+            if (waiters != null) {
+                waiters.add(callback);
+                sharedResponses.incrementAndGet();
+                return;
+            }
+            waiters = new ArrayList<>();
+            waiters.add(callback);
+            inFlight.put(key, waiters);
+        }
+        client.newCall(request).enqueue(new ResponseCallback(key, waiters));
+    }
+
+    // Blocking variant for callers that already run off the main thread
+    public Response execute(String method, String url, Map<String, String> headers, byte[] body, String contentType)
+            throws IOException {
+        CountDownLatch done = new CountDownLatch(1);
+        Response[] response = new Response[1];
+        IOException[] failure = new IOException[1];
+        enqueue(method, url, headers, body, contentType, new Callback() {
+            @Override
+            public void onResponse(Response result) {
+                response[0] = result;
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                failure[0] = e;
+                done.countDown();
+            }
+        });
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return response[0];
+    }
+
+    public void clearCache() throws IOException {
+        cache.evictAll();
+    }
+
+    public long getSharedResponseCount() {
+        return sharedResponses.get();
+    }
+
+    public int getCacheRequestCount() {
+        return cache.requestCount();
+    }
+
+    public int getCacheHitCount() {
+        return cache.hitCount();
+    }
+
+    public int getNetworkCount() {
+        return cache.networkCount();
+    }
+
+    public int getConnectionCount() {
+        return client.connectionPool().connectionCount();
+    }
+
+    public int getIdleConnectionCount() {
+        return client.connectionPool().idleConnectionCount();
+    }
+
+    // Drops pooled connections, the next request pays for a new handshake
+    public void evictConnections() {
+        client.connectionPool().evictAll();
+    }
+
+    private static Request buildRequest(String method, String url, Map<String, String> headers, byte[] body,
+                                        String contentType) {
+        Request.Builder builder = new Request.Builder().url(url);
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+        RequestBody requestBody = null;
+        if (body != null) {
+            requestBody = RequestBody.create(body, contentType != null ? MediaType.parse(contentType) : null);
+        } else if ("POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method)) {
+            requestBody = RequestBody.create(new byte[0], null);
+        }
+        return builder.method(method, requestBody).build();
+    }
+
+    // Header names are case-insensitive, so they are lowercased and sorted
+    private static String dedupeKey(String url, Map<String, String> headers) {
+        StringBuilder key = new StringBuilder(url);
+        if (headers != null) {
+            Map<String, String> sorted = new TreeMap<>();
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                sorted.put(header.getKey().toLowerCase(Locale.US), header.getValue());
+            }
+            for (Map.Entry<String, String> header : sorted.entrySet()) {
+                key.append('\n').append(header.getKey()).append(':').append(header.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    private class ResponseCallback implements okhttp3.Callback {
+        private final String key;
+        private final List<Callback> waiters;
+
+        ResponseCallback(String key, List<Callback> waiters) {
+            this.key = key;
+            this.waiters = waiters;
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            for (Callback waiter : finish()) {
+                waiter.onFailure(e);
+            }
+        }
+
+        @Override
+        public void onResponse(Call call, okhttp3.Response response) {
+            Response result;
+            try (ResponseBody body = response.body()) {
+                Map<String, String> headers = new HashMap<>();
+                for (String name : response.headers().names()) {
+                    headers.put(name, joinHeader(response.headers(name)));
+                }
+                result = new Response(response.code(), response.request().url().toString(), headers,
+                        body != null ? body.bytes() : new byte[0], response.protocol().toString(),
+                        response.networkResponse() == null && response.cacheResponse() != null,
+                        response.networkResponse() != null && response.cacheResponse() != null, false);
+            } catch (IOException e) {
+                onFailure(call, e);
+                return;
+            }
+
+            List<Callback> callbacks = finish();
+            for (int i = 0; i < callbacks.size(); i++) {
+                callbacks.get(i).onResponse(i == 0 ? result : result.asShared());
+            }
+        }
+
+        // Once removed from inFlight no one else can join, so the list is safe to read without the lock
+        private List<Callback> finish() {
+            if (key != null) {
+                synchronized (inFlight) {
+                    inFlight.remove(key);
+                }
+            }
+            return waiters;
+        }
+
+        private String joinHeader(List<String> values) {
+            if (values.size() == 1) {
+                return values.get(0);
+            }
+            StringBuilder joined = new StringBuilder();
+            for (String value : values) {
+                if (joined.length() > 0) {
+                    joined.append(", ");
+                }
+                joined.append(value);
+            }
+            return joined.toString();
+        }
+    }
+}
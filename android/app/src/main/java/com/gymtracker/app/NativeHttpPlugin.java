@@ -0,0 +1,146 @@
+package com.gymtracker.app;
+
+import android.util.Base64;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+
+// Request and response shapes follow ApiRequestConfig / ApiResponse in src/services/ApiClient.ts.
+// Calls resolve from OkHttp's threads, so slow requests never hold up the plugin thread.
+@CapacitorPlugin(name = "NativeHttp")
+public class NativeHttpPlugin extends Plugin {
+    private NativeHttpClient client;
+
+    // Built on first use, away from the bridge setup on the main thread
+    private synchronized NativeHttpClient client() {
+        if (client == null) {
+            client = NativeHttpClient.getInstance(getContext());
+        }
+        return client;
+    }
+
+    // responseType is json (default), text or base64
+    @PluginMethod
+    public void request(PluginCall call) {
+        String url = call.getString("url");
+        if (url == null) {
+            call.reject("url is required");
+            return;
+        }
+        String method = call.getString("method", "GET").toUpperCase(Locale.US);
+        String responseType = call.getString("responseType", "json");
+
+        Map<String, String> headers = new HashMap<>();
+        JSObject headerObject = call.getObject("headers");
+        String contentType = null;
+        if (headerObject != null) {
+            Iterator<String> names = headerObject.keys();
+            while (names.hasNext()) {
+                String name = names.next();
+                String value = headerObject.optString(name, null);
+                if (value == null) {
+                    continue;
+                }
+                if ("content-type".equalsIgnoreCase(name)) {
+                    contentType = value;
+                } else {
+                    headers.put(name, value);
+                }
+            }
+        }
+
+        byte[] body = null;
+        Object data = call.getData().opt("data");
+        if (data instanceof String) {
+            body = ((String) data).getBytes(StandardCharsets.UTF_8);
+            if (contentType == null) {
+                contentType = "text/plain; charset=utf-8";
+            }
+        } else if (data instanceof JSONObject || data instanceof JSONArray) {
+            body = data.toString().getBytes(StandardCharsets.UTF_8);
+            if (contentType == null) {
+                contentType = "application/json";
+            }
+        }
+
+        client().enqueue(method, url, headers, body, contentType, new NativeHttpClient.Callback() {
+            @Override
+            public void onResponse(NativeHttpClient.Response response) {
+                call.resolve(toJson(response, responseType));
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                call.reject("Request failed: " + e.getMessage(), "NETWORK_ERROR", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void clearCache(PluginCall call) {
+        try {
+            client().clearCache();
+            call.resolve();
+        } catch (IOException e) {
+            call.reject("Failed to clear the HTTP cache", e);
+        }
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        NativeHttpClient http = client();
+        JSObject result = new JSObject();
+        result.put("connections", http.getConnectionCount());
+        result.put("idleConnections", http.getIdleConnectionCount());
+        result.put("cacheRequests", http.getCacheRequestCount());
+        result.put("cacheHits", http.getCacheHitCount());
+        result.put("networkRequests", http.getNetworkCount());
+        result.put("sharedResponses", http.getSharedResponseCount());
+        call.resolve(result);
+    }
+
+    private static JSObject toJson(NativeHttpClient.Response response, String responseType) {
+        JSObject result = new JSObject();
+        result.put("status", response.status);
+        result.put("url", response.url);
+        result.put("protocol", response.protocol);
+        result.put("cached", response.fromCache);
+        result.put("revalidated", response.revalidated);
+        result.put("shared", response.shared);
+
+        JSObject headers = new JSObject();
+        for (Map.Entry<String, String> header : response.headers.entrySet()) {
+            headers.put(header.getKey().toLowerCase(Locale.US), header.getValue());
+        }
+        result.put("headers", headers);
+
+        if ("base64".equals(responseType)) {
+            result.put("data", Base64.encodeToString(response.body, Base64.NO_WRAP));
+            return result;
+        }
+        String text = new String(response.body, StandardCharsets.UTF_8);
+        if ("json".equals(responseType) && !text.isEmpty()) {
+            try {
+                result.put("data", new JSONTokener(text).nextValue());
+                return result;
+            } catch (JSONException e) {
+                // Not JSON after all, e.g. an HTML error page, handed over as text
+            }
+        }
+        result.put("data", text);
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+// Drains SyncQueueStore in planned batches. Runs on whatever thread calls drain, SyncWorker in practice,
+// so it keeps going after the WebView is paused or gone.
+public class NativeSyncQueue {
+    private static final String TAG = "NativeSyncQueue";
+
+    // Limits of src/utils/syncQueue.ts
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final int MAX_RETRIES = 3;
+    public static final long BASE_RETRY_DELAY_MS = 2000;
+    public static final long MAX_RETRY_DELAY_MS = 60000;
+
+    private static NativeSyncQueue instance;
+
+    private final SyncQueueStore store;
+    private final Random jitter = new Random();
+    private boolean draining;
+
+    public interface Transport {
+        enum Outcome {
+            SUCCESS,
+            // Timeouts, throttling and server errors, the batch is tried again later
+            RETRY,
+            // The server refused the data itself
+            REJECTED
+        }
+
+        // Throws when the server could not be reached at all. Operations that cannot be sent at all go into
+        // batch.rejected, whatever happens to the rest.
+        Outcome send(SyncBatchPlanner.Batch batch) throws IOException;
+    }
+
+    public static class DrainResult {
+        public int operationsSent;
+        public int requests;
+        public int failures;
+        // Stopped early because the network dropped, or operations are waiting for a backoff
+        public boolean needsRetry;
+    }
+
+    public static synchronized NativeSyncQueue getInstance(Context context) {
+        if (instance == null) {
+            instance = new NativeSyncQueue(SyncQueueStore.getInstance(context));
+        }
+        return instance;
+    }
+
+    NativeSyncQueue(SyncQueueStore store) {
+        this.store = store;
+    }
+
+    public SyncQueueStore getStore() {
+        return store;
+    }
+
+    public String[] enqueue(List<SyncOperation> operations) {
+        return store.enqueue(operations);
+    }
+
+    // Sends ready batches until the queue is empty, everything left is backing off, or the deadline passes
+    public DrainResult drain(Transport transport, long deadlineMs) {
+        DrainResult result = new DrainResult();
+        synchronized (this) {
+            if (draining) {
+                return result;
+            }
+            draining = true;
+        }
+
+        try {
+            while (System.currentTimeMillis() < deadlineMs) {
+                List<SyncOperation> pending = store.loadPending();
+                if (pending.isEmpty()) {
+                    break;
+                }
+                List<SyncBatchPlanner.Batch> batches = SyncBatchPlanner.plan(pending,
+                        System.currentTimeMillis(), MAX_BATCH_SIZE);
+                if (batches.isEmpty()) {
+                    // Everything left waits for a backoff to expire
+                    result.needsRetry = true;
+                    break;
+                }
+
+                for (SyncBatchPlanner.Batch batch : batches) {
+                    if (System.currentTimeMillis() >= deadlineMs) {
+                        result.needsRetry = true;
+                        break;
+                    }
+                    if (!send(transport, batch, result)) {
+                        result.needsRetry = true;
+                        return result;
+                    }
+                }
+            }
+            if (System.currentTimeMillis() >= deadlineMs && store.countPending() > 0) {
+                result.needsRetry = true;
+            }
+            return result;
+        } finally {
+            synchronized (this) {
+                draining = false;
+            }
+        }
+    }
+
+    // False when the network is gone and draining should stop
+    private boolean send(Transport transport, SyncBatchPlanner.Batch batch, DrainResult result) {
+        store.markInFlight(batch.operations);
+        result.requests++;
+
+        Transport.Outcome outcome;
+        IOException failure = null;
+        try {
+            outcome = transport.send(batch);
+        } catch (IOException e) {
+            outcome = Transport.Outcome.RETRY;
+            failure = e;
+        }
+
+        // Kept as failed, completing them would lose the change without a trace
+        List<SyncOperation> operations = batch.operations;
+        if (!batch.rejected.isEmpty()) {
+            store.fail(batch.rejected, "Operation data could not be encoded");
+            result.failures += batch.rejected.size();
+            operations = new ArrayList<>(batch.operations);
+            operations.removeAll(batch.rejected);
+        }
+
+        if (failure != null) {
+            Log.w(TAG, "Sync request failed: " + failure.getMessage());
+            scheduleRetry(operations, failure.getMessage());
+            return false;
+        }
+        switch (outcome) {
+            case SUCCESS:
+                store.complete(operations);
+                result.operationsSent += operations.size();
+                break;
+            case REJECTED:
+                store.fail(operations, "Rejected by server");
+                result.failures += operations.size();
+                break;
+            default:
+                scheduleRetry(operations, "Server asked to retry");
+                break;
+        }
+        return true;
+    }
+
+    private void scheduleRetry(List<SyncOperation> operations, String error) {
+        int retryCount = 0;
+        for (SyncOperation operation : operations) {
+            retryCount = Math.max(retryCount, operation.retryCount + 1);
+        }
+        long delay = SyncBatchPlanner.retryDelayMs(retryCount, BASE_RETRY_DELAY_MS, MAX_RETRY_DELAY_MS);
+        // Up to 30% jitter so devices that lost the network together do not retry together
+        delay += (long) (delay * 0.3 * jitter.nextDouble());
+        store.retry(operations, System.currentTimeMillis() + delay, MAX_RETRIES, error);
+    }
+}
@@ -0,0 +1,229 @@
+package com.gymtracker.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+
+// One t-digest per segment x exercise x metric, replacing the raw PerformanceData arrays of
+// percentileCalculator.ts. Values are ingested incrementally, queries never sort. The server's
+// calculate-percentiles snapshot of a key is kept apart from ingested values: each sync replaces it, and
+// queries see both combined.
+public class PercentileSketchStore {
+    private static final int FILE_VERSION = 2;
+    public static final double DEFAULT_COMPRESSION = 200;
+
+    // Quantiles of a calculate-percentiles exercise_statistics row, top_performance is the maximum
+    private static final double[] SUMMARY_QUANTILES = {0.25, 0.5, 0.75, 0.95, 1.0};
+
+    private final File file;
+    private final double compression;
+    private final Map<String, TDigest> sketches = new HashMap<>();
+    // Digests rebuilt from the latest exercise_statistics row of each key
+    private final Map<String, TDigest> summaries = new HashMap<>();
+    // Ingested and server values of keys that have both, dropped when either side changes
+    private final Map<String, TDigest> combined = new HashMap<>();
+
+    public PercentileSketchStore(File file) {
+        this(file, DEFAULT_COMPRESSION);
+    }
+
+    public PercentileSketchStore(File file, double compression) {
+        this.file = file;
+        this.compression = compression;
+        load();
+    }
+
+    public static String key(int segmentId, String exerciseId, String metric) {
+        return segmentId + "|" + exerciseId + "|" + metric;
+    }
+
+    public synchronized void add(int segmentId, String exerciseId, String metric, double value) {
+        String key = key(segmentId, exerciseId, metric);
+        sketch(key).add(value);
+        combined.remove(key);
+    }
+
+    public synchronized TDigest get(int segmentId, String exerciseId, String metric) {
+        return digest(key(segmentId, exerciseId, metric));
+    }
+
+    public synchronized int sketchCount() {
+        int count = sketches.size();
+        for (String key : summaries.keySet()) {
+            if (!sketches.containsKey(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // As calculatePercentile: share of values below the user's, 0-100, 50 when there is no data
+    public synchronized int percentile(int segmentId, String exerciseId, String metric, double value) {
+        TDigest digest = digest(key(segmentId, exerciseId, metric));
+        if (digest == null || digest.isEmpty()) {
+            return 50;
+        }
+        return (int) Math.round(digest.cdf(value) * 100);
+    }
+
+    // 1-based position among all values, estimated from the share of values above the user's
+    public synchronized long rank(int segmentId, String exerciseId, String metric, double value) {
+        TDigest digest = digest(key(segmentId, exerciseId, metric));
+        if (digest == null || digest.isEmpty()) {
+            return 1;
+        }
+        return Math.round((1 - digest.cdf(value)) * digest.size()) + 1;
+    }
+
+    public synchronized double quantile(int segmentId, String exerciseId, String metric, double q) {
+        TDigest digest = digest(key(segmentId, exerciseId, metric));
+        return digest == null ? Double.NaN : digest.quantile(q);
+    }
+
+    // Folds a digest computed elsewhere (another device, a server export) into the segment's sketch
+    public synchronized void merge(int segmentId, String exerciseId, String metric, TDigest other) {
+        String key = key(segmentId, exerciseId, metric);
+        sketch(key).merge(other);
+        combined.remove(key);
+    }
+
+    // Replaces the key's server snapshot, a re-synced row is not counted twice. The function only publishes
+    // p25/p50/p75/p95 and the top value. Each quantile interval's users become one centroid at the interval's
+    // midpoint, the lowest quarter sits at p25 since the minimum is unknown. Quantiles out of order (a top
+    // value below p95) are raised to the one before. Returns false when the row carries no usable data.
+    public synchronized boolean putSummary(int segmentId, String exerciseId, String metric, long totalUsers,
+                                           double p25, double p50, double p75, double p95, double top) {
+        if (totalUsers <= 0) {
+            return false;
+        }
+        double[] quantileValues = {p25, p50, p75, p95, top};
+        for (int i = 0; i < quantileValues.length; i++) {
+            if (Double.isNaN(quantileValues[i]) || Double.isInfinite(quantileValues[i])) {
+                return false;
+            }
+            if (i > 0) {
+                quantileValues[i] = Math.max(quantileValues[i], quantileValues[i - 1]);
+            }
+        }
+        p25 = quantileValues[0];
+        top = quantileValues[quantileValues.length - 1];
+        double[] values = new double[SUMMARY_QUANTILES.length];
+        double[] weights = new double[SUMMARY_QUANTILES.length];
+        double previousQuantile = 0;
+        double previousValue = p25;
+        for (int i = 0; i < SUMMARY_QUANTILES.length; i++) {
+            values[i] = (previousValue + quantileValues[i]) / 2;
+            weights[i] = (SUMMARY_QUANTILES[i] - previousQuantile) * totalUsers;
+            previousQuantile = SUMMARY_QUANTILES[i];
+            previousValue = quantileValues[i];
+        }
+        TDigest summary = new TDigest(compression);
+        summary.addSortedCentroids(values, weights, values.length, p25, top);
+        String key = key(segmentId, exerciseId, metric);
+        summaries.put(key, summary);
+        combined.remove(key);
+        return true;
+    }
+
+    public synchronized void clear() {
+        sketches.clear();
+        summaries.clear();
+        combined.clear();
+        file.delete();
+    }
+
+    // Written to a temporary file first so a crash mid-write keeps the previous state
+    public synchronized void save() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(FILE_VERSION);
+            writeDigests(out, sketches);
+            writeDigests(out, summaries);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    public synchronized long serializedSize() {
+        long size = 12;
+        for (Map<String, TDigest> digests : Arrays.asList(sketches, summaries)) {
+            for (Map.Entry<String, TDigest> digest : digests.entrySet()) {
+                size += 2 + digest.getKey().length() + digest.getValue().serializedSize();
+            }
+        }
+        return size;
+    }
+
+    // What queries see: ingested values, the server snapshot, or both merged
+    private TDigest digest(String key) {
+        TDigest local = sketches.get(key);
+        TDigest summary = summaries.get(key);
+        if (local == null || summary == null) {
+            return local != null ? local : summary;
+        }
+        TDigest digest = combined.get(key);
+        if (digest == null) {
+            digest = new TDigest(compression);
+            digest.merge(local);
+            digest.merge(summary);
+            combined.put(key, digest);
+        }
+        return digest;
+    }
+
+    private TDigest sketch(String key) {
+        TDigest digest = sketches.get(key);
+        if (digest == null) {
+            digest = new TDigest(compression);
+            sketches.put(key, digest);
+        }
+        return digest;
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_VERSION) {
+                return;
+            }
+            readDigests(in, sketches);
+            readDigests(in, summaries);
+        } catch (IOException e) {
+            // Sketches are rebuilt from the next sync, start empty
+            sketches.clear();
+            summaries.clear();
+        }
+    }
+
+    private static void writeDigests(DataOutputStream out, Map<String, TDigest> digests) throws IOException {
+        out.writeInt(digests.size());
+        for (Map.Entry<String, TDigest> digest : digests.entrySet()) {
+            out.writeUTF(digest.getKey());
+            digest.getValue().writeTo(out);
+        }
+    }
+
+    private static void readDigests(DataInputStream in, Map<String, TDigest> digests) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            digests.put(key, TDigest.readFrom(in));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.io.File;
+import java.io.IOException;
+import org.json.JSONObject;
+
+
+// Metric names follow percentileCalculator.ts: weight, oneRM, volume, relative_strength
+@CapacitorPlugin(name = "Percentiles")
+public class PercentilesPlugin extends Plugin {
+    private static final String SKETCH_FILE = "percentile_sketches.bin";
+
+    private PercentileSketchStore store;
+
+    @Override
+    public void load() {
+        store = new PercentileSketchStore(new File(getContext().getFilesDir(), SKETCH_FILE));
+    }
+
+    // Column-wise: segmentIds, exerciseIds, metrics and values of equal length
+    @PluginMethod
+    public void ingest(PluginCall call) {
+        JSArray segmentIds = call.getArray("segmentIds");
+        JSArray exerciseIds = call.getArray("exerciseIds");
+        JSArray metrics = call.getArray("metrics");
+        JSArray values = call.getArray("values");
+        if (segmentIds == null || exerciseIds == null || metrics == null || values == null) {
+            call.reject("segmentIds, exerciseIds, metrics and values are required");
+            return;
+        }
+        int count = values.length();
+        if (segmentIds.length() != count || exerciseIds.length() != count || metrics.length() != count) {
+            call.reject("segmentIds, exerciseIds, metrics and values must have the same length");
+            return;
+        }
+
+        int ingested = 0;
+        for (int i = 0; i < count; i++) {
+            double value = values.optDouble(i, Double.NaN);
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                continue;
+            }
+            store.add(segmentIds.optInt(i), exerciseIds.optString(i), metrics.optString(i), value);
+            ingested++;
+        }
+
+        if (save(call)) {
+            JSObject result = new JSObject();
+            result.put("ingested", ingested);
+            call.resolve(result);
+        }
+    }
+
+    @PluginMethod
+    public void getPercentile(PluginCall call) {
+        Integer segmentId = call.getInt("segmentId");
+        String exerciseId = call.getString("exerciseId");
+        String metric = call.getString("metric");
+        Double value = call.getDouble("value");
+        if (segmentId == null || exerciseId == null || metric == null || value == null) {
+            call.reject("segmentId, exerciseId, metric and value are required");
+            return;
+        }
+
+        TDigest digest = store.get(segmentId, exerciseId, metric);
+        JSObject result = new JSObject();
+        result.put("percentile", store.percentile(segmentId, exerciseId, metric, value));
+        result.put("rank", store.rank(segmentId, exerciseId, metric, value));
+        result.put("totalUsers", digest == null ? 0 : Math.round(digest.size()));
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getQuantiles(PluginCall call) {
+        Integer segmentId = call.getInt("segmentId");
+        String exerciseId = call.getString("exerciseId");
+        String metric = call.getString("metric");
+        JSArray quantiles = call.getArray("quantiles");
+        if (segmentId == null || exerciseId == null || metric == null || quantiles == null) {
+            call.reject("segmentId, exerciseId, metric and quantiles are required");
+            return;
+        }
+
+        JSArray values = new JSArray();
+        for (int i = 0; i < quantiles.length(); i++) {
+            double q = quantiles.optDouble(i, Double.NaN);
+            if (!(q >= 0 && q <= 1)) {
+                call.reject("quantiles must be between 0 and 1");
+                return;
+            }
+            double value = store.quantile(segmentId, exerciseId, metric, q);
+            values.put(Double.isNaN(value) ? JSONObject.NULL : (Object) value);
+        }
+
+        TDigest digest = store.get(segmentId, exerciseId, metric);
+        JSObject result = new JSObject();
+        result.put("values", values);
+        result.put("totalUsers", digest == null ? 0 : Math.round(digest.size()));
+        call.resolve(result);
+    }
+
+    // Rows as written to exercise_statistics by the calculate-percentiles function
+    @PluginMethod
+    public void mergeStatistics(PluginCall call) {
+        JSArray statistics = call.getArray("statistics");
+        if (statistics == null) {
+            call.reject("statistics is required");
+            return;
+        }
+
+        // Each row replaces its key's previous snapshot, re-syncing the same rows changes nothing
+        int merged = 0;
+        int skipped = 0;
+        for (int i = 0; i < statistics.length(); i++) {
+            JSONObject row = statistics.optJSONObject(i);
+            if (row == null || row.optString("exercise_id", null) == null || row.optString("metric_type", null) == null) {
+                skipped++;
+                continue;
+            }
+            try {
+                if (store.putSummary(row.optInt("segment_id"), row.optString("exercise_id"),
+                        row.optString("metric_type"), row.optLong("total_users"),
+                        row.optDouble("percentile_25"), row.optDouble("percentile_50"),
+                        row.optDouble("percentile_75"), row.optDouble("percentile_95"),
+                        row.optDouble("top_performance"))) {
+                    merged++;
+                } else {
+                    skipped++;
+                }
+            } catch (IllegalArgumentException e) {
+                // A malformed row must not take the other rows down with it
+                skipped++;
+            }
+        }
+
+        if (save(call)) {
+            JSObject result = new JSObject();
+            result.put("merged", merged);
+            result.put("skipped", skipped);
+            call.resolve(result);
+        }
+    }
+
+    @PluginMethod
+    public void clear(PluginCall call) {
+        store.clear();
+        call.resolve();
+    }
+
+    private boolean save(PluginCall call) {
+        try {
+            store.save();
+            return true;
+        } catch (IOException e) {
+            call.reject("Failed to save percentile sketches", e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.gymtracker.app;
+
+import android.os.SystemClock;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.Locale;
+import java.util.Map;
+
+
+@CapacitorPlugin(name = "NativePerformance")
+public class PerformancePlugin extends Plugin {
+
+    // Called by the web app once its first route has rendered
+    @PluginMethod
+    public void markAppReady(PluginCall call) {
+        StartupTracer.mark(StartupTimeline.JS_APP_READY);
+
+        // Lets the system record time-to-full-display alongside our own timeline
+        getActivity().runOnUiThread(() -> getActivity().reportFullyDrawn());
+        // First run only, kept off the startup path
+        DeviceTier.measureIfNeeded(getContext());
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getStartupTimings(PluginCall call) {
+        StartupTimeline timeline = StartupTracer.getTimeline();
+
+        JSObject phases = new JSObject();
+        for (Map.Entry<String, Long> phase : timeline.toMap().entrySet()) {
+            phases.put(phase.getKey(), phase.getValue());
+        }
+
+        JSObject durations = new JSObject();
+        for (int phase = 1; phase < StartupTimeline.phaseCount(); phase++) {
+            durations.put(StartupTimeline.phaseName(phase), timeline.phaseDuration(phase));
+        }
+
+        JSObject result = new JSObject();
+        result.put("sinceProcessStart", phases);
+        result.put("phaseDurations", durations);
+        result.put("startupMode", GymTrackerApplication.getStartupMode().name());
+        result.put("nextStartupMode", GymTrackerApplication.getConfiguredStartupMode(getContext()).name());
+        result.put("webViewPrewarmMs", WebViewPrewarmer.getPrewarmDurationMs());
+        result.put("assetServerMode", AssetServer.getMode(getContext()).name().toLowerCase(Locale.US));
+        call.resolve(result);
+    }
+
+    // How the bundled files were served in this process, per source, with the cold start's first paint to
+    // compare the modes by
+    @PluginMethod
+    public void getAssetServerStats(PluginCall call) {
+        JSObject sources = new JSObject();
+        for (AssetVariants.Source source : AssetVariants.Source.values()) {
+            long count = AssetServer.getServedCount(source);
+            JSObject stats = new JSObject();
+            stats.put("count", count);
+            stats.put("openMs", AssetServer.getOpenNanos(source) / 1e6);
+            stats.put("meanOpenUs", count > 0 ? AssetServer.getOpenNanos(source) / 1e3 / count : 0);
+            sources.put(source.name().toLowerCase(Locale.US), stats);
+        }
+
+        JSObject result = new JSObject();
+        result.put("mode", AssetServer.getMode(getContext()).name().toLowerCase(Locale.US));
+        result.put("nextMode", AssetServer.getConfiguredMode(getContext()).name().toLowerCase(Locale.US));
+        result.put("sources", sources);
+        result.put("mappedKb", AssetServer.getMappedBytes() / 1024);
+        result.put("misses", AssetServer.getMissCount());
+        result.put("firstWebViewPaintMs",
+                StartupTracer.getTimeline().sinceProcessStart(StartupTimeline.FIRST_WEBVIEW_PAINT));
+        call.resolve(result);
+    }
+
+    // "mapped", "precompressed" or "off", applies from the next cold start
+    @PluginMethod
+    public void setAssetServerMode(PluginCall call) {
+        AssetVariants.Mode mode = AssetVariants.parseMode(call.getString("mode"));
+        if (mode == null) {
+            call.reject("mode must be mapped, precompressed or off");
+            return;
+        }
+        AssetServer.setConfiguredMode(getContext(), mode);
+
+        JSObject result = new JSObject();
+        result.put("nextMode", mode.name().toLowerCase(Locale.US));
+        call.resolve(result);
+    }
+
+    // "legacy" or "prewarmed", applies from the next cold start
+    @PluginMethod
+    public void setStartupMode(PluginCall call) {
+        GymTrackerApplication.StartupMode mode = GymTrackerApplication.parseStartupMode(call.getString("mode"));
+        if (mode == null) {
+            call.reject("mode must be legacy or prewarmed");
+            return;
+        }
+        GymTrackerApplication.setConfiguredStartupMode(getContext(), mode);
+
+        JSObject result = new JSObject();
+        result.put("nextStartupMode", mode.name());
+        call.resolve(result);
+    }
+
+    // Foreground return latency, onRestart to the first frame after onResume
+    @PluginMethod
+    public void getResumeTimings(PluginCall call) {
+        LatencyRecorder latencies = StartupTracer.getResumeLatencies();
+
+        JSObject result = new JSObject();
+        result.put("count", latencies.getCount());
+        result.put("lastMs", latencies.getLast());
+        result.put("p50Ms", latencies.percentile(50));
+        result.put("p90Ms", latencies.percentile(90));
+        result.put("maxMs", latencies.getMax());
+        call.resolve(result);
+    }
+
+    // Samples from the background memory sampler, column-wise, oldest first. Timestamps are epoch ms, sizes KB.
+    @PluginMethod
+    public void getMemorySamples(PluginCall call) {
+        MemorySampler sampler = MemorySampler.getInstance();
+        MemorySampleBuffer buffer = sampler.getBuffer();
+        long epochOffset = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+
+        JSArray timestamps = new JSArray();
+        JSArray pss = new JSArray();
+        JSArray privateDirty = new JSArray();
+        JSArray javaHeap = new JSArray();
+        JSArray nativeHeap = new JSArray();
+        JSArray webViewGraphics = new JSArray();
+
+        synchronized (buffer) {
+            int from = 0;
+            Long since = call.getLong("since");
+            if (since != null) {
+                from = buffer.indexAtOrAfter(since - epochOffset);
+            }
+            Integer limit = call.getInt("limit");
+            if (limit != null && limit >= 0) {
+                from = Math.max(from, buffer.size() - limit);
+            }
+
+            for (int i = from; i < buffer.size(); i++) {
+                timestamps.put(buffer.timestampAt(i) + epochOffset);
+                pss.put(buffer.pssAt(i));
+                privateDirty.put(buffer.privateDirtyAt(i));
+                javaHeap.put(buffer.javaHeapAt(i));
+                nativeHeap.put(buffer.nativeHeapAt(i));
+                webViewGraphics.put(buffer.webViewGraphicsAt(i));
+            }
+        }
+
+        JSObject result = new JSObject();
+        result.put("intervalMs", sampler.getIntervalMs());
+        result.put("timestamps", timestamps);
+        result.put("pssKb", pss);
+        result.put("privateDirtyKb", privateDirty);
+        result.put("javaHeapKb", javaHeap);
+        result.put("nativeHeapKb", nativeHeap);
+        result.put("webViewGraphicsKb", webViewGraphics);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void setMemorySamplingInterval(PluginCall call) {
+        Long intervalMs = call.getLong("intervalMs");
+        if (intervalMs == null || intervalMs <= 0) {
+            call.reject("intervalMs must be a positive number");
+            return;
+        }
+        MemorySampler.getInstance().setIntervalMs(intervalMs);
+
+        JSObject result = new JSObject();
+        result.put("intervalMs", MemorySampler.getInstance().getIntervalMs());
+        call.resolve(result);
+    }
+
+    // The tier in effect, what it was scored from and what it sets. prefetchConcurrency and animationLevel are
+    // for the web app to apply.
+    @PluginMethod
+    public void getDeviceTier(PluginCall call) {
+        DeviceTierClassifier.Classification classification = DeviceTier.getClassification(getContext());
+        DeviceTierClassifier.Signals signals = DeviceTier.getSignals(getContext());
+        DeviceTierClassifier.Profile profile = DeviceTierClassifier.profileFor(classification.tier);
+
+        JSObject points = new JSObject();
+        points.put("ram", classification.ramPoints);
+        points.put("cpuTopology", classification.topologyPoints);
+        points.put("gpu", classification.gpuPoints);
+        points.put("benchmark", classification.benchmarkPoints);
+
+        JSObject device = new JSObject();
+        device.put("totalRamMb", signals.totalRamMb);
+        device.put("lowRamDevice", signals.lowRamDevice);
+        device.put("cores", signals.coreMaxFreqKhz.length);
+        device.put("bigCores", classification.bigCores);
+        device.put("clusters", classification.clusters);
+        device.put("gpuRenderer", signals.gpuRenderer);
+        device.put("cpuOpsPerNano", signals.cpuOpsPerNano);
+        device.put("memoryBandwidthMbPerSecond", signals.memoryBandwidthMbPerSecond);
+
+        JSObject settings = new JSObject();
+        settings.put("mediaMemoryCacheMb", profile.mediaMemoryCacheBytes / (1024 * 1024));
+        settings.put("mediaDiskCacheMb", profile.mediaDiskCacheBytes / (1024 * 1024));
+        settings.put("offscreenPreRaster", profile.offscreenPreRaster);
+        settings.put("autoplayMedia", profile.autoplayMedia);
+        settings.put("prefetchConcurrency", profile.prefetchConcurrency);
+        settings.put("animationLevel", profile.animationLevel);
+
+        JSObject result = new JSObject();
+        result.put("tier", classification.tier.name().toLowerCase(Locale.US));
+        result.put("score", classification.score);
+        result.put("measured", DeviceTier.isMeasured());
+        result.put("points", points);
+        result.put("signals", device);
+        result.put("profile", settings);
+        call.resolve(result);
+    }
+
+    // Renderer losses recovered in place, against the cold start's time to the first WebView paint. recovered is
+    // true when the current page is running in a WebView that replaced one whose renderer died.
+    @PluginMethod
+    public void getRendererRecovery(PluginCall call) {
+        LatencyRecorder latencies = RendererRecovery.getRecoveryLatencies();
+
+        JSObject result = new JSObject();
+        result.put("recovered", RendererRecovery.getRecoveryCount() > 0);
+        result.put("count", RendererRecovery.getRecoveryCount());
+        result.put("crashes", RendererRecovery.getCrashCount());
+        result.put("restoredUrl", RendererRecovery.getRestoredUrl());
+        result.put("lastMs", latencies.getLast());
+        result.put("p50Ms", latencies.percentile(50));
+        result.put("maxMs", latencies.getMax());
+        result.put("coldStartMs", StartupTracer.getTimeline().sinceProcessStart(StartupTimeline.FIRST_WEBVIEW_PAINT));
+        call.resolve(result);
+    }
+
+    // The web app reports its route pattern (e.g. /workout/:id) on every navigation, frames are attributed to it
+    @PluginMethod
+    public void setRoute(PluginCall call) {
+        String route = call.getString("route");
+        if (route == null) {
+            call.reject("route is required");
+            return;
+        }
+        JankMonitor.getInstance().getTracker().setRoute(route);
+        call.resolve();
+    }
+
+    // Frame duration histograms per WebView layer type, and slow and frozen frames per route and layer type
+    @PluginMethod
+    public void getFrameStats(PluginCall call) {
+        JankMonitor monitor = JankMonitor.getInstance();
+        JankTracker tracker = monitor.getTracker();
+
+        JSArray bucketUpperMs = new JSArray();
+        for (int bucket = 0; bucket < FrameTimeHistogram.bucketCount(); bucket++) {
+            bucketUpperMs.put(FrameTimeHistogram.bucketUpperMs(bucket));
+        }
+
+        JSObject profiles = new JSObject();
+        for (Map.Entry<String, FrameTimeHistogram> profile : tracker.byLayerProfile().entrySet()) {
+            JSObject stats = frameStats(profile.getValue());
+            JSArray counts = new JSArray();
+            for (int bucket = 0; bucket < FrameTimeHistogram.bucketCount(); bucket++) {
+                counts.put(profile.getValue().countAt(bucket));
+            }
+            stats.put("counts", counts);
+            profiles.put(profile.getKey(), stats);
+        }
+
+        JSArray routes = new JSArray();
+        for (JankTracker.RouteStats route : tracker.byRoute()) {
+            JSObject stats = frameStats(route.histogram);
+            stats.put("route", route.route);
+            stats.put("layerType", route.layerProfile);
+            routes.put(stats);
+        }
+
+        JSObject result = new JSObject();
+        result.put("monitoring", monitor.isRunning());
+        result.put("lowRamDevice", MemoryManager.isLowMemoryDevice(getContext()));
+        result.put("layerType", tracker.getLayerProfile());
+        result.put("route", tracker.getRoute());
+        result.put("refreshIntervalMs", monitor.getRefreshIntervalNanos() / 1e6);
+        result.put("droppedReports", tracker.getDroppedReports());
+        result.put("bucketUpperMs", bucketUpperMs);
+        result.put("layerTypes", profiles);
+        result.put("routes", routes);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void resetFrameStats(PluginCall call) {
+        JankMonitor.getInstance().getTracker().clear();
+        call.resolve();
+    }
+
+    private static JSObject frameStats(FrameTimeHistogram histogram) {
+        JSObject stats = new JSObject();
+        stats.put("frames", histogram.getFrames());
+        stats.put("slowFrames", histogram.getSlowFrames());
+        stats.put("frozenFrames", histogram.getFrozenFrames());
+        stats.put("jankMs", histogram.getJankNanos() / 1_000_000L);
+        stats.put("meanMs", histogram.getMeanMs());
+        stats.put("p50Ms", histogram.percentileMs(50));
+        stats.put("p90Ms", histogram.percentileMs(90));
+        stats.put("p99Ms", histogram.percentileMs(99));
+        stats.put("maxMs", histogram.getMaxNanos() / 1e6);
+        return stats;
+    }
+}
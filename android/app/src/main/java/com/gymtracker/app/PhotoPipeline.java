@@ -0,0 +1,317 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.media.ExifInterface;
+import android.os.Build;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+// Progress photos are decoded, oriented and resized here instead of in a WebView canvas. The decode is
+// sampled down by a power of two close to the target size, so a 12MP photo never exists at full resolution,
+// then scaled and rotated in one draw into a pooled bitmap and written out as WebP.
+// Thumbnails go through a MediaDiskCache and are served to the page by MediaCacheWebViewClient.
+public class PhotoPipeline {
+    public static final int DEFAULT_MAX_DIMENSION = 1600;
+    public static final int DEFAULT_QUALITY = 82;
+    public static final int DEFAULT_THUMBNAIL_SIZE = 320;
+    // Served by MediaCacheWebViewClient: <local url>/_photo_thumbnail_/<size>/<photo file name>
+    public static final String THUMBNAIL_PATH = "/_photo_thumbnail_/";
+
+    private static final String PHOTO_DIRECTORY = "progress_photos";
+    private static final String THUMBNAIL_DIRECTORY = "photo_thumbnails";
+    private static final long THUMBNAIL_CACHE_BYTES = 30L * 1024 * 1024;
+    private static final int THUMBNAIL_QUALITY = 75;
+    // Full decodes are the memory peak, two at a time keeps it bounded
+    private static final int WORKER_THREADS = 2;
+
+    private static PhotoPipeline instance;
+
+    private final File photoDirectory;
+    private final MediaDiskCache thumbnails;
+    private final BitmapPool pool;
+    private final ExecutorService executor = Executors.newFixedThreadPool(WORKER_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "PhotoPipeline");
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    public interface Source {
+        // Opened more than once: for the bounds, the EXIF orientation and the decode
+        InputStream open() throws IOException;
+    }
+
+    public static class Result {
+        public File file;
+        public int width;
+        public int height;
+        public int sourceWidth;
+        public int sourceHeight;
+        public int sampleSize;
+        public int rotation;
+        public long bytes;
+        public long decodeMs;
+        public long totalMs;
+        // Bitmap memory alive at once, the sampled decode plus the output
+        public long peakBitmapBytes;
+    }
+
+    public static synchronized PhotoPipeline getInstance(Context context) {
+        if (instance == null) {
+            instance = new PhotoPipeline(new File(context.getFilesDir(), PHOTO_DIRECTORY),
+                    new MediaDiskCache(new File(context.getCacheDir(), THUMBNAIL_DIRECTORY), THUMBNAIL_CACHE_BYTES),
+                    BitmapPool.getInstance());
+        }
+        return instance;
+    }
+
+    PhotoPipeline(File photoDirectory, MediaDiskCache thumbnails, BitmapPool pool) {
+        this.photoDirectory = photoDirectory;
+        this.thumbnails = thumbnails;
+        this.pool = pool;
+    }
+
+    public File getPhotoDirectory() {
+        return photoDirectory;
+    }
+
+    public MediaDiskCache getThumbnailCache() {
+        return thumbnails;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    // Photos are only ever read from the pipeline's own directory
+    public File resolvePhoto(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.contains("/") || fileName.startsWith(".")) {
+            return null;
+        }
+        File file = new File(photoDirectory, fileName);
+        return file.isFile() ? file : null;
+    }
+
+    public Result process(Source source, int maxDimension, int quality, File output) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = source.open()) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not a decodable image");
+        }
+        result.sourceWidth = options.outWidth;
+        result.sourceHeight = options.outHeight;
+
+        int orientation = readOrientation(source);
+        int[] target = targetSize(options.outWidth, options.outHeight, maxDimension);
+        int sampleSize = calculateInSampleSize(options.outWidth, options.outHeight, target[0], target[1]);
+        result.sampleSize = sampleSize;
+        result.rotation = rotationDegrees(orientation);
+
+        Bitmap decoded = decode(source, sampleSize, options.outWidth, options.outHeight);
+        result.decodeMs = (System.nanoTime() - start) / 1_000_000;
+
+        boolean swap = swapsDimensions(orientation);
+        int width = swap ? target[1] : target[0];
+        int height = swap ? target[0] : target[1];
+        Bitmap scaled = null;
+        try {
+            scaled = pool.get(width, height);
+            Matrix matrix = new Matrix();
+            matrix.setScale((float) target[0] / decoded.getWidth(), (float) target[1] / decoded.getHeight());
+            applyOrientation(matrix, orientation, target[0], target[1]);
+            new Canvas(scaled).drawBitmap(decoded, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+            result.peakBitmapBytes = decoded.getAllocationByteCount() + scaled.getAllocationByteCount();
+            // The decode buffer can serve the next photo while this one is encoded
+            pool.put(decoded);
+            decoded = null;
+
+            writeWebp(scaled, quality, output);
+        } finally {
+            pool.put(decoded);
+            pool.put(scaled);
+        }
+
+        result.file = output;
+        result.width = width;
+        result.height = height;
+        result.bytes = output.length();
+        result.totalMs = (System.nanoTime() - start) / 1_000_000;
+        return result;
+    }
+
+    // Cached WebP thumbnail of a processed photo, generated on first use. Null if it does not fit the cache.
+    public MediaDiskCache.Entry thumbnail(File photo, int size) throws IOException {
+        String key = photo.getName() + "@" + size + "#" + photo.lastModified();
+        MediaDiskCache.Entry entry = thumbnails.get(key);
+        if (entry != null) {
+            return entry;
+        }
+
+        File tmp = File.createTempFile("thumbnail", ".webp", thumbnails.getDirectory());
+        try {
+            process(() -> new FileInputStream(photo), size, THUMBNAIL_QUALITY, tmp);
+            try (InputStream in = new FileInputStream(tmp)) {
+                return thumbnails.put(key, "image/webp", in);
+            }
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private Bitmap decode(Source source, int sampleSize, int sourceWidth, int sourceHeight) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize;
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        int estimatedBytes = ceilDiv(sourceWidth, sampleSize) * ceilDiv(sourceHeight, sampleSize) * 4;
+        options.inBitmap = pool.getForDecode(estimatedBytes);
+
+        Bitmap decoded;
+        try (InputStream in = source.open()) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        } catch (IllegalArgumentException e) {
+            // The pooled bitmap did not fit after all, decode into a fresh one
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            try (InputStream in = source.open()) {
+                decoded = BitmapFactory.decodeStream(in, null, options);
+            }
+        }
+        if (decoded == null) {
+            pool.put(options.inBitmap);
+            throw new IOException("Failed to decode image");
+        }
+        return decoded;
+    }
+
+    // Written to a temporary file and renamed, so a half-written photo is never picked up
+    @SuppressWarnings("deprecation")
+    private static void writeWebp(Bitmap bitmap, int quality, File output) throws IOException {
+        Bitmap.CompressFormat format = Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+        File tmp = new File(output.getPath() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024)) {
+            if (!bitmap.compress(format, quality, out)) {
+                throw new IOException("WebP encoding failed");
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        if (!tmp.renameTo(output)) {
+            tmp.delete();
+            throw new IOException("Cannot write " + output);
+        }
+    }
+
+    private static int readOrientation(Source source) {
+        try (InputStream in = source.open()) {
+            return new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL);
+        } catch (IOException | RuntimeException e) {
+            // No EXIF block, e.g. PNG or WebP
+            return ExifInterface.ORIENTATION_NORMAL;
+        }
+    }
+
+    // Maps the scaled image (width x height, before rotation) onto the upright output
+    private static void applyOrientation(Matrix matrix, int orientation, float width, float height) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.postScale(-1, 1);
+                matrix.postTranslate(width, 0);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.postRotate(180);
+                matrix.postTranslate(width, height);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.postScale(1, -1);
+                matrix.postTranslate(0, height);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.postRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.postRotate(90);
+                matrix.postTranslate(height, 0);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.postRotate(-90);
+                matrix.postScale(-1, 1);
+                matrix.postTranslate(height, width);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.postRotate(-90);
+                matrix.postTranslate(0, width);
+                break;
+            default:
+                break;
+        }
+    }
+
+    static boolean swapsDimensions(int orientation) {
+        return orientation >= ExifInterface.ORIENTATION_TRANSPOSE
+                && orientation <= ExifInterface.ORIENTATION_ROTATE_270;
+    }
+
+    static int rotationDegrees(int orientation) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+
+    // Longest side capped at maxDimension, never upscaled
+    static int[] targetSize(int width, int height, int maxDimension) {
+        int longest = Math.max(width, height);
+        if (longest <= maxDimension) {
+            return new int[] { width, height };
+        }
+        double scale = (double) maxDimension / longest;
+        return new int[] {
+                Math.max(1, (int) Math.round(width * scale)), Math.max(1, (int) Math.round(height * scale)) };
+    }
+
+    // Largest power of two that still decodes at least the target size, the final scale is a filtered draw
+    static int calculateInSampleSize(int width, int height, int targetWidth, int targetHeight) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= targetWidth && height / (sampleSize * 2) >= targetHeight) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+}
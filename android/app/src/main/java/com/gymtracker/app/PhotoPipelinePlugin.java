@@ -0,0 +1,121 @@
+package com.gymtracker.app;
+
+import android.net.Uri;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.UUID;
+
+
+// Takes a camera capture or picked image by path or content:// uri and stores a downscaled, upright WebP
+// copy. The page shows the photo through Capacitor.convertFileSrc(path) and lists use thumbnailUrl, which
+// MediaCacheWebViewClient serves from the thumbnail cache.
+@CapacitorPlugin(name = "PhotoPipeline")
+public class PhotoPipelinePlugin extends Plugin {
+    private PhotoPipeline pipeline;
+
+    @Override
+    public void load() {
+        pipeline = PhotoPipeline.getInstance(getContext());
+    }
+
+    @PluginMethod
+    public void process(PluginCall call) {
+        String path = call.getString("path");
+        String uri = call.getString("uri");
+        if (path == null && uri == null) {
+            call.reject("path or uri is required");
+            return;
+        }
+        int maxDimension = call.getInt("maxDimension", PhotoPipeline.DEFAULT_MAX_DIMENSION);
+        int quality = Math.max(1, Math.min(100, call.getInt("quality", PhotoPipeline.DEFAULT_QUALITY)));
+        int thumbnailSize = call.getInt("thumbnailSize", PhotoPipeline.DEFAULT_THUMBNAIL_SIZE);
+
+        PhotoPipeline.Source source = () -> {
+            if (path != null) {
+                return new FileInputStream(path);
+            }
+            InputStream in = getContext().getContentResolver().openInputStream(Uri.parse(uri));
+            if (in == null) {
+                throw new FileNotFoundException(uri);
+            }
+            return in;
+        };
+
+        // Off the shared plugin thread, a 12MP decode would hold up every other plugin call
+        pipeline.getExecutor().execute(() -> {
+            try {
+                File directory = pipeline.getPhotoDirectory();
+                if (!directory.isDirectory() && !directory.mkdirs()) {
+                    call.reject("Cannot create " + directory);
+                    return;
+                }
+                File output = new File(directory, UUID.randomUUID() + ".webp");
+                PhotoPipeline.Result result = pipeline.process(source, maxDimension, quality, output);
+                // Generated now so the first list render does not wait for it
+                pipeline.thumbnail(output, thumbnailSize);
+
+                JSObject json = new JSObject();
+                json.put("name", output.getName());
+                json.put("path", output.getAbsolutePath());
+                json.put("thumbnailUrl", getBridge().getLocalUrl() + PhotoPipeline.THUMBNAIL_PATH + thumbnailSize + "/"
+                        + output.getName());
+                json.put("width", result.width);
+                json.put("height", result.height);
+                json.put("bytes", result.bytes);
+                json.put("sourceWidth", result.sourceWidth);
+                json.put("sourceHeight", result.sourceHeight);
+                json.put("sampleSize", result.sampleSize);
+                json.put("rotation", result.rotation);
+                json.put("decodeMs", result.decodeMs);
+                json.put("totalMs", result.totalMs);
+                json.put("peakBitmapBytes", result.peakBitmapBytes);
+                call.resolve(json);
+            } catch (Exception e) {
+                call.reject("Failed to process photo", e);
+            }
+        });
+    }
+
+    @PluginMethod
+    public void delete(PluginCall call) {
+        File photo = pipeline.resolvePhoto(call.getString("name"));
+        if (photo == null) {
+            call.reject("Unknown photo");
+            return;
+        }
+        // Thumbnails age out of the cache by themselves
+        photo.delete();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        BitmapPool pool = BitmapPool.getInstance();
+        MediaDiskCache thumbnails = pipeline.getThumbnailCache();
+
+        JSObject poolStats = new JSObject();
+        poolStats.put("hits", pool.getHits());
+        poolStats.put("misses", pool.getMisses());
+        poolStats.put("bitmaps", pool.getCount());
+        poolStats.put("sizeBytes", pool.getSizeBytes());
+        poolStats.put("maxBytes", pool.getMaxBytes());
+
+        JSObject thumbnailStats = new JSObject();
+        thumbnailStats.put("hits", thumbnails.getHits());
+        thumbnailStats.put("misses", thumbnails.getMisses());
+        thumbnailStats.put("entries", thumbnails.getEntryCount());
+        thumbnailStats.put("sizeBytes", thumbnails.getSizeBytes());
+
+        JSObject result = new JSObject();
+        result.put("pool", poolStats);
+        result.put("thumbnails", thumbnailStats);
+        call.resolve(result);
+    }
+}
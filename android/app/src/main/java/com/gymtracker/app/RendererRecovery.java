@@ -0,0 +1,108 @@
+package com.gymtracker.app;
+
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.RenderProcessGoneDetail;
+import android.webkit.WebView;
+import com.getcapacitor.Bridge;
+import com.getcapacitor.WebViewListener;
+
+
+// Brings the page back after its renderer process died, killed for memory or crashed, without restarting
+// the activity. The host swaps in a new WebView and bridge; the process, the native stores and the workout
+// journal stay as they are, so the page only has to load again. Everything here runs on the main thread.
+public class RendererRecovery {
+    private static final String TAG = "RendererRecovery";
+
+    // More deaths than this within the window is a crash loop, rebuilding again would not help
+    private static final int MAX_RECOVERIES = 3;
+    private static final long CRASH_LOOP_WINDOW_MS = 60_000;
+
+    public interface Host {
+        // Replaces the dead WebView and its bridge, loading restoreUrl when it is one of the app's own pages
+        void rebuildWebView(String restoreUrl);
+    }
+
+    // From the renderer's death to the first visible commit of the new page
+    private static final LatencyRecorder recoveryLatencies = new LatencyRecorder(16);
+    private static final long[] recentDeathsMs = new long[MAX_RECOVERIES];
+    private static int deaths;
+    private static int crashes;
+    private static long recoveryStartMs = -1;
+    private static String restoredUrl;
+    // True while the host tears down the old bridge and builds the new one
+    private static boolean rebuilding;
+
+    public static LatencyRecorder getRecoveryLatencies() {
+        return recoveryLatencies;
+    }
+
+    // Renderer deaths handled, crashed or killed
+    public static int getRecoveryCount() {
+        return deaths;
+    }
+
+    // Deaths where the renderer crashed, the rest were killed by the system to free memory
+    public static int getCrashCount() {
+        return crashes;
+    }
+
+    public static String getRestoredUrl() {
+        return restoredUrl;
+    }
+
+    // Plugins check this in handleOnDestroy: the bridge is only being replaced, native sessions such as a
+    // workout's sensor recording should carry on for the new one
+    public static boolean isRebuilding() {
+        return rebuilding;
+    }
+
+    // Returns true when the loss was handled. False lets the WebView take the app down, as it does when no
+    // client handles it.
+    public static boolean onRenderProcessGone(Bridge bridge, WebView view, RenderProcessGoneDetail detail) {
+        if (!(bridge.getActivity() instanceof Host)) {
+            return false;
+        }
+        long now = SystemClock.elapsedRealtime();
+        long oldest = recentDeathsMs[deaths % MAX_RECOVERIES];
+        if (deaths >= MAX_RECOVERIES && now - oldest < CRASH_LOOP_WINDOW_MS) {
+            Log.e(TAG, "Renderer gone " + (MAX_RECOVERIES + 1) + " times within " + CRASH_LOOP_WINDOW_MS
+                    + "ms, giving up");
+            return false;
+        }
+        recentDeathsMs[deaths % MAX_RECOVERIES] = now;
+        deaths++;
+        if (detail.didCrash()) {
+            crashes++;
+        }
+        recoveryStartMs = now;
+        restoredUrl = view.getUrl();
+        Log.w(TAG, "Renderer " + (detail.didCrash() ? "crashed" : "was killed") + " on " + restoredUrl
+                + ", rebuilding the WebView");
+
+        rebuilding = true;
+        try {
+            ((Host) bridge.getActivity()).rebuildWebView(restoredUrl);
+        } finally {
+            rebuilding = false;
+        }
+        return true;
+    }
+
+    // Called by the host with the new bridge, the recovery is complete once its page is visible
+    public static void trackRecovery(Bridge bridge) {
+        bridge.addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageCommitVisible(WebView view, String url) {
+                if (recoveryStartMs < 0) {
+                    return;
+                }
+                long latency = SystemClock.elapsedRealtime() - recoveryStartMs;
+                recoveryStartMs = -1;
+                recoveryLatencies.record(latency);
+                Log.i(TAG, "Renderer recovered in " + latency + "ms, the cold start took "
+                        + StartupTracer.getTimeline().sinceProcessStart(StartupTimeline.FIRST_WEBVIEW_PAINT) + "ms");
+            }
+        });
+    }
+}
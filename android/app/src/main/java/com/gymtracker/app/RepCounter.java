@@ -0,0 +1,256 @@
+package com.gymtracker.app;
+
+
+// Counts reps in a stream of accelerometer samples. Works on the acceleration magnitude, so it does not
+// matter how the phone sits on the arm or in a pocket: the slow part of the magnitude is gravity, what is
+// left is the lift's acceleration along the vertical. A rep pushes (positive), brakes (negative), then does
+// the same in reverse on the way down. A rep is counted from the push to the brake at the bottom: the signal
+// crosses the upper threshold, the lower one, and the upper one again, and the part below zero adds up to
+// a real change of velocity. The period found by autocorrelation over the last ten seconds keeps a bounce
+// inside a rep from counting twice.
+// Only sample timestamps are used, never the clock, so the same samples always give the same reps. Nothing
+// is allocated after construction. Not thread-safe, feed it from one thread.
+public class RepCounter {
+    public static final long DEFAULT_MIN_REP_NANOS = 800_000_000L;
+
+    public interface Listener {
+        // amplitude is half the peak-to-peak acceleration of the rep in m/s^2
+        void onRep(int reps, long timestampNanos, long durationNanos, float amplitude);
+    }
+
+    private enum Phase { IDLE, HIGH, LOW }
+
+    // Filter time constants: gravity baseline, two smoothing stages, decay of the amplitude envelope
+    private static final float GRAVITY_TAU_SECONDS = 2.5f;
+    private static final float SMOOTHING_TAU_SECONDS = 0.08f;
+    private static final float ENVELOPE_TAU_SECONDS = 4f;
+    // Thresholds follow the envelope but never drop into sensor noise, m/s^2
+    private static final float MIN_THRESHOLD = 0.35f;
+    private static final float THRESHOLD_RATIO = 0.3f;
+    // Longer than this between the thresholds ends the set, the next crossing starts a fresh rep
+    private static final long MAX_PAUSE_NANOS = 6_000_000_000L;
+    // Braking at the top and lowering take at least this much velocity out of a rep, m/s. A knock pushes
+    // and pulls by about the same small amount.
+    private static final float MIN_VELOCITY_DROP = 0.5f;
+    // Autocorrelation runs once a second over the signal averaged into 40ms slots
+    private static final long SLOT_NANOS = 40_000_000L;
+    private static final int WINDOW_SLOTS = 256;
+    private static final int PERIOD_UPDATE_SLOTS = 25;
+    private static final long MAX_PERIOD_NANOS = 6_000_000_000L;
+    private static final float MIN_CORRELATION = 0.5f;
+    // A detected period only shortens the rejection window to this share of itself
+    private static final float PERIOD_GUARD_RATIO = 0.5f;
+
+    private final long minRepNanos;
+    private final float[] window = new float[WINDOW_SLOTS];
+    private final float[] scratch = new float[WINDOW_SLOTS];
+    // Swapped from the plugin thread while the sensor thread counts
+    private volatile Listener listener;
+
+    private long samples;
+    private long lastTimestamp;
+    private float gravity;
+    private float smoothed;
+    private float signal;
+    private float envelope;
+
+    private Phase phase = Phase.IDLE;
+    // Whether the signal went above the upper threshold since it last dropped below zero
+    private boolean above;
+    // Integral of the signal below zero since the cycle started
+    private float velocityDrop;
+    private long cycleStart;
+    private long lastActive;
+    private float cycleMax;
+    private float cycleMin;
+    // Written on the sensor thread, read by the plugin
+    private volatile int reps;
+
+    private int windowHead;
+    private int windowCount;
+    private long slotStart;
+    private float slotSum;
+    private int slotSamples;
+    private int slotsSinceUpdate;
+    private long periodNanos;
+
+    public RepCounter() {
+        this(DEFAULT_MIN_REP_NANOS);
+    }
+
+    public RepCounter(long minRepNanos) {
+        if (minRepNanos <= 0) {
+            throw new IllegalArgumentException("minRepNanos must be positive");
+        }
+        this.minRepNanos = minRepNanos;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int getReps() {
+        return reps;
+    }
+
+    // Rep period found by autocorrelation, 0 while the recent motion is not periodic
+    public long getPeriodNanos() {
+        return periodNanos;
+    }
+
+    // Returns true when this sample completed a rep
+    public boolean add(long timestampNanos, float x, float y, float z) {
+        float magnitude = (float) Math.sqrt(x * x + y * y + z * z);
+        if (samples++ == 0) {
+            gravity = magnitude;
+            lastTimestamp = timestampNanos;
+            slotStart = timestampNanos;
+        }
+        float dt = Math.max(0, timestampNanos - lastTimestamp) / 1e9f;
+        lastTimestamp = timestampNanos;
+
+        gravity += alpha(dt, GRAVITY_TAU_SECONDS) * (magnitude - gravity);
+        float smoothing = alpha(dt, SMOOTHING_TAU_SECONDS);
+        smoothed += smoothing * (magnitude - gravity - smoothed);
+        signal += smoothing * (smoothed - signal);
+        envelope = Math.max(Math.abs(signal), envelope * (1 - alpha(dt, ENVELOPE_TAU_SECONDS)));
+
+        decimate(timestampNanos);
+        return detect(timestampNanos, dt);
+    }
+
+    public void reset() {
+        samples = 0;
+        smoothed = 0;
+        signal = 0;
+        envelope = 0;
+        phase = Phase.IDLE;
+        above = false;
+        reps = 0;
+        windowHead = 0;
+        windowCount = 0;
+        slotSum = 0;
+        slotSamples = 0;
+        slotsSinceUpdate = 0;
+        periodNanos = 0;
+    }
+
+    private boolean detect(long timestampNanos, float dt) {
+        float threshold = Math.max(MIN_THRESHOLD, THRESHOLD_RATIO * envelope);
+        cycleMax = Math.max(cycleMax, signal);
+        cycleMin = Math.min(cycleMin, signal);
+        if (signal < 0) {
+            above = false;
+            velocityDrop -= signal * dt;
+        }
+
+        boolean counted = false;
+        if (signal > threshold) {
+            if (!above) {
+                // The push of a rep, or the brake at the bottom of the one in progress
+                above = true;
+                if (phase == Phase.LOW) {
+                    long duration = timestampNanos - cycleStart;
+                    // Knocks and footsteps are shorter and barely change the velocity
+                    if (duration >= minCycleNanos() && velocityDrop >= MIN_VELOCITY_DROP) {
+                        counted = true;
+                        reps++;
+                        Listener current = listener;
+                        if (current != null) {
+                            current.onRep(reps, timestampNanos, duration, (cycleMax - cycleMin) / 2);
+                        }
+                    }
+                }
+                phase = Phase.HIGH;
+                cycleStart = timestampNanos;
+                cycleMax = signal;
+                cycleMin = signal;
+                velocityDrop = 0;
+            }
+            lastActive = timestampNanos;
+        } else if (signal < -threshold) {
+            if (phase == Phase.HIGH) {
+                phase = Phase.LOW;
+            }
+            lastActive = timestampNanos;
+        } else if (phase != Phase.IDLE && timestampNanos - lastActive > MAX_PAUSE_NANOS) {
+            phase = Phase.IDLE;
+        }
+        return counted;
+    }
+
+    private long minCycleNanos() {
+        return Math.max(minRepNanos, (long) (periodNanos * PERIOD_GUARD_RATIO));
+    }
+
+    // Averages the signal into fixed time slots, so the autocorrelation does not depend on the sampling rate
+    private void decimate(long timestampNanos) {
+        slotSum += signal;
+        slotSamples++;
+        if (timestampNanos - slotStart < SLOT_NANOS) {
+            return;
+        }
+        window[windowHead] = slotSum / slotSamples;
+        windowHead = (windowHead + 1) % WINDOW_SLOTS;
+        if (windowCount < WINDOW_SLOTS) {
+            windowCount++;
+        }
+        slotSum = 0;
+        slotSamples = 0;
+        slotStart += (timestampNanos - slotStart) / SLOT_NANOS * SLOT_NANOS;
+
+        if (++slotsSinceUpdate >= PERIOD_UPDATE_SLOTS && windowCount >= WINDOW_SLOTS / 2) {
+            slotsSinceUpdate = 0;
+            periodNanos = estimatePeriod();
+        }
+    }
+
+    // First autocorrelation peak in the rep range that is strong enough, 0 if there is none
+    private long estimatePeriod() {
+        int n = windowCount;
+        int oldest = (windowHead - n + WINDOW_SLOTS) % WINDOW_SLOTS;
+        float mean = 0;
+        for (int i = 0; i < n; i++) {
+            scratch[i] = window[(oldest + i) % WINDOW_SLOTS];
+            mean += scratch[i];
+        }
+        mean /= n;
+        float energy = 0;
+        for (int i = 0; i < n; i++) {
+            scratch[i] -= mean;
+            energy += scratch[i] * scratch[i];
+        }
+        // Too quiet to be lifting
+        if (energy < n * MIN_THRESHOLD * MIN_THRESHOLD / 4) {
+            return 0;
+        }
+
+        int minLag = (int) Math.max(2, minRepNanos / SLOT_NANOS);
+        int maxLag = (int) Math.min(n / 2, MAX_PERIOD_NANOS / SLOT_NANOS);
+        float beforePrevious = correlation(minLag - 2, n, energy);
+        float previous = correlation(minLag - 1, n, energy);
+        for (int lag = minLag; lag <= maxLag; lag++) {
+            float current = correlation(lag, n, energy);
+            if (previous >= MIN_CORRELATION && previous > beforePrevious && previous >= current) {
+                return (lag - 1) * SLOT_NANOS;
+            }
+            beforePrevious = previous;
+            previous = current;
+        }
+        return 0;
+    }
+
+    private float correlation(int lag, int n, float energy) {
+        float sum = 0;
+        for (int i = 0; i + lag < n; i++) {
+            sum += scratch[i] * scratch[i + lag];
+        }
+        // Scaled up for the shrinking overlap
+        return sum / energy * n / (n - lag);
+    }
+
+    // Smoothing factor of a first-order low-pass for a step of dt seconds
+    private static float alpha(float dt, float tauSeconds) {
+        return dt / (tauSeconds + dt);
+    }
+}
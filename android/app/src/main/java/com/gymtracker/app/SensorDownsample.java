@@ -0,0 +1,92 @@
+package com.gymtracker.app;
+
+
+// Fixed-size bucket output of SensorSampleBuffer.downsample, reused between reads so draining a
+// sensor does not allocate. Holds at most capacity() buckets, the rest is picked up by the next read.
+public class SensorDownsample {
+    public enum Mode {
+        // Per-axis mean over the bucket, for motion and heart rate
+        MEAN,
+        // Last value in the bucket, for cumulative counters such as the step counter
+        LAST
+    }
+
+    private final int capacity;
+    final long[] timestamps;
+    final float[] x;
+    final float[] y;
+    final float[] z;
+    final float[] peak;
+    final int[] counts;
+
+    int size;
+    // Where the next read should start, the first bucket that was not complete or did not fit
+    long nextSinceNanos;
+
+    public SensorDownsample(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        timestamps = new long[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        z = new float[capacity];
+        peak = new float[capacity];
+        counts = new int[capacity];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getNextSinceNanos() {
+        return nextSinceNanos;
+    }
+
+    // Start of the bucket, in the sensor's elapsed-realtime nanoseconds
+    public long timestampAt(int index) {
+        return timestamps[check(index)];
+    }
+
+    public float xAt(int index) {
+        return x[check(index)];
+    }
+
+    public float yAt(int index) {
+        return y[check(index)];
+    }
+
+    public float zAt(int index) {
+        return z[check(index)];
+    }
+
+    // Largest vector magnitude of a single sample in the bucket
+    public float peakAt(int index) {
+        return peak[check(index)];
+    }
+
+    public int countAt(int index) {
+        return counts[check(index)];
+    }
+
+    void reset(long sinceNanos) {
+        size = 0;
+        nextSinceNanos = sinceNanos;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    private int check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,190 @@
+package com.gymtracker.app;
+
+
+// Fixed-capacity ring of sensor samples stored column-wise in primitive arrays, so recording a sample
+// never allocates. Written from the sensor thread and read by the plugin, index 0 is the oldest sample.
+// Timestamps are SensorEvent.timestamp, elapsed-realtime nanoseconds, ascending per sensor.
+public class SensorSampleBuffer {
+    private final int capacity;
+    private final int axes;
+    private final long[] timestamps;
+    private final float[] x;
+    private final float[] y;
+    private final float[] z;
+
+    // Position the next sample is written to, and how many samples are retained
+    private int head;
+    private int count;
+    private long totalRecorded;
+
+    public SensorSampleBuffer(int capacity, int axes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        if (axes < 1 || axes > 3) {
+            throw new IllegalArgumentException("axes must be 1 to 3");
+        }
+        this.capacity = capacity;
+        this.axes = axes;
+        timestamps = new long[capacity];
+        x = new float[capacity];
+        y = axes > 1 ? new float[capacity] : null;
+        z = axes > 2 ? new float[capacity] : null;
+    }
+
+    public synchronized void add(long timestampNanos, float valueX, float valueY, float valueZ) {
+        timestamps[head] = timestampNanos;
+        x[head] = valueX;
+        if (y != null) {
+            y[head] = valueY;
+        }
+        if (z != null) {
+            z[head] = valueZ;
+        }
+
+        head = (head + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+        totalRecorded++;
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int axes() {
+        return axes;
+    }
+
+    // Including samples that have since been overwritten
+    public synchronized long getTotalRecorded() {
+        return totalRecorded;
+    }
+
+    public synchronized long timestampAt(int index) {
+        return timestamps[slot(index)];
+    }
+
+    public synchronized float xAt(int index) {
+        return x[slot(index)];
+    }
+
+    public synchronized float yAt(int index) {
+        return y != null ? y[slot(index)] : 0;
+    }
+
+    public synchronized float zAt(int index) {
+        return z != null ? z[slot(index)] : 0;
+    }
+
+    // Index of the first sample taken at or after the given time, size() if there is none
+    public synchronized int indexAtOrAfter(long timestampNanos) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[slot(mid)] < timestampNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Aggregates samples from sinceNanos on into buckets of bucketNanos, aligned to sinceNanos (or to the
+    // oldest retained sample when that is later). Only complete buckets are written, a bucket is complete once
+    // a later sample exists. Empty buckets are skipped. Returns the number of buckets written to out.
+    public synchronized int downsample(long sinceNanos, long bucketNanos, SensorDownsample.Mode mode,
+                                       SensorDownsample out) {
+        if (bucketNanos <= 0) {
+            throw new IllegalArgumentException("bucketNanos must be positive");
+        }
+        out.reset(sinceNanos);
+        int index = indexAtOrAfter(sinceNanos);
+        if (index >= count) {
+            return 0;
+        }
+
+        long bucketStart = Math.max(sinceNanos, timestamps[slot(index)]);
+        long bucketEnd = bucketStart + bucketNanos;
+        double sumX = 0;
+        double sumY = 0;
+        double sumZ = 0;
+        float lastX = 0;
+        float lastY = 0;
+        float lastZ = 0;
+        float peak = 0;
+        int samples = 0;
+
+        for (int i = index; i < count; i++) {
+            int slot = (head - count + i + capacity) % capacity;
+            long timestamp = timestamps[slot];
+            if (timestamp >= bucketEnd) {
+                if (samples > 0) {
+                    if (out.isFull()) {
+                        break;
+                    }
+                    write(out, bucketStart, mode, samples, sumX, sumY, sumZ, lastX, lastY, lastZ, peak);
+                    sumX = 0;
+                    sumY = 0;
+                    sumZ = 0;
+                    peak = 0;
+                    samples = 0;
+                }
+                // Jumps over empty buckets in one step
+                bucketStart += (timestamp - bucketStart) / bucketNanos * bucketNanos;
+                bucketEnd = bucketStart + bucketNanos;
+            }
+
+            lastX = x[slot];
+            lastY = y != null ? y[slot] : 0;
+            lastZ = z != null ? z[slot] : 0;
+            sumX += lastX;
+            sumY += lastY;
+            sumZ += lastZ;
+            float magnitude = (float) Math.sqrt(lastX * lastX + lastY * lastY + lastZ * lastZ);
+            if (magnitude > peak) {
+                peak = magnitude;
+            }
+            samples++;
+        }
+        out.nextSinceNanos = bucketStart;
+        return out.size;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        count = 0;
+    }
+
+    private static void write(SensorDownsample out, long bucketStart, SensorDownsample.Mode mode, int samples,
+                              double sumX, double sumY, double sumZ, float lastX, float lastY, float lastZ,
+                              float peak) {
+        int i = out.size++;
+        out.timestamps[i] = bucketStart;
+        if (mode == SensorDownsample.Mode.LAST) {
+            out.x[i] = lastX;
+            out.y[i] = lastY;
+            out.z[i] = lastZ;
+        } else {
+            out.x[i] = (float) (sumX / samples);
+            out.y[i] = (float) (sumY / samples);
+            out.z[i] = (float) (sumZ / samples);
+        }
+        out.peak[i] = peak;
+        out.counts[i] = samples;
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+        }
+        return (head - count + index + capacity) % capacity;
+    }
+}
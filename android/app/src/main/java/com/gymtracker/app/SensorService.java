@@ -0,0 +1,254 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+
+// Reads hardware sensors on its own thread with FIFO batching: the sensor hub collects events for up to
+// maxReportLatency and delivers them in one burst, so the CPU is not woken per event. Samples land in
+// primitive ring buffers, and only downsampled buckets are handed on towards JS.
+public class SensorService {
+    private static final String TAG = "SensorService";
+
+    public static final int DEFAULT_SAMPLING_HZ = 50;
+    public static final long DEFAULT_MAX_LATENCY_MS = 10_000;
+    public static final long DEFAULT_BUCKET_MS = 1_000;
+    // Downsampled buckets per channel and drain, the rest follows on the next one
+    private static final int MAX_BUCKETS_PER_DRAIN = 1024;
+
+    public enum Channel {
+        ACCELEROMETER("accelerometer", Sensor.TYPE_ACCELEROMETER, 3, SensorDownsample.Mode.MEAN, 60 * 200),
+        GYROSCOPE("gyroscope", Sensor.TYPE_GYROSCOPE, 3, SensorDownsample.Mode.MEAN, 60 * 200),
+        HEART_RATE("heartRate", Sensor.TYPE_HEART_RATE, 1, SensorDownsample.Mode.MEAN, 2048),
+        // Cumulative steps since boot, reported on change
+        STEPS("steps", Sensor.TYPE_STEP_COUNTER, 1, SensorDownsample.Mode.LAST, 2048);
+
+        public final String id;
+        final int sensorType;
+        final int axes;
+        final SensorDownsample.Mode mode;
+        // Ring size, a minute of motion at 200Hz
+        final int capacity;
+
+        Channel(String id, int sensorType, int axes, SensorDownsample.Mode mode, int capacity) {
+            this.id = id;
+            this.sensorType = sensorType;
+            this.axes = axes;
+            this.mode = mode;
+            this.capacity = capacity;
+        }
+
+        public static Channel fromId(String id) {
+            for (Channel channel : values()) {
+                if (channel.id.equals(id)) {
+                    return channel;
+                }
+            }
+            return null;
+        }
+    }
+
+    public interface BatchListener {
+        // Called on the sensor thread, the downsample is reused after the call returns
+        void onBatch(Channel channel, SensorDownsample batch);
+    }
+
+    public interface SampleListener {
+        // Called on the sensor thread for every event as its batch is delivered, must not block
+        void onSample(Channel channel, long timestampNanos, float x, float y, float z);
+    }
+
+    private static SensorService instance;
+
+    private final SensorManager sensorManager;
+    private final Map<Channel, SensorSampleBuffer> buffers = new EnumMap<>(Channel.class);
+    private final Map<Channel, Long> drainedUntil = new EnumMap<>(Channel.class);
+    private final SensorDownsample drainBuckets = new SensorDownsample(MAX_BUCKETS_PER_DRAIN);
+
+    private HandlerThread thread;
+    private Handler handler;
+    private BatchListener batchListener;
+    private volatile SampleListener sampleListener;
+    // Counting reps of the set being logged, kept here so it outlives a bridge rebuilt after a renderer loss
+    private volatile RepCounter repCounter;
+    private long bucketNanos = DEFAULT_BUCKET_MS * 1_000_000L;
+    private long drainIntervalMs = DEFAULT_MAX_LATENCY_MS;
+    private volatile boolean running;
+
+    private final SensorEventListener listener = new SensorEventListener() {
+        @Override
+        public void onSensorChanged(SensorEvent event) {
+            Channel channel = channelFor(event.sensor.getType());
+            if (channel == null) {
+                return;
+            }
+            float[] values = event.values;
+            float x = values[0];
+            float y = channel.axes > 1 ? values[1] : 0;
+            float z = channel.axes > 2 ? values[2] : 0;
+            buffers.get(channel).add(event.timestamp, x, y, z);
+            SampleListener sampleListener = SensorService.this.sampleListener;
+            if (sampleListener != null) {
+                sampleListener.onSample(channel, event.timestamp, x, y, z);
+            }
+        }
+
+        @Override
+        public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        }
+    };
+
+    // Runs once per report latency, right after the FIFO was asked to flush
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) {
+                return;
+            }
+            drain();
+            handler.postDelayed(this, drainIntervalMs);
+        }
+    };
+
+    public static synchronized SensorService getInstance(Context context) {
+        if (instance == null) {
+            instance = new SensorService(
+                    (SensorManager) context.getApplicationContext().getSystemService(Context.SENSOR_SERVICE));
+        }
+        return instance;
+    }
+
+    private SensorService(SensorManager sensorManager) {
+        this.sensorManager = sensorManager;
+        for (Channel channel : Channel.values()) {
+            buffers.put(channel, new SensorSampleBuffer(channel.capacity, channel.axes));
+        }
+    }
+
+    public Sensor getSensor(Channel channel) {
+        return sensorManager != null ? sensorManager.getDefaultSensor(channel.sensorType) : null;
+    }
+
+    public SensorSampleBuffer getBuffer(Channel channel) {
+        return buffers.get(channel);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized void setBatchListener(BatchListener listener) {
+        batchListener = listener;
+    }
+
+    public void setSampleListener(SampleListener listener) {
+        sampleListener = listener;
+    }
+
+    public RepCounter getRepCounter() {
+        return repCounter;
+    }
+
+    public void setRepCounter(RepCounter counter) {
+        repCounter = counter;
+    }
+
+    public synchronized boolean isStarted(Channel channel) {
+        return running && drainedUntil.containsKey(channel);
+    }
+
+    // Returns the channels that have a sensor on this device and were registered
+    public synchronized Set<Channel> start(Set<Channel> channels, int samplingHz, long maxLatencyMs, long bucketMs) {
+        stop();
+        if (thread == null) {
+            thread = new HandlerThread("SensorService", Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            handler = new Handler(thread.getLooper());
+        }
+        bucketNanos = Math.max(1, bucketMs) * 1_000_000L;
+        drainIntervalMs = Math.max(1_000, maxLatencyMs);
+
+        int samplingPeriodUs = 1_000_000 / Math.max(1, Math.min(samplingHz, 200));
+        int maxLatencyUs = (int) Math.min(Integer.MAX_VALUE, maxLatencyMs * 1_000);
+        // Samples left from an earlier session are not sent again
+        long startNanos = SystemClock.elapsedRealtimeNanos();
+        drainedUntil.clear();
+        Set<Channel> started = EnumSet.noneOf(Channel.class);
+        for (Channel channel : channels) {
+            Sensor sensor = getSensor(channel);
+            // Without a FIFO the latency is ignored and events arrive one by one, still on our thread
+            if (sensor != null && sensorManager.registerListener(listener, sensor, samplingPeriodUs, maxLatencyUs,
+                    handler)) {
+                started.add(channel);
+                drainedUntil.put(channel, startNanos);
+            }
+        }
+
+        running = !started.isEmpty();
+        if (running) {
+            handler.postDelayed(drainTask, drainIntervalMs);
+        }
+        Log.d(TAG, "Started " + started + " at " + samplingHz + "Hz, latency " + maxLatencyMs + "ms");
+        return started;
+    }
+
+    // Keeps the thread and the buffered samples
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        sensorManager.unregisterListener(listener);
+        handler.removeCallbacks(drainTask);
+        // Whatever is complete goes out now, the next start forgets where this session got to
+        drain();
+    }
+
+    // Asks the sensor hub to deliver what its FIFO holds, the events arrive on the sensor thread
+    public void flush() {
+        if (running) {
+            sensorManager.flush(listener);
+        }
+    }
+
+    private synchronized void drain() {
+        for (Map.Entry<Channel, Long> entry : drainedUntil.entrySet()) {
+            Channel channel = entry.getKey();
+            SensorSampleBuffer buffer = buffers.get(channel);
+            long since = entry.getValue();
+            do {
+                buffer.downsample(since, bucketNanos, channel.mode, drainBuckets);
+                if (drainBuckets.size() > 0 && batchListener != null) {
+                    batchListener.onBatch(channel, drainBuckets);
+                }
+                since = drainBuckets.getNextSinceNanos();
+            } while (drainBuckets.size() == drainBuckets.capacity());
+            entry.setValue(since);
+        }
+        // Pulls the next batch forward so it is there for the next drain
+        if (running) {
+            sensorManager.flush(listener);
+        }
+    }
+
+    private static Channel channelFor(int sensorType) {
+        for (Channel channel : Channel.values()) {
+            if (channel.sensorType == sensorType) {
+                return channel;
+            }
+        }
+        return null;
+    }
+}
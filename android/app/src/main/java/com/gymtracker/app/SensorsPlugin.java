@@ -0,0 +1,248 @@
+package com.gymtracker.app;
+
+import android.Manifest;
+import android.hardware.Sensor;
+import android.os.Build;
+import android.os.SystemClock;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PermissionState;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import com.getcapacitor.annotation.Permission;
+import java.util.EnumSet;
+import java.util.Set;
+import org.json.JSONArray;
+
+
+// Sensor ids: accelerometer, gyroscope, heartRate, steps. Data reaches JS only as downsampled buckets,
+// pushed as "sensorData" events once per report latency or pulled with read(). Bucket timestamps are epoch
+// milliseconds, cursors are elapsed-realtime milliseconds and only meaningful to pass back to read().
+// Permissions go through the generated requestPermissions(): bodySensors for heart rate,
+// activityRecognition for steps.
+// Rep counting runs natively on the accelerometer samples and fires "repDetected" events. They arrive with
+// each hardware batch, so start the accelerometer with a maxLatencyMs of about 1000 while a set is logged.
+@CapacitorPlugin(
+        name = "Sensors",
+        permissions = {
+                @Permission(alias = "bodySensors", strings = { Manifest.permission.BODY_SENSORS }),
+                @Permission(alias = "activityRecognition", strings = { Manifest.permission.ACTIVITY_RECOGNITION })
+        })
+public class SensorsPlugin extends Plugin {
+    private static final String EVENT_SENSOR_DATA = "sensorData";
+    private static final String EVENT_REP_DETECTED = "repDetected";
+    // Buckets per read() call
+    private static final int MAX_READ_BUCKETS = 2048;
+
+    private SensorService service;
+
+    @Override
+    public void load() {
+        service = SensorService.getInstance(getContext());
+        service.setBatchListener((channel, batch) -> {
+            if (hasListeners(EVENT_SENSOR_DATA)) {
+                notifyListeners(EVENT_SENSOR_DATA, toJson(channel, batch));
+            }
+        });
+        // Counting went on while the bridge was rebuilt after a renderer loss, its events now go to this page
+        RepCounter counter = service.getRepCounter();
+        if (counter != null) {
+            counter.setListener(repListener(counter));
+        }
+    }
+
+    @Override
+    protected void handleOnDestroy() {
+        service.setBatchListener(null);
+        RepCounter counter = service.getRepCounter();
+        if (counter != null) {
+            counter.setListener(null);
+        }
+        if (RendererRecovery.isRebuilding()) {
+            // The renderer died mid-workout: samples keep going into the ring buffers and reps keep being
+            // counted, the new plugin instance picks up the listeners and the page reads what it missed
+            return;
+        }
+        service.setSampleListener(null);
+        service.setRepCounter(null);
+        service.stop();
+    }
+
+    @PluginMethod
+    public void getAvailability(PluginCall call) {
+        JSObject result = new JSObject();
+        for (SensorService.Channel channel : SensorService.Channel.values()) {
+            Sensor sensor = service.getSensor(channel);
+            JSObject info = new JSObject();
+            info.put("available", sensor != null);
+            if (sensor != null) {
+                info.put("name", sensor.getName());
+                // 0 means no hardware batching, events then arrive as they happen
+                info.put("fifoMaxEventCount", sensor.getFifoMaxEventCount());
+                info.put("minDelayUs", sensor.getMinDelay());
+            }
+            result.put(channel.id, info);
+        }
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void start(PluginCall call) {
+        JSArray sensors = call.getArray("sensors");
+        if (sensors == null || sensors.length() == 0) {
+            call.reject("sensors is required");
+            return;
+        }
+
+        Set<SensorService.Channel> requested = EnumSet.noneOf(SensorService.Channel.class);
+        JSArray denied = new JSArray();
+        for (int i = 0; i < sensors.length(); i++) {
+            SensorService.Channel channel = SensorService.Channel.fromId(sensors.optString(i));
+            if (channel == null) {
+                call.reject("Unknown sensor " + sensors.optString(i));
+                return;
+            }
+            if (hasPermission(channel)) {
+                requested.add(channel);
+            } else {
+                denied.put(channel.id);
+            }
+        }
+
+        Set<SensorService.Channel> started = service.start(requested,
+                call.getInt("samplingHz", SensorService.DEFAULT_SAMPLING_HZ),
+                call.getLong("maxLatencyMs", SensorService.DEFAULT_MAX_LATENCY_MS),
+                call.getLong("bucketMs", SensorService.DEFAULT_BUCKET_MS));
+
+        JSArray startedIds = new JSArray();
+        JSArray unavailable = new JSArray();
+        for (SensorService.Channel channel : requested) {
+            (started.contains(channel) ? startedIds : unavailable).put(channel.id);
+        }
+        JSObject result = new JSObject();
+        result.put("started", startedIds);
+        result.put("unavailable", unavailable);
+        result.put("permissionDenied", denied);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void stop(PluginCall call) {
+        service.stop();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void startRepCounting(PluginCall call) {
+        if (!service.isStarted(SensorService.Channel.ACCELEROMETER)) {
+            call.reject("The accelerometer is not started");
+            return;
+        }
+        long minRepNanos = call.getLong("minRepMs", RepCounter.DEFAULT_MIN_REP_NANOS / 1_000_000L) * 1_000_000L;
+        if (minRepNanos <= 0) {
+            call.reject("minRepMs must be positive");
+            return;
+        }
+
+        RepCounter counter = new RepCounter(minRepNanos);
+        counter.setListener(repListener(counter));
+        service.setRepCounter(counter);
+        // Fed on the sensor thread, samples never cross to JS
+        service.setSampleListener((channel, timestampNanos, x, y, z) -> {
+            if (channel == SensorService.Channel.ACCELEROMETER) {
+                counter.add(timestampNanos, x, y, z);
+            }
+        });
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void stopRepCounting(PluginCall call) {
+        service.setSampleListener(null);
+        RepCounter counter = service.getRepCounter();
+        service.setRepCounter(null);
+        JSObject result = new JSObject();
+        result.put("reps", counter != null ? counter.getReps() : 0);
+        call.resolve(result);
+    }
+
+    private RepCounter.Listener repListener(RepCounter counter) {
+        return (reps, timestampNanos, durationNanos, amplitude) -> {
+            JSObject event = new JSObject();
+            event.put("reps", reps);
+            event.put("timestamp",
+                    timestampNanos / 1_000_000L + System.currentTimeMillis() - SystemClock.elapsedRealtime());
+            event.put("durationMs", durationNanos / 1_000_000L);
+            event.put("amplitude", (double) amplitude);
+            event.put("periodMs", counter.getPeriodNanos() / 1_000_000L);
+            notifyListeners(EVENT_REP_DETECTED, event);
+        };
+    }
+
+    // One-off pull of what the ring buffer holds after the cursor, for screens that poll
+    @PluginMethod
+    public void read(PluginCall call) {
+        SensorService.Channel channel = SensorService.Channel.fromId(call.getString("sensor", ""));
+        if (channel == null) {
+            call.reject("Unknown sensor " + call.getString("sensor"));
+            return;
+        }
+        service.flush();
+        long sinceNanos = (long) (call.getDouble("cursor", 0.0) * 1_000_000L);
+        long bucketNanos = Math.max(1, call.getLong("bucketMs", SensorService.DEFAULT_BUCKET_MS)) * 1_000_000L;
+
+        SensorDownsample batch = new SensorDownsample(MAX_READ_BUCKETS);
+        service.getBuffer(channel).downsample(sinceNanos, bucketNanos, channel.mode, batch);
+        call.resolve(toJson(channel, batch));
+    }
+
+    private boolean hasPermission(SensorService.Channel channel) {
+        switch (channel) {
+            case HEART_RATE:
+                return getPermissionState("bodySensors") == PermissionState.GRANTED;
+            case STEPS:
+                // A runtime permission from Android 10 on, granted at install before that
+                return Build.VERSION.SDK_INT < Build.VERSION_CODES.Q
+                        || getPermissionState("activityRecognition") == PermissionState.GRANTED;
+            default:
+                return true;
+        }
+    }
+
+    private static JSObject toJson(SensorService.Channel channel, SensorDownsample batch) {
+        long epochOffsetMs = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        JSONArray timestamps = new JSONArray();
+        JSONArray x = new JSONArray();
+        JSONArray y = new JSONArray();
+        JSONArray z = new JSONArray();
+        JSONArray peak = new JSONArray();
+        JSONArray counts = new JSONArray();
+        for (int i = 0; i < batch.size(); i++) {
+            timestamps.put(batch.timestampAt(i) / 1_000_000L + epochOffsetMs);
+            x.put((Object) (double) batch.xAt(i));
+            if (channel.axes > 1) {
+                y.put((Object) (double) batch.yAt(i));
+                z.put((Object) (double) batch.zAt(i));
+                peak.put((Object) (double) batch.peakAt(i));
+            }
+            counts.put(batch.countAt(i));
+        }
+
+        JSObject result = new JSObject();
+        result.put("sensor", channel.id);
+        result.put("timestamps", timestamps);
+        if (channel.axes > 1) {
+            result.put("x", x);
+            result.put("y", y);
+            result.put("z", z);
+            result.put("peakMagnitude", peak);
+        } else {
+            result.put("values", x);
+        }
+        result.put("counts", counts);
+        result.put("cursor", batch.getNextSinceNanos() / 1e6);
+        return result;
+    }
+}
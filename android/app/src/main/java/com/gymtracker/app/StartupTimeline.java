@@ -0,0 +1,79 @@
+package com.gymtracker.app;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+// Records cold start phase timestamps (elapsed realtime, ms). Only the first mark of a phase counts,
+// so a warm restart of the activity does not overwrite the cold start numbers.
+public class StartupTimeline {
+    public static final int PROCESS_START = 0;
+    public static final int APPLICATION_INIT = 1;
+    public static final int BRIDGE_READY = 2;
+    public static final int FIRST_WEBVIEW_PAINT = 3;
+    public static final int JS_APP_READY = 4;
+
+    private static final String[] PHASE_NAMES = {
+        "processStart", "applicationInit", "bridgeReady", "firstWebViewPaint", "jsAppReady"
+    };
+
+    private final long[] timestamps = new long[PHASE_NAMES.length];
+
+    public StartupTimeline() {
+        Arrays.fill(timestamps, -1);
+    }
+
+    public static String phaseName(int phase) {
+        return PHASE_NAMES[phase];
+    }
+
+    public static int phaseCount() {
+        return PHASE_NAMES.length;
+    }
+
+    public synchronized boolean mark(int phase, long elapsedMs) {
+        if (timestamps[phase] >= 0) {
+            return false;
+        }
+        timestamps[phase] = elapsedMs;
+        return true;
+    }
+
+    synchronized void clear() {
+        Arrays.fill(timestamps, -1);
+    }
+
+    public synchronized long timestamp(int phase) {
+        return timestamps[phase];
+    }
+
+    // Milliseconds since process start, or -1 when either end is missing
+    public synchronized long sinceProcessStart(int phase) {
+        if (timestamps[phase] < 0 || timestamps[PROCESS_START] < 0) {
+            return -1;
+        }
+        return timestamps[phase] - timestamps[PROCESS_START];
+    }
+
+    // Milliseconds spent between a phase and the one before it that was recorded
+    public synchronized long phaseDuration(int phase) {
+        if (timestamps[phase] < 0) {
+            return -1;
+        }
+        for (int previous = phase - 1; previous >= 0; previous--) {
+            if (timestamps[previous] >= 0) {
+                return timestamps[phase] - timestamps[previous];
+            }
+        }
+        return 0;
+    }
+
+    public synchronized Map<String, Long> toMap() {
+        Map<String, Long> phases = new LinkedHashMap<>();
+        for (int phase = 0; phase < PHASE_NAMES.length; phase++) {
+            phases.put(PHASE_NAMES[phase], sinceProcessStart(phase));
+        }
+        return phases;
+    }
+}
@@ -0,0 +1,115 @@
+package com.gymtracker.app;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.Choreographer;
+import android.webkit.WebView;
+import com.getcapacitor.Bridge;
+import com.getcapacitor.WebViewListener;
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class StartupTracer {
+    private static final String TAG = "StartupTracer";
+    private static final StartupTimeline timeline = new StartupTimeline();
+
+    // Run deferred work anyway if the page never commits (offline error page, renderer crash)
+    private static final long FIRST_PAINT_TIMEOUT_MS = 5_000;
+
+    private static final List<Runnable> afterFirstPaint = new ArrayList<>();
+    private static boolean firstPaintDone = false;
+
+    // Foreground returns, from onRestart to the first frame after onResume
+    private static final LatencyRecorder resumeLatencies = new LatencyRecorder(64);
+    private static long foregroundReturnStartMs = -1;
+
+    public static StartupTimeline getTimeline() {
+        return timeline;
+    }
+
+    // Tests only: a Robolectric sandbox keeps these across tests, a real cold start gets a fresh process
+    static void reset() {
+        timeline.clear();
+        afterFirstPaint.clear();
+        firstPaintDone = false;
+    }
+
+    public static void onApplicationCreate() {
+        // Zygote fork time, before any of our code runs
+        timeline.mark(StartupTimeline.PROCESS_START, Process.getStartElapsedRealtime());
+        mark(StartupTimeline.APPLICATION_INIT);
+    }
+
+    public static LatencyRecorder getResumeLatencies() {
+        return resumeLatencies;
+    }
+
+    public static void onForegroundReturnStart() {
+        foregroundReturnStartMs = SystemClock.elapsedRealtime();
+    }
+
+    // Called at the end of onResume, the return is complete once the next frame starts
+    public static void onForegroundReturnResumed() {
+        if (foregroundReturnStartMs < 0) {
+            // Cold start or a resume without a stop (e.g. a dialog), not a foreground return
+            return;
+        }
+        final long start = foregroundReturnStartMs;
+        foregroundReturnStartMs = -1;
+        Choreographer.getInstance().postFrameCallback(frameTimeNanos -> {
+            long latency = SystemClock.elapsedRealtime() - start;
+            resumeLatencies.record(latency);
+            Log.d(TAG, "Foreground return took " + latency + "ms");
+        });
+    }
+
+    public static void mark(int phase) {
+        if (timeline.mark(phase, SystemClock.elapsedRealtime())) {
+            Log.d(TAG, String.format("%s at +%dms (phase %dms)", StartupTimeline.phaseName(phase),
+                    timeline.sinceProcessStart(phase), timeline.phaseDuration(phase)));
+        }
+    }
+
+    // The first visible commit of the app page is the first frame the user sees from the WebView
+    public static void trackFirstPaint(Bridge bridge) {
+        bridge.addWebViewListener(new WebViewListener() {
+            @Override
+            public void onPageCommitVisible(WebView view, String url) {
+                mark(StartupTimeline.FIRST_WEBVIEW_PAINT);
+                flushAfterFirstPaint();
+            }
+        });
+        new Handler(Looper.getMainLooper()).postDelayed(StartupTracer::flushAfterFirstPaint, FIRST_PAINT_TIMEOUT_MS);
+    }
+
+    // Queues main thread work until the first WebView frame is up, then runs it one task per idle slot
+    public static void runAfterFirstPaint(Runnable task) {
+        if (firstPaintDone) {
+            runWhenIdle(task);
+        } else {
+            afterFirstPaint.add(task);
+        }
+    }
+
+    private static void flushAfterFirstPaint() {
+        if (firstPaintDone) {
+            return;
+        }
+        firstPaintDone = true;
+        for (Runnable task : afterFirstPaint) {
+            runWhenIdle(task);
+        }
+        afterFirstPaint.clear();
+    }
+
+    private static void runWhenIdle(Runnable task) {
+        Looper.myQueue().addIdleHandler(() -> {
+            task.run();
+            return false;
+        });
+    }
+}
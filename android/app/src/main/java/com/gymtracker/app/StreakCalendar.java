@@ -0,0 +1,314 @@
+package com.gymtracker.app;
+
+import java.util.Arrays;
+
+
+// One user's training calendar as day bitsets, one long per 64 days, bit i of word k being epoch day
+// 64k + i. Workout days are one set; frozen days (streak freezes, sick and vacation days) another; the
+// schedule's rest weekdays are a weekly pattern expanded into a 64-day mask for each of the 7 phases a word
+// can start on.
+//
+// The plain streak is consecutive workout days. The adjusted streak is what RealStreakService keeps: rest and
+// frozen days do not break it, only workout days count towards it. Runs are walked a word at a time with
+// leading/trailing-zero counts and bitCount. A new workout can only join runs, so the longest streaks are
+// updated from the run around it; clearing a day or changing the rest days recounts them.
+public class StreakCalendar {
+    // 1970-01-01 was a Thursday, weekdays count from Sunday = 0 as in StreakSchedule
+    private static final int EPOCH_WEEKDAY = 4;
+
+    private long[] workouts = new long[0];
+    private long[] frozen = new long[0];
+    // Epoch word of workouts[0] and frozen[0]
+    private int baseWord;
+    // Days before baseWord count as nothing, rest weekdays included; days past the last word only have the
+    // rest weekdays
+    private int words;
+
+    // Bit w set when weekday w is a rest day
+    private int restWeekdays;
+    // restMasks[phase]: rest days of a word whose bit 0 falls on weekday phase
+    private final long[] restMasks = new long[7];
+
+    private int longest = -1;
+    private int longestAdjusted = -1;
+
+    public StreakCalendar(int restWeekdays) {
+        setRestWeekdays(restWeekdays);
+    }
+
+    public int getRestWeekdays() {
+        return restWeekdays;
+    }
+
+    public void setRestWeekdays(int weekdays) {
+        restWeekdays = weekdays & 0x7F;
+        for (int phase = 0; phase < 7; phase++) {
+            long mask = 0;
+            for (int bit = 0; bit < 64; bit++) {
+                if ((restWeekdays & (1 << ((phase + bit) % 7))) != 0) {
+                    mask |= 1L << bit;
+                }
+            }
+            restMasks[phase] = mask;
+        }
+        longestAdjusted = -1;
+    }
+
+    // Returns false when the day already had a workout
+    public boolean recordWorkout(int day) {
+        ensure(day);
+        int k = day >> 6;
+        long bit = 1L << (day & 63);
+        if ((workouts[k - baseWord] & bit) != 0) {
+            return false;
+        }
+        workouts[k - baseWord] |= bit;
+        if (longest >= 0) {
+            longest = Math.max(longest, countBack(day, false) + countForward(day + 1, false));
+        }
+        if (longestAdjusted >= 0) {
+            longestAdjusted = Math.max(longestAdjusted, countBack(day, true) + countForward(day + 1, true));
+        }
+        return true;
+    }
+
+    public boolean removeWorkout(int day) {
+        int k = (day >> 6) - baseWord;
+        long bit = 1L << (day & 63);
+        if (k < 0 || k >= words || (workouts[k] & bit) == 0) {
+            return false;
+        }
+        workouts[k] &= ~bit;
+        longest = -1;
+        longestAdjusted = -1;
+        return true;
+    }
+
+    // Freezes or unfreezes fromDay..toDay inclusive
+    public void setFrozen(int fromDay, int toDay, boolean value) {
+        if (toDay < fromDay) {
+            return;
+        }
+        ensure(fromDay);
+        ensure(toDay);
+        for (int k = fromDay >> 6; k <= toDay >> 6; k++) {
+            int lo = k == fromDay >> 6 ? fromDay & 63 : 0;
+            int hi = k == toDay >> 6 ? toDay & 63 : 63;
+            if (value) {
+                frozen[k - baseWord] |= bits(lo, hi);
+            } else {
+                frozen[k - baseWord] &= ~bits(lo, hi);
+            }
+        }
+        longestAdjusted = -1;
+    }
+
+    public boolean hasWorkout(int day) {
+        int k = (day >> 6) - baseWord;
+        return k >= 0 && k < words && (workouts[k] & (1L << (day & 63))) != 0;
+    }
+
+    public boolean isFrozen(int day) {
+        int k = (day >> 6) - baseWord;
+        return k >= 0 && k < words && (frozen[k] & (1L << (day & 63))) != 0;
+    }
+
+    // Workout days in fromDay..toDay inclusive
+    public int workoutDays(int fromDay, int toDay) {
+        int count = 0;
+        for (int k = Math.max(fromDay >> 6, baseWord); k <= Math.min(toDay >> 6, baseWord + words - 1); k++) {
+            int lo = k == fromDay >> 6 ? fromDay & 63 : 0;
+            int hi = k == toDay >> 6 ? toDay & 63 : 63;
+            count += Long.bitCount(workouts[k - baseWord] & bits(lo, hi));
+        }
+        return count;
+    }
+
+    // Consecutive workout days up to today, or up to yesterday while today has no workout yet
+    public int currentStreak(int today) {
+        return countBack(hasWorkout(today) ? today : today - 1, false);
+    }
+
+    // Workout days in the run of workout, rest and frozen days up to today; today does not break it while
+    // it has no workout yet
+    public int currentAdjustedStreak(int today) {
+        boolean covered = (covered(today >> 6, true) & (1L << (today & 63))) != 0;
+        return countBack(covered ? today : today - 1, true);
+    }
+
+    public int longestStreak() {
+        if (longest < 0) {
+            longest = longestRun(false);
+        }
+        return longest;
+    }
+
+    public int longestAdjustedStreak() {
+        if (longestAdjusted < 0) {
+            longestAdjusted = longestRun(true);
+        }
+        return longestAdjusted;
+    }
+
+    // Days since 1970-01-01 of a YYYY-MM-DD date, the format of StreakDay.date
+    public static int epochDay(String isoDate) {
+        if (isoDate == null || isoDate.length() < 10 || isoDate.charAt(4) != '-' || isoDate.charAt(7) != '-') {
+            throw new IllegalArgumentException("Expected YYYY-MM-DD: " + isoDate);
+        }
+        try {
+            int year = Integer.parseInt(isoDate.substring(0, 4));
+            int month = Integer.parseInt(isoDate.substring(5, 7));
+            int day = Integer.parseInt(isoDate.substring(8, 10));
+            if (month < 1 || month > 12 || day < 1 || day > 31) {
+                throw new IllegalArgumentException("Expected YYYY-MM-DD: " + isoDate);
+            }
+            return epochDay(year, month, day);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected YYYY-MM-DD: " + isoDate, e);
+        }
+    }
+
+    // Proleptic Gregorian, no java.time below API 26. Counts years from March so leap days fall last.
+    public static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    public static int weekday(int epochDay) {
+        return Math.floorMod(epochDay + EPOCH_WEEKDAY, 7);
+    }
+
+    // Days the streaks can continue through: workouts, and for the adjusted streak frozen and rest days
+    private long covered(int word, boolean adjusted) {
+        int k = word - baseWord;
+        if (k < 0) {
+            return 0;
+        }
+        long rest = adjusted ? restMasks[Math.floorMod(64 * word + EPOCH_WEEKDAY, 7)] : 0;
+        return k < words ? workouts[k] | (adjusted ? frozen[k] : 0) | rest : rest;
+    }
+
+    private long workoutWord(int word) {
+        int k = word - baseWord;
+        return k < 0 || k >= words ? 0 : workouts[k];
+    }
+
+    // Workout days in the run ending at day, going back
+    private int countBack(int day, boolean adjusted) {
+        int count = 0;
+        int word = day >> 6;
+        int top = day & 63;
+        while (true) {
+            // The bits up to top moved to the top of the word, so the run is its leading ones
+            int run = Long.numberOfLeadingZeros(~(covered(word, adjusted) << (63 - top)));
+            if (run == 0) {
+                return count;
+            }
+            count += Long.bitCount(workoutWord(word) & bits(top - run + 1, top));
+            if (run <= top) {
+                return count;
+            }
+            word--;
+            top = 63;
+        }
+    }
+
+    // Workout days in the run starting at day, going forward as far as the last word
+    private int countForward(int day, boolean adjusted) {
+        int count = 0;
+        int word = day >> 6;
+        int bottom = day & 63;
+        while (word < baseWord + words) {
+            int run = Long.numberOfTrailingZeros(~(covered(word, adjusted) >>> bottom));
+            run = Math.min(run, 64 - bottom);
+            if (run == 0) {
+                return count;
+            }
+            count += Long.bitCount(workoutWord(word) & bits(bottom, bottom + run - 1));
+            if (bottom + run < 64) {
+                return count;
+            }
+            word++;
+            bottom = 0;
+        }
+        return count;
+    }
+
+    // The most workout days in one run, a word at a time: the run carried in from the word below ends at the
+    // word's first gap, runs inside it are counted whole, and the one reaching bit 63 carries on
+    private int longestRun(boolean adjusted) {
+        int best = 0;
+        int carry = 0;
+        for (int word = baseWord; word < baseWord + words; word++) {
+            long covered = covered(word, adjusted);
+            long workout = workoutWord(word);
+            if (covered == -1L) {
+                carry += Long.bitCount(workout);
+                continue;
+            }
+            int first = Long.numberOfTrailingZeros(~covered);
+            if (first > 0) {
+                carry += Long.bitCount(workout & bits(0, first - 1));
+            }
+            best = Math.max(best, carry);
+            carry = 0;
+
+            long rest = covered >>> first;
+            int position = first;
+            while (rest != 0) {
+                int gap = Long.numberOfTrailingZeros(rest);
+                rest >>>= gap;
+                position += gap;
+                int run = Long.numberOfTrailingZeros(~rest);
+                int count = Long.bitCount(workout & bits(position, position + run - 1));
+                if (position + run == 64) {
+                    carry = count;
+                    break;
+                }
+                best = Math.max(best, count);
+                rest >>>= run;
+                position += run;
+            }
+        }
+        return Math.max(best, carry);
+    }
+
+    // Bits lo..hi inclusive
+    private static long bits(int lo, int hi) {
+        return (-1L >>> (63 - hi)) & (-1L << lo);
+    }
+
+    private void ensure(int day) {
+        int word = day >> 6;
+        if (words == 0) {
+            baseWord = word;
+            words = 1;
+            workouts = new long[4];
+            frozen = new long[4];
+            return;
+        }
+        if (word < baseWord) {
+            // Room below as well, histories are usually imported newest first
+            int shift = baseWord - word + words;
+            long[] grownWorkouts = new long[shift + workouts.length];
+            long[] grownFrozen = new long[shift + frozen.length];
+            System.arraycopy(workouts, 0, grownWorkouts, shift, words);
+            System.arraycopy(frozen, 0, grownFrozen, shift, words);
+            workouts = grownWorkouts;
+            frozen = grownFrozen;
+            baseWord -= shift;
+            words += shift;
+        } else if (word >= baseWord + words) {
+            int needed = word - baseWord + 1;
+            if (needed > workouts.length) {
+                workouts = Arrays.copyOf(workouts, Math.max(needed, workouts.length * 2));
+                frozen = Arrays.copyOf(frozen, workouts.length);
+            }
+            words = needed;
+        }
+    }
+}
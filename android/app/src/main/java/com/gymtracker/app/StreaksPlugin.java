@@ -0,0 +1,164 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+// Dates are YYYY-MM-DD in the user's time zone and statuses those of StreakDay in src/types/streaks.ts;
+// rest days are StreakSchedule.restDays, 0 = Sunday. today defaults to the device's local date.
+@CapacitorPlugin(name = "Streaks")
+public class StreaksPlugin extends Plugin {
+    private final Map<String, StreakCalendar> calendars = new ConcurrentHashMap<>();
+
+    // Replaces the user's calendar with days [{date, status}]
+    @PluginMethod
+    public void setHistory(PluginCall call) {
+        String userId = call.getString("userId");
+        JSArray days = call.getArray("days");
+        if (userId == null || days == null) {
+            call.reject("userId and days are required");
+            return;
+        }
+
+        try {
+            StreakCalendar calendar = new StreakCalendar(restWeekdays(call.getArray("restDays")));
+            for (int i = 0; i < days.length(); i++) {
+                JSONObject day = days.getJSONObject(i);
+                int epochDay = StreakCalendar.epochDay(day.getString("date"));
+                switch (day.optString("status")) {
+                    case "completed":
+                    case "compensated":
+                        calendar.recordWorkout(epochDay);
+                        break;
+                    case "sick":
+                    case "vacation":
+                    case "rest":
+                        calendar.setFrozen(epochDay, epochDay, true);
+                        break;
+                    default:
+                        // missed and planned days are what the bitsets leave empty
+                        break;
+                }
+            }
+            calendars.put(userId, calendar);
+            resolveStreaks(call, calendar);
+        } catch (IllegalArgumentException | JSONException e) {
+            call.reject("Invalid streak history", e);
+        }
+    }
+
+    // Called on each workout completion
+    @PluginMethod
+    public void recordWorkout(PluginCall call) {
+        StreakCalendar calendar = calendar(call);
+        if (calendar == null) {
+            return;
+        }
+        try {
+            synchronized (calendar) {
+                calendar.recordWorkout(day(call, "date"));
+                resolveStreaks(call, calendar);
+            }
+        } catch (IllegalArgumentException e) {
+            call.reject("Invalid date", e);
+        }
+    }
+
+    // Streak freezes, sick and vacation days from..to inclusive; frozen: false lifts them
+    @PluginMethod
+    public void setFrozen(PluginCall call) {
+        StreakCalendar calendar = calendar(call);
+        if (calendar == null) {
+            return;
+        }
+        try {
+            synchronized (calendar) {
+                calendar.setFrozen(day(call, "from"), day(call, "to"), call.getBoolean("frozen", true));
+                resolveStreaks(call, calendar);
+            }
+        } catch (IllegalArgumentException e) {
+            call.reject("Invalid date", e);
+        }
+    }
+
+    @PluginMethod
+    public void setRestDays(PluginCall call) {
+        StreakCalendar calendar = calendar(call);
+        if (calendar == null) {
+            return;
+        }
+        synchronized (calendar) {
+            calendar.setRestWeekdays(restWeekdays(call.getArray("restDays")));
+            resolveStreaks(call, calendar);
+        }
+    }
+
+    @PluginMethod
+    public void getStreaks(PluginCall call) {
+        StreakCalendar calendar = calendar(call);
+        if (calendar == null) {
+            return;
+        }
+        try {
+            synchronized (calendar) {
+                resolveStreaks(call, calendar);
+            }
+        } catch (IllegalArgumentException e) {
+            call.reject("Invalid date", e);
+        }
+    }
+
+    // The user's calendar, or null after rejecting the call
+    private StreakCalendar calendar(PluginCall call) {
+        String userId = call.getString("userId");
+        StreakCalendar calendar = userId == null ? null : calendars.get(userId);
+        if (calendar == null) {
+            call.reject(userId == null ? "userId is required" : "setHistory has not been called for " + userId);
+        }
+        return calendar;
+    }
+
+    private static void resolveStreaks(PluginCall call, StreakCalendar calendar) {
+        int today = call.getString("today") != null ? day(call, "today") : localToday();
+        JSObject result = new JSObject();
+        result.put("currentStreak", calendar.currentStreak(today));
+        result.put("longestStreak", calendar.longestStreak());
+        result.put("currentAdjustedStreak", calendar.currentAdjustedStreak(today));
+        result.put("longestAdjustedStreak", calendar.longestAdjustedStreak());
+        result.put("workoutsLast7Days", calendar.workoutDays(today - 6, today));
+        result.put("workoutsLast30Days", calendar.workoutDays(today - 29, today));
+        call.resolve(result);
+    }
+
+    private static int day(PluginCall call, String key) {
+        return StreakCalendar.epochDay(call.getString(key));
+    }
+
+    private static int localToday() {
+        Calendar now = Calendar.getInstance();
+        return StreakCalendar.epochDay(now.get(Calendar.YEAR), now.get(Calendar.MONTH) + 1,
+                now.get(Calendar.DAY_OF_MONTH));
+    }
+
+    private static int restWeekdays(JSArray restDays) {
+        int weekdays = 0;
+        if (restDays != null) {
+            for (int i = 0; i < restDays.length(); i++) {
+                int weekday = restDays.optInt(i, -1);
+                if (weekday >= 0 && weekday < 7) {
+                    weekdays |= 1 << weekday;
+                }
+            }
+        }
+        return weekdays;
+    }
+}
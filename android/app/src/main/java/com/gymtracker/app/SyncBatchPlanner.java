@@ -0,0 +1,121 @@
+package com.gymtracker.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+// Decides how a new change folds into a pending one, and which pending operations go out together.
+public class SyncBatchPlanner {
+
+    public enum Coalesce {
+        // Keep the pending operation's type, its data becomes the merge of both
+        MERGE,
+        // The pending operation turns into a delete
+        REPLACE_WITH_DELETE,
+        // Created and deleted before the server saw it, both disappear
+        CANCEL,
+        // Queued as its own operation
+        APPEND
+    }
+
+    // Upserts and deletes of one table, each goes out as one request
+    public static class Batch {
+        public final String entity;
+        public final boolean delete;
+        public final List<SyncOperation> operations = new ArrayList<>();
+        // Operations the transport could not encode, e.g. data that is not valid JSON. They are failed as
+        // rejected, the send outcome applies to the others.
+        public final List<SyncOperation> rejected = new ArrayList<>();
+
+        Batch(String entity, boolean delete) {
+            this.entity = entity;
+            this.delete = delete;
+        }
+    }
+
+    public static Coalesce coalesce(String pendingType, String newType) {
+        if (SyncOperation.DELETE.equals(pendingType)) {
+            // A re-create after a delete must reach the server in order
+            return Coalesce.APPEND;
+        }
+        if (SyncOperation.DELETE.equals(newType)) {
+            return SyncOperation.CREATE.equals(pendingType) ? Coalesce.CANCEL : Coalesce.REPLACE_WITH_DELETE;
+        }
+        // Creates and updates are both sent as upserts
+        return Coalesce.MERGE;
+    }
+
+    // Operations that can be sent now, highest priority first, grouped into batches of at most maxBatchSize.
+    // An operation waits for its explicit dependencies and for older operations on the same record.
+    public static List<Batch> plan(List<SyncOperation> pending, long nowMs, int maxBatchSize) {
+        Set<String> pendingIds = new HashSet<>();
+        for (SyncOperation operation : pending) {
+            pendingIds.add(operation.id);
+        }
+
+        // Oldest pending operation per record, later ones on the same record wait for it
+        Map<String, SyncOperation> oldestPerRecord = new HashMap<>();
+        for (SyncOperation operation : pending) {
+            String record = operation.entity + '/' + operation.recordId;
+            SyncOperation oldest = oldestPerRecord.get(record);
+            if (oldest == null || operation.createdAt < oldest.createdAt) {
+                oldestPerRecord.put(record, operation);
+            }
+        }
+
+        List<SyncOperation> ready = new ArrayList<>();
+        for (SyncOperation operation : pending) {
+            if (operation.nextAttemptAt > nowMs
+                    || oldestPerRecord.get(operation.entity + '/' + operation.recordId) != operation) {
+                continue;
+            }
+            boolean blocked = false;
+            for (String dependency : operation.dependencies) {
+                if (!dependency.equals(operation.id) && pendingIds.contains(dependency)) {
+                    blocked = true;
+                    break;
+                }
+            }
+            if (!blocked) {
+                ready.add(operation);
+            }
+        }
+
+        Collections.sort(ready, (a, b) -> {
+            if (a.priority != b.priority) {
+                return b.priority - a.priority;
+            }
+            return Long.compare(a.createdAt, b.createdAt);
+        });
+
+        // Batches keep the position of their highest ranked operation
+        Map<String, Batch> open = new LinkedHashMap<>();
+        List<Batch> batches = new ArrayList<>();
+        for (SyncOperation operation : ready) {
+            String key = operation.entity + (operation.isDelete() ? "#delete" : "#upsert");
+            Batch batch = open.get(key);
+            if (batch == null) {
+                batch = new Batch(operation.entity, operation.isDelete());
+                open.put(key, batch);
+                batches.add(batch);
+            }
+            batch.operations.add(operation);
+            if (batch.operations.size() == maxBatchSize) {
+                open.remove(key);
+            }
+        }
+        return batches;
+    }
+
+    // Exponential backoff with the JS queue's limits, jitter is added by the caller
+    public static long retryDelayMs(int retryCount, long baseDelayMs, long maxDelayMs) {
+        long delay = baseDelayMs << Math.min(30, Math.max(0, retryCount - 1));
+        return Math.min(delay, maxDelayMs);
+    }
+}
@@ -0,0 +1,44 @@
+package com.gymtracker.app;
+
+
+// One queued change to a server record. Field names follow SyncOperation in src/utils/syncQueue.ts,
+// entity is the table the record lives in.
+public class SyncOperation {
+    public static final String CREATE = "CREATE";
+    public static final String UPDATE = "UPDATE";
+    public static final String DELETE = "DELETE";
+
+    // Same ordering as the JS queue: { high: 3, medium: 2, low: 1 }
+    public static final int PRIORITY_LOW = 1;
+    public static final int PRIORITY_MEDIUM = 2;
+    public static final int PRIORITY_HIGH = 3;
+
+    public String id;
+    public String entity;
+    public String recordId;
+    public String type;
+    // JSON object with the record's fields, null for deletes
+    public String data;
+    public int priority = PRIORITY_MEDIUM;
+    // Ids of operations that must reach the server first
+    public String[] dependencies = new String[0];
+    public long createdAt;
+    public int retryCount;
+    public long nextAttemptAt;
+    // Bumped whenever a later change is coalesced in, so an in-flight copy is not mistaken for the latest
+    public int revision;
+
+    public boolean isDelete() {
+        return DELETE.equals(type);
+    }
+
+    public static int parsePriority(String priority) {
+        if ("high".equals(priority)) {
+            return PRIORITY_HIGH;
+        }
+        if ("low".equals(priority)) {
+            return PRIORITY_LOW;
+        }
+        return PRIORITY_MEDIUM;
+    }
+}
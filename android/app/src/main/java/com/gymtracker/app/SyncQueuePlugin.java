@@ -0,0 +1,132 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+
+// Operation fields follow SyncOperation in src/utils/syncQueue.ts, entity is the Supabase table name
+@CapacitorPlugin(name = "NativeSyncQueue")
+public class SyncQueuePlugin extends Plugin {
+    private NativeSyncQueue queue;
+
+    @Override
+    public void load() {
+        queue = NativeSyncQueue.getInstance(getContext());
+        // Picks up whatever an earlier session left behind
+        if (queue.getStore().countPending() > 0) {
+            SyncWorker.schedule(getContext());
+        }
+    }
+
+    // Called on sign-in and whenever the session token is refreshed
+    @PluginMethod
+    public void configure(PluginCall call) {
+        String baseUrl = call.getString("baseUrl");
+        String apiKey = call.getString("apiKey");
+        if (baseUrl == null || apiKey == null) {
+            call.reject("baseUrl and apiKey are required");
+            return;
+        }
+        HttpSyncTransport.saveConfiguration(getContext(), baseUrl, apiKey, call.getString("accessToken"));
+        SyncWorker.schedule(getContext());
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void enqueue(PluginCall call) {
+        JSArray operations = call.getArray("operations");
+        if (operations == null) {
+            call.reject("operations is required");
+            return;
+        }
+
+        List<SyncOperation> parsed = new ArrayList<>(operations.length());
+        for (int i = 0; i < operations.length(); i++) {
+            JSONObject json = operations.optJSONObject(i);
+            SyncOperation operation = json != null ? parseOperation(json) : null;
+            if (operation == null) {
+                call.reject("operations[" + i + "] needs entity, recordId and a CREATE, UPDATE or DELETE type");
+                return;
+            }
+            parsed.add(operation);
+        }
+
+        try {
+            String[] ids = queue.enqueue(parsed);
+            SyncWorker.schedule(getContext());
+
+            JSArray idArray = new JSArray();
+            for (String id : ids) {
+                idArray.put(id);
+            }
+            JSObject result = new JSObject();
+            result.put("ids", idArray);
+            call.resolve(result);
+        } catch (Exception e) {
+            call.reject("Failed to enqueue operations", e);
+        }
+    }
+
+    @PluginMethod
+    public void getStatus(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("pending", queue.getStore().countPending());
+        result.put("failed", queue.getStore().countFailed());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void retryFailed(PluginCall call) {
+        int retried = queue.getStore().retryFailed();
+        if (retried > 0) {
+            SyncWorker.schedule(getContext());
+        }
+        JSObject result = new JSObject();
+        result.put("retried", retried);
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void clearFailed(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("cleared", queue.getStore().clearFailed());
+        call.resolve(result);
+    }
+
+    private static SyncOperation parseOperation(JSONObject json) {
+        SyncOperation operation = new SyncOperation();
+        operation.id = json.optString("id", null);
+        if (operation.id == null) {
+            operation.id = UUID.randomUUID().toString();
+        }
+        operation.entity = json.optString("entity", null);
+        operation.recordId = json.optString("recordId", null);
+        operation.type = json.optString("type", null);
+        if (operation.entity == null || operation.recordId == null || !(SyncOperation.CREATE.equals(operation.type)
+                || SyncOperation.UPDATE.equals(operation.type) || SyncOperation.DELETE.equals(operation.type))) {
+            return null;
+        }
+
+        JSONObject data = json.optJSONObject("data");
+        operation.data = operation.isDelete() || data == null ? null : data.toString();
+        operation.priority = SyncOperation.parsePriority(json.optString("priority", "medium"));
+
+        JSONArray dependencies = json.optJSONArray("dependencies");
+        if (dependencies != null) {
+            operation.dependencies = new String[dependencies.length()];
+            for (int i = 0; i < dependencies.length(); i++) {
+                operation.dependencies[i] = dependencies.optString(i);
+            }
+        }
+        return operation;
+    }
+}
@@ -0,0 +1,298 @@
+package com.gymtracker.app;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.text.TextUtils;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+// Durable storage for NativeSyncQueue. Coalescing happens here, inside the enqueue transaction, so two
+// changes to the same record never both reach the drain.
+public class SyncQueueStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "sync_queue.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String[] COLUMNS = {"id", "entity", "record_id", "type", "data", "priority", "dependencies",
+            "created_at", "retry_count", "next_attempt_at", "revision"};
+
+    private static SyncQueueStore instance;
+
+    // Ordering between operations enqueued in the same millisecond
+    private long lastCreatedAt;
+
+    // Operations the drain is sending right now
+    private final Set<String> inFlight = new HashSet<>();
+
+    public static synchronized SyncQueueStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new SyncQueueStore(context.getApplicationContext(), DATABASE_NAME);
+        }
+        return instance;
+    }
+
+    SyncQueueStore(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.execSQL("PRAGMA synchronous = NORMAL");
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE operations ("
+                + "id TEXT PRIMARY KEY, entity TEXT NOT NULL, record_id TEXT NOT NULL, type TEXT NOT NULL, data TEXT, "
+                + "priority INTEGER NOT NULL, dependencies TEXT, created_at INTEGER NOT NULL, "
+                + "retry_count INTEGER NOT NULL DEFAULT 0, next_attempt_at INTEGER NOT NULL DEFAULT 0, "
+                + "revision INTEGER NOT NULL DEFAULT 0, failed INTEGER NOT NULL DEFAULT 0, error TEXT)");
+        db.execSQL("CREATE INDEX idx_operations_record ON operations (entity, record_id, created_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No migrations yet, version 1 is the first schema
+    }
+
+    // Returns the id each operation ended up under, the pending operation's id when it was coalesced
+    public synchronized String[] enqueue(List<SyncOperation> operations) {
+        SQLiteDatabase db = getWritableDatabase();
+        String[] ids = new String[operations.size()];
+
+        db.beginTransactionNonExclusive();
+        try {
+            for (int i = 0; i < operations.size(); i++) {
+                ids[i] = enqueue(db, operations.get(i));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return ids;
+    }
+
+    private String enqueue(SQLiteDatabase db, SyncOperation operation) {
+        operation.createdAt = Math.max(System.currentTimeMillis(), lastCreatedAt + 1);
+        lastCreatedAt = operation.createdAt;
+
+        SyncOperation pending = latestPending(db, operation.entity, operation.recordId);
+        SyncBatchPlanner.Coalesce coalesce = pending == null
+                ? SyncBatchPlanner.Coalesce.APPEND : SyncBatchPlanner.coalesce(pending.type, operation.type);
+
+        switch (coalesce) {
+            case CANCEL:
+                if (!inFlight.contains(pending.id)) {
+                    db.delete("operations", "id = ?", new String[] {pending.id});
+                    return pending.id;
+                }
+                // The create may already have reached the server, it has to be deleted there too
+                coalesce = SyncBatchPlanner.Coalesce.REPLACE_WITH_DELETE;
+                // fall through
+            case REPLACE_WITH_DELETE:
+            case MERGE: {
+                ContentValues values = new ContentValues();
+                if (coalesce == SyncBatchPlanner.Coalesce.MERGE) {
+                    values.put("data", mergeData(pending.data, operation.data));
+                } else {
+                    values.put("type", SyncOperation.DELETE);
+                    values.putNull("data");
+                }
+                values.put("priority", Math.max(pending.priority, operation.priority));
+                values.put("dependencies", joinDependencies(pending, operation));
+                values.put("revision", pending.revision + 1);
+                db.update("operations", values, "id = ?", new String[] {pending.id});
+                return pending.id;
+            }
+            default: {
+                ContentValues values = new ContentValues();
+                values.put("id", operation.id);
+                values.put("entity", operation.entity);
+                values.put("record_id", operation.recordId);
+                values.put("type", operation.type);
+                values.put("data", operation.data);
+                values.put("priority", operation.priority);
+                values.put("dependencies", TextUtils.join(",", operation.dependencies));
+                values.put("created_at", operation.createdAt);
+                db.insertWithOnConflict("operations", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                return operation.id;
+            }
+        }
+    }
+
+    // Everything that has not failed permanently, including operations waiting for a retry
+    public synchronized List<SyncOperation> loadPending() {
+        List<SyncOperation> operations = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query("operations", COLUMNS, "failed = 0", null, null, null,
+                "created_at");
+        try {
+            while (cursor.moveToNext()) {
+                operations.add(readOperation(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return operations;
+    }
+
+    public synchronized void markInFlight(List<SyncOperation> sending) {
+        for (SyncOperation operation : sending) {
+            inFlight.add(operation.id);
+        }
+    }
+
+    // Removes sent operations unless a newer change was coalesced into them while they were in flight
+    public synchronized int complete(List<SyncOperation> sent) {
+        SQLiteDatabase db = getWritableDatabase();
+        int removed = 0;
+        clearInFlight(sent);
+        db.beginTransactionNonExclusive();
+        try {
+            for (SyncOperation operation : sent) {
+                removed += db.delete("operations", "id = ? AND revision = ?",
+                        new String[] {operation.id, String.valueOf(operation.revision)});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return removed;
+    }
+
+    // Schedules another attempt, operations out of retries are marked failed
+    public synchronized void retry(List<SyncOperation> sent, long nextAttemptAt, int maxRetries, String error) {
+        SQLiteDatabase db = getWritableDatabase();
+        clearInFlight(sent);
+        db.beginTransactionNonExclusive();
+        try {
+            for (SyncOperation operation : sent) {
+                db.execSQL("UPDATE operations SET retry_count = retry_count + 1, next_attempt_at = ?, error = ?, "
+                                + "failed = CASE WHEN retry_count + 1 >= ? THEN 1 ELSE 0 END WHERE id = ?",
+                        new Object[] {nextAttemptAt, error, maxRetries, operation.id});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // The server refused the change, retrying would not help
+    public synchronized void fail(List<SyncOperation> sent, String error) {
+        SQLiteDatabase db = getWritableDatabase();
+        clearInFlight(sent);
+        db.beginTransactionNonExclusive();
+        try {
+            for (SyncOperation operation : sent) {
+                db.execSQL("UPDATE operations SET failed = 1, error = ? WHERE id = ?", new Object[] {error, operation.id});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public synchronized int countPending() {
+        return count("failed = 0");
+    }
+
+    public synchronized int countFailed() {
+        return count("failed = 1");
+    }
+
+    // Failed operations go back to the queue with a fresh retry budget
+    public synchronized int retryFailed() {
+        ContentValues values = new ContentValues();
+        values.put("failed", 0);
+        values.put("retry_count", 0);
+        values.put("next_attempt_at", 0);
+        return getWritableDatabase().update("operations", values, "failed = 1", null);
+    }
+
+    public synchronized int clearFailed() {
+        return getWritableDatabase().delete("operations", "failed = 1", null);
+    }
+
+    private void clearInFlight(List<SyncOperation> sent) {
+        for (SyncOperation operation : sent) {
+            inFlight.remove(operation.id);
+        }
+    }
+
+    private int count(String selection) {
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM operations WHERE " + selection, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private SyncOperation latestPending(SQLiteDatabase db, String entity, String recordId) {
+        Cursor cursor = db.query("operations", COLUMNS, "entity = ? AND record_id = ? AND failed = 0",
+                new String[] {entity, recordId}, null, null, "created_at DESC", "1");
+        try {
+            return cursor.moveToFirst() ? readOperation(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static SyncOperation readOperation(Cursor cursor) {
+        SyncOperation operation = new SyncOperation();
+        operation.id = cursor.getString(0);
+        operation.entity = cursor.getString(1);
+        operation.recordId = cursor.getString(2);
+        operation.type = cursor.getString(3);
+        operation.data = cursor.isNull(4) ? null : cursor.getString(4);
+        operation.priority = cursor.getInt(5);
+        String dependencies = cursor.isNull(6) ? "" : cursor.getString(6);
+        operation.dependencies = dependencies.isEmpty() ? new String[0] : dependencies.split(",");
+        operation.createdAt = cursor.getLong(7);
+        operation.retryCount = cursor.getInt(8);
+        operation.nextAttemptAt = cursor.getLong(9);
+        operation.revision = cursor.getInt(10);
+        return operation;
+    }
+
+    // Later fields win, fields only the pending change had are kept
+    private static String mergeData(String pendingData, String newData) {
+        if (pendingData == null || newData == null) {
+            return newData != null ? newData : pendingData;
+        }
+        try {
+            JSONObject merged = new JSONObject(pendingData);
+            JSONObject update = new JSONObject(newData);
+            Iterator<String> keys = update.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                merged.put(key, update.get(key));
+            }
+            return merged.toString();
+        } catch (JSONException e) {
+            return newData;
+        }
+    }
+
+    private static String joinDependencies(SyncOperation pending, SyncOperation operation) {
+        List<String> dependencies = new ArrayList<>();
+        for (String dependency : pending.dependencies) {
+            dependencies.add(dependency);
+        }
+        for (String dependency : operation.dependencies) {
+            // The merged operation cannot wait for itself
+            if (!dependency.equals(pending.id) && !dependencies.contains(dependency)) {
+                dependencies.add(dependency);
+            }
+        }
+        return TextUtils.join(",", dependencies);
+    }
+}
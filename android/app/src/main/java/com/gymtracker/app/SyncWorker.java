@@ -0,0 +1,56 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.util.concurrent.TimeUnit;
+
+
+// Drains NativeSyncQueue whenever there is a network, whether or not MainActivity is in the foreground
+public class SyncWorker extends Worker {
+    public static final String UNIQUE_WORK_NAME = "native-sync-drain";
+
+    // WorkManager stops workers after 10 minutes
+    private static final long MAX_DRAIN_MS = TimeUnit.MINUTES.toMillis(9);
+
+    public SyncWorker(Context context, WorkerParameters parameters) {
+        super(context, parameters);
+    }
+
+    // Appended behind a drain that is queued or running: one finishing just as operations arrive would leave
+    // them for the next enqueue. Drains that find the queue empty finish right away. A failed or cancelled
+    // chain is replaced.
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 10, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(UNIQUE_WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE,
+                request);
+    }
+
+    @Override
+    public Result doWork() {
+        HttpSyncTransport transport = HttpSyncTransport.fromPreferences(getApplicationContext());
+        if (transport == null) {
+            // Scheduled again once the web layer configures the endpoint
+            return Result.success();
+        }
+
+        NativeSyncQueue queue = NativeSyncQueue.getInstance(getApplicationContext());
+        NativeSyncQueue.DrainResult result = queue.drain(transport, System.currentTimeMillis() + MAX_DRAIN_MS);
+        if (result.needsRetry || queue.getStore().countPending() > 0) {
+            return Result.retry();
+        }
+        return Result.success();
+    }
+}
@@ -0,0 +1,323 @@
+package com.gymtracker.app;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+
+// Merging t-digest (Dunning & Ertl): a few hundred weighted centroids that answer quantile and rank
+// queries within a fraction of a percent, most accurately at the tails. Values are buffered and merged
+// in sorted batches, queries binary search the merged centroids.
+public class TDigest {
+    private static final int FORMAT_VERSION = 1;
+    // Far above any compression the app uses, a larger one read from disk is corruption, not a setting
+    private static final double MAX_SERIALIZED_COMPRESSION = 10_000;
+
+    private final double compression;
+
+    // Merged centroids, sorted by mean
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+    // Weight of all centroids before i plus half of centroid i, where its mean sits in the distribution
+    private double[] centers = new double[0];
+    private int centroidCount;
+    private double mergedWeight;
+
+    // Unit-weight values not merged yet
+    private final double[] buffer;
+    private int buffered;
+
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        if (compression < 10) {
+            throw new IllegalArgumentException("compression must be at least 10");
+        }
+        this.compression = compression;
+        buffer = new double[(int) Math.ceil(compression * 5)];
+    }
+
+    public double getCompression() {
+        return compression;
+    }
+
+    public void add(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("value must be finite");
+        }
+        if (buffered == buffer.length) {
+            flush();
+        }
+        buffer[buffered++] = value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public double size() {
+        return mergedWeight + buffered;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public int centroidCount() {
+        flush();
+        return centroidCount;
+    }
+
+    // Value below which the given fraction (0-1) of the data falls, NaN when empty
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("q must be in [0, 1]");
+        }
+        flush();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (centroidCount == 1) {
+            return means[0];
+        }
+
+        double target = q * mergedWeight;
+        if (target <= centers[0]) {
+            // Between the smallest value and the first centroid
+            return interpolate(target, 0, min, centers[0], means[0]);
+        }
+        int last = centroidCount - 1;
+        if (target >= centers[last]) {
+            return interpolate(target, centers[last], means[last], mergedWeight, max);
+        }
+
+        int i = upperBound(centers, centroidCount, target) - 1;
+        return interpolate(target, centers[i], means[i], centers[i + 1], means[i + 1]);
+    }
+
+    // Fraction (0-1) of the data at or below the value
+    public double cdf(double value) {
+        flush();
+        if (centroidCount == 0) {
+            return Double.NaN;
+        }
+        if (value < min) {
+            return 0;
+        }
+        if (value >= max) {
+            return 1;
+        }
+        if (centroidCount == 1) {
+            return (value - min) / (max - min);
+        }
+
+        if (value <= means[0]) {
+            return interpolate(value, min, 0, means[0], centers[0]) / mergedWeight;
+        }
+        int last = centroidCount - 1;
+        if (value >= means[last]) {
+            return interpolate(value, means[last], centers[last], max, mergedWeight) / mergedWeight;
+        }
+
+        int i = upperBound(means, centroidCount, value) - 1;
+        return interpolate(value, means[i], centers[i], means[i + 1], centers[i + 1]) / mergedWeight;
+    }
+
+    // Folds another digest into this one, the other one is left as it was
+    public void merge(TDigest other) {
+        other.flush();
+        flush();
+        if (other.centroidCount == 0) {
+            return;
+        }
+        mergeSorted(other.means, other.weights, other.centroidCount);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    // Adds pre-aggregated points, sorted by value, e.g. the quantiles of a server-side summary.
+    // min and max are the extremes of the data the points stand for.
+    public void addSortedCentroids(double[] values, double[] pointWeights, int count, double min, double max) {
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && values[i] < values[i - 1]) {
+                throw new IllegalArgumentException("values must be sorted");
+            }
+            if (!(pointWeights[i] > 0)) {
+                throw new IllegalArgumentException("weights must be positive");
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        if (min > values[0] || max < values[count - 1]) {
+            throw new IllegalArgumentException("min and max must enclose the values");
+        }
+        flush();
+        mergeSorted(values, pointWeights, count);
+        this.min = Math.min(this.min, min);
+        this.max = Math.max(this.max, max);
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        flush();
+        out.writeByte(FORMAT_VERSION);
+        out.writeDouble(compression);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(centroidCount);
+        for (int i = 0; i < centroidCount; i++) {
+            out.writeDouble(means[i]);
+            // Counts, exact as a float up to 16M per centroid
+            out.writeFloat((float) weights[i]);
+        }
+    }
+
+    public static TDigest readFrom(DataInputStream in) throws IOException {
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported t-digest format " + version);
+        }
+        double compression = in.readDouble();
+        if (!(compression >= 10 && compression <= MAX_SERIALIZED_COMPRESSION)) {
+            throw new IOException("Corrupt t-digest, compression " + compression);
+        }
+        TDigest digest = new TDigest(compression);
+        double min = in.readDouble();
+        double max = in.readDouble();
+        int count = in.readInt();
+        // Merging keeps fewer centroids than the compression, twice that is a generous bound
+        if (count < 0 || count > 2 * compression) {
+            throw new IOException("Corrupt t-digest, " + count + " centroids");
+        }
+
+        double[] means = new double[count];
+        double[] weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            means[i] = in.readDouble();
+            weights[i] = in.readFloat();
+        }
+        digest.setCentroids(means, weights, count);
+        digest.min = min;
+        digest.max = max;
+        return digest;
+    }
+
+    // Serialized size in bytes
+    public int serializedSize() {
+        flush();
+        return 1 + 8 * 3 + 4 + centroidCount * 12;
+    }
+
+    private void flush() {
+        if (buffered == 0) {
+            return;
+        }
+        Arrays.sort(buffer, 0, buffered);
+        double[] unitWeights = new double[buffered];
+        Arrays.fill(unitWeights, 1);
+        int count = buffered;
+        buffered = 0;
+        mergeSorted(buffer, unitWeights, count);
+    }
+
+    // Merges a sorted run into the centroids and collapses the result under the scale function
+    private void mergeSorted(double[] otherMeans, double[] otherWeights, int otherCount) {
+        int total = centroidCount + otherCount;
+        double[] inMeans = new double[total];
+        double[] inWeights = new double[total];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < centroidCount || j < otherCount) {
+            if (j == otherCount || (i < centroidCount && means[i] <= otherMeans[j])) {
+                inMeans[k] = means[i];
+                inWeights[k++] = weights[i++];
+            } else {
+                inMeans[k] = otherMeans[j];
+                inWeights[k++] = otherWeights[j++];
+            }
+        }
+
+        double totalWeight = mergedWeight;
+        for (int n = 0; n < otherCount; n++) {
+            totalWeight += otherWeights[n];
+        }
+
+        double[] outMeans = new double[total];
+        double[] outWeights = new double[total];
+        int out = 0;
+        outMeans[0] = inMeans[0];
+        outWeights[0] = inWeights[0];
+        double weightSoFar = 0;
+        double limit = weightLimit(0, totalWeight);
+
+        for (int n = 1; n < total; n++) {
+            double proposed = outWeights[out] + inWeights[n];
+            if (weightSoFar + proposed <= limit) {
+                // Weighted running mean keeps the centroid exact for the values it absorbed
+                outMeans[out] += (inMeans[n] - outMeans[out]) * inWeights[n] / proposed;
+                outWeights[out] = proposed;
+            } else {
+                weightSoFar += outWeights[out];
+                limit = weightLimit(weightSoFar, totalWeight);
+                out++;
+                outMeans[out] = inMeans[n];
+                outWeights[out] = inWeights[n];
+            }
+        }
+
+        setCentroids(outMeans, outWeights, out + 1);
+    }
+
+    // k1 scale function, k(q) = compression / (2 pi) * asin(2q - 1). A centroid starting at q may grow
+    // until k increases by one, which keeps centroids small near the tails.
+    private double weightLimit(double weightSoFar, double totalWeight) {
+        double q = weightSoFar / totalWeight;
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        double qLimit = k >= compression / 4 ? 1 : (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+        return qLimit * totalWeight;
+    }
+
+    private void setCentroids(double[] newMeans, double[] newWeights, int count) {
+        means = count == newMeans.length ? newMeans : Arrays.copyOf(newMeans, count);
+        weights = count == newWeights.length ? newWeights : Arrays.copyOf(newWeights, count);
+        centers = new double[count];
+        double cumulative = 0;
+        for (int i = 0; i < count; i++) {
+            centers[i] = cumulative + weights[i] / 2;
+            cumulative += weights[i];
+        }
+        centroidCount = count;
+        mergedWeight = cumulative;
+    }
+
+    private static double interpolate(double x, double x0, double y0, double x1, double y1) {
+        if (x1 == x0) {
+            return (y0 + y1) / 2;
+        }
+        return y0 + (x - x0) * (y1 - y0) / (x1 - x0);
+    }
+
+    // First index whose value is greater than the key
+    private static int upperBound(double[] values, int count, double key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
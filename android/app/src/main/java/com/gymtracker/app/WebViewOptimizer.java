@@ -3,15 +3,24 @@ package com.gymtracker.app;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.os.Build;
+import com.getcapacitor.Bridge;
 
 
 public class WebViewOptimizer {
     
     public static void optimizeWebView(WebView webView) {
+        applyCriticalSettings(webView);
+        applyDeferredSettings(webView);
+    }
+    
+    // Settings that affect the first load, applied in the same main thread task that starts it
+    public static void applyCriticalSettings(WebView webView) {
         WebSettings settings = webView.getSettings();
+        DeviceTierClassifier.Profile profile = DeviceTier.getProfile(webView.getContext());
         
         // Enable hardware acceleration
         webView.setLayerType(WebView.LAYER_TYPE_HARDWARE, null);
+        JankMonitor.getInstance().onLayerTypeChanged(WebView.LAYER_TYPE_HARDWARE);
         
         // Optimize JavaScript performance
         settings.setJavaScriptEnabled(true);
@@ -29,13 +38,11 @@ public class WebViewOptimizer {
             settings.setRenderPriority(WebSettings.RenderPriority.HIGH);
         }
         
-        // Optimize media playback
-        settings.setMediaPlaybackRequiresUserGesture(false);
+        // Exercise media plays on its own unless the device tier is too slow for it
+        settings.setMediaPlaybackRequiresUserGesture(!profile.autoplayMedia);
         
-        // Enable safe browsing
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            settings.setSafeBrowsingEnabled(true);
-        }
+        // Raster tiles ahead of scrolling where the device has the GPU memory for it
+        settings.setOffscreenPreRaster(profile.offscreenPreRaster);
         
         // Optimize text rendering
         settings.setTextZoom(100);
@@ -56,12 +63,8 @@ public class WebViewOptimizer {
             settings.setMixedContentMode(WebSettings.MIXED_CONTENT_NEVER_ALLOW);
         }
         
-        // Optimize user agent for better compatibility
-        String userAgent = settings.getUserAgentString();
-        settings.setUserAgentString(userAgent + " SportTrackerApp/1.0");
-        
-        // Enable geolocation (if needed for fitness tracking)
-        settings.setGeolocationEnabled(true);
+        // The SportTrackerApp user agent suffix is set through appendUserAgent in capacitor.config.ts,
+        // so it is already in place for the very first request
         
         // Optimize viewport
         settings.setUseWideViewPort(true);
@@ -79,4 +82,29 @@ public class WebViewOptimizer {
         // Note: WebView debugging is enabled by default in debug builds
         WebView.setWebContentsDebuggingEnabled(true);
     }
+    
+    // Settings nothing on the first screen depends on, safe to apply after the first frame
+    public static void applyDeferredSettings(WebView webView) {
+        WebSettings settings = webView.getSettings();
+        
+        // Enable geolocation (if needed for fitness tracking)
+        settings.setGeolocationEnabled(true);
+        
+        // Enable safe browsing
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            settings.setSafeBrowsingEnabled(true);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            WebView.startSafeBrowsing(webView.getContext().getApplicationContext(), null);
+        }
+    }
+    
+    // Serve exercise media from the native disk cache instead of the WebView's own HTTP cache, and recover
+    // from renderer loss in place
+    public static void installMediaCache(Bridge bridge) {
+        // Never more than an eighth of the heap, whatever the tier allows
+        long memoryCacheBytes = DeviceTier.getProfile(bridge.getContext()).mediaMemoryCacheBytes;
+        MediaMemoryCache.getInstance().setMaxBytes(Math.min(memoryCacheBytes, Runtime.getRuntime().maxMemory() / 8));
+        bridge.setWebViewClient(new MediaCacheWebViewClient(bridge));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+import android.webkit.WebSettings;
+
+
+// Loads the WebView provider (and Chromium's native library) on a background thread while the
+// activity is still being launched, so the bridge does not pay for it on the main thread.
+public class WebViewPrewarmer {
+    private static final String TAG = "WebViewPrewarmer";
+
+    private static volatile long prewarmDurationMs = -1;
+
+    public static void prewarm(Context context) {
+        final Context appContext = context.getApplicationContext();
+
+        Thread thread = new Thread(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                // Safe from any thread and forces the provider factory to load
+                WebSettings.getDefaultUserAgent(appContext);
+                prewarmDurationMs = SystemClock.elapsedRealtime() - start;
+                Log.d(TAG, "WebView provider loaded in " + prewarmDurationMs + "ms");
+            } catch (RuntimeException e) {
+                // Missing or updating WebView package, the bridge reports it when it creates the WebView
+                Log.w(TAG, "WebView prewarm failed", e);
+            }
+        }, "WebViewPrewarm");
+        thread.start();
+    }
+
+    public static long getPrewarmDurationMs() {
+        return prewarmDurationMs;
+    }
+}
@@ -0,0 +1,297 @@
+package com.gymtracker.app;
+
+
+// Native port of src/utils/workoutCalculations.ts over columnar set data, so whole histories can be
+// computed in one call without an object per set. Results match the JS functions, including rounding.
+public class WorkoutCalculationEngine {
+    public static final int FLAG_COMPLETED = 1;
+    public static final int FLAG_WARMUP = 1 << 1;
+
+    // Same convention as WorkoutStore for timestamps that are not set
+    public static final long NO_TIMESTAMP = -1;
+
+    public static final int RECORD_MAX_WEIGHT = 1;
+    public static final int RECORD_MAX_REPS = 1 << 1;
+    public static final int RECORD_MAX_ONE_REP_MAX = 1 << 2;
+    public static final int RECORD_MAX_VOLUME = 1 << 3;
+
+    // One entry per set. Sets of exercise e are [exerciseOffsets[e], exerciseOffsets[e + 1]),
+    // exercises of workout w are [workoutOffsets[w], workoutOffsets[w + 1]).
+    public static class SetColumns {
+        public final double[] weights;
+        public final int[] reps;
+        // NaN when the set has no RPE
+        public final double[] rpe;
+        public final int[] flags;
+        public final long[] startedAt;
+        public final long[] endedAt;
+        public final int[] exerciseOffsets;
+        public final int[] workoutOffsets;
+
+        public SetColumns(double[] weights, int[] reps, double[] rpe, int[] flags, long[] startedAt, long[] endedAt,
+                          int[] exerciseOffsets, int[] workoutOffsets) {
+            int sets = weights.length;
+            if (reps.length != sets || rpe.length != sets || flags.length != sets
+                    || startedAt.length != sets || endedAt.length != sets) {
+                throw new IllegalArgumentException("set columns must have the same length");
+            }
+            checkOffsets(exerciseOffsets, sets, "exerciseOffsets");
+            checkOffsets(workoutOffsets, exerciseOffsets.length - 1, "workoutOffsets");
+
+            this.weights = weights;
+            this.reps = reps;
+            this.rpe = rpe;
+            this.flags = flags;
+            this.startedAt = startedAt;
+            this.endedAt = endedAt;
+            this.exerciseOffsets = exerciseOffsets;
+            this.workoutOffsets = workoutOffsets;
+        }
+
+        public int setCount() {
+            return weights.length;
+        }
+
+        public int exerciseCount() {
+            return exerciseOffsets.length - 1;
+        }
+
+        public int workoutCount() {
+            return workoutOffsets.length - 1;
+        }
+
+        private static void checkOffsets(int[] offsets, int end, String name) {
+            if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != end) {
+                throw new IllegalArgumentException(name + " must start at 0 and end at " + end);
+            }
+            for (int i = 1; i < offsets.length; i++) {
+                if (offsets[i] < offsets[i - 1]) {
+                    throw new IllegalArgumentException(name + " must be non-decreasing");
+                }
+            }
+        }
+    }
+
+    // Per exercise results. Set indexes refer to SetColumns, -1 when the exercise has no working sets.
+    public static class ExerciseMetrics {
+        public final double[] volume;
+        public final int[] workingSets;
+        public final int[] totalReps;
+        // NaN where the JS function returns null
+        public final double[] averageRpe;
+        public final int[] averageRestSeconds;
+        public final double[] maxWeight;
+        public final int[] maxReps;
+        public final double[] maxOneRepMax;
+        public final int[] maxWeightSet;
+        public final int[] maxRepsSet;
+        public final int[] maxOneRepMaxSet;
+
+        public ExerciseMetrics(int exercises) {
+            volume = new double[exercises];
+            workingSets = new int[exercises];
+            totalReps = new int[exercises];
+            averageRpe = new double[exercises];
+            averageRestSeconds = new int[exercises];
+            maxWeight = new double[exercises];
+            maxReps = new int[exercises];
+            maxOneRepMax = new double[exercises];
+            maxWeightSet = new int[exercises];
+            maxRepsSet = new int[exercises];
+            maxOneRepMaxSet = new int[exercises];
+        }
+    }
+
+    // Per workout results, tonnage is the same number as volume
+    public static class WorkoutMetrics {
+        public final double[] volume;
+        public final int[] workingSets;
+        public final int[] totalReps;
+        // NaN where the JS function returns null
+        public final double[] intensity;
+        public final int[] completion;
+
+        public WorkoutMetrics(int workouts) {
+            volume = new double[workouts];
+            workingSets = new int[workouts];
+            totalReps = new int[workouts];
+            intensity = new double[workouts];
+            completion = new int[workouts];
+        }
+    }
+
+    // Epley, as calculateOneRepMax
+    public static double oneRepMax(double weight, int reps) {
+        if (weight < 0 || reps < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+            return 0;
+        }
+        if (reps == 1) {
+            return weight;
+        }
+        if (reps == 0 || weight == 0) {
+            return 0;
+        }
+
+        double oneRm = weight * (1 + reps / 30.0);
+        return !Double.isInfinite(oneRm) && oneRm > 0 ? jsRound(oneRm) : 0;
+    }
+
+    public static void oneRepMax(double[] weights, int[] reps, double[] out) {
+        for (int i = 0; i < weights.length; i++) {
+            out[i] = oneRepMax(weights[i], reps[i]);
+        }
+    }
+
+    // Single pass over all sets, fills both result tables
+    public static void calculate(SetColumns sets, ExerciseMetrics exercises, WorkoutMetrics workouts) {
+        double[] weights = sets.weights;
+        int[] reps = sets.reps;
+        double[] rpe = sets.rpe;
+        int[] flags = sets.flags;
+        int[] exerciseOffsets = sets.exerciseOffsets;
+        int[] workoutOffsets = sets.workoutOffsets;
+
+        for (int w = 0; w < sets.workoutCount(); w++) {
+            double workoutVolume = 0;
+            int workoutWorkingSets = 0;
+            int workoutReps = 0;
+            double weightedRpe = 0;
+            double rpeVolume = 0;
+            int totalSets = 0;
+            int completedSets = 0;
+
+            for (int e = workoutOffsets[w]; e < workoutOffsets[w + 1]; e++) {
+                double volume = 0;
+                int workingSets = 0;
+                int totalReps = 0;
+                double rpeSum = 0;
+                int rpeCount = 0;
+                long restSum = 0;
+                int restCount = 0;
+                double maxWeight = Double.NEGATIVE_INFINITY;
+                int maxReps = Integer.MIN_VALUE;
+                double maxOneRm = Double.NEGATIVE_INFINITY;
+                int maxWeightSet = -1;
+                int maxRepsSet = -1;
+                int maxOneRmSet = -1;
+
+                int first = exerciseOffsets[e];
+                int end = exerciseOffsets[e + 1];
+                for (int s = first; s < end; s++) {
+                    totalSets++;
+                    if (s > first) {
+                        long rest = restSeconds(sets.endedAt[s - 1], sets.startedAt[s]);
+                        if (rest > 0) {
+                            restSum += rest;
+                            restCount++;
+                        }
+                    }
+
+                    int f = flags[s];
+                    if ((f & FLAG_COMPLETED) == 0) {
+                        continue;
+                    }
+                    completedSets++;
+                    if ((f & FLAG_WARMUP) != 0) {
+                        continue;
+                    }
+
+                    double weight = weights[s];
+                    int r = reps[s];
+                    double setVolume = weight * r;
+                    volume += setVolume;
+                    workingSets++;
+                    totalReps += r;
+
+                    double setRpe = rpe[s];
+                    if (!Double.isNaN(setRpe)) {
+                        rpeSum += setRpe;
+                        rpeCount++;
+                        // The workout intensity skips an RPE of 0, the exercise average does not
+                        if (setRpe != 0) {
+                            weightedRpe += setRpe * setVolume;
+                            rpeVolume += setVolume;
+                        }
+                    }
+
+                    // Strictly greater keeps the first set with the best value, as Array.find does
+                    if (weight > maxWeight) {
+                        maxWeight = weight;
+                        maxWeightSet = s;
+                    }
+                    if (r > maxReps) {
+                        maxReps = r;
+                        maxRepsSet = s;
+                    }
+                    double oneRm = oneRepMax(weight, r);
+                    if (oneRm > maxOneRm) {
+                        maxOneRm = oneRm;
+                        maxOneRmSet = s;
+                    }
+                }
+
+                exercises.volume[e] = volume;
+                exercises.workingSets[e] = workingSets;
+                exercises.totalReps[e] = totalReps;
+                exercises.averageRpe[e] = rpeCount == 0 ? Double.NaN : jsRound(rpeSum / rpeCount * 10) / 10;
+                exercises.averageRestSeconds[e] = restCount == 0 ? 0 : (int) jsRound((double) restSum / restCount);
+                exercises.maxWeight[e] = workingSets == 0 ? 0 : maxWeight;
+                exercises.maxReps[e] = workingSets == 0 ? 0 : maxReps;
+                exercises.maxOneRepMax[e] = workingSets == 0 ? 0 : maxOneRm;
+                exercises.maxWeightSet[e] = maxWeightSet;
+                exercises.maxRepsSet[e] = maxRepsSet;
+                exercises.maxOneRepMaxSet[e] = maxOneRmSet;
+
+                // Summed per exercise first, like calculateWorkoutVolume, so the doubles match
+                workoutVolume += volume;
+                workoutWorkingSets += workingSets;
+                workoutReps += totalReps;
+            }
+
+            workouts.volume[w] = workoutVolume;
+            workouts.workingSets[w] = workoutWorkingSets;
+            workouts.totalReps[w] = workoutReps;
+            workouts.intensity[w] = rpeVolume == 0 ? Double.NaN : jsRound(weightedRpe / rpeVolume * 10) / 10;
+            workouts.completion[w] = totalSets == 0 ? 0 : (int) jsRound((double) completedSets / totalSets * 100);
+        }
+    }
+
+    // RECORD_* bits per exercise, as findPersonalRecords. NaN in a previous record array means no record
+    // of that type yet, which never produces a new one.
+    public static void findPersonalRecords(SetColumns sets, ExerciseMetrics exercises,
+                                           double[] previousMaxWeight, double[] previousMaxReps,
+                                           double[] previousMaxOneRepMax, double[] previousMaxVolume,
+                                           int[] recordFlags) {
+        for (int e = 0; e < sets.exerciseCount(); e++) {
+            int records = 0;
+            if (exercises.workingSets[e] > 0) {
+                if (exercises.maxWeight[e] > previousMaxWeight[e]) {
+                    records |= RECORD_MAX_WEIGHT;
+                }
+                if (exercises.maxReps[e] > previousMaxReps[e]) {
+                    records |= RECORD_MAX_REPS;
+                }
+                if (exercises.maxOneRepMax[e] > previousMaxOneRepMax[e]) {
+                    records |= RECORD_MAX_ONE_REP_MAX;
+                }
+                if (exercises.volume[e] > previousMaxVolume[e]) {
+                    records |= RECORD_MAX_VOLUME;
+                }
+            }
+            recordFlags[e] = records;
+        }
+    }
+
+    // calculateRestTime: whole seconds between the end of one set and the start of the next
+    static long restSeconds(long previousEndedAt, long startedAt) {
+        if (previousEndedAt == NO_TIMESTAMP || startedAt == NO_TIMESTAMP) {
+            return 0;
+        }
+        return Math.floorDiv(startedAt - previousEndedAt, 1000);
+    }
+
+    // Math.round in JS rounds halves towards positive infinity
+    static double jsRound(double value) {
+        return Math.floor(value + 0.5);
+    }
+}
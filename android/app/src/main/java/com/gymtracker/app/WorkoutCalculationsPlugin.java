@@ -0,0 +1,184 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+
+// Bulk entry point for WorkoutCalculationEngine. Sets cross the bridge column-wise:
+// weights, reps, rpe (null for none), flags (1 completed, 2 warmup), startedAt/endedAt (epoch ms or null),
+// exerciseOffsets and workoutOffsets. Nulls in results stand for the JS functions' null.
+@CapacitorPlugin(name = "WorkoutCalculations")
+public class WorkoutCalculationsPlugin extends Plugin {
+
+    @PluginMethod
+    public void calculate(PluginCall call) {
+        WorkoutCalculationEngine.SetColumns sets;
+        try {
+            sets = parseSetColumns(call);
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return;
+        }
+
+        WorkoutCalculationEngine.ExerciseMetrics exercises =
+                new WorkoutCalculationEngine.ExerciseMetrics(sets.exerciseCount());
+        WorkoutCalculationEngine.WorkoutMetrics workouts =
+                new WorkoutCalculationEngine.WorkoutMetrics(sets.workoutCount());
+        WorkoutCalculationEngine.calculate(sets, exercises, workouts);
+
+        JSObject exerciseResult = new JSObject();
+        exerciseResult.put("volume", toArray(exercises.volume));
+        exerciseResult.put("workingSets", toArray(exercises.workingSets));
+        exerciseResult.put("totalReps", toArray(exercises.totalReps));
+        exerciseResult.put("averageRpe", toArray(exercises.averageRpe));
+        exerciseResult.put("averageRestSeconds", toArray(exercises.averageRestSeconds));
+        exerciseResult.put("maxWeight", toArray(exercises.maxWeight));
+        exerciseResult.put("maxReps", toArray(exercises.maxReps));
+        exerciseResult.put("maxOneRepMax", toArray(exercises.maxOneRepMax));
+
+        JSObject workoutResult = new JSObject();
+        workoutResult.put("totalVolume", toArray(workouts.volume));
+        workoutResult.put("totalSets", toArray(workouts.workingSets));
+        workoutResult.put("totalReps", toArray(workouts.totalReps));
+        workoutResult.put("tonnage", toArray(workouts.volume));
+        workoutResult.put("averageIntensity", toArray(workouts.intensity));
+        workoutResult.put("completion", toArray(workouts.completion));
+
+        JSObject result = new JSObject();
+        result.put("exercises", exerciseResult);
+        result.put("workouts", workoutResult);
+
+        // Optional, one previous value per exercise, null where there is no record yet
+        JSObject previous = call.getObject("previousRecords");
+        if (previous != null) {
+            int count = sets.exerciseCount();
+            int[] recordFlags = new int[count];
+            WorkoutCalculationEngine.findPersonalRecords(sets, exercises,
+                    toDoubles(previous.optJSONArray("max_weight"), count),
+                    toDoubles(previous.optJSONArray("max_reps"), count),
+                    toDoubles(previous.optJSONArray("max_1rm"), count),
+                    toDoubles(previous.optJSONArray("max_volume"), count),
+                    recordFlags);
+            result.put("personalRecords", personalRecords(sets, exercises, recordFlags));
+        }
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void estimateOneRepMax(PluginCall call) {
+        JSArray weightArray = call.getArray("weights");
+        JSArray repArray = call.getArray("reps");
+        if (weightArray == null || repArray == null || weightArray.length() != repArray.length()) {
+            call.reject("weights and reps are required and must have the same length");
+            return;
+        }
+
+        int count = weightArray.length();
+        double[] oneRepMax = new double[count];
+        WorkoutCalculationEngine.oneRepMax(toDoubles(weightArray, count), toInts(repArray, count), oneRepMax);
+
+        JSObject result = new JSObject();
+        result.put("oneRepMax", toArray(oneRepMax));
+        call.resolve(result);
+    }
+
+    private static WorkoutCalculationEngine.SetColumns parseSetColumns(PluginCall call) {
+        JSArray weights = call.getArray("weights");
+        JSArray exerciseOffsets = call.getArray("exerciseOffsets");
+        JSArray workoutOffsets = call.getArray("workoutOffsets");
+        if (weights == null || exerciseOffsets == null || workoutOffsets == null) {
+            throw new IllegalArgumentException("weights, exerciseOffsets and workoutOffsets are required");
+        }
+
+        int count = weights.length();
+        return new WorkoutCalculationEngine.SetColumns(
+                toDoubles(weights, count),
+                toInts(call.getArray("reps"), count),
+                toDoubles(call.getArray("rpe"), count),
+                toInts(call.getArray("flags"), count),
+                toTimestamps(call.getArray("startedAt"), count),
+                toTimestamps(call.getArray("endedAt"), count),
+                toInts(exerciseOffsets, exerciseOffsets.length()),
+                toInts(workoutOffsets, workoutOffsets.length()));
+    }
+
+    // One entry per new record, shaped like PersonalRecord in workoutCalculations.ts with setIndex for setData
+    private static JSArray personalRecords(WorkoutCalculationEngine.SetColumns sets,
+                                           WorkoutCalculationEngine.ExerciseMetrics exercises, int[] recordFlags) {
+        JSArray records = new JSArray();
+        for (int e = 0; e < recordFlags.length; e++) {
+            int flags = recordFlags[e];
+            if ((flags & WorkoutCalculationEngine.RECORD_MAX_WEIGHT) != 0) {
+                records.put(record(e, "max_weight", exercises.maxWeight[e], exercises.maxWeightSet[e]));
+            }
+            if ((flags & WorkoutCalculationEngine.RECORD_MAX_REPS) != 0) {
+                records.put(record(e, "max_reps", exercises.maxReps[e], exercises.maxRepsSet[e]));
+            }
+            if ((flags & WorkoutCalculationEngine.RECORD_MAX_ONE_REP_MAX) != 0) {
+                records.put(record(e, "max_1rm", exercises.maxOneRepMax[e], exercises.maxOneRepMaxSet[e]));
+            }
+            if ((flags & WorkoutCalculationEngine.RECORD_MAX_VOLUME) != 0) {
+                // The JS version points at the first set of the exercise
+                records.put(record(e, "max_volume", exercises.volume[e], sets.exerciseOffsets[e]));
+            }
+        }
+        return records;
+    }
+
+    private static JSObject record(int exercise, String type, double value, int setIndex) {
+        JSObject record = new JSObject();
+        record.put("exerciseIndex", exercise);
+        record.put("type", type);
+        record.put("value", value);
+        record.put("setIndex", setIndex);
+        return record;
+    }
+
+    private static double[] toDoubles(JSONArray array, int count) {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = array == null || array.isNull(i) ? Double.NaN : array.optDouble(i, Double.NaN);
+        }
+        return values;
+    }
+
+    private static int[] toInts(JSONArray array, int count) {
+        int[] values = new int[count];
+        for (int i = 0; array != null && i < count; i++) {
+            values[i] = array.optInt(i, 0);
+        }
+        return values;
+    }
+
+    private static long[] toTimestamps(JSONArray array, int count) {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = array == null || array.isNull(i)
+                    ? WorkoutCalculationEngine.NO_TIMESTAMP : array.optLong(i, WorkoutCalculationEngine.NO_TIMESTAMP);
+        }
+        return values;
+    }
+
+    private static JSArray toArray(int[] values) {
+        JSArray array = new JSArray();
+        for (int value : values) {
+            array.put(value);
+        }
+        return array;
+    }
+
+    // NaN is not valid JSON, it goes back as null
+    private static JSArray toArray(double[] values) {
+        JSArray array = new JSArray();
+        for (double value : values) {
+            array.put(Double.isNaN(value) ? JSONObject.NULL : (Object) value);
+        }
+        return array;
+    }
+}
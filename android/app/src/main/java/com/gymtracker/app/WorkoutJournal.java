@@ -0,0 +1,766 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.util.Log;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.zip.CRC32;
+
+
+// Append-only journal of in-progress workout edits. Every change to a workout, exercise or set is one small
+// record (length, CRC32, then type, sequence, ids and the JSON document it replaces) instead of a rewrite of
+// the whole workout. One writer thread group-commits: everything appended while an fsync runs goes out with
+// the next one. Once the journal outgrows the live state it is compacted into a snapshot and starts over.
+// Recovery loads the snapshot, replays the journal records after it and stops at the first torn or corrupt
+// record, which is cut off so new appends follow valid data. A record replaces whole documents, so replaying
+// one twice does no harm.
+public class WorkoutJournal {
+    private static final String TAG = "WorkoutJournal";
+    private static final String DIRECTORY = "workout_journal";
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+
+    public static final byte PUT_WORKOUT = 1;
+    public static final byte PUT_EXERCISE = 2;
+    public static final byte PUT_SET = 3;
+    public static final byte REMOVE_EXERCISE = 4;
+    public static final byte REMOVE_SET = 5;
+    // The workout was finished or discarded and saved elsewhere, its records are dropped at the next compaction
+    public static final byte END_WORKOUT = 6;
+    // Last frame of a snapshot, a snapshot without it is incomplete
+    private static final byte SNAPSHOT_END = 7;
+
+    private static final int SNAPSHOT_MAGIC = 0x47544a53;
+    private static final int FRAME_HEADER_BYTES = 8;
+    // Type, sequence and four string lengths
+    private static final int MIN_BODY_BYTES = 1 + 8 + 4 * 4;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+
+    // Compaction waits for the journal to be this large and this many times the last snapshot
+    public static final long DEFAULT_COMPACT_MIN_BYTES = 256 * 1024;
+    private static final int COMPACT_RATIO = 4;
+
+    private static WorkoutJournal instance;
+
+    public interface Callback {
+        // Called on the journal thread once the records are on disk
+        void onDurable(long sequence);
+
+        void onFailure(IOException e);
+    }
+
+    public static final class Mutation {
+        public final byte type;
+        public final String workoutId;
+        public final String exerciseId;
+        public final String setId;
+        // JSON object as written by the caller, null for removals
+        public final String document;
+
+        private Mutation(byte type, String workoutId, String exerciseId, String setId, String document) {
+            if (workoutId == null || (type != PUT_WORKOUT && type != END_WORKOUT && exerciseId == null)
+                    || ((type == PUT_SET || type == REMOVE_SET) && setId == null)) {
+                throw new IllegalArgumentException("Missing id for record type " + type);
+            }
+            if ((type == PUT_WORKOUT || type == PUT_EXERCISE || type == PUT_SET) && document == null) {
+                throw new IllegalArgumentException("Missing document for record type " + type);
+            }
+            this.type = type;
+            this.workoutId = workoutId;
+            this.exerciseId = exerciseId;
+            this.setId = setId;
+            this.document = document;
+        }
+
+        public static Mutation putWorkout(String workoutId, String document) {
+            return new Mutation(PUT_WORKOUT, workoutId, null, null, document);
+        }
+
+        public static Mutation putExercise(String workoutId, String exerciseId, String document) {
+            return new Mutation(PUT_EXERCISE, workoutId, exerciseId, null, document);
+        }
+
+        public static Mutation putSet(String workoutId, String exerciseId, String setId, String document) {
+            return new Mutation(PUT_SET, workoutId, exerciseId, setId, document);
+        }
+
+        public static Mutation removeExercise(String workoutId, String exerciseId) {
+            return new Mutation(REMOVE_EXERCISE, workoutId, exerciseId, null, null);
+        }
+
+        public static Mutation removeSet(String workoutId, String exerciseId, String setId) {
+            return new Mutation(REMOVE_SET, workoutId, exerciseId, setId, null);
+        }
+
+        public static Mutation endWorkout(String workoutId) {
+            return new Mutation(END_WORKOUT, workoutId, null, null, null);
+        }
+    }
+
+    public static class Recovery {
+        public boolean snapshotLoaded;
+        // Journal records replayed on top of the snapshot
+        public int records;
+        // Torn or corrupt tail cut off the journal, a crash in the middle of a write
+        public long droppedBytes;
+        public int workouts;
+        public long durationNanos;
+    }
+
+    public static class Stats {
+        public long lastSequence;
+        public long durableSequence;
+        public long recordsAppended;
+        public long groupCommits;
+        public long journalBytes;
+        // Everything written to disk, journal and snapshots, for write amplification
+        public long bytesWritten;
+        public long compactions;
+        public long lastSnapshotBytes;
+    }
+
+    private static final class Waiter {
+        final long sequence;
+        final Callback callback;
+
+        Waiter(long sequence, Callback callback) {
+            this.sequence = sequence;
+            this.callback = callback;
+        }
+    }
+
+    private static final class ExerciseState {
+        String document;
+        final Map<String, String> sets = new LinkedHashMap<>();
+    }
+
+    private static final class WorkoutState {
+        String document;
+        final Map<String, ExerciseState> exercises = new LinkedHashMap<>();
+    }
+
+    private final File directory;
+    private final File journalFile;
+    private final File snapshotFile;
+    private final long compactMinBytes;
+    private final Recovery recovery = new Recovery();
+    private final Thread writer;
+
+    private final Object lock = new Object();
+    // Live state including records not yet on disk, guarded by lock
+    private final Map<String, WorkoutState> workouts = new LinkedHashMap<>();
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private List<Waiter> waiters = new ArrayList<>();
+    private long lastSequence;
+    private long durableSequence;
+    private long recordsAppended;
+    private boolean closed;
+
+    // Only touched by the writer thread after construction
+    private RandomAccessFile journal;
+    private long journalBytes;
+    private long lastSnapshotBytes;
+    private boolean needsSnapshot;
+    private volatile long bytesWritten;
+    private volatile long groupCommits;
+    private volatile long compactions;
+
+    public static synchronized WorkoutJournal getInstance(Context context) throws IOException {
+        if (instance == null) {
+            instance = new WorkoutJournal(new File(context.getFilesDir(), DIRECTORY), DEFAULT_COMPACT_MIN_BYTES);
+        }
+        return instance;
+    }
+
+    // Runs from MainActivity.onCreate, so the edits of a session that crashed are back in memory before the
+    // page asks for them
+    public static void recoverAtStartup(Context context) {
+        try {
+            Recovery recovery = getInstance(context).getRecovery();
+            Log.i(TAG, "Recovered " + recovery.workouts + " workouts from " + recovery.records + " records in "
+                    + recovery.durationNanos / 1000 + "us, dropped " + recovery.droppedBytes + " bytes");
+        } catch (IOException e) {
+            Log.e(TAG, "Could not open the workout journal", e);
+        }
+    }
+
+    // Replays what is on disk before returning
+    WorkoutJournal(File directory, long compactMinBytes) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        this.directory = directory;
+        this.journalFile = new File(directory, JOURNAL_FILE);
+        this.snapshotFile = new File(directory, SNAPSHOT_FILE);
+        this.compactMinBytes = compactMinBytes;
+
+        recover();
+        writer = new Thread(this::runWriter, "WorkoutJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Recovery getRecovery() {
+        return recovery;
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        synchronized (lock) {
+            stats.lastSequence = lastSequence;
+            stats.durableSequence = durableSequence;
+            stats.recordsAppended = recordsAppended;
+        }
+        stats.groupCommits = groupCommits;
+        stats.bytesWritten = bytesWritten;
+        stats.compactions = compactions;
+        synchronized (this) {
+            stats.journalBytes = journalBytes;
+            stats.lastSnapshotBytes = lastSnapshotBytes;
+        }
+        return stats;
+    }
+
+    // Applies the mutations to the live state right away and queues them for the next group commit. The
+    // callback, if any, fires once all of them are durable. Returns the sequence of the last one.
+    public long append(List<Mutation> mutations, Callback callback) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            for (Mutation mutation : mutations) {
+                long sequence = ++lastSequence;
+                encodeFrame(pending, mutation, sequence);
+                apply(mutation);
+                recordsAppended++;
+            }
+            if (callback != null) {
+                waiters.add(new Waiter(lastSequence, callback));
+            }
+            lock.notifyAll();
+            return lastSequence;
+        }
+    }
+
+    // Blocks until everything up to the sequence is on disk
+    public void awaitDurable(long sequence) throws IOException, InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        IOException[] failure = new IOException[1];
+        synchronized (lock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            waiters.add(new Waiter(sequence, new Callback() {
+                @Override
+                public void onDurable(long durable) {
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailure(IOException e) {
+                    failure[0] = e;
+                    done.countDown();
+                }
+            }));
+            lock.notifyAll();
+        }
+        done.await();
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    public int getWorkoutCount() {
+        synchronized (lock) {
+            return workouts.size();
+        }
+    }
+
+    // The unfinished workouts as a JSON array of workout documents, each with its exercises and their sets
+    // nested back in, in the order they were first journaled
+    public String activeWorkoutsJson() {
+        StringBuilder out = new StringBuilder(1024);
+        synchronized (lock) {
+            out.append('[');
+            boolean firstWorkout = true;
+            for (WorkoutState workout : workouts.values()) {
+                if (!firstWorkout) {
+                    out.append(',');
+                }
+                firstWorkout = false;
+
+                StringBuilder exercises = new StringBuilder().append('[');
+                boolean firstExercise = true;
+                for (ExerciseState exercise : workout.exercises.values()) {
+                    if (!firstExercise) {
+                        exercises.append(',');
+                    }
+                    firstExercise = false;
+                    StringBuilder sets = new StringBuilder().append('[');
+                    boolean firstSet = true;
+                    for (String set : exercise.sets.values()) {
+                        if (!firstSet) {
+                            sets.append(',');
+                        }
+                        firstSet = false;
+                        sets.append(set);
+                    }
+                    appendWithField(exercises, exercise.document, "sets", sets.append(']'));
+                }
+                appendWithField(out, workout.document, "exercises", exercises.append(']'));
+            }
+            out.append(']');
+        }
+        return out.toString();
+    }
+
+    // Writes out what is queued and stops the writer thread
+    public void close() throws InterruptedException {
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        writer.join();
+    }
+
+    private void apply(Mutation mutation) {
+        switch (mutation.type) {
+            case PUT_WORKOUT:
+                workout(mutation.workoutId).document = mutation.document;
+                break;
+            case PUT_EXERCISE:
+                exercise(mutation.workoutId, mutation.exerciseId).document = mutation.document;
+                break;
+            case PUT_SET:
+                exercise(mutation.workoutId, mutation.exerciseId).sets.put(mutation.setId, mutation.document);
+                break;
+            case REMOVE_EXERCISE: {
+                WorkoutState workout = workouts.get(mutation.workoutId);
+                if (workout != null) {
+                    workout.exercises.remove(mutation.exerciseId);
+                }
+                break;
+            }
+            case REMOVE_SET: {
+                WorkoutState workout = workouts.get(mutation.workoutId);
+                ExerciseState exercise = workout != null ? workout.exercises.get(mutation.exerciseId) : null;
+                if (exercise != null) {
+                    exercise.sets.remove(mutation.setId);
+                }
+                break;
+            }
+            case END_WORKOUT:
+                workouts.remove(mutation.workoutId);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + mutation.type);
+        }
+    }
+
+    // Records may arrive for children before their parent was journaled, the parent document stays null
+    private WorkoutState workout(String workoutId) {
+        WorkoutState workout = workouts.get(workoutId);
+        if (workout == null) {
+            workout = new WorkoutState();
+            workouts.put(workoutId, workout);
+        }
+        return workout;
+    }
+
+    private ExerciseState exercise(String workoutId, String exerciseId) {
+        WorkoutState workout = workout(workoutId);
+        ExerciseState exercise = workout.exercises.get(exerciseId);
+        if (exercise == null) {
+            exercise = new ExerciseState();
+            workout.exercises.put(exerciseId, exercise);
+        }
+        return exercise;
+    }
+
+    private void runWriter() {
+        while (true) {
+            byte[] batch;
+            long batchSequence;
+            List<Waiter> ready = new ArrayList<>();
+            synchronized (lock) {
+                while (pending.size() == 0 && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.size() == 0 && closed) {
+                    takeWaiters(durableSequence, ready);
+                    notifyDurable(ready, durableSequence);
+                    closeJournal();
+                    return;
+                }
+                batch = pending.toByteArray();
+                pending = new ByteArrayOutputStream(Math.max(256, batch.length));
+                batchSequence = lastSequence;
+            }
+
+            IOException failure = null;
+            try {
+                writeBatch(batch);
+                if (needsSnapshot) {
+                    compact();
+                    needsSnapshot = false;
+                }
+            } catch (IOException e) {
+                failure = e;
+                // The failed records are still applied in memory but missing from the journal, only a snapshot
+                // of the live state covers them again
+                needsSnapshot = true;
+            }
+
+            synchronized (lock) {
+                if (failure == null) {
+                    durableSequence = batchSequence;
+                }
+                takeWaiters(batchSequence, ready);
+            }
+            if (failure == null) {
+                notifyDurable(ready, batchSequence);
+                maybeCompact();
+            } else {
+                for (Waiter waiter : ready) {
+                    waiter.callback.onFailure(failure);
+                }
+            }
+        }
+    }
+
+    private void takeWaiters(long upTo, List<Waiter> into) {
+        Iterator<Waiter> iterator = waiters.iterator();
+        while (iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            if (waiter.sequence <= upTo) {
+                into.add(waiter);
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void notifyDurable(List<Waiter> waiters, long sequence) {
+        for (Waiter waiter : waiters) {
+            waiter.callback.onDurable(sequence);
+        }
+    }
+
+    private synchronized void writeBatch(byte[] batch) throws IOException {
+        FileChannel channel = journal.getChannel();
+        long start = journalBytes;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, start + buffer.position());
+            }
+            // Contents only, the file size is covered by the per-record checksums on replay
+            channel.force(false);
+        } catch (IOException e) {
+            // Keeps a partial write from sitting in front of the next batch
+            try {
+                channel.truncate(start);
+            } catch (IOException ignored) {
+                // Replay stops at the torn record anyway
+            }
+            throw e;
+        }
+        journalBytes = start + batch.length;
+        bytesWritten += batch.length;
+        groupCommits++;
+    }
+
+    private void maybeCompact() {
+        synchronized (this) {
+            if (journalBytes < Math.max(compactMinBytes, (long) COMPACT_RATIO * lastSnapshotBytes)) {
+                return;
+            }
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            // The journal is still complete, compaction is tried again after the next commit
+        }
+    }
+
+    // Everything in the journal file is durable and covered by the snapshot, records still queued have higher
+    // sequences or are in the snapshot already, either way replay handles them
+    private synchronized void compact() throws IOException {
+        byte[] snapshot;
+        synchronized (lock) {
+            snapshot = encodeSnapshot(lastSequence);
+        }
+        File temp = new File(directory, SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(snapshot);
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(snapshotFile)) {
+            throw new IOException("Could not replace " + snapshotFile);
+        }
+        syncDirectory();
+        journal.getChannel().truncate(0);
+        journal.getChannel().force(true);
+        journalBytes = 0;
+        lastSnapshotBytes = snapshot.length;
+        bytesWritten += snapshot.length;
+        compactions++;
+    }
+
+    // Makes the rename durable before the journal it replaces is emptied
+    private void syncDirectory() {
+        try {
+            FileDescriptor fd = Os.open(directory.getPath(), OsConstants.O_RDONLY, 0);
+            try {
+                Os.fsync(fd);
+            } finally {
+                Os.close(fd);
+            }
+        } catch (ErrnoException | RuntimeException e) {
+            // Not every filesystem syncs directories, and plain JVM tests have no Os
+        }
+    }
+
+    private synchronized void closeJournal() {
+        try {
+            journal.close();
+        } catch (IOException ignored) {
+            // Everything written was forced already
+        }
+    }
+
+    private byte[] encodeSnapshot(long sequence) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        writeInt(out, SNAPSHOT_MAGIC);
+        writeLong(out, sequence);
+        for (Map.Entry<String, WorkoutState> workout : workouts.entrySet()) {
+            String workoutId = workout.getKey();
+            if (workout.getValue().document != null) {
+                encodeFrame(out, Mutation.putWorkout(workoutId, workout.getValue().document), sequence);
+            }
+            for (Map.Entry<String, ExerciseState> exercise : workout.getValue().exercises.entrySet()) {
+                String exerciseId = exercise.getKey();
+                if (exercise.getValue().document != null) {
+                    encodeFrame(out, Mutation.putExercise(workoutId, exerciseId, exercise.getValue().document),
+                            sequence);
+                }
+                for (Map.Entry<String, String> set : exercise.getValue().sets.entrySet()) {
+                    encodeFrame(out, Mutation.putSet(workoutId, exerciseId, set.getKey(), set.getValue()), sequence);
+                }
+            }
+        }
+        encodeFrame(out, new Mutation(SNAPSHOT_END, "", "", "", null), sequence);
+        return out.toByteArray();
+    }
+
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        long snapshotSequence = 0;
+        if (snapshotFile.exists()) {
+            snapshotSequence = loadSnapshot(readFully(snapshotFile));
+            recovery.snapshotLoaded = true;
+            lastSnapshotBytes = snapshotFile.length();
+        }
+
+        byte[] data = journalFile.exists() ? readFully(journalFile) : new byte[0];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long sequence = snapshotSequence;
+        int valid = 0;
+        Mutation mutation;
+        long[] frameSequence = new long[1];
+        while ((mutation = decodeFrame(buffer, frameSequence)) != null) {
+            // Already in the snapshot when the journal was not emptied after it
+            if (frameSequence[0] > snapshotSequence) {
+                apply(mutation);
+                recovery.records++;
+            }
+            sequence = Math.max(sequence, frameSequence[0]);
+            valid = buffer.position();
+        }
+
+        journal = new RandomAccessFile(journalFile, "rw");
+        if (valid < data.length) {
+            recovery.droppedBytes = data.length - valid;
+            journal.getChannel().truncate(valid);
+            journal.getChannel().force(true);
+        }
+        journalBytes = valid;
+        lastSequence = sequence;
+        durableSequence = sequence;
+        recovery.workouts = workouts.size();
+        recovery.durationNanos = System.nanoTime() - start;
+    }
+
+    private long loadSnapshot(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < 12 || buffer.getInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not a workout journal snapshot");
+        }
+        long sequence = buffer.getLong();
+        long[] frameSequence = new long[1];
+        Mutation mutation;
+        while ((mutation = decodeFrame(buffer, frameSequence)) != null) {
+            if (mutation.type == SNAPSHOT_END) {
+                return sequence;
+            }
+            apply(mutation);
+        }
+        // Written to a temp file and renamed, so this only happens when the storage itself lost data
+        throw new IOException("Workout journal snapshot is incomplete");
+    }
+
+    private static void encodeFrame(ByteArrayOutputStream out, Mutation mutation, long sequence) {
+        byte[] workoutId = utf8(mutation.workoutId);
+        byte[] exerciseId = utf8(mutation.exerciseId);
+        byte[] setId = utf8(mutation.setId);
+        byte[] document = utf8(mutation.document);
+        int length = MIN_BODY_BYTES + length(workoutId) + length(exerciseId) + length(setId) + length(document);
+        if (length > MAX_BODY_BYTES) {
+            throw new IllegalArgumentException("Record of " + length + " bytes is too large");
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(length);
+        body.put(mutation.type);
+        body.putLong(sequence);
+        putString(body, workoutId);
+        putString(body, exerciseId);
+        putString(body, setId);
+        putString(body, document);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, length);
+
+        writeInt(out, length);
+        writeInt(out, (int) crc.getValue());
+        out.write(body.array(), 0, length);
+    }
+
+    // Null at the end of the data or at the first frame that is cut short or fails its checksum, the buffer
+    // is then left where that frame starts
+    private static Mutation decodeFrame(ByteBuffer buffer, long[] sequence) {
+        int start = buffer.position();
+        if (buffer.remaining() < FRAME_HEADER_BYTES) {
+            return null;
+        }
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length < MIN_BODY_BYTES || length > MAX_BODY_BYTES || length > buffer.remaining()) {
+            buffer.position(start);
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), buffer.position(), length);
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return null;
+        }
+
+        int end = buffer.position() + length;
+        byte type = buffer.get(buffer.position());
+        if (type < PUT_WORKOUT || type > SNAPSHOT_END) {
+            // A valid checksum over a record this build does not know, e.g. from a newer version
+            buffer.position(start);
+            return null;
+        }
+        try {
+            buffer.get();
+            sequence[0] = buffer.getLong();
+            String workoutId = getString(buffer, end);
+            String exerciseId = getString(buffer, end);
+            String setId = getString(buffer, end);
+            String document = getString(buffer, end);
+            buffer.position(end);
+            return new Mutation(type, workoutId, exerciseId, setId, document);
+        } catch (IllegalArgumentException e) {
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    // Adds a field to a serialized JSON object, the documents come from JSONObject.toString() in the plugin
+    static void appendWithField(StringBuilder out, String document, String field, CharSequence value) {
+        String object = document != null ? document.trim() : "{}";
+        int end = object.lastIndexOf('}');
+        out.append(object, 0, end);
+        if (object.substring(1, end).trim().length() > 0) {
+            out.append(',');
+        }
+        out.append('"').append(field).append("\":").append(value).append('}');
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] value) {
+        return value != null ? value.length : 0;
+    }
+
+    private static void putString(ByteBuffer body, byte[] value) {
+        body.putInt(value != null ? value.length : -1);
+        if (value != null) {
+            body.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer, int end) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > end - buffer.position()) {
+            throw new IllegalArgumentException("String runs past the record");
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        writeInt(out, (int) (value >>> 32));
+        writeInt(out, (int) value);
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        try (FileInputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            return offset == data.length ? data : Arrays.copyOf(data, offset);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.gymtracker.app;
+
+import android.webkit.WebView;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+
+// Mutation types: putWorkout, putExercise, putSet, removeExercise, removeSet, endWorkout. A put carries the
+// complete current document of that one workout, exercise or set in data, without its nested exercises or
+// sets, which are journaled on their own. append() resolves once the records are on disk.
+@CapacitorPlugin(name = "WorkoutJournal")
+public class WorkoutJournalPlugin extends Plugin {
+    private WorkoutJournal journal;
+
+    @Override
+    public void load() {
+        try {
+            journal = WorkoutJournal.getInstance(getContext());
+        } catch (IOException e) {
+            journal = null;
+        }
+    }
+
+    @PluginMethod
+    public void append(PluginCall call) {
+        if (journal == null) {
+            call.reject("Workout journal is unavailable");
+            return;
+        }
+        JSArray items = call.getArray("mutations");
+        if (items == null || items.length() == 0) {
+            call.reject("mutations is required");
+            return;
+        }
+
+        List<WorkoutJournal.Mutation> mutations = new ArrayList<>(items.length());
+        try {
+            for (int i = 0; i < items.length(); i++) {
+                mutations.add(toMutation(items.getJSONObject(i)));
+            }
+        } catch (JSONException | IllegalArgumentException e) {
+            call.reject("Invalid mutation: " + e.getMessage());
+            return;
+        }
+
+        boolean wasActive = journal.getWorkoutCount() > 0;
+        journal.append(mutations, new WorkoutJournal.Callback() {
+            @Override
+            public void onDurable(long sequence) {
+                JSObject result = new JSObject();
+                result.put("sequence", sequence);
+                call.resolve(result);
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                call.reject("Failed to write the workout journal", e);
+            }
+        });
+
+        // A workout started or ended, the renderer's priority depends on it
+        if (wasActive != journal.getWorkoutCount() > 0) {
+            getBridge().executeOnMainThread(() -> {
+                WebView webView = getBridge().getWebView();
+                if (webView != null) {
+                    MemoryManager.updateRendererPriority(getContext(), webView);
+                }
+            });
+        }
+    }
+
+    // Workouts that were started but not ended, as journaled before the app last stopped or crashed
+    @PluginMethod
+    public void recover(PluginCall call) {
+        if (journal == null) {
+            call.reject("Workout journal is unavailable");
+            return;
+        }
+        try {
+            WorkoutJournal.Recovery recovery = journal.getRecovery();
+            JSObject stats = new JSObject();
+            stats.put("snapshotLoaded", recovery.snapshotLoaded);
+            stats.put("records", recovery.records);
+            stats.put("droppedBytes", recovery.droppedBytes);
+            stats.put("durationMs", recovery.durationNanos / 1e6);
+
+            JSObject result = new JSObject();
+            result.put("workouts", new JSArray(journal.activeWorkoutsJson()));
+            result.put("recovery", stats);
+            call.resolve(result);
+        } catch (JSONException e) {
+            call.reject("Failed to read the workout journal", e);
+        }
+    }
+
+    @PluginMethod
+    public void getStats(PluginCall call) {
+        if (journal == null) {
+            call.reject("Workout journal is unavailable");
+            return;
+        }
+        WorkoutJournal.Stats stats = journal.getStats();
+        JSObject result = new JSObject();
+        result.put("lastSequence", stats.lastSequence);
+        result.put("durableSequence", stats.durableSequence);
+        result.put("recordsAppended", stats.recordsAppended);
+        result.put("groupCommits", stats.groupCommits);
+        result.put("journalBytes", stats.journalBytes);
+        result.put("bytesWritten", stats.bytesWritten);
+        result.put("compactions", stats.compactions);
+        result.put("snapshotBytes", stats.lastSnapshotBytes);
+        result.put("activeWorkouts", journal.getWorkoutCount());
+        call.resolve(result);
+    }
+
+    private static WorkoutJournal.Mutation toMutation(JSONObject item) throws JSONException {
+        String type = item.getString("type");
+        String workoutId = item.getString("workoutId");
+        String exerciseId = item.optString("exerciseId", null);
+        String setId = item.optString("setId", null);
+        JSONObject data = item.optJSONObject("data");
+        switch (type) {
+            case "putWorkout":
+                return WorkoutJournal.Mutation.putWorkout(workoutId, withoutField(data, "exercises"));
+            case "putExercise":
+                return WorkoutJournal.Mutation.putExercise(workoutId, exerciseId, withoutField(data, "sets"));
+            case "putSet":
+                return WorkoutJournal.Mutation.putSet(workoutId, exerciseId, setId, withoutField(data, null));
+            case "removeExercise":
+                return WorkoutJournal.Mutation.removeExercise(workoutId, exerciseId);
+            case "removeSet":
+                return WorkoutJournal.Mutation.removeSet(workoutId, exerciseId, setId);
+            case "endWorkout":
+                return WorkoutJournal.Mutation.endWorkout(workoutId);
+            default:
+                throw new IllegalArgumentException("unknown type " + type);
+        }
+    }
+
+    // Nested children are journaled as records of their own and nested back in on recovery
+    private static String withoutField(JSONObject data, String field) {
+        if (data == null) {
+            throw new IllegalArgumentException("data is required");
+        }
+        if (field != null) {
+            data.remove(field);
+        }
+        return data.toString();
+    }
+}
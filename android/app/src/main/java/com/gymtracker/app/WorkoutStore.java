@@ -0,0 +1,427 @@
+package com.gymtracker.app;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+public class WorkoutStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "workout_store.db";
+    private static final int DATABASE_VERSION = 1;
+
+    // Rows per transaction when a single batch is very large, keeps the WAL writer lock short
+    private static final int MAX_ROWS_PER_TRANSACTION = 2000;
+
+    // Rows per query when walking a whole table, each page is a fresh rowid range scan so the cursor
+    // window never has to be refilled from the start of the table
+    private static final int SCAN_PAGE_SIZE = 5000;
+
+    private static final String SET_COLUMNS =
+            "id, workout_id, exercise_id, set_number, type, weight, reps, rpe, rest_time, completed, completed_at, notes";
+    private static final String WORKOUT_COLUMNS =
+            "id, user_id, name, is_completed, started_at, completed_at, total_volume, data, updated_at";
+
+    private static final String INSERT_SET_SQL =
+            "INSERT OR REPLACE INTO workout_sets (id, workout_id, exercise_id, set_number, type, weight, reps, rpe, rest_time, completed, completed_at, notes) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_WORKOUT_SQL =
+            "INSERT OR REPLACE INTO workouts (id, user_id, name, is_completed, started_at, completed_at, total_volume, data, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_EXERCISE_SQL =
+            "INSERT OR REPLACE INTO exercises (id, name, category, data, updated_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static WorkoutStore instance;
+
+    public static class SetRow {
+        public String id;
+        public String workoutId;
+        public String exerciseId;
+        public int setNumber;
+        public String type;
+        public double weight;
+        public int reps;
+        public double rpe = Double.NaN;
+        public long restTime = -1;
+        public boolean completed;
+        public long completedAt = -1;
+        public String notes;
+    }
+
+    public static class WorkoutRow {
+        public String id;
+        public String userId;
+        public String name;
+        public boolean completed;
+        public long startedAt = -1;
+        public long completedAt = -1;
+        public double totalVolume;
+        public String data;
+        public long updatedAt;
+    }
+
+    public static class ExerciseRow {
+        public String id;
+        public String name;
+        public String category;
+        public String data;
+        public long updatedAt;
+    }
+
+    public interface RowCallback<T> {
+        void onRow(T row) throws IOException;
+    }
+
+    public interface Transaction {
+        void run() throws IOException;
+    }
+
+    public static synchronized WorkoutStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new WorkoutStore(context.getApplicationContext(), DATABASE_NAME);
+        }
+        return instance;
+    }
+
+    WorkoutStore(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+
+        // WAL lets the WebView-facing reads run while a batch is being written
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // NORMAL is durable across app crashes in WAL mode, only a power loss can drop the last commit
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        db.execSQL("PRAGMA temp_store = MEMORY");
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE exercises ("
+                + "id TEXT PRIMARY KEY, name TEXT NOT NULL, category TEXT, data TEXT, updated_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE workouts ("
+                + "id TEXT PRIMARY KEY, user_id TEXT, name TEXT, is_completed INTEGER NOT NULL DEFAULT 0, "
+                + "started_at INTEGER, completed_at INTEGER, total_volume REAL, data TEXT, updated_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE workout_sets ("
+                + "id TEXT PRIMARY KEY, workout_id TEXT NOT NULL, exercise_id TEXT NOT NULL, set_number INTEGER, type TEXT, "
+                + "weight REAL, reps INTEGER, rpe REAL, rest_time INTEGER, completed INTEGER NOT NULL DEFAULT 0, "
+                + "completed_at INTEGER, notes TEXT)");
+        db.execSQL("CREATE INDEX idx_workouts_user ON workouts (user_id, started_at)");
+        db.execSQL("CREATE INDEX idx_sets_workout ON workout_sets (workout_id, set_number)");
+        db.execSQL("CREATE INDEX idx_sets_exercise ON workout_sets (exercise_id, completed_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // No migrations yet, version 1 is the first schema
+    }
+
+    public int insertSets(List<SetRow> sets) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(INSERT_SET_SQL);
+        int inserted = 0;
+
+        try {
+            while (inserted < sets.size()) {
+                int end = Math.min(sets.size(), inserted + MAX_ROWS_PER_TRANSACTION);
+                db.beginTransactionNonExclusive();
+                try {
+                    for (int i = inserted; i < end; i++) {
+                        bindSet(statement, sets.get(i));
+                        statement.executeInsert();
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                inserted = end;
+            }
+        } finally {
+            statement.close();
+        }
+        return inserted;
+    }
+
+    public void saveWorkout(WorkoutRow workout, List<SetRow> sets) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement workoutStatement = db.compileStatement(INSERT_WORKOUT_SQL);
+        SQLiteStatement setStatement = db.compileStatement(INSERT_SET_SQL);
+
+        db.beginTransactionNonExclusive();
+        try {
+            bindWorkout(workoutStatement, workout);
+            workoutStatement.executeInsert();
+
+            if (sets != null) {
+                for (SetRow set : sets) {
+                    bindSet(setStatement, set);
+                    setStatement.executeInsert();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            workoutStatement.close();
+            setStatement.close();
+        }
+    }
+
+    public int insertWorkouts(List<WorkoutRow> workouts) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(INSERT_WORKOUT_SQL);
+
+        db.beginTransactionNonExclusive();
+        try {
+            for (WorkoutRow workout : workouts) {
+                bindWorkout(statement, workout);
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+        return workouts.size();
+    }
+
+    public int saveExercises(List<ExerciseRow> exercises) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement(INSERT_EXERCISE_SQL);
+
+        db.beginTransactionNonExclusive();
+        try {
+            for (ExerciseRow exercise : exercises) {
+                statement.clearBindings();
+                statement.bindString(1, exercise.id);
+                statement.bindString(2, exercise.name);
+                bindNullableString(statement, 3, exercise.category);
+                bindNullableString(statement, 4, exercise.data);
+                statement.bindLong(5, exercise.updatedAt);
+                statement.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statement.close();
+        }
+        return exercises.size();
+    }
+
+    public void deleteWorkout(String workoutId) {
+        SQLiteDatabase db = getWritableDatabase();
+        String[] args = new String[] { workoutId };
+
+        db.beginTransactionNonExclusive();
+        try {
+            db.delete("workout_sets", "workout_id = ?", args);
+            db.delete("workouts", "id = ?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // The batch methods nest inside, so everything written by the transaction commits or rolls back together
+    public void runInTransaction(Transaction transaction) throws IOException {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            transaction.run();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void deleteAll() {
+        SQLiteDatabase db = getWritableDatabase();
+
+        db.beginTransactionNonExclusive();
+        try {
+            db.delete("workout_sets", null, null);
+            db.delete("workouts", null, null);
+            db.delete("exercises", null, null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public List<SetRow> getWorkoutSets(String workoutId) {
+        List<SetRow> sets = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT " + SET_COLUMNS + " FROM workout_sets WHERE workout_id = ? ORDER BY set_number",
+                new String[] { workoutId });
+        try {
+            while (cursor.moveToNext()) {
+                sets.add(readSet(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return sets;
+    }
+
+    public List<WorkoutRow> getWorkouts(String userId, long startedBefore, int limit) {
+        List<WorkoutRow> workouts = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery(
+                "SELECT " + WORKOUT_COLUMNS + " FROM workouts WHERE user_id = ? AND started_at < ? "
+                + "ORDER BY started_at DESC LIMIT ?",
+                new String[] { userId, String.valueOf(startedBefore), String.valueOf(limit) });
+        try {
+            while (cursor.moveToNext()) {
+                workouts.add(readWorkout(cursor));
+            }
+        } finally {
+            cursor.close();
+        }
+        return workouts;
+    }
+
+    // Whole-table walks for export, memory stays flat however many rows there are
+    public void forEachExercise(RowCallback<ExerciseRow> callback) throws IOException {
+        scan("SELECT id, name, category, data, updated_at, rowid FROM exercises", 5, cursor -> {
+            ExerciseRow exercise = new ExerciseRow();
+            exercise.id = cursor.getString(0);
+            exercise.name = cursor.getString(1);
+            exercise.category = cursor.getString(2);
+            exercise.data = cursor.getString(3);
+            exercise.updatedAt = cursor.getLong(4);
+            callback.onRow(exercise);
+        });
+    }
+
+    public void forEachWorkout(RowCallback<WorkoutRow> callback) throws IOException {
+        scan("SELECT " + WORKOUT_COLUMNS + ", rowid FROM workouts", 9, cursor -> callback.onRow(readWorkout(cursor)));
+    }
+
+    public void forEachSet(RowCallback<SetRow> callback) throws IOException {
+        scan("SELECT " + SET_COLUMNS + ", rowid FROM workout_sets", 12, cursor -> callback.onRow(readSet(cursor)));
+    }
+
+    public long countWorkouts() {
+        return count("workouts");
+    }
+
+    public long countExercises() {
+        return count("exercises");
+    }
+
+    public long countSets() {
+        return count("workout_sets");
+    }
+
+    private long count(String table) {
+        SQLiteStatement statement = getReadableDatabase().compileStatement("SELECT COUNT(*) FROM " + table);
+        try {
+            return statement.simpleQueryForLong();
+        } finally {
+            statement.close();
+        }
+    }
+
+    // Pages through a table by rowid, which the query selects at rowidColumn
+    private void scan(String select, int rowidColumn, RowCallback<Cursor> callback) throws IOException {
+        SQLiteDatabase db = getReadableDatabase();
+        long lastRowid = Long.MIN_VALUE;
+        while (true) {
+            Cursor cursor = db.rawQuery(select + " WHERE rowid > ? ORDER BY rowid LIMIT " + SCAN_PAGE_SIZE,
+                    new String[] { String.valueOf(lastRowid) });
+            int rows = 0;
+            try {
+                while (cursor.moveToNext()) {
+                    callback.onRow(cursor);
+                    lastRowid = cursor.getLong(rowidColumn);
+                    rows++;
+                }
+            } finally {
+                cursor.close();
+            }
+            if (rows < SCAN_PAGE_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private static void bindSet(SQLiteStatement statement, SetRow set) {
+        statement.clearBindings();
+        statement.bindString(1, set.id);
+        statement.bindString(2, set.workoutId);
+        statement.bindString(3, set.exerciseId);
+        statement.bindLong(4, set.setNumber);
+        bindNullableString(statement, 5, set.type);
+        statement.bindDouble(6, set.weight);
+        statement.bindLong(7, set.reps);
+        if (!Double.isNaN(set.rpe)) {
+            statement.bindDouble(8, set.rpe);
+        }
+        if (set.restTime >= 0) {
+            statement.bindLong(9, set.restTime);
+        }
+        statement.bindLong(10, set.completed ? 1 : 0);
+        if (set.completedAt >= 0) {
+            statement.bindLong(11, set.completedAt);
+        }
+        bindNullableString(statement, 12, set.notes);
+    }
+
+    private static void bindWorkout(SQLiteStatement statement, WorkoutRow workout) {
+        statement.clearBindings();
+        statement.bindString(1, workout.id);
+        bindNullableString(statement, 2, workout.userId);
+        bindNullableString(statement, 3, workout.name);
+        statement.bindLong(4, workout.completed ? 1 : 0);
+        if (workout.startedAt >= 0) {
+            statement.bindLong(5, workout.startedAt);
+        }
+        if (workout.completedAt >= 0) {
+            statement.bindLong(6, workout.completedAt);
+        }
+        statement.bindDouble(7, workout.totalVolume);
+        bindNullableString(statement, 8, workout.data);
+        statement.bindLong(9, workout.updatedAt);
+    }
+
+    private static void bindNullableString(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static WorkoutRow readWorkout(Cursor cursor) {
+        WorkoutRow workout = new WorkoutRow();
+        workout.id = cursor.getString(0);
+        workout.userId = cursor.getString(1);
+        workout.name = cursor.getString(2);
+        workout.completed = cursor.getInt(3) != 0;
+        workout.startedAt = cursor.isNull(4) ? -1 : cursor.getLong(4);
+        workout.completedAt = cursor.isNull(5) ? -1 : cursor.getLong(5);
+        workout.totalVolume = cursor.getDouble(6);
+        workout.data = cursor.getString(7);
+        workout.updatedAt = cursor.getLong(8);
+        return workout;
+    }
+
+    private static SetRow readSet(Cursor cursor) {
+        SetRow set = new SetRow();
+        set.id = cursor.getString(0);
+        set.workoutId = cursor.getString(1);
+        set.exerciseId = cursor.getString(2);
+        set.setNumber = cursor.getInt(3);
+        set.type = cursor.getString(4);
+        set.weight = cursor.getDouble(5);
+        set.reps = cursor.getInt(6);
+        set.rpe = cursor.isNull(7) ? Double.NaN : cursor.getDouble(7);
+        set.restTime = cursor.isNull(8) ? -1 : cursor.getLong(8);
+        set.completed = cursor.getInt(9) != 0;
+        set.completedAt = cursor.isNull(10) ? -1 : cursor.getLong(10);
+        set.notes = cursor.getString(11);
+        return set;
+    }
+}
@@ -0,0 +1,229 @@
+package com.gymtracker.app;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.Plugin;
+import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginMethod;
+import com.getcapacitor.annotation.CapacitorPlugin;
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+
+// Timestamps cross the bridge as epoch milliseconds, field names follow src/types/workout.ts
+@CapacitorPlugin(name = "WorkoutStore")
+public class WorkoutStorePlugin extends Plugin {
+    private WorkoutStore store;
+
+    @Override
+    public void load() {
+        store = WorkoutStore.getInstance(getContext());
+    }
+
+    @PluginMethod
+    public void insertSets(PluginCall call) {
+        JSArray sets = call.getArray("sets");
+        if (sets == null) {
+            call.reject("sets is required");
+            return;
+        }
+
+        try {
+            int inserted = store.insertSets(parseSets(sets, null));
+            JSObject result = new JSObject();
+            result.put("inserted", inserted);
+            call.resolve(result);
+        } catch (Exception e) {
+            call.reject("Failed to insert sets", e);
+        }
+    }
+
+    @PluginMethod
+    public void saveWorkout(PluginCall call) {
+        JSObject workout = call.getObject("workout");
+        if (workout == null || workout.isNull("id")) {
+            call.reject("workout.id is required");
+            return;
+        }
+
+        try {
+            WorkoutStore.WorkoutRow row = new WorkoutStore.WorkoutRow();
+            row.id = workout.optString("id");
+            row.userId = optString(workout, "user_id", null);
+            row.name = optString(workout, "name", null);
+            row.completed = workout.optBoolean("is_completed", false);
+            row.startedAt = workout.optLong("started_at", -1);
+            row.completedAt = workout.optLong("completed_at", -1);
+            row.totalVolume = workout.optDouble("total_volume", 0);
+            row.data = optString(workout, "data", null);
+            row.updatedAt = workout.optLong("updated_at", System.currentTimeMillis());
+
+            JSONArray sets = call.getArray("sets");
+            store.saveWorkout(row, sets != null ? parseSets(sets, row.id) : null);
+            call.resolve();
+        } catch (Exception e) {
+            call.reject("Failed to save workout", e);
+        }
+    }
+
+    @PluginMethod
+    public void saveExercises(PluginCall call) {
+        JSArray exercises = call.getArray("exercises");
+        if (exercises == null) {
+            call.reject("exercises is required");
+            return;
+        }
+
+        try {
+            List<WorkoutStore.ExerciseRow> rows = new ArrayList<>(exercises.length());
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < exercises.length(); i++) {
+                JSONObject exercise = exercises.getJSONObject(i);
+                WorkoutStore.ExerciseRow row = new WorkoutStore.ExerciseRow();
+                row.id = exercise.getString("id");
+                row.name = optString(exercise, "name", row.id);
+                row.category = optString(exercise, "category", null);
+                row.data = optString(exercise, "data", null);
+                row.updatedAt = exercise.optLong("updated_at", now);
+                rows.add(row);
+            }
+
+            JSObject result = new JSObject();
+            result.put("saved", store.saveExercises(rows));
+            call.resolve(result);
+        } catch (Exception e) {
+            call.reject("Failed to save exercises", e);
+        }
+    }
+
+    @PluginMethod
+    public void getWorkoutSets(PluginCall call) {
+        String workoutId = call.getString("workoutId");
+        if (workoutId == null) {
+            call.reject("workoutId is required");
+            return;
+        }
+
+        try {
+            JSArray sets = new JSArray();
+            for (WorkoutStore.SetRow set : store.getWorkoutSets(workoutId)) {
+                sets.put(toJson(set));
+            }
+
+            JSObject result = new JSObject();
+            result.put("sets", sets);
+            call.resolve(result);
+        } catch (Exception e) {
+            call.reject("Failed to load workout sets", e);
+        }
+    }
+
+    @PluginMethod
+    public void getWorkouts(PluginCall call) {
+        String userId = call.getString("userId");
+        if (userId == null) {
+            call.reject("userId is required");
+            return;
+        }
+
+        long before = call.getLong("before", Long.MAX_VALUE);
+        int limit = call.getInt("limit", 50);
+
+        try {
+            JSArray workouts = new JSArray();
+            for (WorkoutStore.WorkoutRow workout : store.getWorkouts(userId, before, limit)) {
+                JSObject json = new JSObject();
+                json.put("id", workout.id);
+                json.put("user_id", workout.userId);
+                json.put("name", workout.name);
+                json.put("is_completed", workout.completed);
+                putTimestamp(json, "started_at", workout.startedAt);
+                putTimestamp(json, "completed_at", workout.completedAt);
+                json.put("total_volume", workout.totalVolume);
+                json.put("data", workout.data);
+                json.put("updated_at", workout.updatedAt);
+                workouts.put(json);
+            }
+
+            JSObject result = new JSObject();
+            result.put("workouts", workouts);
+            call.resolve(result);
+        } catch (Exception e) {
+            call.reject("Failed to load workouts", e);
+        }
+    }
+
+    @PluginMethod
+    public void deleteWorkout(PluginCall call) {
+        String workoutId = call.getString("workoutId");
+        if (workoutId == null) {
+            call.reject("workoutId is required");
+            return;
+        }
+
+        try {
+            store.deleteWorkout(workoutId);
+            call.resolve();
+        } catch (Exception e) {
+            call.reject("Failed to delete workout", e);
+        }
+    }
+
+    private static List<WorkoutStore.SetRow> parseSets(JSONArray sets, String workoutId) throws Exception {
+        List<WorkoutStore.SetRow> rows = new ArrayList<>(sets.length());
+        for (int i = 0; i < sets.length(); i++) {
+            JSONObject set = sets.getJSONObject(i);
+            WorkoutStore.SetRow row = new WorkoutStore.SetRow();
+            row.id = set.getString("id");
+            row.workoutId = workoutId != null ? workoutId : set.getString("workout_id");
+            row.exerciseId = set.getString("exercise_id");
+            row.setNumber = set.optInt("set_number", i + 1);
+            row.type = optString(set, "type", "normal");
+            row.weight = set.optDouble("weight", 0);
+            row.reps = set.optInt("reps", 0);
+            row.rpe = set.optDouble("rpe", Double.NaN);
+            row.restTime = set.optLong("rest_time", -1);
+            row.completed = set.optBoolean("completed", false);
+            row.completedAt = set.optLong("completed_at", -1);
+            row.notes = optString(set, "notes", null);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // optString turns an explicit JSON null into "null"
+    private static String optString(JSONObject json, String name, String fallback) {
+        return json.isNull(name) ? fallback : json.optString(name, fallback);
+    }
+
+    static JSObject toJson(WorkoutStore.SetRow set) {
+        JSObject json = new JSObject();
+        json.put("id", set.id);
+        json.put("workout_id", set.workoutId);
+        json.put("exercise_id", set.exerciseId);
+        json.put("set_number", set.setNumber);
+        json.put("type", set.type);
+        json.put("weight", set.weight);
+        json.put("reps", set.reps);
+        if (!Double.isNaN(set.rpe)) {
+            json.put("rpe", set.rpe);
+        }
+        if (set.restTime >= 0) {
+            json.put("rest_time", set.restTime);
+        }
+        json.put("completed", set.completed);
+        putTimestamp(json, "completed_at", set.completedAt);
+        if (set.notes != null) {
+            json.put("notes", set.notes);
+        }
+        return json;
+    }
+
+    private static void putTimestamp(JSObject json, String key, long value) {
+        if (value >= 0) {
+            json.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AssetVariantsTest {
+
+    @Test
+    public void findsViteContentHashes() {
+        assertEquals("BgX3c9_k", AssetVariants.contentHash("react-core-BgX3c9_k.js"));
+        assertEquals("D-4kQx1a", AssetVariants.contentHash("workout-pages-D-4kQx1a.css"));
+        assertEquals("C0ffee12", AssetVariants.contentHash("fonts/inter-C0ffee12.woff2"));
+    }
+
+    @Test
+    public void namesWithoutAHashAreNotImmutable() {
+        assertNull(AssetVariants.contentHash("logo.svg"));
+        assertNull(AssetVariants.contentHash("workout-overview.js"));
+        assertNull(AssetVariants.contentHash("index-abc.js"));
+
+        assertEquals(AssetVariants.REVALIDATE, AssetVariants.cacheControl("workout-overview.js"));
+        assertEquals(AssetVariants.IMMUTABLE, AssetVariants.cacheControl("index-BgX3c9_k.js"));
+    }
+
+    @Test
+    public void triesTheModesPreferredVariantFirst() {
+        assertArrayEquals(new AssetVariants.Source[] {
+                AssetVariants.Source.MAPPED, AssetVariants.Source.BROTLI,
+                AssetVariants.Source.GZIP, AssetVariants.Source.INFLATED
+        }, AssetVariants.order(AssetVariants.Mode.MAPPED, "text/javascript"));
+        assertArrayEquals(new AssetVariants.Source[] {
+                AssetVariants.Source.BROTLI, AssetVariants.Source.GZIP,
+                AssetVariants.Source.MAPPED, AssetVariants.Source.INFLATED
+        }, AssetVariants.order(AssetVariants.Mode.PRECOMPRESSED, "text/css"));
+    }
+
+    @Test
+    public void imagesHaveNoPrecompressedCopies() {
+        assertArrayEquals(new AssetVariants.Source[] {AssetVariants.Source.MAPPED, AssetVariants.Source.INFLATED},
+                AssetVariants.order(AssetVariants.Mode.PRECOMPRESSED, "image/webp"));
+        assertEquals("a-BgX3c9_k.js.br", AssetVariants.fileFor("a-BgX3c9_k.js", AssetVariants.Source.BROTLI));
+        assertEquals("a-BgX3c9_k.js.gz", AssetVariants.fileFor("a-BgX3c9_k.js", AssetVariants.Source.GZIP));
+        assertEquals("a-BgX3c9_k.js", AssetVariants.fileFor("a-BgX3c9_k.js", AssetVariants.Source.MAPPED));
+    }
+
+    @Test
+    public void servesOnlyKnownTypesBelowTheAssetsPath() {
+        assertTrue(AssetVariants.isServable("index-BgX3c9_k.js"));
+        assertFalse(AssetVariants.isServable("../index.html"));
+        assertFalse(AssetVariants.isServable("/etc/hosts.js"));
+        assertFalse(AssetVariants.isServable("video-BgX3c9_k.mp4"));
+        assertFalse(AssetVariants.isServable(""));
+
+        assertEquals("text/javascript", AssetVariants.mimeType("chunk-BgX3c9_k.MJS"));
+        assertEquals("utf-8", AssetVariants.charset("text/css"));
+        assertNull(AssetVariants.charset("font/woff2"));
+    }
+
+    @Test
+    public void parsesModesCaseInsensitively() {
+        assertEquals(AssetVariants.Mode.PRECOMPRESSED, AssetVariants.parseMode("precompressed"));
+        assertEquals(AssetVariants.Mode.OFF, AssetVariants.parseMode("OFF"));
+        assertNull(AssetVariants.parseMode("gzip"));
+        assertNull(AssetVariants.parseMode(null));
+    }
+}
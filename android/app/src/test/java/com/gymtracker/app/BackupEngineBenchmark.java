@@ -0,0 +1,158 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Export and import throughput of {@link BackupEngine} for 100k and 1M sets, plain and gzipped, with the
+ * heap growth over each run to show memory stays flat as the history grows.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BackupEngineBenchmark {
+    private static final int SETS_PER_WORKOUT = 20;
+    private static final int EXERCISES = 40;
+
+    private Context context;
+    private WorkoutStore source;
+    private WorkoutStore target;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        context = RuntimeEnvironment.getApplication();
+        context.getDatabasePath("backup_source.db").delete();
+        context.getDatabasePath("backup_target.db").delete();
+        source = new WorkoutStore(context, "backup_source.db");
+        target = new WorkoutStore(context, "backup_target.db");
+    }
+
+    @After
+    public void tearDown() {
+        if (source != null) {
+            source.close();
+        }
+        if (target != null) {
+            target.close();
+        }
+    }
+
+    @Test
+    public void roundTrip100k() throws IOException {
+        runRoundTrip(100_000);
+    }
+
+    @Test
+    public void roundTrip1M() throws IOException {
+        runRoundTrip(1_000_000);
+    }
+
+    private void runRoundTrip(int totalSets) throws IOException {
+        seed(totalSets);
+        for (boolean compress : new boolean[] { false, true }) {
+            String label = String.format(Locale.US, "%dk sets%s", totalSets / 1000, compress ? " gzip" : "");
+            File file = new File(context.getCacheDir(), "benchmark-backup" + (compress ? ".ndjson.gz" : ".ndjson"));
+
+            long heapBefore = usedHeap();
+            long t0 = System.nanoTime();
+            BackupEngine.Summary exported = BackupEngine.export(source, file, compress, null);
+            long exportNanos = System.nanoTime() - t0;
+            long exportHeap = usedHeap() - heapBefore;
+            BenchmarkStats exportStats = new BenchmarkStats("backup export " + label, 1);
+            exportStats.record(exportNanos);
+            exportStats.report(exported.records(), exportNanos);
+
+            heapBefore = usedHeap();
+            t0 = System.nanoTime();
+            BackupEngine.Summary imported;
+            try (InputStream in = new FileInputStream(file)) {
+                imported = BackupEngine.restore(target, in, true, null);
+            }
+            long importNanos = System.nanoTime() - t0;
+            long importHeap = usedHeap() - heapBefore;
+            BenchmarkStats importStats = new BenchmarkStats("backup import " + label, 1);
+            importStats.record(importNanos);
+            importStats.report(imported.records(), importNanos);
+
+            System.out.println(String.format(Locale.US,
+                    "[benchmark] backup %s: %.1f MB on disk (%.1f MB NDJSON), heap growth export %.1f MB, "
+                            + "import %.1f MB",
+                    label, file.length() / 1048576.0, exported.bytes / 1048576.0, exportHeap / 1048576.0,
+                    importHeap / 1048576.0));
+            assertEquals(totalSets, imported.sets);
+            assertEquals(totalSets, target.countSets());
+            assertEquals(source.countWorkouts(), target.countWorkouts());
+            file.delete();
+        }
+    }
+
+    private void seed(int totalSets) {
+        List<WorkoutStore.ExerciseRow> exercises = new ArrayList<>(EXERCISES);
+        for (int i = 0; i < EXERCISES; i++) {
+            WorkoutStore.ExerciseRow exercise = new WorkoutStore.ExerciseRow();
+            exercise.id = "exercise-" + i;
+            exercise.name = "Exercise " + i;
+            exercise.category = i % 2 == 0 ? "strength" : "hypertrophy";
+            exercise.updatedAt = 1_700_000_000_000L;
+            exercises.add(exercise);
+        }
+        source.saveExercises(exercises);
+
+        List<WorkoutStore.WorkoutRow> workouts = new ArrayList<>();
+        List<WorkoutStore.SetRow> sets = new ArrayList<>();
+        for (int i = 0; i < totalSets; i++) {
+            if (i % SETS_PER_WORKOUT == 0) {
+                WorkoutStore.WorkoutRow workout = new WorkoutStore.WorkoutRow();
+                workout.id = "workout-" + i / SETS_PER_WORKOUT;
+                workout.userId = "user-1";
+                workout.name = "Push day";
+                workout.completed = true;
+                workout.startedAt = 1_700_000_000_000L + i * 60_000L;
+                workout.completedAt = workout.startedAt + 3_600_000L;
+                workout.totalVolume = 12_500;
+                workout.updatedAt = workout.completedAt;
+                workouts.add(workout);
+            }
+            WorkoutStore.SetRow set = new WorkoutStore.SetRow();
+            set.id = "set-" + i;
+            set.workoutId = "workout-" + i / SETS_PER_WORKOUT;
+            set.exerciseId = "exercise-" + i % EXERCISES;
+            set.setNumber = i % SETS_PER_WORKOUT + 1;
+            set.type = "normal";
+            set.weight = 20 + (i % 160) * 0.5;
+            set.reps = 5 + i % 8;
+            set.rpe = 7.5;
+            set.restTime = 90;
+            set.completed = true;
+            set.completedAt = 1_700_000_000_000L + i * 60_000L;
+            sets.add(set);
+            if (sets.size() == 5000) {
+                source.insertWorkouts(workouts);
+                source.insertSets(sets);
+                workouts.clear();
+                sets.clear();
+            }
+        }
+        source.insertWorkouts(workouts);
+        source.insertSets(sets);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,173 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.content.Context;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class BackupEngineTest {
+    private WorkoutStore source;
+    private WorkoutStore target;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        context.getDatabasePath("backup_test_source.db").delete();
+        context.getDatabasePath("backup_test_target.db").delete();
+        source = new WorkoutStore(context, "backup_test_source.db");
+        target = new WorkoutStore(context, "backup_test_target.db");
+    }
+
+    @After
+    public void tearDown() {
+        source.close();
+        target.close();
+    }
+
+    @Test
+    public void roundTripsEveryField() throws IOException {
+        seed(source, 3);
+        WorkoutStore.SetRow awkward = createSet(99, "workout-0");
+        awkward.notes = "Felt \"easy\"\nback\\off\u2028next time \u00fcber";
+        awkward.rpe = Double.NaN;
+        awkward.restTime = -1;
+        source.insertSets(Arrays.asList(awkward));
+
+        for (boolean compress : new boolean[] { false, true }) {
+            BackupEngine.Summary summary = BackupEngine.restore(target, new ByteArrayInputStream(export(compress)),
+                    true, null);
+
+            assertEquals(compress, summary.compressed);
+            assertEquals(1, summary.exercises);
+            assertEquals(1, summary.workouts);
+            assertEquals(4, summary.sets);
+            WorkoutStore.SetRow restored = findSet(target.getWorkoutSets("workout-0"), "set-99");
+            assertEquals(awkward.notes, restored.notes);
+            assertTrue(Double.isNaN(restored.rpe));
+            assertEquals(-1, restored.restTime);
+            WorkoutStore.SetRow plain = findSet(target.getWorkoutSets("workout-0"), "set-1");
+            assertEquals(22.5, plain.weight, 0);
+            assertEquals(1_700_000_060_000L, plain.completedAt);
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedBackupAndKeepsExistingData() throws IOException {
+        seed(source, 5000);
+        byte[] backup = export(false);
+        seed(target, 2);
+
+        try {
+            BackupEngine.restore(target, new ByteArrayInputStream(Arrays.copyOf(backup, backup.length / 2)), true,
+                    null);
+            fail("expected the truncated backup to be rejected");
+        } catch (IOException expected) {
+            // Rolled back
+        }
+        assertEquals(2, target.countSets());
+    }
+
+    @Test
+    public void rejectsEditedBackup() throws IOException {
+        seed(source, 10);
+        String backup = new String(export(false), StandardCharsets.UTF_8).replace("\"reps\":6", "\"reps\":60");
+
+        try {
+            BackupEngine.restore(target, new ByteArrayInputStream(backup.getBytes(StandardCharsets.UTF_8)), false,
+                    null);
+            fail("expected the checksum to fail");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("checksum"));
+        }
+        assertEquals(0, target.countSets());
+    }
+
+    @Test
+    public void mergesWithoutReplace() throws IOException {
+        seed(source, 10);
+        byte[] backup = export(true);
+        WorkoutStore.SetRow local = createSet(500, "workout-local");
+        target.insertSets(Arrays.asList(local));
+
+        BackupEngine.restore(target, new ByteArrayInputStream(backup), false, null);
+
+        assertEquals(11, target.countSets());
+    }
+
+    @Test
+    public void escapesControlCharacters() {
+        StringBuilder line = new StringBuilder();
+        BackupEngine.appendQuoted(line, "a\"b\\c\td\u0001");
+        assertEquals("\"a\\\"b\\\\c\\td\\u0001\"", line.toString());
+    }
+
+    private byte[] export(boolean compress) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BackupEngine.export(source, out, compress, null);
+        return out.toByteArray();
+    }
+
+    private static void seed(WorkoutStore store, int sets) {
+        WorkoutStore.ExerciseRow exercise = new WorkoutStore.ExerciseRow();
+        exercise.id = "exercise-1";
+        exercise.name = "Bench press";
+        exercise.category = "strength";
+        exercise.updatedAt = 1_700_000_000_000L;
+        store.saveExercises(Arrays.asList(exercise));
+
+        WorkoutStore.WorkoutRow workout = new WorkoutStore.WorkoutRow();
+        workout.id = "workout-0";
+        workout.userId = "user-1";
+        workout.name = "Push";
+        workout.completed = true;
+        workout.startedAt = 1_700_000_000_000L;
+        workout.totalVolume = 1234.5;
+        workout.updatedAt = 1_700_000_000_000L;
+
+        List<WorkoutStore.SetRow> rows = new ArrayList<>();
+        for (int i = 0; i < sets; i++) {
+            rows.add(createSet(i, workout.id));
+        }
+        store.saveWorkout(workout, rows);
+    }
+
+    private static WorkoutStore.SetRow createSet(int index, String workoutId) {
+        WorkoutStore.SetRow set = new WorkoutStore.SetRow();
+        set.id = "set-" + index;
+        set.workoutId = workoutId;
+        set.exerciseId = "exercise-1";
+        set.setNumber = index + 1;
+        set.type = "normal";
+        set.weight = 20 + index * 2.5;
+        set.reps = 5 + index % 3;
+        set.rpe = 8;
+        set.restTime = 120;
+        set.completed = true;
+        set.completedAt = 1_700_000_000_000L + index * 60_000L;
+        return set;
+    }
+
+    private static WorkoutStore.SetRow findSet(List<WorkoutStore.SetRow> sets, String id) {
+        for (WorkoutStore.SetRow set : sets) {
+            if (set.id.equals(id)) {
+                return set;
+            }
+        }
+        return null;
+    }
+}
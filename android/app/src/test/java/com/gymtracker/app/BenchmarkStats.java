@@ -0,0 +1,51 @@
+package com.gymtracker.app;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Latency recorder shared by the JVM benchmarks.
+ *
+ * Benchmarks are opt-in: run them with {@code ./gradlew test -Dbenchmarks=true}.
+ */
+final class BenchmarkStats {
+    private final String name;
+    private long[] samples;
+    private int count;
+
+    BenchmarkStats(String name, int expectedSamples) {
+        this.name = name;
+        this.samples = new long[Math.max(16, expectedSamples)];
+    }
+
+    static void assumeBenchmarksEnabled() {
+        assumeTrue("benchmarks disabled, run with -Dbenchmarks=true", Boolean.getBoolean("benchmarks"));
+    }
+
+    void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    long percentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    void report(long operations, long totalNanos) {
+        double seconds = totalNanos / 1e9;
+        System.out.println(String.format(Locale.US,
+                "[benchmark] %-40s ops=%d time=%.1fms throughput=%.0f ops/s p50=%.1fus p99=%.1fus max=%.1fus",
+                name, operations, totalNanos / 1e6, operations / seconds,
+                percentileNanos(50) / 1e3, percentileNanos(99) / 1e3, percentileNanos(100) / 1e3));
+    }
+}
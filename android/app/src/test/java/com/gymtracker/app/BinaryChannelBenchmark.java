@@ -0,0 +1,117 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Native-side cost of moving 1 MB and 10 MB of workout sets to JS over {@link BinaryChannel} against a
+ * plain plugin call. A plugin result is serialized to a JSON string that the bridge evaluates in the page;
+ * binary data over that path would additionally be base64 encoded. The WebView hop itself needs a device,
+ * src/utils/binaryChannel.ts has benchmarkBinaryChannel for the end-to-end numbers.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BinaryChannelBenchmark {
+    private static final int[] PAYLOAD_BYTES = {1 << 20, 10 << 20};
+
+    private List<WorkoutStore.SetRow> sets;
+    private int bytesPerRow;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        sets = new ArrayList<>();
+        Random random = new Random(3);
+        String[] exercises = new String[40];
+        for (int i = 0; i < exercises.length; i++) {
+            exercises[i] = UUID.randomUUID().toString();
+        }
+        for (int i = 0; i < 100_000; i++) {
+            WorkoutStore.SetRow set = new WorkoutStore.SetRow();
+            set.id = UUID.randomUUID().toString();
+            set.workoutId = "workout-" + i / 20;
+            set.exerciseId = exercises[random.nextInt(exercises.length)];
+            set.setNumber = i % 5 + 1;
+            set.type = "normal";
+            set.weight = 20 + random.nextInt(300) * 0.5;
+            set.reps = 3 + random.nextInt(12);
+            set.rpe = random.nextBoolean() ? 6 + random.nextInt(8) * 0.5 : Double.NaN;
+            set.restTime = 60 + random.nextInt(180);
+            set.completed = true;
+            set.completedAt = 1_700_000_000_000L + i * 90_000L;
+            sets.add(set);
+        }
+        bytesPerRow = BinaryChannelPlugin.encodeSets(1, 0, sets, 0, 1000, true).length / 1000;
+    }
+
+    @Test
+    public void binaryFramesAgainstJsonBridge() {
+        for (int payloadBytes : PAYLOAD_BYTES) {
+            int rows = Math.min(sets.size(), payloadBytes / bytesPerRow);
+            String size = (payloadBytes >> 20) + "MB";
+            int iterations = payloadBytes > (1 << 20) ? 5 : 20;
+
+            BenchmarkStats binaryStats = new BenchmarkStats("binary frames " + size, iterations);
+            long frameBytes = 0;
+            long binaryStart = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                frameBytes = 0;
+                for (int from = 0; from < rows; from += BinaryChannelPlugin.ROWS_PER_FRAME) {
+                    int to = Math.min(rows, from + BinaryChannelPlugin.ROWS_PER_FRAME);
+                    frameBytes += BinaryChannelPlugin.encodeSets(1, i, sets, from, to, to == rows).length;
+                }
+                binaryStats.record(System.nanoTime() - t0);
+            }
+            binaryStats.report(iterations, System.nanoTime() - binaryStart);
+
+            BenchmarkStats jsonStats = new BenchmarkStats("JSON plugin result " + size, iterations);
+            long jsonBytes = 0;
+            long jsonStart = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                JSArray array = new JSArray();
+                for (int row = 0; row < rows; row++) {
+                    array.put(WorkoutStorePlugin.toJson(sets.get(row)));
+                }
+                JSObject result = new JSObject();
+                result.put("sets", array);
+                jsonBytes = result.toString().getBytes(StandardCharsets.UTF_8).length;
+                jsonStats.record(System.nanoTime() - t0);
+            }
+            jsonStats.report(iterations, System.nanoTime() - jsonStart);
+
+            BenchmarkStats base64Stats = new BenchmarkStats("base64 frames in JSON " + size, iterations);
+            long base64Bytes = 0;
+            long base64Start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                byte[] frame = BinaryChannelPlugin.encodeSets(1, i, sets, 0, rows, true);
+                JSObject result = new JSObject();
+                result.put("frame", Base64.getEncoder().encodeToString(frame));
+                base64Bytes = result.toString().length();
+                base64Stats.record(System.nanoTime() - t0);
+            }
+            base64Stats.report(iterations, System.nanoTime() - base64Start);
+
+            System.out.println(String.format(Locale.US,
+                    "[benchmark] %s, %d sets: binary %.1f ms / %d B, JSON %.1f ms / %d B, base64 %.1f ms / %d B",
+                    size, rows, binaryStats.percentileNanos(50) / 1e6, frameBytes,
+                    jsonStats.percentileNanos(50) / 1e6, jsonBytes,
+                    base64Stats.percentileNanos(50) / 1e6, base64Bytes));
+            assertTrue(binaryStats.percentileNanos(50) < jsonStats.percentileNanos(50));
+        }
+    }
+}
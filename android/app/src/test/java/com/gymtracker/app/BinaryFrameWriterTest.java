@@ -0,0 +1,81 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class BinaryFrameWriterTest {
+
+    @Test
+    public void writesHeaderAndAlignedColumns() {
+        byte[] frame = new BinaryFrameWriter(7, 3, 3)
+                .addInt32("reps", new int[] {8, 10, 12})
+                .addFloat64("weight", new double[] {60, 62.5, Double.NaN})
+                .finish(true);
+        ByteBuffer buffer = ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(BinaryFrameWriter.MAGIC, buffer.getInt(0));
+        assertEquals(frame.length, buffer.getInt(4));
+        assertEquals(BinaryFrameWriter.VERSION, buffer.get(8));
+        assertEquals(BinaryFrameWriter.FLAG_LAST, buffer.get(9));
+        assertEquals(2, buffer.getShort(10));
+        assertEquals(3, buffer.getInt(12));
+        assertEquals(7, buffer.getInt(16));
+        assertEquals(3, buffer.getInt(20));
+
+        // "reps": 8 byte column header + 4 byte name, data at 24 + 16
+        assertEquals(BinaryFrameWriter.TYPE_INT32, buffer.get(24));
+        assertEquals(12, buffer.getInt(28));
+        assertEquals("reps", new String(frame, 32, 4, StandardCharsets.US_ASCII));
+        assertEquals(10, buffer.getInt(44));
+
+        // 12 bytes of ints padded to 16, then "weight" with its data on an 8-byte boundary
+        int weightColumn = 40 + 16;
+        assertEquals(BinaryFrameWriter.TYPE_FLOAT64, buffer.get(weightColumn));
+        int weightData = weightColumn + 16;
+        assertEquals(0, weightData % 8);
+        assertEquals(62.5, buffer.getDouble(weightData + 8), 0);
+        assertTrue(Double.isNaN(buffer.getDouble(weightData + 16)));
+        assertEquals(weightData + 24, frame.length);
+    }
+
+    @Test
+    public void writesStringColumnsAsOffsetsAndUtf8() {
+        byte[] frame = new BinaryFrameWriter(1, 0, 3)
+                .addStrings("id", new String[] {"a", null, "\u00fc1"})
+                .finish(false);
+        ByteBuffer buffer = ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(0, buffer.get(9));
+        int data = 24 + 16;
+        assertEquals(0, buffer.getInt(data));
+        assertEquals(1, buffer.getInt(data + 4));
+        assertEquals(1, buffer.getInt(data + 8));
+        assertEquals(4, buffer.getInt(data + 12));
+        assertEquals("a\u00fc1", new String(frame, data + 16, 4, StandardCharsets.UTF_8));
+        assertEquals(16 + 4, buffer.getInt(24 + 4));
+        assertEquals(frame.length, new BinaryFrameWriter(1, 0, 3)
+                .addStrings("id", new String[] {"a", null, "\u00fc1"})
+                .size());
+    }
+
+    @Test
+    public void writesOnlyTheFramesRows() {
+        byte[] frame = new BinaryFrameWriter(1, 0, 2)
+                .addUint8("completed", new byte[] {1, 0, 1, 1})
+                .finish(true);
+
+        // 9 byte name pads the column header to 24, 2 bytes of data pad to 8
+        assertEquals(24 + 24 + 8, frame.length);
+        assertEquals(2, ByteBuffer.wrap(frame).order(ByteOrder.LITTLE_ENDIAN).getInt(24 + 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsShortColumns() {
+        new BinaryFrameWriter(1, 0, 3).addInt32("reps", new int[] {1, 2});
+    }
+}
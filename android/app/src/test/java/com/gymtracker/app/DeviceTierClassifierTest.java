@@ -0,0 +1,144 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DeviceTierClassifierTest {
+    private static final long GHZ = 1_000_000L;
+
+    @Test
+    public void flagshipIsHigh() {
+        DeviceTierClassifier.Classification result = DeviceTierClassifier.classify(flagship());
+
+        assertEquals(DeviceTierClassifier.Tier.HIGH, result.tier);
+        assertEquals(3, result.clusters);
+        assertEquals(4, result.bigCores);
+        assertEquals(20, result.topologyPoints);
+        assertEquals(98, result.score);
+    }
+
+    @Test
+    public void budgetPhoneIsMid() {
+        DeviceTierClassifier.Signals signals = new DeviceTierClassifier.Signals();
+        // A 4GB phone reports a little less
+        signals.totalRamMb = 3_700;
+        signals.coreMaxFreqKhz = freqs(1.9, 1.9, 1.9, 1.9, 2.4, 2.4, 2.4, 2.4);
+        signals.gpuRenderer = "Adreno (TM) 610";
+        signals.cpuOpsPerNano = 0.95;
+        signals.memoryBandwidthMbPerSecond = 7_000;
+
+        DeviceTierClassifier.Classification result = DeviceTierClassifier.classify(signals);
+
+        assertEquals(DeviceTierClassifier.Tier.MID, result.tier);
+        assertEquals(59, result.score);
+    }
+
+    @Test
+    public void goDeviceIsLow() {
+        DeviceTierClassifier.Signals signals = new DeviceTierClassifier.Signals();
+        signals.totalRamMb = 1_900;
+        signals.lowRamDevice = true;
+        signals.coreMaxFreqKhz = freqs(1.5, 1.5, 1.5, 1.5);
+        signals.gpuRenderer = "PowerVR Rogue GE8320";
+        signals.cpuOpsPerNano = 0.4;
+        signals.memoryBandwidthMbPerSecond = 2_500;
+
+        DeviceTierClassifier.Classification result = DeviceTierClassifier.classify(signals);
+
+        assertEquals(DeviceTierClassifier.Tier.LOW, result.tier);
+        assertEquals(0, result.bigCores);
+        assertEquals(1, result.clusters);
+        assertEquals(4, result.score);
+    }
+
+    @Test
+    public void ramCapsTheTier() {
+        DeviceTierClassifier.Signals signals = flagship();
+        signals.totalRamMb = 2_900;
+        assertEquals(DeviceTierClassifier.Tier.MID, DeviceTierClassifier.classify(signals).tier);
+
+        signals.totalRamMb = 12_000;
+        signals.lowRamDevice = true;
+        assertEquals(DeviceTierClassifier.Tier.LOW, DeviceTierClassifier.classify(signals).tier);
+    }
+
+    @Test
+    public void scoresWhatIsKnownBeforeTheFirstRunMeasurement() {
+        DeviceTierClassifier.Signals signals = flagship();
+        signals.gpuRenderer = null;
+        signals.cpuOpsPerNano = 0;
+
+        DeviceTierClassifier.Classification result = DeviceTierClassifier.classify(signals);
+
+        assertEquals(-1, result.gpuPoints);
+        assertEquals(-1, result.benchmarkPoints);
+        assertEquals(100, result.score);
+        assertEquals(DeviceTierClassifier.Tier.HIGH, result.tier);
+    }
+
+    @Test
+    public void ranksGpuRenderers() {
+        assertEquals(20, DeviceTierClassifier.gpuPoints("Adreno (TM) 740"));
+        assertEquals(18, DeviceTierClassifier.gpuPoints("Adreno (TM) 660"));
+        assertEquals(8, DeviceTierClassifier.gpuPoints("Adreno (TM) 618"));
+        assertEquals(6, DeviceTierClassifier.gpuPoints("Adreno (TM) 506"));
+        assertEquals(18, DeviceTierClassifier.gpuPoints("Mali-G710 MC10"));
+        assertEquals(16, DeviceTierClassifier.gpuPoints("Mali-G76 MP10"));
+        assertEquals(6, DeviceTierClassifier.gpuPoints("Mali-G52 MC2"));
+        assertEquals(2, DeviceTierClassifier.gpuPoints("Mali-T830"));
+        assertEquals(2, DeviceTierClassifier.gpuPoints("Mali-400 MP"));
+        assertEquals(20, DeviceTierClassifier.gpuPoints("Immortalis-G715"));
+        assertEquals(16, DeviceTierClassifier.gpuPoints("Samsung Xclipse 920"));
+        assertEquals(4, DeviceTierClassifier.gpuPoints("PowerVR Rogue GE8320"));
+        assertEquals(10, DeviceTierClassifier.gpuPoints("Google SwiftShader"));
+    }
+
+    @Test
+    public void ignoresUnreadableCores() {
+        long[] freqs = freqs(1.8, 1.8, 0, 0, 2.8);
+
+        assertEquals(2, DeviceTierClassifier.clusterCount(freqs));
+        assertEquals(1, DeviceTierClassifier.bigCoreCount(freqs, 2_800_000, 2));
+    }
+
+    @Test
+    public void profilesShrinkWithTheTier() {
+        DeviceTierClassifier.Profile low = DeviceTierClassifier.profileFor(DeviceTierClassifier.Tier.LOW);
+        DeviceTierClassifier.Profile mid = DeviceTierClassifier.profileFor(DeviceTierClassifier.Tier.MID);
+        DeviceTierClassifier.Profile high = DeviceTierClassifier.profileFor(DeviceTierClassifier.Tier.HIGH);
+
+        assertTrue(low.mediaMemoryCacheBytes < mid.mediaMemoryCacheBytes);
+        assertTrue(mid.mediaDiskCacheBytes < high.mediaDiskCacheBytes);
+        assertTrue(low.prefetchConcurrency < high.prefetchConcurrency);
+        assertEquals("minimal", low.animationLevel);
+        assertEquals("full", high.animationLevel);
+    }
+
+    @Test
+    public void microBenchmarkMeasuresSomething() {
+        DeviceMicroBenchmark.Result result = DeviceMicroBenchmark.run();
+
+        assertTrue(result.cpuOpsPerNano > 0);
+        assertTrue(result.memoryBandwidthMbPerSecond > 0);
+    }
+
+    private static DeviceTierClassifier.Signals flagship() {
+        DeviceTierClassifier.Signals signals = new DeviceTierClassifier.Signals();
+        signals.totalRamMb = 11_500;
+        signals.coreMaxFreqKhz = freqs(1.8, 1.8, 1.8, 1.8, 2.4, 2.4, 2.4, 2.84);
+        signals.gpuRenderer = "Adreno (TM) 660";
+        signals.cpuOpsPerNano = 1.6;
+        signals.memoryBandwidthMbPerSecond = 14_000;
+        return signals;
+    }
+
+    private static long[] freqs(double... ghz) {
+        long[] khz = new long[ghz.length];
+        for (int i = 0; i < ghz.length; i++) {
+            khz[i] = Math.round(ghz[i] * GHZ);
+        }
+        return khz;
+    }
+}
@@ -0,0 +1,187 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Query latency of {@link ExerciseSearchIndex} over a 50k exercise catalog with English and Spanish names,
+ * against the lowercase-and-contains scan ExerciseSelector.tsx runs over the whole list on every keystroke.
+ */
+public class ExerciseSearchBenchmark {
+    private static final int EXERCISES = 50_000;
+    private static final int QUERIES = 20_000;
+    private static final long NOW = 1_760_000_000_000L;
+
+    private static final String[][] MODIFIERS = {
+        {"Incline", "inclinado"}, {"Decline", "declinado"}, {"Seated", "sentado"}, {"Standing", "de pie"},
+        {"Single-Arm", "a una mano"}, {"Alternating", "alterno"}, {"Paused", "con pausa"}, {"Tempo", "con tempo"},
+        {"Wide-Grip", "agarre ancho"}, {"Close-Grip", "agarre cerrado"}, {"Reverse", "invertido"},
+        {"Kneeling", "de rodillas"}, {"Deficit", "con d\u00e9ficit"}, {"Banded", "con banda"},
+        {"Isometric", "isom\u00e9trico"}, {"Explosive", "explosivo"}, {"Lying", "tumbado"}, {"Sumo", "sumo"},
+        {"Half", "media"}, {"Tall", "alto"}
+    };
+    private static final String[][] EQUIPMENT = {
+        {"Barbell", "con barra", "barbell"}, {"Dumbbell", "con mancuerna", "dumbbell"},
+        {"Cable", "en polea", "cable"}, {"Machine", "en m\u00e1quina", "machine"},
+        {"Kettlebell", "con kettlebell", "kettlebell"}, {"Band", "con banda el\u00e1stica", "band"},
+        {"Smith", "en multipower", "smith_machine"}, {"Landmine", "en landmine", "landmine"},
+        {"Trap Bar", "con barra hexagonal", "trap_bar"}, {"Bodyweight", "sin peso", "none"}
+    };
+    private static final String[][] MOVEMENTS = {
+        {"Bench Press", "Press de banca", "pectorals", "chest"}, {"Squat", "Sentadilla", "quadriceps", "legs"},
+        {"Deadlift", "Peso muerto", "hamstrings", "back"}, {"Row", "Remo", "latissimus_dorsi", "back"},
+        {"Overhead Press", "Press militar", "deltoids", "shoulders"},
+        {"Curl", "Curl de b\u00edceps", "biceps_brachii", "arms"},
+        {"Triceps Extension", "Extensi\u00f3n de tr\u00edceps", "triceps_brachii", "arms"},
+        {"Lunge", "Zancada", "quadriceps", "legs"}, {"Hip Thrust", "Empuje de cadera", "glutes", "legs"},
+        {"Lateral Raise", "Elevaci\u00f3n lateral", "deltoids", "shoulders"},
+        {"Fly", "Aperturas", "pectorals", "chest"}, {"Pullover", "Pullover", "latissimus_dorsi", "back"},
+        {"Shrug", "Encogimiento", "trapezius", "shoulders"},
+        {"Calf Raise", "Elevaci\u00f3n de gemelos", "calves", "legs"},
+        {"Good Morning", "Buenos d\u00edas", "hamstrings", "back"},
+        {"Step-Up", "Subida al caj\u00f3n", "quadriceps", "legs"}, {"Crunch", "Abdominal", "rectus_abdominis", "core"},
+        {"Russian Twist", "Giro ruso", "obliques", "core"}, {"Pulldown", "Jal\u00f3n", "latissimus_dorsi", "back"},
+        {"Face Pull", "Face pull", "rear_deltoids", "shoulders"},
+        {"Split Squat", "Sentadilla b\u00falgara", "quadriceps", "legs"},
+        {"Leg Curl", "Curl femoral", "hamstrings", "legs"},
+        {"Leg Extension", "Extensi\u00f3n de cu\u00e1driceps", "quadriceps", "legs"},
+        {"Push-Up", "Flexi\u00f3n", "pectorals", "chest"}, {"Dip", "Fondos", "triceps_brachii", "arms"},
+        {"Clean", "Cargada", "trapezius", "back"}, {"Snatch", "Arrancada", "deltoids", "shoulders"},
+        {"Swing", "Swing", "glutes", "legs"}, {"Carry", "Paseo del granjero", "forearms", "arms"},
+        {"Plank", "Plancha", "rectus_abdominis", "core"}
+    };
+    private static final String[] GRIPS = {
+        "", "Pronated", "Supinated", "Neutral", "Mixed", "Hook", "False", "Thumbless", "Offset", "Staggered"
+    };
+
+    private List<ExerciseSearchIndex.Exercise> catalog;
+    private String[] queries;
+    private String[] contexts;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        catalog = new ArrayList<>(EXERCISES);
+        int id = 0;
+        outer:
+        for (String grip : GRIPS) {
+            for (String[] modifier : MODIFIERS) {
+                for (String[] equipment : EQUIPMENT) {
+                    for (String[] movement : MOVEMENTS) {
+                        if (id == EXERCISES) {
+                            break outer;
+                        }
+                        ExerciseSearchIndex.Exercise exercise = new ExerciseSearchIndex.Exercise();
+                        exercise.id = "exercise-" + id++;
+                        exercise.name = (grip.isEmpty() ? "" : grip + " ") + modifier[0] + " " + equipment[0] + " "
+                                + movement[0];
+                        exercise.nameEs = movement[1] + " " + modifier[1] + " " + equipment[1];
+                        exercise.muscleGroups = new String[] {movement[2], "stabilizers"};
+                        exercise.bodyParts = new String[] {movement[3]};
+                        exercise.equipment = equipment[2];
+                        exercise.category = "strength";
+                        catalog.add(exercise);
+                    }
+                }
+            }
+        }
+
+        // Keystroke sequences: every prefix of what users type, so short and long queries mix as they do live
+        String[] typed = {"bench press", "sentadilla bulgara", "curl", "remo con barra", "peso muerto rumano",
+            "incline dumbbell", "press militar", "jalon", "triceps", "cable fly", "glutes", "kettlebell swing",
+            "elevacion lateral", "close grip bench", "hip thrust", "face pull", "extension de cuadriceps", "plank"};
+        String[] muscles = {null, "chest", "legs", "back", "shoulders"};
+        List<String> sequence = new ArrayList<>();
+        for (String text : typed) {
+            for (int length = 1; length <= text.length(); length++) {
+                if (text.charAt(length - 1) != ' ') {
+                    sequence.add(text.substring(0, length));
+                }
+            }
+        }
+        Random random = new Random(23);
+        queries = new String[QUERIES];
+        contexts = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = sequence.get(i % sequence.size());
+            contexts[i] = muscles[random.nextInt(muscles.length)];
+        }
+    }
+
+    @Test
+    public void queriesOver50kExercises() {
+        long buildStart = System.nanoTime();
+        ExerciseSearchIndex index = new ExerciseSearchIndex(catalog);
+        long buildNanos = System.nanoTime() - buildStart;
+        Random random = new Random(5);
+        for (int i = 0; i < 200; i++) {
+            index.recordUse(catalog.get(random.nextInt(EXERCISES)).id, NOW - random.nextInt(90) * 86_400_000L);
+        }
+
+        // Warm-up, then measured
+        for (int i = 0; i < QUERIES; i++) {
+            index.search(queries[i], contexts[i], null, ExerciseSearchIndex.DEFAULT_LIMIT, NOW);
+        }
+        BenchmarkStats stats = new BenchmarkStats("trigram index query 50k", QUERIES);
+        long hits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            long t0 = System.nanoTime();
+            hits += index.search(queries[i], contexts[i], null, ExerciseSearchIndex.DEFAULT_LIMIT, NOW).size();
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(QUERIES, System.nanoTime() - start);
+        System.out.println(String.format(Locale.US, "[benchmark]   build=%.0fms postings=%.1fMB mean hits=%.1f",
+                buildNanos / 1e6, index.postingsBytes() / 1048576.0, hits / (double) QUERIES));
+
+        assertFalse(index.search("bench press", null, null, 10, NOW).isEmpty());
+        assertTrue("p99 over 1ms", stats.percentileNanos(99) < 1_000_000);
+    }
+
+    // What ExerciseSelector.tsx does: lowercase the name and every muscle group and test contains, per keystroke
+    @Test
+    public void linearScanBaseline() {
+        List<String[]> rows = new ArrayList<>(EXERCISES);
+        for (ExerciseSearchIndex.Exercise exercise : catalog) {
+            rows.add(new String[] {exercise.name, exercise.muscleGroups[0], exercise.muscleGroups[1]});
+        }
+        int queryCount = QUERIES / 10;
+        for (int i = 0; i < queryCount; i++) {
+            scan(rows, queries[i]);
+        }
+
+        BenchmarkStats stats = new BenchmarkStats("linear contains scan 50k", queryCount);
+        long start = System.nanoTime();
+        long hits = 0;
+        for (int i = 0; i < queryCount; i++) {
+            long t0 = System.nanoTime();
+            hits += scan(rows, queries[i]);
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(queryCount, System.nanoTime() - start);
+        assertTrue(hits > 0);
+    }
+
+    private static int scan(List<String[]> rows, String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        int found = 0;
+        for (String[] row : rows) {
+            boolean match = row[0].toLowerCase(Locale.ROOT).contains(needle);
+            for (int i = 1; i < row.length && !match; i++) {
+                match = row[i].toLowerCase(Locale.ROOT).contains(needle);
+            }
+            // The component keeps the first 50
+            if (match && ++found == ExerciseSearchIndex.DEFAULT_LIMIT) {
+                break;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,192 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExerciseSearchIndexTest {
+    private static final long NOW = 1_760_000_000_000L;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private ExerciseSearchIndex index;
+
+    @Before
+    public void setUp() throws IOException {
+        index = new ExerciseSearchIndex(loadCatalog());
+    }
+
+    // Every query in search/queries.tsv finds its exercise at or above the expected rank
+    @Test
+    public void querySetRanksTheIntendedExercise() throws IOException {
+        List<String[]> queries = readTsv("queries.tsv");
+        double reciprocalRanks = 0;
+        int top1 = 0;
+        List<String> failures = new ArrayList<>();
+        for (String[] query : queries) {
+            String context = query.length > 3 ? query[3] : null;
+            List<String> ids = ids(index.search(query[0], context, null, 10, NOW));
+            int rank = ids.indexOf(query[1]) + 1;
+            if (rank == 0 || rank > Integer.parseInt(query[2])) {
+                failures.add("\"" + query[0] + "\" -> " + query[1] + " at " + rank + ", got " + ids);
+            }
+            reciprocalRanks += rank > 0 ? 1.0 / rank : 0;
+            top1 += rank == 1 ? 1 : 0;
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        // 89% and 0.940 on the current set, a ranking change that costs more shows up here
+        assertTrue("top-1 " + top1 + "/" + queries.size(), top1 >= 0.85 * queries.size());
+        assertTrue("MRR@10 " + reciprocalRanks / queries.size(), reciprocalRanks / queries.size() >= 0.92);
+    }
+
+    @Test
+    public void foldsAccentsCaseAndSeparators() {
+        assertEquals("curl de biceps", ExerciseSearchIndex.fold("Curl de B\u00edceps"));
+        assertEquals("jalon al pecho", ExerciseSearchIndex.fold("  Jal\u00f3n al pecho!"));
+        assertEquals("triceps brachii", ExerciseSearchIndex.fold("triceps_brachii"));
+        assertEquals("push ups", ExerciseSearchIndex.fold("Push-ups"));
+        assertEquals("espana", ExerciseSearchIndex.fold("ESPA\u00d1A"));
+        assertEquals("strasse", ExerciseSearchIndex.fold("Stra\u00dfe"));
+        assertEquals("", ExerciseSearchIndex.fold(null));
+    }
+
+    @Test
+    public void dropsStopwordsExceptTheOneBeingTyped() {
+        assertArrayEquals(new String[] {"press", "banca"}, ExerciseSearchIndex.tokenize("press de banca"));
+        assertArrayEquals(new String[] {"press", "de"}, ExerciseSearchIndex.tokenize("press de"));
+        assertArrayEquals(new String[] {"de"}, ExerciseSearchIndex.tokenize("de"));
+        assertArrayEquals(new String[0], ExerciseSearchIndex.tokenize(" - "));
+    }
+
+    @Test
+    public void shortTokensMatchWordPrefixesOnly() {
+        // "ro" starts "Row" and "Romanian" but is only inside "Crossover" and "Front"
+        List<String> ids = ids(index.search("ro", null, null, 50, NOW));
+        assertTrue(ids.contains("barbell_row"));
+        assertTrue(ids.contains("romanian_deadlift"));
+        assertFalse(ids.contains("cable_crossover"));
+        assertFalse(ids.contains("front_squat"));
+    }
+
+    @Test
+    public void aLoneLetterMatchesNameStarts() {
+        // "Hip Thrust" and "Russian Twist" have words starting with t, only "Tricep Pushdown" starts with one
+        assertEquals(Arrays.asList("tricep_pushdown"), ids(index.search("t", null, null, 50, NOW)));
+        assertEquals(Arrays.asList("hip_thrust"), ids(index.search("hip t", null, null, 50, NOW)));
+    }
+
+    @Test
+    public void longTokensAlsoMatchInsideWords() {
+        // Only inside "Pulldown"
+        List<String> ids = ids(index.search("down", null, null, 50, NOW));
+        assertEquals(Arrays.asList("lat_pulldown", "tricep_pushdown"), ids);
+    }
+
+    @Test
+    public void everyTokenHasToMatch() {
+        assertEquals(Arrays.asList("romanian_deadlift"), ids(index.search("dead rum", null, null, 50, NOW)));
+        assertTrue(index.search("bench squat", null, null, 50, NOW).isEmpty());
+        assertTrue(index.search("zzz", null, null, 50, NOW).isEmpty());
+    }
+
+    @Test
+    public void recentUseLiftsAnExerciseAndFades() {
+        // Three names start with "Curl" in Spanish, the shortest one wins the tie
+        assertEquals("leg_curl", ids(index.search("curl", null, null, 3, NOW)).get(0));
+
+        index.setUse("hammer_curl", 6, NOW - DAY);
+        ExerciseSearchIndex.Hit top = index.search("curl", null, null, 3, NOW).get(0);
+        assertEquals("hammer_curl", top.id);
+        assertTrue(top.score > ExerciseSearchIndex.NAME_START + 4);
+
+        // Two months later it only breaks ties
+        index.setUse("hammer_curl", 6, NOW - 60 * DAY);
+        top = index.search("curl", null, null, 3, NOW).get(0);
+        assertEquals(ExerciseSearchIndex.NAME_START, top.score, 0.5);
+    }
+
+    @Test
+    public void useCountsSurviveARebuild() throws IOException {
+        index.recordUse("bicep_curl", NOW);
+        index.recordUse("bicep_curl", NOW);
+        ExerciseSearchIndex rebuilt = new ExerciseSearchIndex(loadCatalog());
+        rebuilt.copyUseFrom(index);
+
+        assertEquals("bicep_curl", ids(rebuilt.search("curl", null, null, 3, NOW)).get(0));
+    }
+
+    @Test
+    public void emptyQueryRanksByContext() {
+        List<ExerciseSearchIndex.Hit> hits = index.search("", "chest", "dumbbell", 3, NOW);
+
+        assertEquals(3, hits.size());
+        assertEquals(Arrays.asList("incline_db_press", "chest_fly", "push_ups"), ids(hits));
+        assertEquals(ExerciseSearchIndex.MUSCLE_MATCH + ExerciseSearchIndex.EQUIPMENT_MATCH, hits.get(0).score,
+                0.001);
+    }
+
+    @Test
+    public void limitsAndOrdersHits() {
+        List<ExerciseSearchIndex.Hit> hits = index.search("s", null, null, 5, NOW);
+
+        assertEquals(5, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score >= hits.get(i).score);
+        }
+    }
+
+    private static List<String> ids(List<ExerciseSearchIndex.Hit> hits) {
+        List<String> ids = new ArrayList<>(hits.size());
+        for (ExerciseSearchIndex.Hit hit : hits) {
+            ids.add(hit.id);
+        }
+        return ids;
+    }
+
+    static List<ExerciseSearchIndex.Exercise> loadCatalog() throws IOException {
+        List<ExerciseSearchIndex.Exercise> catalog = new ArrayList<>();
+        for (String[] row : readTsv("exercises.tsv")) {
+            ExerciseSearchIndex.Exercise exercise = new ExerciseSearchIndex.Exercise();
+            exercise.id = row[0];
+            exercise.name = row[1];
+            exercise.nameEs = row[2];
+            exercise.aliases = list(row[3]);
+            exercise.muscleGroups = list(row[4]);
+            exercise.bodyParts = list(row[5]);
+            exercise.equipment = row[6];
+            exercise.category = row[7];
+            catalog.add(exercise);
+        }
+        return catalog;
+    }
+
+    private static String[] list(String column) {
+        return column.isEmpty() ? new String[0] : column.split(";");
+    }
+
+    // Tab-separated rows from test resources, # for comments
+    private static List<String[]> readTsv(String name) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (InputStream in = ExerciseSearchIndexTest.class.getResourceAsStream("/search/" + name);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    rows.add(line.split("\t", -1));
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,104 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class JankTrackerTest {
+    private static final long MS = 1_000_000L;
+    private static final long DEADLINE_60HZ = 16_666_667L;
+
+    @Test
+    public void countsSlowAndFrozenFrames() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        for (int i = 0; i < 96; i++) {
+            histogram.record(9 * MS, DEADLINE_60HZ);
+        }
+        // Missing one vsync is not jank, missing two is
+        histogram.record(30 * MS, DEADLINE_60HZ);
+        histogram.record(40 * MS, DEADLINE_60HZ);
+        histogram.record(120 * MS, DEADLINE_60HZ);
+        histogram.record(900 * MS, DEADLINE_60HZ);
+
+        assertEquals(100, histogram.getFrames());
+        assertEquals(3, histogram.getSlowFrames());
+        assertEquals(1, histogram.getFrozenFrames());
+        assertEquals(40 + 120 + 900 - 3 * DEADLINE_60HZ / (double) MS, histogram.getJankNanos() / (double) MS, 1e-6);
+        assertEquals(900, histogram.getMaxNanos() / MS);
+    }
+
+    @Test
+    public void estimatesPercentilesFromBuckets() {
+        FrameTimeHistogram histogram = new FrameTimeHistogram();
+        assertEquals(-1, histogram.percentileMs(50), 0);
+        for (int i = 0; i < 90; i++) {
+            histogram.record(7 * MS, DEADLINE_60HZ);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(45 * MS, DEADLINE_60HZ);
+        }
+        histogram.record(2_500 * MS, DEADLINE_60HZ);
+
+        assertEquals(8, histogram.percentileMs(50), 0);
+        assertEquals(8, histogram.percentileMs(90), 0);
+        assertEquals(50, histogram.percentileMs(99), 0);
+        assertEquals(2_500, histogram.percentileMs(100), 0);
+        assertEquals(1, histogram.countAt(FrameTimeHistogram.bucketCount() - 1));
+        assertEquals(-1, FrameTimeHistogram.bucketUpperMs(FrameTimeHistogram.bucketCount() - 1));
+    }
+
+    @Test
+    public void attributesFramesToRouteAndLayerType() {
+        JankTracker tracker = new JankTracker("hardware");
+        tracker.record(10 * MS, DEADLINE_60HZ);
+        tracker.setRoute("/workout/:id");
+        tracker.record(50 * MS, DEADLINE_60HZ);
+        tracker.setLayerProfile("software");
+        tracker.record(60 * MS, DEADLINE_60HZ);
+        tracker.record(12 * MS, DEADLINE_60HZ);
+        tracker.setRoute("/history");
+        tracker.record(800 * MS, DEADLINE_60HZ);
+
+        Map<String, FrameTimeHistogram> profiles = tracker.byLayerProfile();
+        assertEquals(2, profiles.get("hardware").getFrames());
+        assertEquals(1, profiles.get("hardware").getSlowFrames());
+        assertEquals(3, profiles.get("software").getFrames());
+        assertEquals(2, profiles.get("software").getSlowFrames());
+        assertEquals(1, profiles.get("software").getFrozenFrames());
+
+        List<JankTracker.RouteStats> routes = tracker.byRoute();
+        assertEquals(4, routes.size());
+        assertRoute(routes.get(0), JankTracker.UNKNOWN_ROUTE, "hardware", 1, 0);
+        assertRoute(routes.get(1), "/workout/:id", "hardware", 1, 1);
+        assertRoute(routes.get(2), "/workout/:id", "software", 2, 1);
+        assertRoute(routes.get(3), "/history", "software", 1, 1);
+    }
+
+    @Test
+    public void sharesOneEntryBeyondTheRouteLimit() {
+        JankTracker tracker = new JankTracker("hardware", 2);
+        for (String route : new String[] {"/a", "/b", "/c", "/d", "/a"}) {
+            tracker.setRoute(route);
+            tracker.record(10 * MS, DEADLINE_60HZ);
+        }
+
+        List<JankTracker.RouteStats> routes = tracker.byRoute();
+        assertEquals(3, routes.size());
+        assertRoute(routes.get(0), "/a", "hardware", 2, 0);
+        assertRoute(routes.get(2), JankTracker.OTHER_ROUTE, "hardware", 2, 0);
+
+        tracker.clear();
+        assertEquals(0, tracker.byRoute().size());
+        assertEquals("/a", tracker.getRoute());
+    }
+
+    private static void assertRoute(JankTracker.RouteStats stats, String route, String layerProfile, long frames,
+            long slowFrames) {
+        assertEquals(route, stats.route);
+        assertEquals(layerProfile, stats.layerProfile);
+        assertEquals(frames, stats.histogram.getFrames());
+        assertEquals(slowFrames, stats.histogram.getSlowFrames());
+    }
+}
@@ -0,0 +1,44 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void reportsUnknownWhenEmpty() {
+        LatencyRecorder recorder = new LatencyRecorder(8);
+        assertEquals(0, recorder.getCount());
+        assertEquals(-1, recorder.getLast());
+        assertEquals(-1, recorder.percentile(50));
+    }
+
+    @Test
+    public void computesNearestRankPercentiles() {
+        LatencyRecorder recorder = new LatencyRecorder(16);
+        for (long latency : new long[] {40, 10, 30, 20, 50, 60, 70, 80, 90, 100}) {
+            recorder.record(latency);
+        }
+
+        assertEquals(50, recorder.percentile(50));
+        assertEquals(90, recorder.percentile(90));
+        assertEquals(100, recorder.percentile(100));
+        assertEquals(100, recorder.getLast());
+        assertEquals(100, recorder.getMax());
+    }
+
+    @Test
+    public void percentilesOnlyCoverRetainedLatencies() {
+        LatencyRecorder recorder = new LatencyRecorder(3);
+        recorder.record(500);
+        for (int i = 0; i < 3; i++) {
+            recorder.record(10);
+        }
+
+        assertEquals(4, recorder.getCount());
+        assertEquals(10, recorder.percentile(100));
+        // The maximum is kept over the whole lifetime
+        assertEquals(500, recorder.getMax());
+    }
+}
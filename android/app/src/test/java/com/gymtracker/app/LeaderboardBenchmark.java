@@ -0,0 +1,108 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * XP updates against a 100k-member {@link Leaderboard}, each followed by the standing the league screen shows
+ * (rank, the members around and the zone moves), against LeagueManager.updateGroupPositions, which re-sorts
+ * every participant on each update.
+ */
+public class LeaderboardBenchmark {
+    private static final int MEMBERS = 100_000;
+    private static final int UPDATES = 200_000;
+    private static final int PROMOTION = 5_000;
+    private static final int RELEGATION = 5_000;
+
+    private String[] ids;
+    private long[] startPoints;
+    private int[] updateMembers;
+    private int[] updateXp;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        Random random = new Random(24);
+        ids = new String[MEMBERS];
+        startPoints = new long[MEMBERS];
+        for (int i = 0; i < MEMBERS; i++) {
+            ids[i] = "user-" + i;
+            // Weekly XP is long-tailed: most members did a workout or two, a few train daily
+            startPoints[i] = (long) Math.exp(4 + 1.2 * random.nextGaussian());
+        }
+        // A few active members post most of the XP, the way a week's workouts arrive
+        updateMembers = new int[UPDATES];
+        updateXp = new int[UPDATES];
+        for (int i = 0; i < UPDATES; i++) {
+            updateMembers[i] = (int) (MEMBERS * Math.pow(random.nextDouble(), 3));
+            updateXp[i] = 10 + random.nextInt(60);
+        }
+    }
+
+    @Test
+    public void xpStreamOver100kMembers() {
+        long buildStart = System.nanoTime();
+        Leaderboard board = new Leaderboard(PROMOTION, RELEGATION);
+        for (int i = 0; i < MEMBERS; i++) {
+            board.put(ids[i], startPoints[i], i);
+        }
+        board.drainZoneChanges();
+        long buildNanos = System.nanoTime() - buildStart;
+
+        BenchmarkStats stats = new BenchmarkStats("leaderboard xp update + standing 100k", UPDATES);
+        long zoneChanges = 0;
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < UPDATES; i++) {
+            String id = ids[updateMembers[i]];
+            long t0 = System.nanoTime();
+            board.add(id, updateXp[i], MEMBERS + i);
+            sink += board.rank(id) + board.around(id, 5, 5).size();
+            zoneChanges += board.drainZoneChanges().size();
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(UPDATES, System.nanoTime() - start);
+        System.out.println(String.format(Locale.US,
+                "[benchmark]   build=%.0fms zone moves=%d (%.2f per update) promotion cutoff=%d relegation cutoff=%d",
+                buildNanos / 1e6, zoneChanges, zoneChanges / (double) UPDATES, board.promotionCutoff(),
+                board.relegationCutoff()));
+
+        assertEquals(MEMBERS, board.size());
+        assertTrue(sink > 0);
+        assertTrue("p99 over 50us", stats.percentileNanos(99) < 50_000);
+    }
+
+    // What LeagueManager does per update: sort everyone by weekly points and renumber the positions
+    @Test
+    public void resortBaseline() {
+        Integer[] order = new Integer[MEMBERS];
+        long[] points = startPoints.clone();
+        for (int i = 0; i < MEMBERS; i++) {
+            order[i] = i;
+        }
+        Comparator<Integer> byPoints = (a, b) -> Long.compare(points[b], points[a]);
+        int[] positions = new int[MEMBERS];
+
+        int updates = 200;
+        BenchmarkStats stats = new BenchmarkStats("re-sort per xp update 100k", updates);
+        long start = System.nanoTime();
+        for (int i = 0; i < updates; i++) {
+            long t0 = System.nanoTime();
+            points[updateMembers[i]] += updateXp[i];
+            Arrays.sort(order, byPoints);
+            for (int rank = 0; rank < MEMBERS; rank++) {
+                positions[order[rank]] = rank + 1;
+            }
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(updates, System.nanoTime() - start);
+        assertTrue(positions[order[0]] == 1);
+    }
+}
@@ -0,0 +1,173 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class LeaderboardTest {
+
+    private static List<String> ids(List<Leaderboard.Entry> entries) {
+        List<String> ids = new ArrayList<>(entries.size());
+        for (Leaderboard.Entry entry : entries) {
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    @Test
+    public void ranksByPointsThenWhoGotThereFirst() {
+        Leaderboard board = new Leaderboard(1, 1);
+        board.put("ana", 120, 3_000);
+        board.put("ben", 150, 5_000);
+        board.put("cai", 120, 1_000);
+        board.put("dee", 90, 2_000);
+
+        assertEquals(Arrays.asList("ben", "cai", "ana", "dee"), ids(board.range(1, 10)));
+        assertEquals(3, board.rank("ana"));
+        assertEquals(0, board.rank("eve"));
+
+        // Catching up later does not pass cai
+        assertEquals(150, board.add("cai", 30, 9_000));
+        assertEquals(Arrays.asList("ben", "cai", "ana", "dee"), ids(board.range(1, 10)));
+        board.add("ana", 31, 9_500);
+        assertEquals(1, board.rank("ana"));
+    }
+
+    @Test
+    public void ranksMatchAFullSortUnderRandomUpdates() {
+        Leaderboard board = new Leaderboard(5, 5);
+        Map<String, long[]> members = new HashMap<>();
+        Random random = new Random(3);
+        for (int step = 0; step < 5_000; step++) {
+            String id = "user-" + random.nextInt(300);
+            if (random.nextInt(20) == 0) {
+                board.remove(id);
+                members.remove(id);
+            } else {
+                long points = board.add(id, 1 + random.nextInt(40), step);
+                members.put(id, new long[] {points, step});
+            }
+        }
+
+        List<String> expected = sorted(members);
+        assertEquals(expected, ids(board.range(1, members.size())));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, board.rank(expected.get(i)));
+        }
+        assertEquals(members.size(), board.size());
+    }
+
+    @Test
+    public void zoneChangesKeepAReplicaInStep() {
+        Leaderboard board = new Leaderboard(5, 5);
+        Map<String, Leaderboard.Zone> replica = new HashMap<>();
+        Random random = new Random(9);
+        for (int step = 0; step < 3_000; step++) {
+            String id = "user-" + random.nextInt(40);
+            if (random.nextInt(15) == 0) {
+                board.remove(id);
+            } else {
+                board.add(id, random.nextInt(100), step);
+            }
+            for (Leaderboard.ZoneChange change : board.drainZoneChanges()) {
+                assertEquals(change.id, change.from, replica.get(change.id));
+                if (change.to == null) {
+                    replica.remove(change.id);
+                } else {
+                    replica.put(change.id, change.to);
+                }
+            }
+
+            for (Leaderboard.Entry entry : board.range(1, board.size())) {
+                assertEquals("step " + step + " rank " + entry.rank, entry.zone, replica.get(entry.id));
+            }
+            assertEquals(board.size(), replica.size());
+        }
+    }
+
+    @Test
+    public void smallBoardsPromoteBeforeTheyRelegate() {
+        Leaderboard board = new Leaderboard(5, 5);
+        for (int i = 0; i < 7; i++) {
+            board.put("user-" + i, 100 - i, 0);
+        }
+
+        assertEquals(Leaderboard.Zone.PROMOTION, board.zone("user-4"));
+        assertEquals(Leaderboard.Zone.RELEGATION, board.zone("user-5"));
+        assertEquals(Leaderboard.Zone.RELEGATION, board.zone("user-6"));
+        assertNull(board.zone("user-7"));
+    }
+
+    @Test
+    public void cutoffsFollowTheBoundaryMembers() {
+        Leaderboard board = new Leaderboard(2, 2);
+        assertEquals(0, board.promotionCutoff());
+        for (int i = 0; i < 10; i++) {
+            board.put("user-" + i, i * 10, 0);
+        }
+
+        // 90 80 | 70 .. 20 | 10 0
+        assertEquals(80, board.promotionCutoff());
+        assertEquals(20, board.relegationCutoff());
+        board.add("user-1", 75, 1);
+        assertEquals(85, board.promotionCutoff());
+        assertEquals(30, board.relegationCutoff());
+    }
+
+    @Test
+    public void aroundClampsAtTheEnds() {
+        Leaderboard board = new Leaderboard(1, 1);
+        for (int i = 0; i < 6; i++) {
+            board.put("user-" + i, 60 - i, 0);
+        }
+
+        assertEquals(Arrays.asList("user-0", "user-1", "user-2"), ids(board.around("user-0", 2, 2)));
+        assertEquals(Arrays.asList("user-2", "user-3", "user-4"), ids(board.around("user-3", 1, 1)));
+        assertEquals(Arrays.asList("user-4", "user-5"), ids(board.around("user-5", 1, 3)));
+        assertTrue(board.around("nobody", 1, 1).isEmpty());
+        assertTrue(board.range(7, 3).isEmpty());
+    }
+
+    @Test
+    public void leavingIsReportedAndFreesTheSlot() {
+        Leaderboard board = new Leaderboard(1, 1);
+        board.put("ana", 10, 0);
+        board.put("ben", 5, 0);
+        board.put("cai", 1, 0);
+        board.drainZoneChanges();
+
+        assertTrue(board.remove("ana"));
+        assertFalse(board.remove("ana"));
+        List<Leaderboard.ZoneChange> changes = board.drainZoneChanges();
+        assertEquals("ana", changes.get(0).id);
+        assertEquals(Leaderboard.Zone.PROMOTION, changes.get(0).from);
+        assertNull(changes.get(0).to);
+        assertEquals(Leaderboard.Zone.PROMOTION, board.zone("ben"));
+
+        board.put("dee", 7, 0);
+        assertEquals(Arrays.asList("dee", "ben", "cai"), ids(board.range(1, 5)));
+    }
+
+    // What LeagueManager does: sort by points, ties by when the points were reached
+    private static List<String> sorted(Map<String, long[]> members) {
+        List<String> ids = new ArrayList<>(members.keySet());
+        ids.sort((a, b) -> {
+            long[] x = members.get(a);
+            long[] y = members.get(b);
+            if (x[0] != y[0]) {
+                return Long.compare(y[0], x[0]);
+            }
+            return Long.compare(x[1], y[1]);
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,123 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MediaDiskCacheTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("media-cache").toFile();
+    }
+
+    @Test
+    public void servesStoredBytesThroughMappedStream() throws IOException {
+        MediaDiskCache cache = new MediaDiskCache(directory, 1024);
+        byte[] gif = bytes(300, 7);
+        cache.put("https://cdn/bench.gif", "image/gif", new ByteArrayInputStream(gif));
+
+        MediaDiskCache.Entry entry = cache.get("https://cdn/bench.gif");
+        assertNotNull(entry);
+        assertEquals("image/gif", entry.mimeType);
+        assertArrayEquals(gif, readAll(cache.openMapped(entry)));
+        assertEquals(1, cache.getHits());
+        assertEquals(300, cache.getBytesServed());
+    }
+
+    @Test
+    public void identicalContentIsStoredOnce() throws IOException {
+        MediaDiskCache cache = new MediaDiskCache(directory, 1024);
+        byte[] thumbnail = bytes(200, 3);
+        cache.put("https://cdn/a/thumb.jpg", "image/jpeg", new ByteArrayInputStream(thumbnail));
+        cache.put("https://cdn/b/thumb.jpg", "image/jpeg", new ByteArrayInputStream(thumbnail));
+
+        assertEquals(2, cache.getEntryCount());
+        assertEquals(200, cache.getSizeBytes());
+
+        // Re-downloading the same URL with the same content must keep the shared blob
+        cache.put("https://cdn/a/thumb.jpg", "image/jpeg", new ByteArrayInputStream(thumbnail));
+        assertNotNull(cache.get("https://cdn/b/thumb.jpg"));
+        assertArrayEquals(thumbnail, readAll(cache.openMapped(cache.get("https://cdn/a/thumb.jpg"))));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverBudget() throws IOException {
+        MediaDiskCache cache = new MediaDiskCache(directory, 500);
+        cache.put("one", "image/png", new ByteArrayInputStream(bytes(200, 1)));
+        cache.put("two", "image/png", new ByteArrayInputStream(bytes(200, 2)));
+        cache.get("one");
+        cache.put("three", "image/png", new ByteArrayInputStream(bytes(200, 3)));
+
+        assertNotNull(cache.get("one"));
+        assertNull(cache.get("two"));
+        assertEquals(400, cache.getSizeBytes());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void entryLargerThanBudgetIsNotKept() throws IOException {
+        MediaDiskCache cache = new MediaDiskCache(directory, 100);
+        assertNull(cache.put("huge", "image/gif", new ByteArrayInputStream(bytes(300, 1))));
+        assertEquals(0, cache.getSizeBytes());
+    }
+
+    @Test
+    public void indexSurvivesRestart() throws IOException {
+        MediaDiskCache cache = new MediaDiskCache(directory, 1024);
+        cache.put("https://cdn/squat.gif", "image/gif", new ByteArrayInputStream(bytes(100, 9)));
+        cache.put("https://cdn/deadlift.gif", "image/gif", new ByteArrayInputStream(bytes(150, 4)));
+        cache.flushIndex();
+
+        MediaDiskCache reopened = new MediaDiskCache(directory, 1024);
+        assertEquals(2, reopened.getEntryCount());
+        assertEquals(250, reopened.getSizeBytes());
+        assertArrayEquals(bytes(100, 9), readAll(reopened.openMapped(reopened.get("https://cdn/squat.gif"))));
+    }
+
+    @Test
+    public void indexWritesAreCoalesced() throws IOException {
+        MediaDiskCache cache = new MediaDiskCache(directory, 1024);
+        for (int i = 0; i < 5; i++) {
+            cache.put("https://cdn/" + i + ".png", "image/png", new ByteArrayInputStream(bytes(50, i + 1)));
+        }
+
+        // The puts only scheduled a write
+        File index = new File(directory, "index");
+        assertFalse(index.exists());
+        cache.flushIndex();
+        assertTrue(index.exists());
+        assertEquals(5, new MediaDiskCache(directory, 1024).getEntryCount());
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * seed);
+        }
+        return bytes;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,62 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class MediaMemoryCacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsedWithinBudget() {
+        MediaMemoryCache cache = new MediaMemoryCache(300);
+        cache.put("a", new byte[100]);
+        cache.put("b", new byte[100]);
+        cache.put("c", new byte[100]);
+
+        // Touch "a" so "b" becomes the eldest
+        cache.get("a");
+        cache.put("d", new byte[100]);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(300, cache.getSizeBytes());
+        // Budget evictions are normal churn, not memory reclaimed under pressure
+        assertEquals(0, cache.getBytesReclaimed());
+    }
+
+    @Test
+    public void countsReclaimedAndRefetchedBytes() {
+        MediaMemoryCache cache = new MediaMemoryCache(1000);
+        cache.put("gif-1", new byte[400]);
+        cache.put("gif-2", new byte[300]);
+
+        assertEquals(700, cache.trimToSize(0));
+        assertEquals(700, cache.getBytesReclaimed());
+
+        // gif-1 comes back from the disk cache, gif-2 had to be downloaded again, gif-3 was never evicted
+        cache.put("gif-1", new byte[400]);
+        cache.putDownloaded("gif-2", new byte[300]);
+        cache.putDownloaded("gif-3", new byte[200]);
+
+        assertEquals(700, cache.getBytesReloaded());
+        assertEquals(300, cache.getBytesRefetched());
+    }
+
+    @Test
+    public void budgetFractionShrinksAndRestores() {
+        MediaMemoryCache cache = new MediaMemoryCache(1000);
+        for (int i = 0; i < 10; i++) {
+            cache.put("item-" + i, new byte[100]);
+        }
+
+        assertEquals(800, cache.setBudgetFraction(0.25));
+        assertEquals(250, cache.getBudgetBytes());
+        assertEquals(200, cache.getSizeBytes());
+
+        cache.setBudgetFraction(1);
+        cache.put("large", new byte[800]);
+        assertEquals(1000, cache.getSizeBytes());
+    }
+}
@@ -0,0 +1,197 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.gymtracker.app.MemoryPolicyEngine.Pressure;
+import org.junit.Test;
+
+public class MemoryPolicyEngineTest {
+    private static final long BUDGET_KB = 512 * 1024;
+
+    private int notifications;
+    private int lastActions;
+
+    private final MemoryPolicyEngine.ActionHandler handler = (pressure, actions, previousActions) -> {
+        notifications++;
+        lastActions = actions;
+    };
+
+    @Test
+    public void mapsEveryTrimLevel() {
+        assertEquals(Pressure.ELEVATED, MemoryPolicyEngine.pressureForTrimLevel(MemoryPolicyEngine.TRIM_MEMORY_RUNNING_MODERATE));
+        assertEquals(Pressure.HIGH, MemoryPolicyEngine.pressureForTrimLevel(MemoryPolicyEngine.TRIM_MEMORY_RUNNING_LOW));
+        assertEquals(Pressure.CRITICAL, MemoryPolicyEngine.pressureForTrimLevel(MemoryPolicyEngine.TRIM_MEMORY_RUNNING_CRITICAL));
+        assertEquals(Pressure.ELEVATED, MemoryPolicyEngine.pressureForTrimLevel(MemoryPolicyEngine.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(Pressure.HIGH, MemoryPolicyEngine.pressureForTrimLevel(MemoryPolicyEngine.TRIM_MEMORY_BACKGROUND));
+        assertEquals(Pressure.HIGH, MemoryPolicyEngine.pressureForTrimLevel(MemoryPolicyEngine.TRIM_MEMORY_MODERATE));
+        assertEquals(Pressure.CRITICAL, MemoryPolicyEngine.pressureForTrimLevel(MemoryPolicyEngine.TRIM_MEMORY_COMPLETE));
+    }
+
+    @Test
+    public void escalatesImmediatelyOnTrim() {
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB);
+
+        engine.onTrimMemory(MemoryPolicyEngine.TRIM_MEMORY_RUNNING_LOW, 1_000);
+        assertTrue(engine.evaluate(1_000, handler));
+
+        assertEquals(Pressure.HIGH, engine.getPressure());
+        assertEquals(1, notifications);
+        assertTrue((lastActions & MemoryPolicyEngine.ACTION_PAUSE_PREFETCH) != 0);
+        assertTrue((lastActions & MemoryPolicyEngine.ACTION_RELEASE_RENDERER_PRIORITY) == 0);
+    }
+
+    @Test
+    public void stepsDownOneLevelPerRecoveryWindow() {
+        MemoryPolicyEngine.Config config = new MemoryPolicyEngine.Config();
+        config.trimSignalHoldMs = 1_000;
+        config.recoveryWindowMs = 10_000;
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB, config);
+
+        engine.onTrimMemory(MemoryPolicyEngine.TRIM_MEMORY_RUNNING_CRITICAL, 0);
+        engine.evaluate(0, handler);
+        assertEquals(Pressure.CRITICAL, engine.getPressure());
+
+        // Signal expired but the calm period has just started
+        engine.evaluate(2_000, handler);
+        assertEquals(Pressure.CRITICAL, engine.getPressure());
+
+        engine.evaluate(12_000, handler);
+        assertEquals(Pressure.HIGH, engine.getPressure());
+        engine.evaluate(15_000, handler);
+        assertEquals(Pressure.HIGH, engine.getPressure());
+        engine.evaluate(22_000, handler);
+        assertEquals(Pressure.ELEVATED, engine.getPressure());
+        engine.evaluate(32_000, handler);
+        assertEquals(Pressure.NORMAL, engine.getPressure());
+        assertEquals(0, lastActions);
+    }
+
+    @Test
+    public void foregroundSamplesStepBackDownOverTime() {
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB);
+
+        engine.onTrimMemory(MemoryPolicyEngine.TRIM_MEMORY_RUNNING_CRITICAL, 0);
+        engine.evaluate(0, handler);
+        assertTrue((lastActions & MemoryPolicyEngine.ACTION_LOW_MEMORY_PROFILE) != 0);
+
+        // No more callbacks, only the sampler's flat samples every 5s, each one re-evaluating as MemorySampler does
+        long t = 0;
+        while (engine.getPressure() != Pressure.NORMAL && t < 10 * 60_000) {
+            t += MemorySampler.DEFAULT_INTERVAL_MS;
+            engine.onPssSample(BUDGET_KB / 2, t);
+            engine.evaluate(t, handler);
+        }
+
+        assertEquals(Pressure.NORMAL, engine.getPressure());
+        // The trim signal's hold, then one recovery window per level
+        assertEquals(60_000 + 5_000 + 3 * 30_000, t);
+        assertEquals(4, notifications);
+        assertEquals(0, lastActions);
+    }
+
+    @Test
+    public void clearedTrendIgnoresEarlierSamples() {
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB);
+
+        long pss = BUDGET_KB / 2;
+        for (int i = 0; i < 6; i++) {
+            engine.onPssSample(pss, i * 5_000L);
+            pss += BUDGET_KB / 25;
+        }
+        engine.clearPssTrend();
+        // Back from the background with a flat reading, the growth before does not carry over
+        for (int i = 0; i < 3; i++) {
+            engine.onPssSample(pss, 600_000 + i * 5_000L);
+        }
+
+        assertEquals(0, engine.projectedPssKb(60_000));
+        assertFalse(engine.evaluate(610_000, handler));
+    }
+
+    @Test
+    public void flappingSignalDoesNotThrash() {
+        MemoryPolicyEngine.Config config = new MemoryPolicyEngine.Config();
+        config.trimSignalHoldMs = 1_000;
+        config.recoveryWindowMs = 10_000;
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB, config);
+
+        for (long t = 0; t < 60_000; t += 5_000) {
+            engine.onTrimMemory(MemoryPolicyEngine.TRIM_MEMORY_RUNNING_MODERATE, t);
+            engine.evaluate(t, handler);
+            engine.evaluate(t + 2_500, handler);
+        }
+
+        assertEquals(Pressure.ELEVATED, engine.getPressure());
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void lowRamDeviceNeverDropsBelowElevated() {
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(true, BUDGET_KB);
+
+        engine.evaluate(0, handler);
+        engine.evaluate(10 * 60_000, handler);
+
+        assertEquals(Pressure.ELEVATED, engine.getPressure());
+        assertEquals(MemoryPolicyEngine.ACTION_SHRINK_CACHES, lastActions);
+    }
+
+    @Test
+    public void rebuiltEngineContinuesFromAppliedLevel() {
+        MemoryPolicyEngine.Config config = new MemoryPolicyEngine.Config();
+        config.recoveryWindowMs = 10_000;
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB, config);
+        engine.continueFrom(Pressure.ELEVATED);
+
+        // The old low-RAM floor no longer applies, but the level only steps down after a calm window
+        assertFalse(engine.evaluate(0, handler));
+        assertEquals(Pressure.ELEVATED, engine.getPressure());
+
+        assertTrue(engine.evaluate(10_000, handler));
+        assertEquals(Pressure.NORMAL, engine.getPressure());
+        assertEquals(1, notifications);
+    }
+
+    @Test
+    public void systemMemoryRelativeToKillThreshold() {
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB);
+        long threshold = 200L * 1024 * 1024;
+
+        engine.onSystemMemory(threshold * 3, threshold, false);
+        engine.evaluate(0, handler);
+        assertEquals(Pressure.ELEVATED, engine.getPressure());
+
+        engine.onSystemMemory(threshold, threshold, true);
+        engine.evaluate(1, handler);
+        assertEquals(Pressure.CRITICAL, engine.getPressure());
+    }
+
+    @Test
+    public void risingPssTrendEscalatesBeforeBudgetIsReached() {
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB);
+
+        // 50% of budget, growing 4% of the budget every 5s: reaches the budget within the trend horizon
+        long pss = BUDGET_KB / 2;
+        for (int i = 0; i < 6; i++) {
+            engine.onPssSample(pss, i * 5_000L);
+            pss += BUDGET_KB / 25;
+        }
+        engine.evaluate(30_000, handler);
+        assertEquals(Pressure.ELEVATED, engine.getPressure());
+    }
+
+    @Test
+    public void flatPssBelowBudgetStaysNormal() {
+        MemoryPolicyEngine engine = new MemoryPolicyEngine(false, BUDGET_KB);
+
+        for (int i = 0; i < 6; i++) {
+            engine.onPssSample(BUDGET_KB / 2, i * 5_000L);
+        }
+
+        assertFalse(engine.evaluate(30_000, handler));
+        assertEquals(Pressure.NORMAL, engine.getPressure());
+        assertEquals(0, engine.projectedPssKb(60_000));
+    }
+}
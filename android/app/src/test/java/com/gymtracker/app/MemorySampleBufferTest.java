@@ -0,0 +1,56 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MemorySampleBufferTest {
+
+    @Test
+    public void keepsSamplesInOrderUntilFull() {
+        MemorySampleBuffer buffer = new MemorySampleBuffer(4);
+        buffer.record(1_000, 100, 50, 10, 20, 5);
+        buffer.record(2_000, 110, 55, 11, 21, 6);
+
+        assertEquals(2, buffer.size());
+        assertEquals(1_000, buffer.timestampAt(0));
+        assertEquals(110, buffer.pssAt(1));
+        assertEquals(55, buffer.privateDirtyAt(1));
+        assertEquals(21, buffer.nativeHeapAt(1));
+    }
+
+    @Test
+    public void overwritesOldestWhenFull() {
+        MemorySampleBuffer buffer = new MemorySampleBuffer(3);
+        for (int i = 0; i < 7; i++) {
+            buffer.record(i * 1_000L, 100 + i, 0, i, 0, 0);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(7, buffer.getTotalRecorded());
+        assertEquals(4_000, buffer.timestampAt(0));
+        assertEquals(106, buffer.pssAt(2));
+        assertEquals(5, buffer.javaHeapAt(1));
+    }
+
+    @Test
+    public void findsFirstSampleAtOrAfterTimestamp() {
+        MemorySampleBuffer buffer = new MemorySampleBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            buffer.record(i * 1_000L, 0, 0, 0, 0, 0);
+        }
+
+        // Retained samples are at 2000..5000
+        assertEquals(0, buffer.indexAtOrAfter(0));
+        assertEquals(1, buffer.indexAtOrAfter(2_500));
+        assertEquals(2, buffer.indexAtOrAfter(4_000));
+        assertEquals(4, buffer.indexAtOrAfter(9_000));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsIndexPastSize() {
+        MemorySampleBuffer buffer = new MemorySampleBuffer(4);
+        buffer.record(0, 0, 0, 0, 0, 0);
+        buffer.pssAt(1);
+    }
+}
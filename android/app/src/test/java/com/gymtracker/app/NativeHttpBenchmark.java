@@ -0,0 +1,178 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Request latency of {@link NativeHttpClient} against a local MockWebServer: cold (new connection, empty
+ * cache), warm (pooled connection), revalidated (304 on a pooled connection) and fresh cache hits, plus a
+ * burst of concurrent requests over HTTP/2 multiplexing and over an HTTP/1.1 pool.
+ *
+ * The server adds a fixed delay per response so the numbers include a round trip, as on a real network.
+ */
+public class NativeHttpBenchmark {
+    private static final int ITERATIONS = 200;
+    private static final long SERVER_DELAY_MS = 5;
+    private static final String BODY;
+
+    static {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 200; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"user_id\":\"user-").append(i).append("\",\"xp\":").append(i * 37)
+                    .append('}');
+        }
+        BODY = body.append(']').toString();
+    }
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = new MockResponse().setHeadersDelay(SERVER_DELAY_MS, TimeUnit.MILLISECONDS);
+                String path = request.getPath();
+                if (path.startsWith("/fresh")) {
+                    return response.setHeader("Cache-Control", "max-age=600").setBody(BODY);
+                }
+                if (path.startsWith("/etag")) {
+                    if ("\"v1\"".equals(request.getHeader("If-None-Match"))) {
+                        return response.setResponseCode(304).setHeader("ETag", "\"v1\"");
+                    }
+                    return response.setHeader("Cache-Control", "no-cache").setHeader("ETag", "\"v1\"").setBody(BODY);
+                }
+                return response.setHeader("Cache-Control", "no-store").setBody(BODY);
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void coldAndWarmRequests() throws Exception {
+        server.start();
+        NativeHttpClient client = newClient(new OkHttpClient.Builder());
+        String noStore = server.url("/leaderboard").toString();
+
+        BenchmarkStats cold = new BenchmarkStats("cold request (new connection)", ITERATIONS);
+        long coldStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            client.evictConnections();
+            long t0 = System.nanoTime();
+            client.execute("GET", noStore, null, null, null);
+            cold.record(System.nanoTime() - t0);
+        }
+        cold.report(ITERATIONS, System.nanoTime() - coldStart);
+
+        BenchmarkStats warm = new BenchmarkStats("warm request (pooled connection)", ITERATIONS);
+        long warmStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long t0 = System.nanoTime();
+            client.execute("GET", noStore, null, null, null);
+            warm.record(System.nanoTime() - t0);
+        }
+        warm.report(ITERATIONS, System.nanoTime() - warmStart);
+
+        String etag = server.url("/etag").toString();
+        client.execute("GET", etag, null, null, null);
+        BenchmarkStats revalidated = new BenchmarkStats("ETag revalidation (304)", ITERATIONS);
+        long revalidatedStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long t0 = System.nanoTime();
+            NativeHttpClient.Response response = client.execute("GET", etag, null, null, null);
+            revalidated.record(System.nanoTime() - t0);
+            assertTrue(response.revalidated);
+        }
+        revalidated.report(ITERATIONS, System.nanoTime() - revalidatedStart);
+
+        String fresh = server.url("/fresh").toString();
+        client.execute("GET", fresh, null, null, null);
+        BenchmarkStats cached = new BenchmarkStats("fresh disk cache hit", ITERATIONS);
+        long cachedStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long t0 = System.nanoTime();
+            NativeHttpClient.Response response = client.execute("GET", fresh, null, null, null);
+            cached.record(System.nanoTime() - t0);
+            assertTrue(response.fromCache);
+        }
+        cached.report(ITERATIONS, System.nanoTime() - cachedStart);
+
+        assertTrue(warm.percentileNanos(50) < cold.percentileNanos(50));
+        assertTrue(cached.percentileNanos(50) < warm.percentileNanos(50));
+    }
+
+    @Test
+    public void concurrentBurstOverHttp2() throws Exception {
+        server.setProtocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.start();
+        NativeHttpClient client = newClient(
+                new OkHttpClient.Builder().protocols(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE)));
+        runBurst("HTTP/2 burst of 16", client);
+        assertEquals(1, client.getConnectionCount());
+    }
+
+    @Test
+    public void concurrentBurstOverHttp1() throws Exception {
+        server.start();
+        NativeHttpClient client = newClient(new OkHttpClient.Builder());
+        runBurst("HTTP/1.1 burst of 16", client);
+    }
+
+    // Distinct URLs so in-flight sharing does not hide the transport
+    private void runBurst(String name, NativeHttpClient client) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        BenchmarkStats stats = new BenchmarkStats(name, ITERATIONS / 4);
+        long start = System.nanoTime();
+        try {
+            for (int round = 0; round < ITERATIONS / 16; round++) {
+                long t0 = System.nanoTime();
+                List<Future<NativeHttpClient.Response>> burst = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    String url = server.url("/burst/" + round + "/" + i).toString();
+                    burst.add(executor.submit(() -> client.execute("GET", url, null, null, null)));
+                }
+                for (Future<NativeHttpClient.Response> response : burst) {
+                    response.get(10, TimeUnit.SECONDS);
+                }
+                stats.record(System.nanoTime() - t0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        stats.report(ITERATIONS / 16, System.nanoTime() - start);
+        System.out.println(String.format(Locale.US, "[benchmark] %s used %d connections", name,
+                client.getConnectionCount()));
+    }
+
+    private static NativeHttpClient newClient(OkHttpClient.Builder builder) throws IOException {
+        return new NativeHttpClient(Files.createTempDirectory("native-http-benchmark").toFile(), builder);
+    }
+}
@@ -0,0 +1,141 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NativeHttpClientTest {
+    private MockWebServer server;
+    private NativeHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new NativeHttpClient(Files.createTempDirectory("native-http").toFile(), new OkHttpClient.Builder());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void revalidatesWithEtag() throws Exception {
+        server.enqueue(new MockResponse().setHeader("ETag", "\"v1\"").setHeader("Cache-Control", "no-cache")
+                .setBody("{\"streak\":12}"));
+        server.enqueue(new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\""));
+
+        NativeHttpClient.Response first = get("/streak");
+        NativeHttpClient.Response second = get("/streak");
+
+        assertEquals(200, second.status);
+        assertTrue(second.revalidated);
+        assertEquals(new String(first.body, StandardCharsets.UTF_8), new String(second.body, StandardCharsets.UTF_8));
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void servesFreshResponsesFromDisk() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("exercises"));
+
+        get("/exercises");
+        NativeHttpClient.Response cached = get("/exercises");
+
+        assertTrue(cached.fromCache);
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void sharesIdenticalGetsInFlight() throws Exception {
+        server.enqueue(new MockResponse().setBody("leaderboard").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        List<Future<NativeHttpClient.Response>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(executor.submit(() -> get("/leaderboard")));
+        }
+        int shared = 0;
+        for (Future<NativeHttpClient.Response> response : responses) {
+            NativeHttpClient.Response result = response.get(5, TimeUnit.SECONDS);
+            assertEquals("leaderboard", new String(result.body, StandardCharsets.UTF_8));
+            shared += result.shared ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(4, shared);
+        assertEquals(4, client.getSharedResponseCount());
+    }
+
+    @Test
+    public void decodesGzipTransparently() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write("compressed workout history".getBytes(StandardCharsets.UTF_8));
+        }
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip")
+                .setBody(new Buffer().write(compressed.toByteArray())));
+
+        NativeHttpClient.Response response = get("/history");
+
+        assertEquals("compressed workout history", new String(response.body, StandardCharsets.UTF_8));
+        assertTrue(server.takeRequest().getHeader("Accept-Encoding").contains("br"));
+    }
+
+    @Test
+    public void reusesPooledConnections() throws Exception {
+        server.enqueue(new MockResponse().setBody("a"));
+        server.enqueue(new MockResponse().setBody("b"));
+
+        get("/a");
+        get("/b");
+
+        assertEquals(0, server.takeRequest().getSequenceNumber());
+        // Second request on the same socket
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void doesNotShareOrCacheWrites() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(201));
+        server.enqueue(new MockResponse().setResponseCode(201));
+
+        byte[] body = "{\"reps\":8}".getBytes(StandardCharsets.UTF_8);
+        NativeHttpClient.Response first = client.execute("POST", server.url("/sets").toString(), null, body,
+                "application/json");
+        NativeHttpClient.Response second = client.execute("POST", server.url("/sets").toString(), null, body,
+                "application/json");
+
+        assertFalse(first.shared || second.shared);
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("{\"reps\":8}", request.getBody().readUtf8());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private NativeHttpClient.Response get(String path) throws IOException {
+        return client.execute("GET", server.url(path).toString(), null, null, null);
+    }
+}
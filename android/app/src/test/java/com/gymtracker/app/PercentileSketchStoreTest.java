@@ -0,0 +1,110 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PercentileSketchStoreTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = new File(Files.createTempDirectory("percentiles").toFile(), "sketches.bin");
+    }
+
+    @Test
+    public void answersPercentilesPerSegmentExerciseAndMetric() {
+        PercentileSketchStore store = new PercentileSketchStore(file);
+        for (int i = 1; i <= 1_000; i++) {
+            store.add(1, "bench-press", "oneRM", i);
+            store.add(2, "bench-press", "oneRM", i * 2);
+        }
+
+        assertEquals(50, store.percentile(1, "bench-press", "oneRM", 500));
+        assertEquals(25, store.percentile(2, "bench-press", "oneRM", 500));
+        assertEquals(251, store.rank(1, "bench-press", "oneRM", 750), 2);
+        // No data yet, same default as percentileCalculator.ts
+        assertEquals(50, store.percentile(1, "squat", "oneRM", 100));
+    }
+
+    @Test
+    public void reloadsSavedSketches() throws IOException {
+        PercentileSketchStore store = new PercentileSketchStore(file);
+        for (int i = 0; i < 5_000; i++) {
+            store.add(3, "deadlift", "weight", i % 250);
+        }
+        store.save();
+
+        PercentileSketchStore reloaded = new PercentileSketchStore(file);
+        assertEquals(1, reloaded.sketchCount());
+        assertEquals(store.quantile(3, "deadlift", "weight", 0.75),
+                reloaded.quantile(3, "deadlift", "weight", 0.75), 1e-9);
+        assertNull(reloaded.get(3, "deadlift", "volume"));
+    }
+
+    @Test
+    public void corruptFileStartsEmpty() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(2);
+            out.writeInt(1);
+            out.writeUTF("3|deadlift|weight");
+            out.writeByte(1);
+            // Below the minimum compression
+            out.writeDouble(5);
+        }
+
+        PercentileSketchStore store = new PercentileSketchStore(file);
+        assertEquals(0, store.sketchCount());
+        assertNull(store.get(3, "deadlift", "weight"));
+    }
+
+    @Test
+    public void mergesServerSummaries() {
+        PercentileSketchStore store = new PercentileSketchStore(file);
+        assertTrue(store.putSummary(1, "squat", "weight", 400, 80, 100, 120, 150, 180));
+
+        assertEquals(400, store.get(1, "squat", "weight").size(), 0);
+        assertEquals(100, store.quantile(1, "squat", "weight", 0.5), 10);
+        assertEquals(180, store.quantile(1, "squat", "weight", 1), 0);
+        assertEquals(50, store.percentile(1, "squat", "weight", 100), 5);
+    }
+
+    @Test
+    public void resyncedSummaryReplacesTheSnapshot() throws IOException {
+        PercentileSketchStore store = new PercentileSketchStore(file);
+        store.putSummary(1, "squat", "weight", 400, 80, 100, 120, 150, 180);
+        store.putSummary(1, "squat", "weight", 400, 80, 100, 120, 150, 180);
+        assertEquals(400, store.get(1, "squat", "weight").size(), 0);
+
+        // Ingested values come on top of the snapshot and survive the next one
+        for (int i = 0; i < 100; i++) {
+            store.add(1, "squat", "weight", 200);
+        }
+        store.putSummary(1, "squat", "weight", 500, 80, 100, 120, 150, 180);
+        assertEquals(600, store.get(1, "squat", "weight").size(), 0);
+        assertEquals(1, store.sketchCount());
+
+        store.save();
+        assertEquals(600, new PercentileSketchStore(file).get(1, "squat", "weight").size(), 0);
+    }
+
+    @Test
+    public void outOfOrderQuantilesAreClamped() {
+        PercentileSketchStore store = new PercentileSketchStore(file);
+        // top_performance below percentile_95
+        assertTrue(store.putSummary(2, "bench", "weight", 100, 60, 70, 80, 95, 90));
+
+        assertEquals(95, store.quantile(2, "bench", "weight", 1), 0);
+        assertFalse(store.putSummary(2, "bench", "weight", 100, 60, Double.NaN, 80, 95, 100));
+        assertFalse(store.putSummary(2, "bench", "weight", 0, 60, 70, 80, 95, 100));
+    }
+}
@@ -0,0 +1,123 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+/**
+ * Per-image latency and bitmap memory peak of {@link PhotoPipeline} for 12MP camera JPEGs, against the path
+ * the WebView canvas takes: decode at full resolution, then scale and encode.
+ *
+ * Needs Robolectric's native graphics so decoding and encoding run the real Skia code.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class PhotoPipelineBenchmark {
+    private static final int WIDTH = 4000;
+    private static final int HEIGHT = 3000;
+    private static final int ITERATIONS = 10;
+
+    private File directory;
+    private File source;
+
+    @Before
+    public void setUp() throws IOException {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        directory = Files.createTempDirectory("photo-pipeline-benchmark").toFile();
+        source = new File(directory, "capture.jpg");
+        writeCameraLikeJpeg(source);
+    }
+
+    @Test
+    public void twelveMegapixelPhotos() throws IOException {
+        PhotoPipeline pipeline = new PhotoPipeline(new File(directory, "photos"),
+                new MediaDiskCache(new File(directory, "thumbnails"), 30L * 1024 * 1024),
+                new BitmapPool(32L * 1024 * 1024));
+
+        BenchmarkStats stats = new BenchmarkStats("PhotoPipeline 12MP -> 1600 WebP", ITERATIONS);
+        long peak = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long t0 = System.nanoTime();
+            File output = new File(directory, i + ".webp");
+            PhotoPipeline.Result result = pipeline.process(() -> new FileInputStream(source),
+                    PhotoPipeline.DEFAULT_MAX_DIMENSION, PhotoPipeline.DEFAULT_QUALITY, output);
+            stats.record(System.nanoTime() - t0);
+            peak = Math.max(peak, result.peakBitmapBytes);
+        }
+        stats.report(ITERATIONS, System.nanoTime() - start);
+
+        BenchmarkStats fullStats = new BenchmarkStats("Full decode + scale 12MP -> 1600", ITERATIONS);
+        long fullPeak = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long t0 = System.nanoTime();
+            Bitmap full = BitmapFactory.decodeFile(source.getPath(), null);
+            Bitmap scaled = Bitmap.createScaledBitmap(full, 1600, 1200, true);
+            fullPeak = Math.max(fullPeak, (long) full.getAllocationByteCount() + scaled.getAllocationByteCount());
+            full.recycle();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            scaled.compress(Bitmap.CompressFormat.JPEG, PhotoPipeline.DEFAULT_QUALITY, out);
+            scaled.recycle();
+            fullStats.record(System.nanoTime() - t0);
+        }
+        fullStats.report(ITERATIONS, System.nanoTime() - start);
+
+        File photo = new File(directory, "0.webp");
+        BenchmarkStats coldThumbnail = new BenchmarkStats("Thumbnail 320 generate", 1);
+        long t0 = System.nanoTime();
+        pipeline.thumbnail(photo, PhotoPipeline.DEFAULT_THUMBNAIL_SIZE);
+        coldThumbnail.record(System.nanoTime() - t0);
+        coldThumbnail.report(1, System.nanoTime() - t0);
+
+        BenchmarkStats warmThumbnail = new BenchmarkStats("Thumbnail 320 cached", 100);
+        start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            t0 = System.nanoTime();
+            pipeline.thumbnail(photo, PhotoPipeline.DEFAULT_THUMBNAIL_SIZE);
+            warmThumbnail.record(System.nanoTime() - t0);
+        }
+        warmThumbnail.report(100, System.nanoTime() - start);
+
+        System.out.println(String.format(Locale.US,
+                "[benchmark] 12MP photo bitmap peak: pipeline %.1f MB, full decode %.1f MB",
+                peak / 1048576.0, fullPeak / 1048576.0));
+        assertTrue(peak < fullPeak / 2);
+    }
+
+    // Gradients with sensor-like noise, so the JPEG compresses roughly like a real photo
+    private static void writeCameraLikeJpeg(File file) throws IOException {
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        int[] row = new int[WIDTH];
+        Random random = new Random(12);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int noise = random.nextInt(16);
+                int r = (x * 255 / WIDTH + noise) & 0xff;
+                int g = (y * 255 / HEIGHT + noise) & 0xff;
+                int b = ((x + y) * 127 / (WIDTH + HEIGHT) + noise) & 0xff;
+                row[x] = 0xff000000 | (r << 16) | (g << 8) | b;
+            }
+            bitmap.setPixels(row, 0, WIDTH, 0, y, WIDTH, 1);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 92, out);
+        }
+        bitmap.recycle();
+    }
+}
@@ -0,0 +1,41 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PhotoPipelineTest {
+    @Test
+    public void capsLongestSideWithoutUpscaling() {
+        assertArrayEquals(new int[] { 2048, 1536 }, PhotoPipeline.targetSize(4000, 3000, 2048));
+        assertArrayEquals(new int[] { 1536, 2048 }, PhotoPipeline.targetSize(3000, 4000, 2048));
+        assertArrayEquals(new int[] { 800, 600 }, PhotoPipeline.targetSize(800, 600, 2048));
+    }
+
+    @Test
+    public void samplesDownToAtLeastTheTargetSize() {
+        // 12MP to the default 1600: a sample size of 2 decodes 2000x1500, 4 would undershoot
+        assertEquals(2, PhotoPipeline.calculateInSampleSize(4000, 3000, 1600, 1200));
+        assertEquals(1, PhotoPipeline.calculateInSampleSize(4000, 3000, 2048, 1536));
+        assertEquals(8, PhotoPipeline.calculateInSampleSize(4000, 3000, 320, 240));
+        assertEquals(2, PhotoPipeline.calculateInSampleSize(4032, 3024, 2000, 1500));
+        assertEquals(1, PhotoPipeline.calculateInSampleSize(800, 600, 800, 600));
+    }
+
+    @Test
+    public void rotatedOrientationsSwapWidthAndHeight() {
+        // EXIF orientations 5 to 8 are quarter turns
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            assertEquals(orientation >= 5, PhotoPipeline.swapsDimensions(orientation));
+        }
+        assertEquals(90, PhotoPipeline.rotationDegrees(6));
+        assertEquals(180, PhotoPipeline.rotationDegrees(3));
+        assertEquals(270, PhotoPipeline.rotationDegrees(8));
+        assertEquals(0, PhotoPipeline.rotationDegrees(0));
+        assertFalse(PhotoPipeline.swapsDimensions(0));
+        assertTrue(PhotoPipeline.swapsDimensions(6));
+    }
+}
@@ -0,0 +1,85 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Per-sample CPU cost of {@link RepCounter}, replaying the recorded 200Hz press set and a rest period back
+ * to back for an hour. The counter runs on the sensor thread for every accelerometer event, so it has to
+ * stay well inside its budget including the autocorrelation passes.
+ */
+public class RepCounterBenchmark {
+    // 0.1% of a core at 200Hz on a desktop JVM, leaving room for a phone several times slower
+    private static final long PER_SAMPLE_BUDGET_NANOS = 5_000;
+    private static final long HOUR_NANOS = 3_600_000_000_000L;
+    // Events per hardware batch at 200Hz with a one second report latency
+    private static final int BATCH = 200;
+
+    private RepCounterTest.Recording press;
+    private RepCounterTest.Recording rest;
+
+    @Before
+    public void setUp() throws IOException {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        press = RepCounterTest.Recording.load("press_12_reps_200hz.csv");
+        // Recorded at 50Hz, still fine as filler between sets
+        rest = RepCounterTest.Recording.load("rest_0_reps_50hz.csv");
+    }
+
+    @Test
+    public void perSampleCostOverAnHour() {
+        RepCounter counter = new RepCounter();
+        // Warm up
+        press.replay(counter);
+        counter.reset();
+
+        BenchmarkStats stats = new BenchmarkStats("rep counter 200-sample batch", 20_000);
+        long allocatedBefore = allocatedBytes();
+        long samples = 0;
+        long sets = 0;
+        long totalNanos = 0;
+        long offset = 0;
+        while (offset < HOUR_NANOS) {
+            for (RepCounterTest.Recording recording : new RepCounterTest.Recording[] {press, rest}) {
+                long shift = offset - recording.timestamps[0];
+                for (int from = 0; from < recording.size; from += BATCH) {
+                    int to = Math.min(recording.size, from + BATCH);
+                    long start = System.nanoTime();
+                    for (int i = from; i < to; i++) {
+                        counter.add(recording.timestamps[i] + shift, recording.x[i], recording.y[i],
+                                recording.z[i]);
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    stats.record(elapsed);
+                    totalNanos += elapsed;
+                }
+                samples += recording.size;
+                offset += recording.timestamps[recording.size - 1] - recording.timestamps[0] + 1_000_000_000L;
+            }
+            sets++;
+        }
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        stats.report(samples / BATCH, totalNanos);
+        double perSample = totalNanos / (double) samples;
+        System.out.println(String.format(Locale.US,
+                "[benchmark]   %d samples, %.0fns/sample (budget %dns), %d reps in %d sets, %d bytes allocated",
+                samples, perSample, PER_SAMPLE_BUDGET_NANOS, counter.getReps(), sets, allocated));
+
+        assertEquals(12 * sets, counter.getReps());
+        assertTrue(perSample < PER_SAMPLE_BUDGET_NANOS);
+        // Only the stats recorder may allocate
+        assertTrue("allocated " + allocated + " bytes", allocated < 512 * 1024);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,138 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class RepCounterTest {
+    @Test
+    public void countsCurls() throws IOException {
+        assertEquals(10, count(Recording.load("curl_10_reps_50hz.csv")));
+    }
+
+    @Test
+    public void countsSquatsAcrossABreather() throws IOException {
+        assertEquals(8, count(Recording.load("squat_8_reps_100hz.csv")));
+    }
+
+    @Test
+    public void countsFastPressesAt200Hz() throws IOException {
+        RepCounter counter = new RepCounter();
+        Recording recording = Recording.load("press_12_reps_200hz.csv");
+        recording.replay(counter);
+
+        assertEquals(12, counter.getReps());
+        // About 1.6s per rep including the holds
+        assertTrue(counter.getPeriodNanos() > 1_200_000_000L);
+        assertTrue(counter.getPeriodNanos() < 2_000_000_000L);
+    }
+
+    @Test
+    public void ignoresHandlingAndWalking() throws IOException {
+        assertEquals(0, count(Recording.load("rest_0_reps_50hz.csv")));
+    }
+
+    @Test
+    public void sameSamplesGiveSameReps() throws IOException {
+        Recording recording = Recording.load("squat_8_reps_100hz.csv");
+        long[] first = repTimestamps(recording);
+        long[] second = repTimestamps(recording);
+
+        assertEquals(8, first.length);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void resetStartsOver() throws IOException {
+        RepCounter counter = new RepCounter();
+        Recording.load("curl_10_reps_50hz.csv").replay(counter);
+        counter.reset();
+
+        assertEquals(0, counter.getReps());
+        assertFalse(counter.add(0, 0, 0, 9.81f));
+        Recording.load("press_12_reps_200hz.csv").replay(counter);
+        assertEquals(12, counter.getReps());
+    }
+
+    private static int count(Recording recording) {
+        RepCounter counter = new RepCounter();
+        recording.replay(counter);
+        return counter.getReps();
+    }
+
+    private static long[] repTimestamps(Recording recording) {
+        List<Long> timestamps = new ArrayList<>();
+        RepCounter counter = new RepCounter();
+        counter.setListener((reps, timestampNanos, durationNanos, amplitude) -> timestamps.add(timestampNanos));
+        recording.replay(counter);
+        long[] result = new long[timestamps.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = timestamps.get(i);
+        }
+        return result;
+    }
+
+    // Accelerometer capture from test resources: timestamp_ns,x,y,z per line, # for comments
+    static final class Recording {
+        final long[] timestamps;
+        final float[] x;
+        final float[] y;
+        final float[] z;
+        final int size;
+
+        private Recording(long[] timestamps, float[] x, float[] y, float[] z, int size) {
+            this.timestamps = timestamps;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.size = size;
+        }
+
+        static Recording load(String name) throws IOException {
+            long[] timestamps = new long[4096];
+            float[] x = new float[4096];
+            float[] y = new float[4096];
+            float[] z = new float[4096];
+            int size = 0;
+            try (InputStream in = RepCounterTest.class.getResourceAsStream("/reps/" + name);
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    if (size == timestamps.length) {
+                        timestamps = Arrays.copyOf(timestamps, size * 2);
+                        x = Arrays.copyOf(x, size * 2);
+                        y = Arrays.copyOf(y, size * 2);
+                        z = Arrays.copyOf(z, size * 2);
+                    }
+                    String[] fields = line.split(",");
+                    timestamps[size] = Long.parseLong(fields[0]);
+                    x[size] = Float.parseFloat(fields[1]);
+                    y[size] = Float.parseFloat(fields[2]);
+                    z[size] = Float.parseFloat(fields[3]);
+                    size++;
+                }
+            }
+            return new Recording(timestamps, x, y, z, size);
+        }
+
+        void replay(RepCounter counter) {
+            for (int i = 0; i < size; i++) {
+                counter.add(timestamps[i], x[i], y[i], z[i]);
+            }
+        }
+    }
+}
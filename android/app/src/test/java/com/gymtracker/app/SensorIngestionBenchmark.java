@@ -0,0 +1,100 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Cost of {@link SensorSampleBuffer} against a synthetic 200Hz accelerometer stream: recording per sample,
+ * draining into one-second buckets the way SensorService does, and what either allocates.
+ */
+public class SensorIngestionBenchmark {
+    private static final int HZ = 200;
+    private static final long PERIOD_NANOS = 1_000_000_000L / HZ;
+    // An hour-long session
+    private static final int SAMPLES = 3600 * HZ;
+    // FIFO batches as delivered with a 10s report latency
+    private static final int BATCH = 10 * HZ;
+    private static final long BUCKET_NANOS = 1_000_000_000L;
+
+    private float[] x;
+    private float[] y;
+    private float[] z;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        // Gravity on z plus a 0.5Hz rep-like swing and sensor noise
+        Random random = new Random(5);
+        x = new float[SAMPLES];
+        y = new float[SAMPLES];
+        z = new float[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            double t = i / (double) HZ;
+            x[i] = (float) (0.05 * random.nextGaussian());
+            y[i] = (float) (2.5 * Math.sin(Math.PI * t) + 0.05 * random.nextGaussian());
+            z[i] = (float) (9.81 + 0.05 * random.nextGaussian());
+        }
+    }
+
+    @Test
+    public void ingestAndDrainAt200Hz() {
+        SensorSampleBuffer buffer = new SensorSampleBuffer(60 * HZ, 3);
+        SensorDownsample out = new SensorDownsample(1024);
+        BenchmarkStats ingest = new BenchmarkStats("sensor ingest 2000-sample batch", SAMPLES / BATCH);
+        BenchmarkStats drain = new BenchmarkStats("sensor drain 10s into 1s buckets", SAMPLES / BATCH);
+
+        // Warm up on the first minute
+        runSession(buffer, out, HZ * 60, null, null);
+        buffer.clear();
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long buckets = runSession(buffer, out, SAMPLES, ingest, drain);
+        long totalNanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        ingest.report(SAMPLES / BATCH, totalNanos);
+        drain.report(SAMPLES / BATCH, totalNanos);
+        System.out.println(String.format(Locale.US,
+                "[benchmark]   %d samples in %.1fms (%.1fns/sample), %d buckets out, %d bytes allocated",
+                SAMPLES, totalNanos / 1e6, totalNanos / (double) SAMPLES, buckets, allocated));
+
+        // The last bucket is still open when the stream ends
+        assertEquals(SAMPLES / HZ - 1, buckets);
+        // Only the stats recorders may allocate, the buffers themselves must not
+        assertTrue("allocated " + allocated + " bytes", allocated < 64 * 1024);
+    }
+
+    private long runSession(SensorSampleBuffer buffer, SensorDownsample out, int samples, BenchmarkStats ingest,
+                            BenchmarkStats drain) {
+        long since = 0;
+        long buckets = 0;
+        for (int from = 0; from < samples; from += BATCH) {
+            long start = System.nanoTime();
+            int to = Math.min(samples, from + BATCH);
+            for (int i = from; i < to; i++) {
+                buffer.add(i * PERIOD_NANOS, x[i], y[i], z[i]);
+            }
+            long ingested = System.nanoTime();
+            buckets += buffer.downsample(since, BUCKET_NANOS, SensorDownsample.Mode.MEAN, out);
+            since = out.getNextSinceNanos();
+            long drained = System.nanoTime();
+            if (ingest != null) {
+                ingest.record(ingested - start);
+                drain.record(drained - ingested);
+            }
+        }
+        return buckets;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,81 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SensorSampleBufferTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void overwritesOldestWhenFull() {
+        SensorSampleBuffer buffer = new SensorSampleBuffer(3, 3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(i * 5 * MS, i, -i, 9.8f);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(5, buffer.getTotalRecorded());
+        assertEquals(10 * MS, buffer.timestampAt(0));
+        assertEquals(4f, buffer.xAt(2), 0);
+        assertEquals(-3f, buffer.yAt(1), 0);
+    }
+
+    @Test
+    public void averagesCompleteBucketsOnly() {
+        SensorSampleBuffer buffer = new SensorSampleBuffer(1024, 3);
+        // 200Hz for 1.02s, the samples at 1000ms and later start a bucket that is not complete yet
+        for (int i = 0; i < 205; i++) {
+            buffer.add(i * 5 * MS, i < 100 ? 1 : 3, 0, 4);
+        }
+        SensorDownsample out = new SensorDownsample(16);
+
+        assertEquals(2, buffer.downsample(0, 500 * MS, SensorDownsample.Mode.MEAN, out));
+        assertEquals(0, out.timestampAt(0));
+        assertEquals(100, out.countAt(0));
+        assertEquals(1f, out.xAt(0), 1e-6);
+        assertEquals(3f, out.xAt(1), 1e-6);
+        assertEquals(4f, out.zAt(1), 1e-6);
+        assertEquals(5f, out.peakAt(1), 1e-6);
+        assertEquals(1000 * MS, out.getNextSinceNanos());
+
+        // Nothing new is complete
+        assertEquals(0, buffer.downsample(out.getNextSinceNanos(), 500 * MS, SensorDownsample.Mode.MEAN, out));
+        assertEquals(1000 * MS, out.getNextSinceNanos());
+    }
+
+    @Test
+    public void skipsGapsAndKeepsLastValueForCounters() {
+        SensorSampleBuffer steps = new SensorSampleBuffer(64, 1);
+        steps.add(100 * MS, 1000, 0, 0);
+        steps.add(400 * MS, 1003, 0, 0);
+        // Ten seconds without a step
+        steps.add(10_400 * MS, 1004, 0, 0);
+        steps.add(10_900 * MS, 1010, 0, 0);
+        steps.add(11_500 * MS, 1011, 0, 0);
+        SensorDownsample out = new SensorDownsample(16);
+
+        assertEquals(2, steps.downsample(0, 1000 * MS, SensorDownsample.Mode.LAST, out));
+        assertEquals(100 * MS, out.timestampAt(0));
+        assertEquals(1003f, out.xAt(0), 0);
+        assertEquals(10_100 * MS, out.timestampAt(1));
+        assertEquals(1010f, out.xAt(1), 0);
+        assertEquals(2, out.countAt(1));
+        assertEquals(11_100 * MS, out.getNextSinceNanos());
+    }
+
+    @Test
+    public void stopsWhenTheOutputIsFull() {
+        SensorSampleBuffer buffer = new SensorSampleBuffer(1024, 1);
+        for (int i = 0; i < 1000; i++) {
+            buffer.add(i * 10 * MS, 72, 0, 0);
+        }
+        SensorDownsample out = new SensorDownsample(4);
+
+        assertEquals(4, buffer.downsample(0, 100 * MS, SensorDownsample.Mode.MEAN, out));
+        assertEquals(400 * MS, out.getNextSinceNanos());
+        assertEquals(4, buffer.downsample(out.getNextSinceNanos(), 100 * MS, SensorDownsample.Mode.MEAN, out));
+        assertEquals(400 * MS, out.timestampAt(0));
+        assertEquals(72f, out.xAt(3), 0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import org.junit.Test;
+
+public class StartupTimelineTest {
+
+    @Test
+    public void recordsPhasesRelativeToProcessStart() {
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.PROCESS_START, 10_000);
+        timeline.mark(StartupTimeline.APPLICATION_INIT, 10_120);
+        timeline.mark(StartupTimeline.BRIDGE_READY, 10_480);
+        timeline.mark(StartupTimeline.FIRST_WEBVIEW_PAINT, 11_050);
+        timeline.mark(StartupTimeline.JS_APP_READY, 11_900);
+
+        Map<String, Long> phases = timeline.toMap();
+        assertEquals(Long.valueOf(0), phases.get("processStart"));
+        assertEquals(Long.valueOf(120), phases.get("applicationInit"));
+        assertEquals(Long.valueOf(480), phases.get("bridgeReady"));
+        assertEquals(Long.valueOf(1_050), phases.get("firstWebViewPaint"));
+        assertEquals(Long.valueOf(1_900), phases.get("jsAppReady"));
+
+        assertEquals(360, timeline.phaseDuration(StartupTimeline.BRIDGE_READY));
+        assertEquals(850, timeline.phaseDuration(StartupTimeline.JS_APP_READY));
+    }
+
+    @Test
+    public void firstMarkWins() {
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.PROCESS_START, 0);
+
+        assertTrue(timeline.mark(StartupTimeline.FIRST_WEBVIEW_PAINT, 900));
+        // A later page commit (e.g. a reload) must not move the cold start number
+        assertFalse(timeline.mark(StartupTimeline.FIRST_WEBVIEW_PAINT, 5_000));
+        assertEquals(900, timeline.sinceProcessStart(StartupTimeline.FIRST_WEBVIEW_PAINT));
+    }
+
+    @Test
+    public void missingPhasesAreReportedAsUnknown() {
+        StartupTimeline timeline = new StartupTimeline();
+        timeline.mark(StartupTimeline.PROCESS_START, 0);
+        timeline.mark(StartupTimeline.APPLICATION_INIT, 100);
+        timeline.mark(StartupTimeline.FIRST_WEBVIEW_PAINT, 700);
+
+        assertEquals(-1, timeline.sinceProcessStart(StartupTimeline.BRIDGE_READY));
+        // Measured from the last phase that was recorded
+        assertEquals(600, timeline.phaseDuration(StartupTimeline.FIRST_WEBVIEW_PAINT));
+    }
+}
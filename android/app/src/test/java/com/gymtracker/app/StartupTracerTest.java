@@ -0,0 +1,52 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.WebViewListener;
+import java.time.Duration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.shadows.ShadowSystemClock;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupTracerTest {
+
+    @Test
+    public void coldStartRecordsEveryPhaseInOrder() {
+        // The sandbox may have created the application for an earlier test, start the process over
+        StartupTracer.reset();
+        RuntimeEnvironment.getApplication().onCreate();
+
+        ShadowSystemClock.advanceBy(Duration.ofMillis(100));
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).setup();
+        try {
+            Bridge bridge = controller.get().getBridge();
+
+            // What the bridge's WebViewClient does when the first page commits
+            ShadowSystemClock.advanceBy(Duration.ofMillis(200));
+            for (WebViewListener listener : bridge.getWebViewListeners()) {
+                listener.onPageCommitVisible(bridge.getWebView(), bridge.getLocalUrl() + "/");
+            }
+
+            // What PerformancePlugin.markAppReady records once the first route has rendered
+            ShadowSystemClock.advanceBy(Duration.ofMillis(300));
+            StartupTracer.mark(StartupTimeline.JS_APP_READY);
+        } finally {
+            controller.pause().stop().destroy();
+        }
+
+        StartupTimeline timeline = StartupTracer.getTimeline();
+        for (int phase = StartupTimeline.APPLICATION_INIT; phase < StartupTimeline.phaseCount(); phase++) {
+            assertTrue(StartupTimeline.phaseName(phase) + " not recorded", timeline.timestamp(phase) >= 0);
+        }
+        assertEquals(100, timeline.phaseDuration(StartupTimeline.BRIDGE_READY));
+        assertEquals(200, timeline.phaseDuration(StartupTimeline.FIRST_WEBVIEW_PAINT));
+        assertEquals(300, timeline.phaseDuration(StartupTimeline.JS_APP_READY));
+    }
+}
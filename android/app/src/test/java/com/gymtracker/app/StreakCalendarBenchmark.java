@@ -0,0 +1,148 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Streaks over ten years of daily history with {@link StreakCalendar} against what streakCalculations.ts does
+ * for each lookup: copy and sort the day records by date string, then walk them checking statuses.
+ */
+public class StreakCalendarBenchmark {
+    private static final int DAYS = 3_653;
+    private static final int ITERATIONS = 100_000;
+    private static final int WEEKENDS = 1 | 1 << 6;
+    private static final List<String> STREAK_STATUSES = Arrays.asList("completed", "compensated", "sick", "vacation");
+
+    private int first;
+    private int today;
+    private boolean[] trained;
+    private String[] dates;
+    private String[] statuses;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        today = StreakCalendar.epochDay("2026-10-18");
+        first = today - DAYS + 1;
+        // Weekdays mostly trained, some weekends, a missed week now and then
+        Random random = new Random(10);
+        trained = new boolean[DAYS];
+        dates = new String[DAYS];
+        statuses = new String[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            int weekday = StreakCalendar.weekday(first + i);
+            boolean weekend = weekday == 0 || weekday == 6;
+            trained[i] = random.nextDouble() < (weekend ? 0.3 : 0.9) && random.nextInt(150) != 0;
+            dates[i] = isoDate(first + i);
+            statuses[i] = trained[i] ? "completed" : weekend ? "rest" : "missed";
+        }
+    }
+
+    @Test
+    public void tenYearsOfDailyHistory() {
+        long buildStart = System.nanoTime();
+        StreakCalendar calendar = new StreakCalendar(WEEKENDS);
+        for (int i = 0; i < DAYS; i++) {
+            if (trained[i]) {
+                calendar.recordWorkout(first + i);
+            }
+        }
+        long buildNanos = System.nanoTime() - buildStart;
+        int longest = calendar.longestStreak();
+        int longestAdjusted = calendar.longestAdjustedStreak();
+
+        // A workout completed and the streak card refreshed: incremental longest, current walked back
+        BenchmarkStats completion = new BenchmarkStats("streak workout completion 10y", ITERATIONS);
+        Random random = new Random(4);
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            int day = first + DAYS - 1 - random.nextInt(60);
+            boolean had = calendar.hasWorkout(day);
+            long t0 = System.nanoTime();
+            calendar.recordWorkout(day);
+            sink += calendar.currentStreak(today) + calendar.currentAdjustedStreak(today)
+                    + calendar.longestStreak() + calendar.longestAdjustedStreak();
+            completion.record(System.nanoTime() - t0);
+            if (!had) {
+                calendar.removeWorkout(day);
+            }
+        }
+        completion.report(ITERATIONS, System.nanoTime() - start);
+
+        // Undoing a workout recounts both longest streaks over all 58 words
+        BenchmarkStats recount = new BenchmarkStats("streak full recount 10y", ITERATIONS);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            int day = first + random.nextInt(DAYS);
+            boolean had = calendar.removeWorkout(day);
+            long t0 = System.nanoTime();
+            sink += calendar.longestStreak() + calendar.longestAdjustedStreak();
+            recount.record(System.nanoTime() - t0);
+            if (had) {
+                calendar.recordWorkout(day);
+            }
+        }
+        recount.report(ITERATIONS, System.nanoTime() - start);
+        System.out.println(String.format(Locale.US,
+                "[benchmark]   build=%.2fms longest=%d adjusted=%d current=%d adjusted=%d",
+                buildNanos / 1e6, longest, longestAdjusted, calendar.currentStreak(today),
+                calendar.currentAdjustedStreak(today)));
+
+        assertEquals(longest, calendar.longestStreak());
+        assertEquals(longestAdjusted, calendar.longestAdjustedStreak());
+        assertTrue(sink > 0);
+        assertTrue("recount p99 over 20us", recount.percentileNanos(99) < 20_000);
+    }
+
+    // calculateCurrentStreak and calculateLongestStreak: sort a copy by date, walk checking statuses
+    @Test
+    public void sortAndWalkBaseline() {
+        int iterations = ITERATIONS / 100;
+        BenchmarkStats stats = new BenchmarkStats("sort + walk streaks 10y", iterations);
+        Integer[] order = new Integer[DAYS];
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long t0 = System.nanoTime();
+            for (int d = 0; d < DAYS; d++) {
+                order[d] = d;
+            }
+            Arrays.sort(order, (a, b) -> dates[b].compareTo(dates[a]));
+            int current = 0;
+            for (int index : order) {
+                if (STREAK_STATUSES.contains(statuses[index])) {
+                    current++;
+                } else if (statuses[index].equals("missed")) {
+                    break;
+                }
+            }
+            Arrays.sort(order, (a, b) -> dates[a].compareTo(dates[b]));
+            int longest = 0;
+            int run = 0;
+            for (int index : order) {
+                if (STREAK_STATUSES.contains(statuses[index])) {
+                    longest = Math.max(longest, ++run);
+                } else if (statuses[index].equals("missed")) {
+                    run = 0;
+                }
+            }
+            sink += current + longest;
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(iterations, System.nanoTime() - start);
+        assertTrue(sink > 0);
+    }
+
+    private static String isoDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+}
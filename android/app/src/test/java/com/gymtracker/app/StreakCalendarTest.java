@@ -0,0 +1,166 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class StreakCalendarTest {
+    private static final int SUNDAY = 1;
+    private static final int SATURDAY = 1 << 6;
+
+    private static int day(String date) {
+        return StreakCalendar.epochDay(date);
+    }
+
+    @Test
+    public void epochDaysMatchTheCalendar() {
+        for (String date : new String[] {"1970-01-01", "2000-02-29", "2024-12-31", "2025-03-01", "2026-10-18"}) {
+            assertEquals(date, LocalDate.parse(date).toEpochDay(), StreakCalendar.epochDay(date));
+        }
+        assertEquals(0, StreakCalendar.weekday(day("2026-10-18")));
+        assertEquals(4, StreakCalendar.weekday(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOtherDateFormats() {
+        StreakCalendar.epochDay("18/10/2026");
+    }
+
+    @Test
+    public void countsConsecutiveWorkoutDays() {
+        StreakCalendar calendar = new StreakCalendar(0);
+        int today = day("2026-10-18");
+        for (int d = today - 5; d < today; d++) {
+            calendar.recordWorkout(d);
+        }
+        calendar.recordWorkout(today - 9);
+
+        // Today has no workout yet and does not break the streak
+        assertEquals(5, calendar.currentStreak(today));
+        assertEquals(0, calendar.currentStreak(today + 1));
+        assertTrue(calendar.recordWorkout(today));
+        assertFalse(calendar.recordWorkout(today));
+        assertEquals(6, calendar.currentStreak(today));
+        assertEquals(6, calendar.longestStreak());
+    }
+
+    @Test
+    public void restWeekdaysAndFreezesBridgeTheAdjustedStreak() {
+        // Monday to Friday, weekends off
+        StreakCalendar calendar = new StreakCalendar(SATURDAY | SUNDAY);
+        int monday = day("2026-10-05");
+        for (int d = monday; d < monday + 12; d++) {
+            if (StreakCalendar.weekday(d) != 0 && StreakCalendar.weekday(d) != 6) {
+                calendar.recordWorkout(d);
+            }
+        }
+        int sunday = day("2026-10-18");
+        assertEquals(5, calendar.longestStreak());
+        assertEquals(10, calendar.currentAdjustedStreak(sunday));
+        assertEquals(0, calendar.currentStreak(sunday));
+
+        // A missed Monday breaks it unless frozen
+        assertEquals(0, calendar.currentAdjustedStreak(sunday + 2));
+        calendar.setFrozen(sunday + 1, sunday + 1, true);
+        assertTrue(calendar.isFrozen(sunday + 1));
+        assertEquals(10, calendar.currentAdjustedStreak(sunday + 2));
+        assertEquals(10, calendar.longestAdjustedStreak());
+    }
+
+    @Test
+    public void matchesADayByDayWalkOnRandomHistories() {
+        Random random = new Random(25);
+        for (int round = 0; round < 40; round++) {
+            int restWeekdays = random.nextInt(128) & ~(1 << random.nextInt(7));
+            StreakCalendar calendar = new StreakCalendar(restWeekdays);
+            Set<Integer> workouts = new HashSet<>();
+            Set<Integer> frozen = new HashSet<>();
+            int start = day("2023-01-01") + random.nextInt(400);
+            int span = 64 + random.nextInt(1_500);
+            double density = 0.3 + 0.65 * random.nextDouble();
+
+            // Newest first, as imports arrive, so the bitsets grow downwards too
+            for (int d = start + span; d >= start; d--) {
+                if (random.nextDouble() < density) {
+                    calendar.recordWorkout(d);
+                    workouts.add(d);
+                }
+            }
+            for (int i = 0; i < 3; i++) {
+                int from = start + random.nextInt(span);
+                int to = from + random.nextInt(10);
+                calendar.setFrozen(from, to, true);
+                for (int d = from; d <= to; d++) {
+                    frozen.add(d);
+                }
+            }
+            assertStreaks(calendar, workouts, frozen, restWeekdays, start, start + span);
+
+            // Incremental updates keep the longest streaks exact
+            for (int i = 0; i < 50; i++) {
+                int d = start + random.nextInt(span + 30);
+                calendar.recordWorkout(d);
+                workouts.add(d);
+            }
+            assertStreaks(calendar, workouts, frozen, restWeekdays, start, start + span + 30);
+
+            int removed = start + random.nextInt(span);
+            assertEquals(workouts.remove(removed), calendar.removeWorkout(removed));
+            assertStreaks(calendar, workouts, frozen, restWeekdays, start, start + span + 30);
+        }
+    }
+
+    @Test
+    public void workoutDaysCountsARange() {
+        StreakCalendar calendar = new StreakCalendar(0);
+        int start = day("2026-01-01");
+        for (int d = start; d < start + 300; d += 2) {
+            calendar.recordWorkout(d);
+        }
+        assertEquals(150, calendar.workoutDays(start - 100, start + 400));
+        assertEquals(32, calendar.workoutDays(start, start + 63));
+        assertEquals(1, calendar.workoutDays(start + 2, start + 2));
+        assertEquals(0, calendar.workoutDays(start + 1, start + 1));
+    }
+
+    private static void assertStreaks(StreakCalendar calendar, Set<Integer> workouts, Set<Integer> frozen,
+            int restWeekdays, int first, int last) {
+        int longest = 0;
+        int longestAdjusted = 0;
+        int run = 0;
+        int adjustedRun = 0;
+        for (int d = first - 1; d <= last + 1; d++) {
+            run = workouts.contains(d) ? run + 1 : 0;
+            adjustedRun = covered(d, workouts, frozen, restWeekdays) ? adjustedRun + (workouts.contains(d) ? 1 : 0)
+                    : 0;
+            longest = Math.max(longest, run);
+            longestAdjusted = Math.max(longestAdjusted, adjustedRun);
+        }
+        assertEquals(longest, calendar.longestStreak());
+        assertEquals(longestAdjusted, calendar.longestAdjustedStreak());
+
+        for (int today = last - 70; today <= last + 3; today++) {
+            int current = 0;
+            for (int d = workouts.contains(today) ? today : today - 1; workouts.contains(d); d--) {
+                current++;
+            }
+            int adjusted = 0;
+            int d = covered(today, workouts, frozen, restWeekdays) ? today : today - 1;
+            for (; d >= first - 1 && covered(d, workouts, frozen, restWeekdays); d--) {
+                adjusted += workouts.contains(d) ? 1 : 0;
+            }
+            assertEquals("current " + today, current, calendar.currentStreak(today));
+            assertEquals("adjusted " + today, adjusted, calendar.currentAdjustedStreak(today));
+        }
+    }
+
+    private static boolean covered(int d, Set<Integer> workouts, Set<Integer> frozen, int restWeekdays) {
+        return workouts.contains(d) || frozen.contains(d) || (restWeekdays & (1 << StreakCalendar.weekday(d))) != 0;
+    }
+}
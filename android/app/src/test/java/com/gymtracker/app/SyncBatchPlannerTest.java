@@ -0,0 +1,107 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class SyncBatchPlannerTest {
+
+    @Test
+    public void coalescesChangesToPendingRecords() {
+        assertEquals(SyncBatchPlanner.Coalesce.MERGE,
+                SyncBatchPlanner.coalesce(SyncOperation.CREATE, SyncOperation.UPDATE));
+        assertEquals(SyncBatchPlanner.Coalesce.MERGE,
+                SyncBatchPlanner.coalesce(SyncOperation.UPDATE, SyncOperation.UPDATE));
+        assertEquals(SyncBatchPlanner.Coalesce.CANCEL,
+                SyncBatchPlanner.coalesce(SyncOperation.CREATE, SyncOperation.DELETE));
+        assertEquals(SyncBatchPlanner.Coalesce.REPLACE_WITH_DELETE,
+                SyncBatchPlanner.coalesce(SyncOperation.UPDATE, SyncOperation.DELETE));
+        assertEquals(SyncBatchPlanner.Coalesce.APPEND,
+                SyncBatchPlanner.coalesce(SyncOperation.DELETE, SyncOperation.CREATE));
+    }
+
+    @Test
+    public void groupsByTableAndKindInPriorityOrder() {
+        List<SyncOperation> pending = new ArrayList<>();
+        pending.add(operation("a", "workout_sets", "s1", SyncOperation.CREATE, SyncOperation.PRIORITY_LOW, 1));
+        pending.add(operation("b", "workouts", "w1", SyncOperation.UPDATE, SyncOperation.PRIORITY_HIGH, 2));
+        pending.add(operation("c", "workout_sets", "s2", SyncOperation.UPDATE, SyncOperation.PRIORITY_LOW, 3));
+        pending.add(operation("d", "workout_sets", "s3", SyncOperation.DELETE, SyncOperation.PRIORITY_MEDIUM, 4));
+
+        List<SyncBatchPlanner.Batch> batches = SyncBatchPlanner.plan(pending, 0, 100);
+
+        assertEquals(3, batches.size());
+        assertEquals("workouts", batches.get(0).entity);
+        assertTrue(batches.get(1).delete);
+        assertEquals("workout_sets", batches.get(2).entity);
+        assertFalse(batches.get(2).delete);
+        assertEquals(2, batches.get(2).operations.size());
+        assertEquals("a", batches.get(2).operations.get(0).id);
+    }
+
+    @Test
+    public void holdsOperationsBehindDependenciesAndOlderChanges() {
+        List<SyncOperation> pending = new ArrayList<>();
+        SyncOperation workout = operation("w", "workouts", "w1", SyncOperation.CREATE, SyncOperation.PRIORITY_LOW, 1);
+        SyncOperation set = operation("s", "workout_sets", "s1", SyncOperation.CREATE, SyncOperation.PRIORITY_HIGH, 2);
+        set.dependencies = new String[] {"w"};
+        SyncOperation deleted = operation("d1", "workouts", "w2", SyncOperation.DELETE, SyncOperation.PRIORITY_LOW, 3);
+        SyncOperation recreated = operation("d2", "workouts", "w2", SyncOperation.CREATE, SyncOperation.PRIORITY_HIGH, 4);
+        pending.add(set);
+        pending.add(workout);
+        pending.add(recreated);
+        pending.add(deleted);
+
+        List<SyncBatchPlanner.Batch> batches = SyncBatchPlanner.plan(pending, 0, 100);
+
+        List<String> ready = new ArrayList<>();
+        for (SyncBatchPlanner.Batch batch : batches) {
+            for (SyncOperation operation : batch.operations) {
+                ready.add(operation.id);
+            }
+        }
+        assertEquals(2, ready.size());
+        assertTrue(ready.contains("w"));
+        assertTrue(ready.contains("d1"));
+    }
+
+    @Test
+    public void skipsOperationsBackingOffAndSplitsLargeBatches() {
+        List<SyncOperation> pending = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            pending.add(operation("op" + i, "workout_sets", "s" + i, SyncOperation.UPDATE,
+                    SyncOperation.PRIORITY_MEDIUM, i));
+        }
+        pending.get(0).nextAttemptAt = 5000;
+
+        List<SyncBatchPlanner.Batch> batches = SyncBatchPlanner.plan(pending, 1000, 100);
+
+        assertEquals(3, batches.size());
+        assertEquals(100, batches.get(0).operations.size());
+        assertEquals(49, batches.get(2).operations.size());
+        assertEquals("op1", batches.get(0).operations.get(0).id);
+    }
+
+    @Test
+    public void retryDelayDoublesUpToTheLimit() {
+        assertEquals(2000, SyncBatchPlanner.retryDelayMs(1, 2000, 60000));
+        assertEquals(8000, SyncBatchPlanner.retryDelayMs(3, 2000, 60000));
+        assertEquals(60000, SyncBatchPlanner.retryDelayMs(40, 2000, 60000));
+    }
+
+    private static SyncOperation operation(String id, String entity, String recordId, String type, int priority,
+                                           long createdAt) {
+        SyncOperation operation = new SyncOperation();
+        operation.id = id;
+        operation.entity = entity;
+        operation.recordId = recordId;
+        operation.type = type;
+        operation.priority = priority;
+        operation.createdAt = createdAt;
+        return operation;
+    }
+}
@@ -0,0 +1,202 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Requests per operation and drain time of {@link NativeSyncQueue} for 10k queued operations, against a
+ * local HTTP server standing in for the Supabase REST endpoint.
+ *
+ * The "legacy" numbers replay the same operations the way src/utils/syncQueue.ts sends them: one request
+ * per operation, five in parallel, with a 50 ms pause between rounds.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SyncQueueBenchmark {
+    private static final int WORKOUTS = 500;
+    private static final int SETS_PER_WORKOUT = 4;
+    private static final int UPDATES_PER_SET = 3;
+    private static final int DELETES_PER_WORKOUT = 2;
+    private static final int LEGACY_PARALLELISM = 5;
+    private static final long LEGACY_PAUSE_MS = 50;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private SyncQueueStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rest/v1/", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    // Drain the body like a real server would
+                }
+            }
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders("DELETE".equals(exchange.getRequestMethod()) ? 204 : 201, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(LEGACY_PARALLELISM));
+        server.start();
+
+        Context context = RuntimeEnvironment.getApplication();
+        context.getDatabasePath("benchmark_sync_queue.db").delete();
+        store = new SyncQueueStore(context, "benchmark_sync_queue.db");
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void drain10kOperations() throws Exception {
+        List<SyncOperation> operations = workload();
+        assertEquals(10_000, operations.size());
+        HttpSyncTransport transport = new HttpSyncTransport(
+                "http://127.0.0.1:" + server.getAddress().getPort(), "benchmark-key", null);
+
+        // Native: enqueue the way the plugin receives them, in bridge calls of 50, then drain
+        NativeSyncQueue queue = new NativeSyncQueue(store);
+        long enqueueStart = System.nanoTime();
+        for (int i = 0; i < operations.size(); i += 50) {
+            queue.enqueue(copy(operations.subList(i, Math.min(operations.size(), i + 50))));
+        }
+        long enqueueNanos = System.nanoTime() - enqueueStart;
+        int queued = store.countPending();
+
+        requests.set(0);
+        long drainStart = System.nanoTime();
+        NativeSyncQueue.DrainResult result = queue.drain(transport, Long.MAX_VALUE);
+        long drainNanos = System.nanoTime() - drainStart;
+        int nativeRequests = requests.get();
+        assertEquals(0, store.countPending());
+        assertEquals(0, result.failures);
+
+        // Legacy: every operation is its own request
+        requests.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(LEGACY_PARALLELISM);
+        long legacyStart = System.nanoTime();
+        int rounds = 0;
+        try {
+            for (int i = 0; i < operations.size(); i += LEGACY_PARALLELISM) {
+                List<Future<NativeSyncQueue.Transport.Outcome>> round = new ArrayList<>();
+                for (int j = i; j < Math.min(operations.size(), i + LEGACY_PARALLELISM); j++) {
+                    SyncOperation operation = operations.get(j);
+                    SyncBatchPlanner.Batch single = singleBatch(operation);
+                    round.add(executor.submit(() -> transport.send(single)));
+                }
+                for (Future<NativeSyncQueue.Transport.Outcome> future : round) {
+                    future.get();
+                }
+                rounds++;
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long legacyNanos = System.nanoTime() - legacyStart;
+        int legacyRequests = requests.get();
+        // The pauses are reported rather than slept, they would dominate the run
+        long legacyPauseMs = rounds * LEGACY_PAUSE_MS;
+
+        System.out.println(String.format(Locale.US,
+                "[benchmark] native sync queue: %d operations enqueued in %.1f ms, %d left after coalescing",
+                operations.size(), enqueueNanos / 1e6, queued));
+        System.out.println(String.format(Locale.US,
+                "[benchmark] native drain: %d requests (%.4f requests/op) in %.1f ms",
+                nativeRequests, (double) nativeRequests / operations.size(), drainNanos / 1e6));
+        System.out.println(String.format(Locale.US,
+                "[benchmark] legacy drain: %d requests (%.4f requests/op) in %.1f ms + %d ms of loop pauses",
+                legacyRequests, (double) legacyRequests / operations.size(), legacyNanos / 1e6, legacyPauseMs));
+        assertTrue(nativeRequests * 10 < legacyRequests);
+    }
+
+    // Workouts created and finished, sets created, edited a few times, and some deleted before sync
+    private static List<SyncOperation> workload() {
+        List<SyncOperation> operations = new ArrayList<>();
+        for (int w = 0; w < WORKOUTS; w++) {
+            String workoutId = "workout-" + w;
+            String createId = "create-" + workoutId;
+            operations.add(operation(createId, "workouts", workoutId, SyncOperation.CREATE,
+                    "{\"id\":\"" + workoutId + "\",\"name\":\"Workout " + w + "\"}", SyncOperation.PRIORITY_HIGH));
+
+            for (int s = 0; s < SETS_PER_WORKOUT; s++) {
+                String setId = workoutId + "-set-" + s;
+                SyncOperation create = operation("create-" + setId, "workout_sets", setId, SyncOperation.CREATE,
+                        "{\"id\":\"" + setId + "\",\"workout_id\":\"" + workoutId + "\",\"reps\":0}",
+                        SyncOperation.PRIORITY_MEDIUM);
+                create.dependencies = new String[] {createId};
+                operations.add(create);
+                for (int u = 0; u < UPDATES_PER_SET; u++) {
+                    operations.add(operation("update-" + setId + "-" + u, "workout_sets", setId,
+                            SyncOperation.UPDATE, "{\"reps\":" + (8 + u) + ",\"weight\":" + (60 + u * 2.5) + "}",
+                            SyncOperation.PRIORITY_MEDIUM));
+                }
+            }
+            for (int d = 0; d < DELETES_PER_WORKOUT; d++) {
+                String setId = workoutId + "-set-" + d;
+                operations.add(operation("delete-" + setId, "workout_sets", setId, SyncOperation.DELETE, null,
+                        SyncOperation.PRIORITY_LOW));
+            }
+            operations.add(operation("finish-" + workoutId, "workouts", workoutId, SyncOperation.UPDATE,
+                    "{\"is_completed\":true,\"total_volume\":" + (1000 + w) + "}", SyncOperation.PRIORITY_HIGH));
+        }
+        return operations;
+    }
+
+    private static SyncOperation operation(String id, String entity, String recordId, String type, String data,
+                                           int priority) {
+        SyncOperation operation = new SyncOperation();
+        operation.id = id;
+        operation.entity = entity;
+        operation.recordId = recordId;
+        operation.type = type;
+        operation.data = data;
+        operation.priority = priority;
+        return operation;
+    }
+
+    // enqueue stamps createdAt, the legacy replay keeps its own copies
+    private static List<SyncOperation> copy(List<SyncOperation> operations) {
+        List<SyncOperation> copies = new ArrayList<>(operations.size());
+        for (SyncOperation source : operations) {
+            SyncOperation copy = operation(source.id, source.entity, source.recordId, source.type, source.data,
+                    source.priority);
+            copy.dependencies = source.dependencies;
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static SyncBatchPlanner.Batch singleBatch(SyncOperation operation) {
+        SyncBatchPlanner.Batch batch = new SyncBatchPlanner.Batch(operation.entity, operation.isDelete());
+        batch.operations.add(operation);
+        return batch;
+    }
+}
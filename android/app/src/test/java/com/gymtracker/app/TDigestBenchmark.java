@@ -0,0 +1,137 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Accuracy, memory and speed of {@link TDigest} at 1M values against the sort-per-query approach of
+ * percentileCalculator.ts, which keeps every value and sorts a copy for each lookup.
+ */
+public class TDigestBenchmark {
+    private static final int VALUES = 1_000_000;
+    private static final double[] QUANTILES = {0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999};
+
+    private double[] values;
+    private double[] sorted;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        // One-rep maxes are roughly log-normal
+        Random random = new Random(7);
+        values = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = Math.exp(4.5 + 0.35 * random.nextGaussian());
+        }
+        sorted = values.clone();
+        Arrays.sort(sorted);
+    }
+
+    @Test
+    public void accuracyAndMemoryAt1M() {
+        for (double compression : new double[] {100, 200, 500}) {
+            TDigest digest = new TDigest(compression);
+            long start = System.nanoTime();
+            for (double value : values) {
+                digest.add(value);
+            }
+            long ingestNanos = System.nanoTime() - start;
+
+            double worstRankError = 0;
+            StringBuilder errors = new StringBuilder();
+            for (double q : QUANTILES) {
+                double error = rankError(q, digest.quantile(q));
+                worstRankError = Math.max(worstRankError, error);
+                errors.append(String.format(Locale.US, " q%s=%.4f%%", q, error * 100));
+            }
+
+            System.out.println(String.format(Locale.US,
+                    "[benchmark] t-digest compression=%.0f ingest=%.0f values/s centroids=%d serialized=%dB "
+                            + "(raw values %dB) worst rank error=%.4f%%",
+                    compression, VALUES / (ingestNanos / 1e9), digest.centroidCount(), digest.serializedSize(),
+                    (long) VALUES * 8, worstRankError * 100));
+            System.out.println("[benchmark]   rank error by quantile:" + errors);
+            assertTrue(worstRankError < 0.01);
+        }
+    }
+
+    @Test
+    public void queryLatencyAt1M() {
+        TDigest digest = new TDigest(PercentileSketchStore.DEFAULT_COMPRESSION);
+        for (double value : values) {
+            digest.add(value);
+        }
+        Random random = new Random(11);
+
+        BenchmarkStats sketchStats = new BenchmarkStats("t-digest percentile query 1M", 100_000);
+        long sketchStart = System.nanoTime();
+        double sink = 0;
+        for (int i = 0; i < 100_000; i++) {
+            double value = sorted[random.nextInt(VALUES)];
+            long t0 = System.nanoTime();
+            sink += digest.cdf(value);
+            sketchStats.record(System.nanoTime() - t0);
+        }
+        sketchStats.report(100_000, System.nanoTime() - sketchStart);
+
+        // What the JS service does for every lookup
+        BenchmarkStats sortStats = new BenchmarkStats("copy + sort percentile query 1M", 10);
+        long sortStart = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            double value = sorted[random.nextInt(VALUES)];
+            long t0 = System.nanoTime();
+            double[] copy = values.clone();
+            Arrays.sort(copy);
+            int below = 0;
+            while (below < copy.length && copy[below] < value) {
+                below++;
+            }
+            sink += (double) below / copy.length;
+            sortStats.record(System.nanoTime() - t0);
+        }
+        sortStats.report(10, System.nanoTime() - sortStart);
+        assertTrue(sink > 0);
+    }
+
+    @Test
+    public void mergeHundredShards() {
+        TDigest[] shards = new TDigest[100];
+        for (int shard = 0; shard < shards.length; shard++) {
+            shards[shard] = new TDigest(PercentileSketchStore.DEFAULT_COMPRESSION);
+            for (int i = shard; i < VALUES; i += shards.length) {
+                shards[shard].add(values[i]);
+            }
+            shards[shard].centroidCount();
+        }
+
+        BenchmarkStats stats = new BenchmarkStats("t-digest merge of 100 shards", shards.length);
+        TDigest merged = new TDigest(PercentileSketchStore.DEFAULT_COMPRESSION);
+        long start = System.nanoTime();
+        for (TDigest shard : shards) {
+            long t0 = System.nanoTime();
+            merged.merge(shard);
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(shards.length, System.nanoTime() - start);
+
+        double worstRankError = 0;
+        for (double q : QUANTILES) {
+            worstRankError = Math.max(worstRankError, rankError(q, merged.quantile(q)));
+        }
+        System.out.println(String.format(Locale.US, "[benchmark] merged worst rank error=%.4f%%", worstRankError * 100));
+        assertTrue(worstRankError < 0.01);
+    }
+
+    private double rankError(double q, double answer) {
+        int below = Arrays.binarySearch(sorted, answer);
+        if (below < 0) {
+            below = -below - 1;
+        }
+        return Math.abs((double) below / VALUES - q);
+    }
+}
@@ -0,0 +1,140 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class TDigestTest {
+
+    private static double[] lognormal(int count, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.exp(4.5 + 0.35 * random.nextGaussian());
+        }
+        return values;
+    }
+
+    // Error in rank terms: how far the answer's true rank is from the requested quantile
+    private static double rankError(double[] sorted, double q, double answer) {
+        int below = 0;
+        while (below < sorted.length && sorted[below] < answer) {
+            below++;
+        }
+        return Math.abs((double) below / sorted.length - q);
+    }
+
+    @Test
+    public void quantilesAreWithinHalfAPercentOfRank() {
+        double[] values = lognormal(100_000, 1);
+        TDigest digest = new TDigest(200);
+        for (double value : values) {
+            digest.add(value);
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        for (double q : new double[] {0.01, 0.25, 0.5, 0.75, 0.95, 0.99}) {
+            assertTrue("q=" + q, rankError(sorted, q, digest.quantile(q)) < 0.005);
+        }
+        assertEquals(sorted[0], digest.quantile(0), 0);
+        assertEquals(sorted[sorted.length - 1], digest.quantile(1), 0);
+        assertEquals(100_000, digest.size(), 0);
+        assertTrue(digest.centroidCount() < 400);
+    }
+
+    @Test
+    public void cdfMatchesShareOfValuesBelow() {
+        double[] values = lognormal(50_000, 2);
+        TDigest digest = new TDigest(200);
+        for (double value : values) {
+            digest.add(value);
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        for (int index : new int[] {500, 12_500, 25_000, 47_500}) {
+            assertEquals((double) index / sorted.length, digest.cdf(sorted[index]), 0.005);
+        }
+        assertEquals(0, digest.cdf(sorted[0] - 1), 0);
+        assertEquals(1, digest.cdf(sorted[sorted.length - 1]), 0);
+    }
+
+    @Test
+    public void mergedDigestsMatchASingleDigest() {
+        double[] values = lognormal(60_000, 3);
+        TDigest merged = new TDigest(200);
+        for (int part = 0; part < 3; part++) {
+            TDigest digest = new TDigest(200);
+            for (int i = part * 20_000; i < (part + 1) * 20_000; i++) {
+                digest.add(values[i]);
+            }
+            merged.merge(digest);
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(60_000, merged.size(), 0);
+        for (double q : new double[] {0.05, 0.5, 0.95}) {
+            assertTrue("q=" + q, rankError(sorted, q, merged.quantile(q)) < 0.005);
+        }
+    }
+
+    @Test
+    public void survivesSerialization() throws IOException {
+        TDigest digest = new TDigest(100);
+        for (double value : lognormal(10_000, 4)) {
+            digest.add(value);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        digest.writeTo(new DataOutputStream(bytes));
+        assertEquals(digest.serializedSize(), bytes.size());
+
+        TDigest copy = TDigest.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(digest.size(), copy.size(), 0);
+        assertEquals(digest.getMin(), copy.getMin(), 0);
+        assertEquals(digest.quantile(0.9), copy.quantile(0.9), 1e-9);
+    }
+
+    @Test
+    public void rejectsCorruptHeaders() throws IOException {
+        assertCorrupt(5, 0);
+        assertCorrupt(Double.NaN, 0);
+        assertCorrupt(1e12, 0);
+        assertCorrupt(100, Integer.MAX_VALUE);
+    }
+
+    private static void assertCorrupt(double compression, int centroids) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(1);
+        out.writeDouble(compression);
+        out.writeDouble(0);
+        out.writeDouble(1);
+        out.writeInt(centroids);
+        try {
+            TDigest.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            fail("compression " + compression + ", " + centroids + " centroids");
+        } catch (IOException expected) {
+            // Rejected before anything is allocated
+        }
+    }
+
+    @Test
+    public void emptyDigestHasNoQuantiles() {
+        TDigest digest = new TDigest(100);
+        assertTrue(digest.isEmpty());
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+        assertTrue(Double.isNaN(digest.cdf(10)));
+    }
+}
@@ -0,0 +1,306 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Throughput of {@link WorkoutCalculationEngine} against the object-per-set logic of
+ * src/utils/workoutCalculations.ts.
+ *
+ * There is no JS engine on the JVM test classpath, so the "js" side is a line-by-line port of the
+ * TypeScript functions over boxed objects and filter/reduce pipelines. Both sides are checked to
+ * produce identical results before anything is timed.
+ */
+public class WorkoutCalculationBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 20;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+    }
+
+    @Test
+    public void threeYearHistory() {
+        // 4 sessions a week, 6 exercises of 4 sets
+        run("3 year history", 600, 6, 4);
+    }
+
+    @Test
+    public void oneMillionSets() {
+        run("1M sets", 25_000, 8, 5);
+    }
+
+    private void run(String label, int workouts, int exercisesPerWorkout, int setsPerExercise) {
+        List<JsWorkout> history = generateHistory(workouts, exercisesPerWorkout, setsPerExercise, 42);
+        WorkoutCalculationEngine.SetColumns columns = toColumns(history);
+        int exerciseCount = columns.exerciseCount();
+
+        WorkoutCalculationEngine.ExerciseMetrics exercises = new WorkoutCalculationEngine.ExerciseMetrics(exerciseCount);
+        WorkoutCalculationEngine.WorkoutMetrics metrics = new WorkoutCalculationEngine.WorkoutMetrics(workouts);
+        WorkoutCalculationEngine.calculate(columns, exercises, metrics);
+        assertMatchesJs(history, exercises, metrics);
+
+        long sets = columns.setCount();
+        BenchmarkStats nativeStats = new BenchmarkStats("WorkoutCalculationEngine " + label, MEASURED_ROUNDS);
+        long nativeTotal = measure(nativeStats, () -> WorkoutCalculationEngine.calculate(columns, exercises, metrics));
+        nativeStats.report(sets * MEASURED_ROUNDS, nativeTotal);
+
+        BenchmarkStats jsStats = new BenchmarkStats("JS object model " + label, MEASURED_ROUNDS);
+        long jsTotal = measure(jsStats, () -> {
+            double sink = 0;
+            for (JsWorkout workout : history) {
+                sink += calculateWorkoutVolume(workout) + calculateWorkingSets(workout) + calculateTotalReps(workout)
+                        + calculateWorkoutCompletion(workout);
+                Double intensity = calculateWorkoutIntensity(workout);
+                sink += intensity == null ? 0 : intensity;
+                for (JsExercise exercise : workout.exercises) {
+                    Double rpe = calculateAverageRpe(exercise);
+                    sink += (rpe == null ? 0 : rpe) + calculateAverageRestTime(exercise);
+                }
+            }
+            if (sink < 0) {
+                throw new AssertionError();
+            }
+        });
+        jsStats.report(sets * MEASURED_ROUNDS, jsTotal);
+    }
+
+    private static long measure(BenchmarkStats stats, Runnable round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            round.run();
+            stats.record(System.nanoTime() - t0);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void assertMatchesJs(List<JsWorkout> history, WorkoutCalculationEngine.ExerciseMetrics exercises,
+                                        WorkoutCalculationEngine.WorkoutMetrics metrics) {
+        int e = 0;
+        for (int w = 0; w < history.size(); w++) {
+            JsWorkout workout = history.get(w);
+            assertEquals(calculateWorkoutVolume(workout), metrics.volume[w], 0);
+            assertEquals(calculateWorkingSets(workout), metrics.workingSets[w]);
+            assertEquals(calculateTotalReps(workout), metrics.totalReps[w]);
+            assertEquals(calculateWorkoutCompletion(workout), metrics.completion[w]);
+            assertEquals(orNaN(calculateWorkoutIntensity(workout)), metrics.intensity[w], 0);
+            for (JsExercise exercise : workout.exercises) {
+                assertEquals(calculateExerciseVolume(exercise), exercises.volume[e], 0);
+                assertEquals(orNaN(calculateAverageRpe(exercise)), exercises.averageRpe[e], 0);
+                assertEquals(calculateAverageRestTime(exercise), exercises.averageRestSeconds[e]);
+                e++;
+            }
+        }
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    private static List<JsWorkout> generateHistory(int workouts, int exercisesPerWorkout, int setsPerExercise,
+                                                   long seed) {
+        Random random = new Random(seed);
+        List<JsWorkout> history = new ArrayList<>(workouts);
+        long time = 1_600_000_000_000L;
+        for (int w = 0; w < workouts; w++) {
+            JsWorkout workout = new JsWorkout();
+            for (int e = 0; e < exercisesPerWorkout; e++) {
+                JsExercise exercise = new JsExercise();
+                for (int s = 0; s < setsPerExercise; s++) {
+                    JsSet set = new JsSet();
+                    set.warmup = s == 0 && random.nextBoolean();
+                    set.completed = random.nextInt(10) != 0;
+                    set.weight = 20 + random.nextInt(300) * 0.5;
+                    set.reps = 1 + random.nextInt(15);
+                    set.rpe = random.nextInt(3) == 0 ? null : 6 + random.nextInt(9) * 0.5;
+                    set.startedAt = time;
+                    time += 20_000 + random.nextInt(40_000);
+                    set.endedAt = random.nextInt(8) == 0 ? null : time;
+                    time += 30_000 + random.nextInt(150_000);
+                    exercise.sets.add(set);
+                }
+                workout.exercises.add(exercise);
+            }
+            history.add(workout);
+            time += 86_400_000L;
+        }
+        return history;
+    }
+
+    private static WorkoutCalculationEngine.SetColumns toColumns(List<JsWorkout> history) {
+        int setCount = 0;
+        int exerciseCount = 0;
+        for (JsWorkout workout : history) {
+            for (JsExercise exercise : workout.exercises) {
+                setCount += exercise.sets.size();
+                exerciseCount++;
+            }
+        }
+
+        double[] weights = new double[setCount];
+        int[] reps = new int[setCount];
+        double[] rpe = new double[setCount];
+        int[] flags = new int[setCount];
+        long[] startedAt = new long[setCount];
+        long[] endedAt = new long[setCount];
+        int[] exerciseOffsets = new int[exerciseCount + 1];
+        int[] workoutOffsets = new int[history.size() + 1];
+
+        int s = 0;
+        int e = 0;
+        for (int w = 0; w < history.size(); w++) {
+            for (JsExercise exercise : history.get(w).exercises) {
+                for (JsSet set : exercise.sets) {
+                    weights[s] = set.weight;
+                    reps[s] = set.reps;
+                    rpe[s] = set.rpe == null ? Double.NaN : set.rpe;
+                    flags[s] = (set.completed ? WorkoutCalculationEngine.FLAG_COMPLETED : 0)
+                            | (set.warmup ? WorkoutCalculationEngine.FLAG_WARMUP : 0);
+                    startedAt[s] = set.startedAt == null ? WorkoutCalculationEngine.NO_TIMESTAMP : set.startedAt;
+                    endedAt[s] = set.endedAt == null ? WorkoutCalculationEngine.NO_TIMESTAMP : set.endedAt;
+                    s++;
+                }
+                exerciseOffsets[++e] = s;
+            }
+            workoutOffsets[w + 1] = e;
+        }
+        return new WorkoutCalculationEngine.SetColumns(weights, reps, rpe, flags, startedAt, endedAt,
+                exerciseOffsets, workoutOffsets);
+    }
+
+    // Port of the TypeScript object model and functions, kept as close to the original as Java allows
+
+    private static class JsSet {
+        boolean warmup;
+        boolean completed;
+        double weight;
+        int reps;
+        Double rpe;
+        Long startedAt;
+        Long endedAt;
+    }
+
+    private static class JsExercise {
+        final List<JsSet> sets = new ArrayList<>();
+    }
+
+    private static class JsWorkout {
+        final List<JsExercise> exercises = new ArrayList<>();
+    }
+
+    private static double calculateSetVolume(JsSet set) {
+        if (set.warmup || !set.completed) {
+            return 0;
+        }
+        return set.weight * set.reps;
+    }
+
+    private static double calculateExerciseVolume(JsExercise exercise) {
+        return exercise.sets.stream()
+                .filter(set -> set.completed && !set.warmup)
+                .map(WorkoutCalculationBenchmark::calculateSetVolume)
+                .reduce(0.0, Double::sum);
+    }
+
+    private static double calculateWorkoutVolume(JsWorkout workout) {
+        return workout.exercises.stream()
+                .map(WorkoutCalculationBenchmark::calculateExerciseVolume)
+                .reduce(0.0, Double::sum);
+    }
+
+    private static int calculateWorkingSets(JsWorkout workout) {
+        return workout.exercises.stream()
+                .map(exercise -> (int) exercise.sets.stream().filter(set -> set.completed && !set.warmup).count())
+                .reduce(0, Integer::sum);
+    }
+
+    private static int calculateTotalReps(JsWorkout workout) {
+        return workout.exercises.stream()
+                .map(exercise -> exercise.sets.stream()
+                        .filter(set -> set.completed && !set.warmup)
+                        .map(set -> set.reps)
+                        .reduce(0, Integer::sum))
+                .reduce(0, Integer::sum);
+    }
+
+    private static Double calculateAverageRpe(JsExercise exercise) {
+        List<JsSet> withRpe = new ArrayList<>();
+        for (JsSet set : exercise.sets) {
+            if (set.completed && set.rpe != null && !set.warmup) {
+                withRpe.add(set);
+            }
+        }
+        if (withRpe.isEmpty()) {
+            return null;
+        }
+        double total = withRpe.stream().map(set -> set.rpe).reduce(0.0, Double::sum);
+        return WorkoutCalculationEngine.jsRound(total / withRpe.size() * 10) / 10;
+    }
+
+    private static Double calculateWorkoutIntensity(JsWorkout workout) {
+        double totalWeightedRpe = 0;
+        double totalVolume = 0;
+        for (JsExercise exercise : workout.exercises) {
+            for (JsSet set : exercise.sets) {
+                if (set.completed && set.rpe != null && set.rpe != 0 && !set.warmup) {
+                    double setVolume = calculateSetVolume(set);
+                    totalWeightedRpe += set.rpe * setVolume;
+                    totalVolume += setVolume;
+                }
+            }
+        }
+        if (totalVolume == 0) {
+            return null;
+        }
+        return WorkoutCalculationEngine.jsRound(totalWeightedRpe / totalVolume * 10) / 10;
+    }
+
+    private static long calculateRestTime(JsSet previous, JsSet current) {
+        if (previous.endedAt == null || current.startedAt == null) {
+            return 0;
+        }
+        return (long) Math.floor((current.startedAt - previous.endedAt) / 1000.0);
+    }
+
+    private static int calculateAverageRestTime(JsExercise exercise) {
+        List<Long> restTimes = new ArrayList<>();
+        for (int i = 1; i < exercise.sets.size(); i++) {
+            long restTime = calculateRestTime(exercise.sets.get(i - 1), exercise.sets.get(i));
+            if (restTime > 0) {
+                restTimes.add(restTime);
+            }
+        }
+        if (restTimes.isEmpty()) {
+            return 0;
+        }
+        return (int) WorkoutCalculationEngine.jsRound(
+                (double) restTimes.stream().reduce(0L, Long::sum) / restTimes.size());
+    }
+
+    private static int calculateWorkoutCompletion(JsWorkout workout) {
+        if (workout.exercises.isEmpty()) {
+            return 0;
+        }
+        int totalSets = 0;
+        int completedSets = 0;
+        for (JsExercise exercise : workout.exercises) {
+            for (JsSet set : exercise.sets) {
+                totalSets++;
+                if (set.completed) {
+                    completedSets++;
+                }
+            }
+        }
+        return totalSets > 0 ? (int) WorkoutCalculationEngine.jsRound((double) completedSets / totalSets * 100) : 0;
+    }
+}
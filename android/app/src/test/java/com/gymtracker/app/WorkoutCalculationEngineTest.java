@@ -0,0 +1,134 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+// Cases and expected values from src/utils/__tests__/workoutCalculations.test.ts
+public class WorkoutCalculationEngineTest {
+    private static final int DONE = WorkoutCalculationEngine.FLAG_COMPLETED;
+    private static final int WARMUP = WorkoutCalculationEngine.FLAG_COMPLETED | WorkoutCalculationEngine.FLAG_WARMUP;
+    private static final long NONE = WorkoutCalculationEngine.NO_TIMESTAMP;
+
+    // Bench press: warmup 50x10, then 100x10, 105x8, 110x6. Squats: 80x12.
+    private static WorkoutCalculationEngine.SetColumns sampleWorkout(double[] rpe) {
+        return new WorkoutCalculationEngine.SetColumns(
+                new double[] {50, 100, 105, 110, 80},
+                new int[] {10, 10, 8, 6, 12},
+                rpe,
+                new int[] {WARMUP, DONE, DONE, DONE, DONE},
+                new long[] {NONE, 100_000, 250_000, 400_000, NONE},
+                new long[] {60_000, 130_000, 280_000, 430_000, NONE},
+                new int[] {0, 4, 5},
+                new int[] {0, 2});
+    }
+
+    private static double[] noRpe(int count) {
+        double[] rpe = new double[count];
+        Arrays.fill(rpe, Double.NaN);
+        return rpe;
+    }
+
+    @Test
+    public void oneRepMaxMatchesEpleyWithJsRounding() {
+        assertEquals(100, WorkoutCalculationEngine.oneRepMax(100, 1), 0);
+        assertEquals(133, WorkoutCalculationEngine.oneRepMax(100, 10), 0);
+        assertEquals(0, WorkoutCalculationEngine.oneRepMax(100, 0), 0);
+        assertEquals(0, WorkoutCalculationEngine.oneRepMax(-5, 5), 0);
+        assertEquals(0, WorkoutCalculationEngine.oneRepMax(Double.POSITIVE_INFINITY, 5), 0);
+        // A single rep returns the weight as is, without rounding
+        assertEquals(102.5, WorkoutCalculationEngine.oneRepMax(102.5, 1), 0);
+    }
+
+    @Test
+    public void computesVolumeSetsAndRepsExcludingWarmups() {
+        WorkoutCalculationEngine.SetColumns sets = sampleWorkout(noRpe(5));
+        WorkoutCalculationEngine.ExerciseMetrics exercises = new WorkoutCalculationEngine.ExerciseMetrics(2);
+        WorkoutCalculationEngine.WorkoutMetrics workouts = new WorkoutCalculationEngine.WorkoutMetrics(1);
+        WorkoutCalculationEngine.calculate(sets, exercises, workouts);
+
+        assertEquals(2500, exercises.volume[0], 0);
+        assertEquals(3, exercises.workingSets[0]);
+        assertEquals(24, exercises.totalReps[0]);
+        assertEquals(3460, workouts.volume[0], 0);
+        assertEquals(4, workouts.workingSets[0]);
+        assertEquals(100, workouts.completion[0]);
+        assertTrue(Double.isNaN(workouts.intensity[0]));
+        assertTrue(Double.isNaN(exercises.averageRpe[0]));
+    }
+
+    @Test
+    public void averagesRpeAndRestTimes() {
+        double[] rpe = noRpe(5);
+        rpe[0] = 5;
+        rpe[2] = 8;
+        rpe[3] = 9;
+        WorkoutCalculationEngine.SetColumns sets = sampleWorkout(rpe);
+        WorkoutCalculationEngine.ExerciseMetrics exercises = new WorkoutCalculationEngine.ExerciseMetrics(2);
+        WorkoutCalculationEngine.WorkoutMetrics workouts = new WorkoutCalculationEngine.WorkoutMetrics(1);
+        WorkoutCalculationEngine.calculate(sets, exercises, workouts);
+
+        // The warmup RPE is ignored
+        assertEquals(8.5, exercises.averageRpe[0], 0);
+        // (8 * 840 + 9 * 660) / 1500
+        assertEquals(8.4, workouts.intensity[0], 0);
+        // Rests of 40s, 120s and 120s, warmup included as in calculateAverageRestTime
+        assertEquals(93, exercises.averageRestSeconds[0]);
+        assertEquals(0, exercises.averageRestSeconds[1]);
+    }
+
+    @Test
+    public void countsIncompleteSetsTowardsCompletionOnly() {
+        WorkoutCalculationEngine.SetColumns sets = new WorkoutCalculationEngine.SetColumns(
+                new double[] {100, 100},
+                new int[] {10, 10},
+                noRpe(2),
+                new int[] {DONE, 0},
+                new long[] {NONE, NONE},
+                new long[] {NONE, NONE},
+                new int[] {0, 2},
+                new int[] {0, 1, 1});
+        WorkoutCalculationEngine.ExerciseMetrics exercises = new WorkoutCalculationEngine.ExerciseMetrics(1);
+        WorkoutCalculationEngine.WorkoutMetrics workouts = new WorkoutCalculationEngine.WorkoutMetrics(2);
+        WorkoutCalculationEngine.calculate(sets, exercises, workouts);
+
+        assertEquals(1000, workouts.volume[0], 0);
+        assertEquals(50, workouts.completion[0]);
+        // Second workout has no exercises
+        assertEquals(0, workouts.completion[1]);
+        assertEquals(0, workouts.volume[1], 0);
+    }
+
+    @Test
+    public void findsPersonalRecordsAgainstPreviousBests() {
+        WorkoutCalculationEngine.SetColumns sets = sampleWorkout(noRpe(5));
+        WorkoutCalculationEngine.ExerciseMetrics exercises = new WorkoutCalculationEngine.ExerciseMetrics(2);
+        WorkoutCalculationEngine.calculate(sets, exercises, new WorkoutCalculationEngine.WorkoutMetrics(1));
+
+        int[] records = new int[2];
+        WorkoutCalculationEngine.findPersonalRecords(sets, exercises,
+                new double[] {95, Double.NaN},
+                new double[] {8, Double.NaN},
+                new double[] {130, 200},
+                new double[] {Double.NaN, Double.NaN},
+                records);
+
+        assertEquals(WorkoutCalculationEngine.RECORD_MAX_WEIGHT | WorkoutCalculationEngine.RECORD_MAX_REPS
+                | WorkoutCalculationEngine.RECORD_MAX_ONE_REP_MAX, records[0]);
+        assertEquals(0, records[1]);
+        assertEquals(110, exercises.maxWeight[0], 0);
+        assertEquals(3, exercises.maxWeightSet[0]);
+        assertEquals(10, exercises.maxReps[0]);
+        // 100x10 and 105x8 both round to 133, the first one is reported
+        assertEquals(133, exercises.maxOneRepMax[0], 0);
+        assertEquals(1, exercises.maxOneRepMaxSet[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOffsetsThatDoNotCoverAllSets() {
+        new WorkoutCalculationEngine.SetColumns(new double[2], new int[2], new double[2], new int[2],
+                new long[2], new long[2], new int[] {0, 1}, new int[] {0, 1});
+    }
+}
@@ -0,0 +1,208 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Bytes written and recovery time of {@link WorkoutJournal} against the auto-save approach of
+ * WorkoutAutoSaveService.ts, which writes the whole workout object again for every change it picks up.
+ */
+public class WorkoutJournalBenchmark {
+    private static final int EXERCISES = 6;
+    private static final int SETS_PER_EXERCISE = 4;
+    // Weight, reps, RPE and completed are usually entered one after another
+    private static final int EDITS_PER_SET = 4;
+    private static final int WORKOUTS = 50;
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        directory = Files.createTempDirectory("workout-journal-benchmark").toFile();
+    }
+
+    @Test
+    public void writeAmplificationOverFiftyWorkouts() throws Exception {
+        WorkoutJournal journal = new WorkoutJournal(directory, WorkoutJournal.DEFAULT_COMPACT_MIN_BYTES);
+        BenchmarkStats commits = new BenchmarkStats("journal append to durable", WORKOUTS * 128);
+        long changedBytes = 0;
+        long fullRewriteBytes = 0;
+        long start = System.nanoTime();
+
+        for (int w = 0; w < WORKOUTS; w++) {
+            String workoutId = "workout-" + w;
+            String workout = "{\"id\":\"" + workoutId + "\",\"user_id\":\"user-1\",\"name\":\"Upper body\","
+                    + "\"status\":\"in_progress\",\"started_at\":\"2026-10-17T18:00:00.000Z\","
+                    + "\"auto_rest_timer\":true,\"default_rest_time\":90}";
+            changedBytes += workout.length();
+            commit(journal, commits, WorkoutJournal.Mutation.putWorkout(workoutId, workout));
+            List<List<String>> sets = new ArrayList<>();
+            List<String> exercises = new ArrayList<>();
+
+            for (int e = 0; e < EXERCISES; e++) {
+                String exerciseId = workoutId + "-exercise-" + e;
+                String exercise = "{\"id\":\"" + exerciseId + "\",\"exercise_id\":\"bench-press\",\"order\":" + e
+                        + ",\"rest_time\":120,\"target_sets\":4,\"target_reps\":8}";
+                exercises.add(exercise);
+                sets.add(new ArrayList<>());
+                changedBytes += exercise.length();
+                commit(journal, commits, WorkoutJournal.Mutation.putExercise(workoutId, exerciseId, exercise));
+                fullRewriteBytes += fullWorkout(workout, exercises, sets).length();
+
+                for (int s = 0; s < SETS_PER_EXERCISE; s++) {
+                    String setId = exerciseId + "-set-" + s;
+                    sets.get(e).add("");
+                    for (int edit = 1; edit <= EDITS_PER_SET; edit++) {
+                        String set = setDocument(setId, s + 1, edit);
+                        sets.get(e).set(s, set);
+                        changedBytes += set.length();
+                        commit(journal, commits, WorkoutJournal.Mutation.putSet(workoutId, exerciseId, setId, set));
+                        fullRewriteBytes += fullWorkout(workout, exercises, sets).length();
+                    }
+                }
+            }
+            commit(journal, commits, WorkoutJournal.Mutation.endWorkout(workoutId));
+        }
+        long totalNanos = System.nanoTime() - start;
+        journal.close();
+        WorkoutJournal.Stats stats = journal.getStats();
+
+        commits.report(stats.recordsAppended, totalNanos);
+        System.out.println(String.format(Locale.US,
+                "[benchmark]   %d records, changed %dKB, journal wrote %dKB (%.2fx) with %d compactions, "
+                        + "full-object auto-save would write %dKB (%.1fx)",
+                stats.recordsAppended, changedBytes / 1024, stats.bytesWritten / 1024,
+                stats.bytesWritten / (double) changedBytes, stats.compactions, fullRewriteBytes / 1024,
+                fullRewriteBytes / (double) changedBytes));
+
+        assertTrue(stats.compactions > 0);
+        assertTrue(stats.bytesWritten < 2 * changedBytes);
+        assertTrue(stats.bytesWritten * 5 < fullRewriteBytes);
+    }
+
+    @Test
+    public void groupCommitUnderConcurrentAppends() throws Exception {
+        WorkoutJournal journal = new WorkoutJournal(directory, WorkoutJournal.DEFAULT_COMPACT_MIN_BYTES);
+        int threads = 8;
+        int appendsPerThread = 500;
+        CountDownLatch done = new CountDownLatch(threads * appendsPerThread);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        WorkoutJournal.Callback callback = new WorkoutJournal.Callback() {
+            @Override
+            public void onDurable(long sequence) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(IOException e) {
+                failure.set(e);
+                done.countDown();
+            }
+        };
+
+        long start = System.nanoTime();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String exerciseId = "exercise-" + t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < appendsPerThread; i++) {
+                    String setId = exerciseId + "-set-" + (i % SETS_PER_EXERCISE);
+                    journal.append(Collections.singletonList(WorkoutJournal.Mutation.putSet("w1", exerciseId, setId,
+                            setDocument(setId, i % SETS_PER_EXERCISE + 1, i % EDITS_PER_SET + 1))), callback);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        done.await();
+        long totalNanos = System.nanoTime() - start;
+        journal.close();
+        WorkoutJournal.Stats stats = journal.getStats();
+
+        System.out.println(String.format(Locale.US,
+                "[benchmark] journal group commit: %d records in %d fsyncs (%.1f per fsync), %.0f records/s",
+                stats.recordsAppended, stats.groupCommits, stats.recordsAppended / (double) stats.groupCommits,
+                stats.recordsAppended / (totalNanos / 1e9)));
+        assertEquals(null, failure.get());
+        assertEquals(threads * appendsPerThread, stats.recordsAppended);
+        assertTrue(stats.groupCommits < stats.recordsAppended);
+    }
+
+    @Test
+    public void recoveryJustBeforeCompaction() throws Exception {
+        // Worst case: a full snapshot of a long workout plus a journal just under the compaction limit
+        WorkoutJournal journal = new WorkoutJournal(directory, WorkoutJournal.DEFAULT_COMPACT_MIN_BYTES);
+        journal.append(Collections.singletonList(WorkoutJournal.Mutation.putWorkout("w1", "{\"id\":\"w1\"}")), null);
+        int records = 1;
+        while (journal.getStats().journalBytes < WorkoutJournal.DEFAULT_COMPACT_MIN_BYTES - 1024) {
+            String setId = "set-" + (records % 40);
+            journal.awaitDurable(journal.append(Collections.singletonList(WorkoutJournal.Mutation.putSet("w1",
+                    "exercise-" + (records % 8), setId, setDocument(setId, records % 40, records % 5))), null));
+            records++;
+        }
+        journal.close();
+
+        BenchmarkStats recovery = new BenchmarkStats("journal recovery at " + records + " records", 50);
+        long totalNanos = 0;
+        for (int i = 0; i < 50; i++) {
+            WorkoutJournal reopened = new WorkoutJournal(directory, WorkoutJournal.DEFAULT_COMPACT_MIN_BYTES);
+            long nanos = reopened.getRecovery().durationNanos;
+            recovery.record(nanos);
+            totalNanos += nanos;
+            assertEquals(1, reopened.getWorkoutCount());
+            reopened.close();
+        }
+        recovery.report(50, totalNanos);
+
+        assertTrue(recovery.percentileNanos(50) < 50_000_000L);
+    }
+
+    private static void commit(WorkoutJournal journal, BenchmarkStats stats, WorkoutJournal.Mutation mutation)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        journal.awaitDurable(journal.append(Collections.singletonList(mutation), null));
+        stats.record(System.nanoTime() - start);
+    }
+
+    private static String setDocument(String setId, int setNumber, int edit) {
+        return "{\"id\":\"" + setId + "\",\"set_number\":" + setNumber + ",\"type\":\"normal\",\"weight\":"
+                + (edit > 0 ? 80 : 0) + ",\"reps\":" + (edit > 1 ? 8 : 0) + (edit > 2 ? ",\"rpe\":8" : "")
+                + ",\"completed\":" + (edit > 3) + ",\"skipped\":false,\"planned_rest_time\":120}";
+    }
+
+    private static String fullWorkout(String workout, List<String> exercises, List<List<String>> sets) {
+        StringBuilder exercisesJson = new StringBuilder("[");
+        for (int e = 0; e < exercises.size(); e++) {
+            if (e > 0) {
+                exercisesJson.append(',');
+            }
+            StringBuilder setsJson = new StringBuilder("[");
+            for (int s = 0; s < sets.get(e).size(); s++) {
+                if (s > 0) {
+                    setsJson.append(',');
+                }
+                setsJson.append(sets.get(e).get(s));
+            }
+            WorkoutJournal.appendWithField(exercisesJson, exercises.get(e), "sets", setsJson.append(']'));
+        }
+        StringBuilder out = new StringBuilder();
+        WorkoutJournal.appendWithField(out, workout, "exercises", exercisesJson.append(']'));
+        return out.toString();
+    }
+}
@@ -0,0 +1,190 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorkoutJournalTest {
+    private static final long NO_COMPACTION = Long.MAX_VALUE;
+
+    private File directory;
+    private WorkoutJournal journal;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("workout-journal").toFile();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void replaysMutationsAfterReopen() throws Exception {
+        open(NO_COMPACTION);
+        append(WorkoutJournal.Mutation.putWorkout("w1", "{\"id\":\"w1\",\"name\":\"Push\"}"),
+                WorkoutJournal.Mutation.putExercise("w1", "e1", "{\"id\":\"e1\",\"order\":0}"),
+                set("e1", "s1", 60, 8),
+                set("e1", "s2", 60, 8),
+                WorkoutJournal.Mutation.putExercise("w1", "e2", "{\"id\":\"e2\",\"order\":1}"),
+                set("e2", "s3", 20, 12),
+                WorkoutJournal.Mutation.removeExercise("w1", "e2"),
+                set("e1", "s1", 62.5, 6));
+
+        reopen(NO_COMPACTION);
+
+        assertEquals(8, journal.getRecovery().records);
+        assertEquals(0, journal.getRecovery().droppedBytes);
+        assertEquals("[{\"id\":\"w1\",\"name\":\"Push\",\"exercises\":[{\"id\":\"e1\",\"order\":0,\"sets\":["
+                + "{\"id\":\"s1\",\"weight\":62.5,\"reps\":6},{\"id\":\"s2\",\"weight\":60.0,\"reps\":8}]}]}]",
+                journal.activeWorkoutsJson());
+        assertEquals(8, journal.getStats().lastSequence);
+    }
+
+    @Test
+    public void cutsOffATornTail() throws Exception {
+        open(NO_COMPACTION);
+        append(WorkoutJournal.Mutation.putWorkout("w1", "{\"id\":\"w1\"}"), set("e1", "s1", 100, 5));
+        journal.close();
+        File log = new File(directory, "journal.log");
+        long validBytes = log.length();
+        // A crash halfway through the next record
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.seek(validBytes);
+            file.write(new byte[] {0, 0, 0, 90, 1, 2, 3, 4, 3, 0, 0});
+        }
+
+        reopen(NO_COMPACTION);
+
+        assertEquals(2, journal.getRecovery().records);
+        assertEquals(11, journal.getRecovery().droppedBytes);
+        assertEquals(validBytes, log.length());
+        append(set("e1", "s2", 100, 5));
+        reopen(NO_COMPACTION);
+        assertEquals(3, journal.getRecovery().records);
+        assertTrue(journal.activeWorkoutsJson().contains("\"s2\""));
+    }
+
+    @Test
+    public void stopsAtACorruptRecord() throws Exception {
+        open(NO_COMPACTION);
+        append(WorkoutJournal.Mutation.putWorkout("w1", "{\"id\":\"w1\"}"));
+        long firstRecordBytes = journal.getStats().journalBytes;
+        append(set("e1", "s1", 100, 5), set("e1", "s2", 100, 5));
+        journal.close();
+        // Flip one bit in the second record's document
+        try (RandomAccessFile file = new RandomAccessFile(new File(directory, "journal.log"), "rw")) {
+            long position = firstRecordBytes + 40;
+            file.seek(position);
+            int value = file.read();
+            file.seek(position);
+            file.write(value ^ 1);
+        }
+
+        reopen(NO_COMPACTION);
+
+        assertEquals(1, journal.getRecovery().records);
+        assertEquals("[{\"id\":\"w1\",\"exercises\":[]}]", journal.activeWorkoutsJson());
+    }
+
+    @Test
+    public void compactsIntoASnapshot() throws Exception {
+        open(2048);
+        append(WorkoutJournal.Mutation.putWorkout("w1", "{\"id\":\"w1\"}"));
+        for (int reps = 1; reps <= 300; reps++) {
+            append(set("e1", "s1", 100, reps));
+        }
+        journal.close();
+        WorkoutJournal.Stats stats = journal.getStats();
+
+        assertTrue(stats.compactions > 0);
+        assertTrue(stats.journalBytes < 2048);
+        reopen(2048);
+        assertTrue(journal.getRecovery().snapshotLoaded);
+        assertEquals("[{\"id\":\"w1\",\"exercises\":[{\"sets\":[{\"id\":\"s1\",\"weight\":100.0,\"reps\":300}]}]}]",
+                journal.activeWorkoutsJson());
+        assertEquals(301, journal.getStats().lastSequence);
+    }
+
+    @Test
+    public void skipsJournalRecordsTheSnapshotCovers() throws Exception {
+        open(NO_COMPACTION);
+        append(WorkoutJournal.Mutation.putWorkout("w1", "{\"id\":\"w1\"}"), set("e1", "s1", 100, 5),
+                WorkoutJournal.Mutation.removeSet("w1", "e1", "s1"));
+        journal.close();
+        File log = new File(directory, "journal.log");
+        byte[] beforeCompaction = Files.readAllBytes(log.toPath());
+
+        // The next commit pushes the journal over the limit and compacts it
+        reopen(1);
+        append(set("e1", "s2", 80, 10));
+        // Compaction runs on the writer thread after the commit, closing waits for it
+        journal.close();
+        assertEquals(1, journal.getStats().compactions);
+        // As if the app died between replacing the snapshot and emptying the journal
+        Files.write(log.toPath(), beforeCompaction);
+
+        reopen(NO_COMPACTION);
+
+        assertEquals(0, journal.getRecovery().records);
+        assertEquals("[{\"id\":\"w1\",\"exercises\":[{\"sets\":[{\"id\":\"s2\",\"weight\":80.0,\"reps\":10}]}]}]",
+                journal.activeWorkoutsJson());
+        assertEquals(4, journal.getStats().lastSequence);
+    }
+
+    @Test
+    public void endedWorkoutsAreNotRecovered() throws Exception {
+        open(NO_COMPACTION);
+        append(WorkoutJournal.Mutation.putWorkout("w1", "{\"id\":\"w1\"}"),
+                WorkoutJournal.Mutation.putWorkout("w2", "{\"id\":\"w2\"}"), set("e1", "s1", 100, 5),
+                WorkoutJournal.Mutation.endWorkout("w1"));
+
+        reopen(NO_COMPACTION);
+
+        assertEquals(1, journal.getWorkoutCount());
+        assertFalse(journal.activeWorkoutsJson().contains("w1"));
+        assertTrue(journal.activeWorkoutsJson().startsWith("[{\"id\":\"w2\""));
+    }
+
+    @Test
+    public void nestsFieldsIntoDocuments() {
+        StringBuilder out = new StringBuilder();
+        WorkoutJournal.appendWithField(out, "{}", "sets", "[]");
+        out.append(' ');
+        WorkoutJournal.appendWithField(out, " {\"id\":\"e1\"} ", "sets", "[1]");
+        out.append(' ');
+        WorkoutJournal.appendWithField(out, null, "exercises", "[]");
+
+        assertEquals("{\"sets\":[]} {\"id\":\"e1\",\"sets\":[1]} {\"exercises\":[]}", out.toString());
+    }
+
+    private void open(long compactMinBytes) throws IOException {
+        journal = new WorkoutJournal(directory, compactMinBytes);
+    }
+
+    private void reopen(long compactMinBytes) throws IOException, InterruptedException {
+        journal.close();
+        open(compactMinBytes);
+    }
+
+    private void append(WorkoutJournal.Mutation... mutations) throws IOException, InterruptedException {
+        journal.awaitDurable(journal.append(Arrays.asList(mutations), null));
+    }
+
+    private static WorkoutJournal.Mutation set(String exerciseId, String setId, double weight, int reps) {
+        return WorkoutJournal.Mutation.putSet("w1", exerciseId, setId,
+                "{\"id\":\"" + setId + "\",\"weight\":" + weight + ",\"reps\":" + reps + "}");
+    }
+}
@@ -0,0 +1,161 @@
+package com.gymtracker.app;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Insert throughput and latency of {@link WorkoutStore} against the per-put path.
+ *
+ * IndexedDB cannot run on the JVM, so the "legacy" numbers model what it does for every
+ * set: one durable autocommit transaction per row with rollback journaling.
+ *
+ * Latencies in the batched and legacy reports are per {@value #BATCH_SIZE} rows, the time either path
+ * takes to persist the same chunk of sets.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WorkoutStoreBenchmark {
+    private static final int BATCH_SIZE = 500;
+
+    private Context context;
+    private WorkoutStore store;
+
+    @Before
+    public void setUp() {
+        BenchmarkStats.assumeBenchmarksEnabled();
+        context = RuntimeEnvironment.getApplication();
+        context.getDatabasePath("benchmark_store.db").delete();
+        store = new WorkoutStore(context, "benchmark_store.db");
+    }
+
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    public void batchedInsert10k() {
+        runBatched(10_000);
+    }
+
+    @Test
+    public void batchedInsert100k() {
+        runBatched(100_000);
+    }
+
+    @Test
+    public void batchedInsert1M() {
+        runBatched(1_000_000);
+    }
+
+    @Test
+    public void singleSetWrites10k() {
+        BenchmarkStats stats = new BenchmarkStats("WorkoutStore single set 10k", 10_000);
+        List<WorkoutStore.SetRow> one = new ArrayList<>(1);
+        one.add(null);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            one.set(0, createSet(i));
+            long t0 = System.nanoTime();
+            store.insertSets(one);
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(10_000, System.nanoTime() - start);
+        assertEquals(10_000, store.countSets());
+    }
+
+    @Test
+    public void legacyPerRowInsert10k() {
+        runLegacy(10_000);
+    }
+
+    @Test
+    public void legacyPerRowInsert100k() {
+        // 1M autocommit rows takes tens of minutes, the trend is already clear at 100k
+        runLegacy(100_000);
+    }
+
+    private void runBatched(int total) {
+        BenchmarkStats stats = new BenchmarkStats("WorkoutStore batched " + total + " per batch", total / BATCH_SIZE);
+        List<WorkoutStore.SetRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i += BATCH_SIZE) {
+            batch.clear();
+            for (int j = i; j < Math.min(total, i + BATCH_SIZE); j++) {
+                batch.add(createSet(j));
+            }
+            long t0 = System.nanoTime();
+            store.insertSets(batch);
+            stats.record(System.nanoTime() - t0);
+        }
+        stats.report(total, System.nanoTime() - start);
+        assertEquals(total, store.countSets());
+    }
+
+    private void runLegacy(int total) {
+        File file = context.getDatabasePath("benchmark_legacy.db");
+        file.delete();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        db.execSQL("CREATE TABLE workout_sets (id TEXT PRIMARY KEY, workout_id TEXT, exercise_id TEXT, "
+                + "set_number INTEGER, weight REAL, reps INTEGER, completed_at INTEGER)");
+
+        BenchmarkStats stats = new BenchmarkStats("Legacy per-row " + total + " per batch", total / BATCH_SIZE);
+        long start = System.nanoTime();
+        try {
+            long batchNanos = 0;
+            for (int i = 0; i < total; i++) {
+                WorkoutStore.SetRow set = createSet(i);
+                ContentValues values = new ContentValues();
+                values.put("id", set.id);
+                values.put("workout_id", set.workoutId);
+                values.put("exercise_id", set.exerciseId);
+                values.put("set_number", set.setNumber);
+                values.put("weight", set.weight);
+                values.put("reps", set.reps);
+                values.put("completed_at", set.completedAt);
+
+                long t0 = System.nanoTime();
+                db.insert("workout_sets", null, values);
+                batchNanos += System.nanoTime() - t0;
+                if ((i + 1) % BATCH_SIZE == 0 || i == total - 1) {
+                    stats.record(batchNanos);
+                    batchNanos = 0;
+                }
+            }
+            stats.report(total, System.nanoTime() - start);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static WorkoutStore.SetRow createSet(int index) {
+        WorkoutStore.SetRow set = new WorkoutStore.SetRow();
+        set.id = "set-" + index;
+        set.workoutId = "workout-" + (index / 20);
+        set.exerciseId = "exercise-" + (index % 40);
+        set.setNumber = index % 20;
+        set.type = "normal";
+        set.weight = 20 + (index % 80);
+        set.reps = 5 + (index % 8);
+        set.rpe = 7.5;
+        set.restTime = 90;
+        set.completed = true;
+        set.completedAt = 1_700_000_000_000L + index * 60_000L;
+        return set;
+    }
+}
@@ -0,0 +1,50 @@
+package com.gymtracker.baselineprofile;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Until;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Collects the classes and methods used during a cold start of the app.
+ *
+ * Run with {@code ./gradlew :app:generateReleaseBaselineProfile}. The result is written to
+ * {@code app/src/release/generated/baselineProfiles} and picked up by the next release build.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class BaselineProfileGenerator {
+    // Long enough for the WebView to load and the web app to mount its first route
+    private static final long APP_READY_TIMEOUT_MS = 10_000;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generateStartupProfile() {
+        String targetAppId = InstrumentationRegistry.getArguments().getString("targetAppId");
+
+        baselineProfileRule.collect(
+                targetAppId,
+                15,
+                3,
+                null,
+                // Also emit a startup profile so the startup classes are laid out in the primary dex
+                true,
+                false,
+                className -> true,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    scope.getDevice().wait(Until.hasObject(By.clazz("android.webkit.WebView")), APP_READY_TIMEOUT_MS);
+                    scope.getDevice().waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+}
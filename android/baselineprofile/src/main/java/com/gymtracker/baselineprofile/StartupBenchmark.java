@@ -0,0 +1,58 @@
+package com.gymtracker.baselineprofile;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+import java.util.Collections;
+import kotlin.Unit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Cold start time with and without the baseline profile.
+ *
+ * Run with {@code ./gradlew :baselineprofile:connectedBenchmarkReleaseAndroidTest}.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class StartupBenchmark {
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartWithoutCompilation() {
+        measureColdStart(new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartWithBaselineProfile() {
+        measureColdStart(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    private void measureColdStart(CompilationMode compilationMode) {
+        String targetAppId = InstrumentationRegistry.getArguments().getString("targetAppId");
+
+        benchmarkRule.measureRepeated(
+                targetAppId,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
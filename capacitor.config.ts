@@ -41,6 +41,8 @@ const config: CapacitorConfig = {
     minWebViewVersion: 60,
     allowMixedContent: false,
     captureInput: true,
+    // Applied by the bridge before the first page load
+    appendUserAgent: 'SportTrackerApp/1.0',
     webContentsDebuggingEnabled: false,
     // Performance optimizations for WebView
     useLegacyBridge: false,
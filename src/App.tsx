@@ -1,5 +1,5 @@
 import React, { useState, useEffect } from 'react';
-import { BrowserRouter as Router, Routes, Route } from 'react-router-dom';
+import { BrowserRouter as Router, Routes, Route, useLocation } from 'react-router-dom';
 
 // Import i18n initialization
 import '@/lib/i18n';
@@ -24,6 +24,7 @@ import { initializeSecurity } from '@/utils/securityInit';
 import { usePredictivePrefetch } from '@/utils/performance/predictivePrefetch';
 import { PerformanceMonitor } from '@/components/performance/PerformanceMonitor';
 import { initializePerformanceOptimizations } from '@/utils/performance/performanceInit';
+import { isNativePerformanceAvailable, markAppReady, reportRoute } from '@/utils/nativePerformance';
 // Temporarily commented out due to import issues
 // import { monitoring } from '@/utils/monitoring';
 
@@ -172,6 +173,32 @@ const Marketplace = advancedLazyLoad(
   { priority: 'medium', preloadStrategy: 'hover', chunkName: 'marketplace' }
 );
 
+// Tells the native jank tracker which route the frames it sees belong to
+function NativeRouteReporter() {
+  const { pathname } = useLocation();
+
+  useEffect(() => {
+    if (!isNativePerformanceAvailable()) return;
+    reportRoute(pathname).catch(error => {
+      console.warn('Failed to report route to native jank tracker:', error);
+    });
+  }, [pathname]);
+
+  return null;
+}
+
+// Rendered with the first screen, so the effect runs once that screen's lazy chunk has loaded
+function NativeAppReadyReporter() {
+  useEffect(() => {
+    if (!isNativePerformanceAvailable()) return;
+    markAppReady().catch(error => {
+      console.warn('Failed to mark app ready:', error);
+    });
+  }, []);
+
+  return null;
+}
+
 function App() {
   const [showAuth, setShowAuth] = useState(true);
   const { isAuthenticated, user, initializeAuth } = useAuthStore();
@@ -453,9 +480,13 @@ function App() {
       <ThemeProvider>
         <WorkoutProvider>
           {showAuth ? (
-            <AuthPage onAuthComplete={handleAuthComplete} />
+            <>
+              <AuthPage onAuthComplete={handleAuthComplete} />
+              <NativeAppReadyReporter />
+            </>
           ) : (
             <Router>
+              <NativeRouteReporter />
               <AppLayout>
                 <React.Suspense fallback={
                   <div className="flex items-center justify-center min-h-screen">
@@ -465,6 +496,7 @@ function App() {
                     </div>
                   </div>
                 }>
+                  <NativeAppReadyReporter />
                   <Routes>
                     <Route path="/" element={<Home />} />
                     <Route path="/progress" element={<Progress />} />
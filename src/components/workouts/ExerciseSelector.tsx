@@ -1,9 +1,15 @@
 // Exercise Selector - Component to add exercises to workouts
-import React, { useState, useMemo } from 'react';
+import React, { useState, useMemo, useEffect } from 'react';
 import { Search, Plus, X } from 'lucide-react';
 import { useExercises } from '@/hooks/useExercises';
 import type { Exercise } from '@/schemas/exercise';
 import type { WorkoutExercise, SetData } from '@/schemas/workout';
+import {
+  isNativeExerciseSearchAvailable,
+  recordExerciseUse,
+  searchExercises,
+  setSearchExercises
+} from '@/utils/nativeExerciseSearch';
 
 interface ExerciseSelectorProps {
   onAddExercise: (exercise: WorkoutExercise) => void;
@@ -19,6 +25,10 @@ export const ExerciseSelector: React.FC<ExerciseSelectorProps> = ({
   const { exercises, loading, error } = useExercises();
   const [searchQuery, setSearchQuery] = useState('');
   const [selectedCategory, setSelectedCategory] = useState<string>('all');
+  const [indexReady, setIndexReady] = useState(false);
+  // Ranked ids from the native index, for the latest query it answered
+  const [nativeIds, setNativeIds] = useState<string[] | null>(null);
+  const useNativeSearch = isNativeExerciseSearchAvailable();
 
   const categories = [
     'all',
@@ -31,11 +41,42 @@ export const ExerciseSelector: React.FC<ExerciseSelectorProps> = ({
     'cardio'
   ];
 
+  useEffect(() => {
+    if (!useNativeSearch || exercises.length === 0) return;
+    setSearchExercises(exercises)
+      .then(() => setIndexReady(true))
+      .catch(() => setIndexReady(false));
+  }, [useNativeSearch, exercises]);
+
+  useEffect(() => {
+    if (!searchQuery) setNativeIds(null);
+    if (!indexReady || !searchQuery) return;
+    let cancelled = false;
+    // The category ranks here and filters below, so ask for more than the 50 shown
+    searchExercises(searchQuery, {
+      muscleGroup: selectedCategory === 'all' ? undefined : selectedCategory,
+      limit: 200
+    })
+      .then(result => {
+        if (!cancelled) setNativeIds(result.ids);
+      })
+      .catch(() => {
+        if (!cancelled) setIndexReady(false);
+      });
+    return () => {
+      cancelled = true;
+    };
+  }, [indexReady, searchQuery, selectedCategory]);
+
   const filteredExercises = useMemo(() => {
     let filtered = exercises;
 
-    // Filter by search query
-    if (searchQuery) {
+    if (searchQuery && indexReady) {
+      // The previous answer stays until the index answers the new query, nothing before the first one
+      const byId = new Map(exercises.map(exercise => [exercise.id, exercise]));
+      filtered = (nativeIds ?? []).flatMap(id => byId.get(id) ?? []);
+    } else if (searchQuery) {
+      // Filter by search query, only without the native index
       filtered = filtered.filter(exercise =>
         exercise.name.toLowerCase().includes(searchQuery.toLowerCase()) ||
         exercise.muscle_groups?.some(muscle => 
@@ -55,9 +96,16 @@ export const ExerciseSelector: React.FC<ExerciseSelectorProps> = ({
     }
 
     return filtered.slice(0, 50); // Limit results for performance
-  }, [exercises, searchQuery, selectedCategory]);
+  }, [exercises, searchQuery, selectedCategory, indexReady, nativeIds]);
+
+  // Blank rather than "no exercises found" until the index answers the first query
+  const awaitingNativeResults = Boolean(searchQuery) && indexReady && nativeIds === null;
 
   const handleAddExercise = (exercise: Exercise) => {
+    if (indexReady) {
+      recordExerciseUse(exercise.id).catch(() => undefined);
+    }
+
     // Create default sets for the exercise
     const defaultSets: SetData[] = [
       {
@@ -168,7 +216,7 @@ export const ExerciseSelector: React.FC<ExerciseSelectorProps> = ({
 
       {/* Exercise List */}
       <div className="max-h-96 overflow-y-auto">
-        {filteredExercises.length === 0 ? (
+        {awaitingNativeResults ? null : filteredExercises.length === 0 ? (
           <div className="text-center py-8">
             <div className="text-gray-400 mb-2">
               <Search className="mx-auto h-8 w-8" />
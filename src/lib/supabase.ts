@@ -6,6 +6,7 @@
 
 import { createClient } from '@supabase/supabase-js';
 import type { Database } from '@/types/database';
+import { configureNativeSync, isNativeSyncQueueAvailable } from '@/utils/nativeSyncQueue';
 
 // Supabase configuration from environment variables
 const supabaseUrl = import.meta.env.VITE_SUPABASE_URL;
@@ -35,6 +36,16 @@ export const supabase = createClient<Database>(supabaseUrl, supabaseAnonKey, {
   }
 });
 
+// The native sync queue sends with the current session, it gets every new token. Without a configuration
+// its worker has nowhere to send to and the queue only fills up.
+if (isNativeSyncQueueAvailable()) {
+  supabase.auth.onAuthStateChange((_event, session) => {
+    configureNativeSync(supabaseUrl, supabaseAnonKey, session?.access_token).catch(error => {
+      console.warn('Failed to configure the native sync queue:', error);
+    });
+  });
+}
+
 // Helper functions for common operations
 export const supabaseHelpers = {
   /**
@@ -1,5 +1,6 @@
 import { dbManager } from '@/db/IndexedDBManager';
 import { logger } from '@/utils';
+import { onNativeMemoryPressure } from '@/utils/nativeMemoryPressure';
 
 export interface CacheEntry<T = any> {
   key: string;
@@ -47,6 +48,11 @@ export class CacheManager {
   private constructor() {
     this.initializeStrategies();
     this.startCleanupInterval();
+    onNativeMemoryPressure(pressure => {
+      if (pressure.shrinkCaches) {
+        this.releaseMemory();
+      }
+    });
   }
 
   public static getInstance(): CacheManager {
@@ -301,6 +307,16 @@ export class CacheManager {
     logger.info('Cache cleared');
   }
 
+  /**
+   * Drops the in-memory layer, persisted entries are read back from IndexedDB on the next get
+   */
+  releaseMemory(): void {
+    const released = this.memoryCache.size;
+    this.memoryCache.clear();
+    this.updateCacheStats();
+    logger.info('Cache memory released', { released });
+  }
+
   /**
    * Optimize cache by removing expired entries and applying eviction policies
    */
@@ -1,5 +1,6 @@
 import { mediaService } from './MediaService';
 import { logger } from '@/utils/logger';
+import { onNativeMemoryPressure } from '@/utils/nativeMemoryPressure';
 import type { Exercise } from '@/schemas/exercise';
 
 interface PreloadStrategy {
@@ -22,6 +23,8 @@ class MediaPreloader {
   private activeJobs = new Set<string>();
   private completedJobs = new Set<string>();
   private failedJobs = new Set<string>();
+  // Set while the native memory policy asks to pause prefetching, queued jobs wait for it to lift
+  private paused = false;
   
   private readonly strategies: Record<string, PreloadStrategy> = {
     high: { priority: 'high', maxConcurrent: 3, timeout: 10000 },
@@ -29,6 +32,29 @@ class MediaPreloader {
     low: { priority: 'low', maxConcurrent: 1, timeout: 20000 }
   };
 
+  constructor() {
+    onNativeMemoryPressure(pressure => {
+      if (pressure.dropDecodedImages) {
+        mediaService.releaseMemory();
+      } else if (pressure.shrinkCaches) {
+        mediaService.trimMemory(0.5);
+      }
+      this.setPaused(pressure.pausePrefetch);
+    });
+  }
+
+  /**
+   * Stops starting new preload jobs, or resumes the queued ones
+   */
+  setPaused(paused: boolean): void {
+    if (this.paused === paused) return;
+    this.paused = paused;
+    logger.debug(paused ? 'Preloading paused' : 'Preloading resumed', { queued: this.queue.length });
+    if (!paused && this.queue.length > 0) {
+      this.processQueue();
+    }
+  }
+
   /**
    * Preload exercise media based on user behavior patterns
    */
@@ -175,6 +201,8 @@ class MediaPreloader {
    * Process the preload queue
    */
   private async processQueue(): Promise<void> {
+    if (this.paused) return;
+
     const priorityGroups = {
       high: this.queue.filter(job => job.priority === 'high'),
       medium: this.queue.filter(job => job.priority === 'medium'),
@@ -211,7 +239,7 @@ class MediaPreloader {
    * Process a single preload job
    */
   private async processJob(job: PreloadJob, timeout: number): Promise<void> {
-    if (this.activeJobs.has(job.id) || this.completedJobs.has(job.id)) {
+    if (this.paused || this.activeJobs.has(job.id) || this.completedJobs.has(job.id)) {
       return;
     }
 
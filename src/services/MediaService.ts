@@ -309,6 +309,27 @@ class MediaService {
     }
   }
 
+  /**
+   * Drops the in-memory blobs, the service worker cache still has them
+   */
+  releaseMemory(): void {
+    const released = this.cache.size;
+    this.cache.clear();
+    logger.info('Media memory cache released', { released });
+  }
+
+  /**
+   * Keeps the most recently used fraction of the in-memory blobs
+   */
+  trimMemory(keepFraction: number): void {
+    // Metadata restored from localStorage holds the dates as strings
+    const lastAccess = (mediaId: string) => new Date(this.metadata.get(mediaId)?.lastAccessed ?? 0).getTime() || 0;
+    const byLastAccess = Array.from(this.cache.keys()).sort((a, b) => lastAccess(a) - lastAccess(b));
+    const remove = byLastAccess.length - Math.floor(byLastAccess.length * keepFraction);
+    byLastAccess.slice(0, remove).forEach(mediaId => this.cache.delete(mediaId));
+    logger.info('Media memory cache trimmed', { removed: remove, kept: this.cache.size });
+  }
+
   /**
    * Prefetch exercise media based on usage patterns
    */
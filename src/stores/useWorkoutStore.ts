@@ -3,6 +3,12 @@ import { persist } from 'zustand/middleware';
 import { logger } from './middleware';
 import type { Workout, WorkoutExercise, SetData } from '@/schemas/workout';
 import { storage, generateId } from '@/utils';
+import {
+  appendWorkoutMutations,
+  isNativeWorkoutJournalAvailable,
+  recoverWorkouts,
+  workoutMutations
+} from '@/utils/nativeWorkoutJournal';
 
 interface WorkoutState {
   // State
@@ -301,4 +307,55 @@ export const useWorkoutStore = create<WorkoutState>()(
       }
     )
   )
-);
\ No newline at end of file
+);
+
+// On Android every edit of the active workout also goes to the native workout journal, which survives a
+// renderer kill or crash that the persisted copy above may not have been written through
+if (isNativeWorkoutJournalAvailable()) {
+  let journalReady = false;
+
+  useWorkoutStore.subscribe((state, previous) => {
+    if (!journalReady || state.activeWorkout === previous.activeWorkout) return;
+    const mutations = workoutMutations(previous.activeWorkout, state.activeWorkout);
+    if (mutations.length === 0) return;
+    appendWorkoutMutations(mutations).catch(error => {
+      console.warn('Failed to journal workout changes:', error);
+    });
+  });
+
+  // The storage answers synchronously, so the persisted state is in before the bridge round trip resolves.
+  // The journal's copy of the active workout wins, it is written with every edit.
+  recoverWorkouts()
+    .catch(error => {
+      console.warn('Failed to recover workouts from the journal:', error);
+      return [];
+    })
+    .then(journaled => {
+      const { activeWorkout } = useWorkoutStore.getState();
+      const recovered = journaled.find(workout => workout.id === activeWorkout?.id)
+        ?? (activeWorkout ? undefined : journaled[journaled.length - 1]);
+      if (recovered) {
+        // completeWorkout finishes the workout through its entry in the list
+        useWorkoutStore.setState(state => ({
+          activeWorkout: recovered,
+          workouts: state.workouts.some(workout => workout.id === recovered.id)
+            ? state.workouts
+            : [...state.workouts, recovered],
+        }));
+      }
+
+      // Ends what the store no longer has open, journals an open workout the journal does not have yet
+      const mutations = journaled
+        .filter(workout => workout !== recovered)
+        .flatMap(workout => workoutMutations(workout, null));
+      if (activeWorkout && !recovered) {
+        mutations.push(...workoutMutations(null, activeWorkout));
+      }
+      journalReady = true;
+      if (mutations.length > 0) {
+        appendWorkoutMutations(mutations).catch(error => {
+          console.warn('Failed to journal workout changes:', error);
+        });
+      }
+    });
+}
@@ -0,0 +1,67 @@
+import { describe, it, expect } from 'vitest';
+import { workoutMutations } from '../nativeWorkoutJournal';
+import type { Workout, WorkoutExercise, SetData } from '@/schemas/workout';
+
+const set = (id: string, reps = 0): SetData => ({
+  id,
+  set_number: 1,
+  type: 'normal',
+  weight: 60,
+  reps,
+  completed: false,
+});
+
+const exercise = (id: string, sets: SetData[]): WorkoutExercise => ({
+  id,
+  exercise_id: `exercise-${id}`,
+  order: 0,
+  sets,
+});
+
+const workout = (exercises: WorkoutExercise[]): Workout => ({
+  id: 'workout-1',
+  user_id: 'user-1',
+  name: 'Push Day',
+  exercises,
+  is_template: false,
+  is_completed: false,
+  total_volume: 0,
+});
+
+describe('workoutMutations', () => {
+  it('journals a started workout with all its documents', () => {
+    const started = workout([exercise('a', [set('s1'), set('s2')])]);
+
+    const mutations = workoutMutations(null, started);
+
+    expect(mutations.map(mutation => mutation.type)).toEqual(['putWorkout', 'putExercise', 'putSet', 'putSet']);
+    expect(mutations[0]).toMatchObject({ workoutId: 'workout-1', data: { name: 'Push Day' } });
+    expect(mutations[0].type === 'putWorkout' && 'exercises' in mutations[0].data).toBe(false);
+    expect(mutations[1].type === 'putExercise' && 'sets' in mutations[1].data).toBe(false);
+  });
+
+  it('journals only the set that changed', () => {
+    const unchanged = exercise('b', [set('s3')]);
+    const before = workout([exercise('a', [set('s1'), set('s2')]), unchanged]);
+    const edited = { ...before.exercises[0], sets: [before.exercises[0].sets[0], set('s2', 8)] };
+    const after = { ...before, exercises: [edited, unchanged] };
+
+    expect(workoutMutations(before, after)).toEqual([
+      { type: 'putSet', workoutId: 'workout-1', exerciseId: 'a', setId: 's2', data: set('s2', 8) },
+    ]);
+  });
+
+  it('journals removed exercises and sets', () => {
+    const before = workout([exercise('a', [set('s1'), set('s2')]), exercise('b', [set('s3')])]);
+    const after = { ...before, exercises: [{ ...before.exercises[0], sets: [before.exercises[0].sets[0]] }] };
+
+    expect(workoutMutations(before, after)).toEqual([
+      { type: 'removeSet', workoutId: 'workout-1', exerciseId: 'a', setId: 's2' },
+      { type: 'removeExercise', workoutId: 'workout-1', exerciseId: 'b' },
+    ]);
+  });
+
+  it('ends the workout once it is no longer active', () => {
+    expect(workoutMutations(workout([]), null)).toEqual([{ type: 'endWorkout', workoutId: 'workout-1' }]);
+  });
+});
@@ -0,0 +1,212 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+
+/**
+ * JS end of the native BinaryChannel: bulk data arrives as columnar ArrayBuffer frames
+ * over a MessagePort instead of JSON through the Capacitor bridge.
+ * Frame layout is documented in android/.../BinaryFrameWriter.java.
+ */
+
+const MAGIC = 0x46425447;
+const HEADER_SIZE = 24;
+const FLAG_LAST = 1;
+const HANDSHAKE = 'gymtracker:binary-channel';
+
+export type BinaryColumn = Float64Array | Float32Array | Int32Array | Uint8Array | string[];
+
+export interface BinaryFrame {
+  streamId: number;
+  sequence: number;
+  rowCount: number;
+  last: boolean;
+  columns: Record<string, BinaryColumn>;
+}
+
+interface BinaryChannelPlugin {
+  open(): Promise<{ connected: boolean; handshake: string }>;
+  streamWorkoutSets(options: { workoutIds: string[]; streamId?: number }): Promise<StreamSummary>;
+  benchmark(options: { bytes: number; via: 'channel' | 'bridge'; streamId?: number }): Promise<StreamSummary & { values?: number[] }>;
+}
+
+interface StreamSummary {
+  streamId: number;
+  frames: number;
+  rows: number;
+  bytes: number;
+}
+
+const NativeBinaryChannel = registerPlugin<BinaryChannelPlugin>('BinaryChannel');
+
+const decoder = new TextDecoder();
+
+/**
+ * Decode one frame. Numeric columns are views into the buffer, not copies.
+ */
+export function decodeFrame(buffer: ArrayBuffer): BinaryFrame {
+  const view = new DataView(buffer);
+  if (buffer.byteLength < HEADER_SIZE || view.getUint32(0, true) !== MAGIC) {
+    throw new Error('Not a binary channel frame');
+  }
+  const length = view.getUint32(4, true);
+  const columnCount = view.getUint16(10, true);
+  const rowCount = view.getUint32(12, true);
+  const columns: Record<string, BinaryColumn> = {};
+
+  let offset = HEADER_SIZE;
+  for (let c = 0; c < columnCount; c++) {
+    const type = view.getUint8(offset);
+    const nameLength = view.getUint8(offset + 1);
+    const dataLength = view.getUint32(offset + 4, true);
+    const name = decoder.decode(new Uint8Array(buffer, offset + 8, nameLength));
+    const dataOffset = offset + align(8 + nameLength);
+
+    switch (type) {
+      case 1:
+        columns[name] = new Float64Array(buffer, dataOffset, rowCount);
+        break;
+      case 2:
+        columns[name] = new Float32Array(buffer, dataOffset, rowCount);
+        break;
+      case 3:
+        columns[name] = new Int32Array(buffer, dataOffset, rowCount);
+        break;
+      case 4:
+        columns[name] = new Uint8Array(buffer, dataOffset, rowCount);
+        break;
+      case 5: {
+        const offsets = new Int32Array(buffer, dataOffset, rowCount + 1);
+        const bytes = new Uint8Array(buffer, dataOffset + (rowCount + 1) * 4);
+        const strings = new Array<string>(rowCount);
+        for (let i = 0; i < rowCount; i++) {
+          strings[i] = decoder.decode(bytes.subarray(offsets[i], offsets[i + 1]));
+        }
+        columns[name] = strings;
+        break;
+      }
+      default:
+        throw new Error(`Unknown column type ${type}`);
+    }
+    offset = dataOffset + align(dataLength);
+  }
+
+  if (offset !== length) {
+    throw new Error('Corrupt binary channel frame');
+  }
+  return {
+    streamId: view.getUint32(16, true),
+    sequence: view.getUint32(20, true),
+    rowCount,
+    last: (view.getUint8(9) & FLAG_LAST) !== 0,
+    columns,
+  };
+}
+
+function align(length: number): number {
+  return (length + 7) & ~7;
+}
+
+type StreamListener = (frame: BinaryFrame) => void;
+
+let port: MessagePort | null = null;
+let opening: Promise<boolean> | null = null;
+let nextStreamId = 1;
+const listeners = new Map<number, StreamListener>();
+
+/**
+ * Ask native for a fresh channel. Resolves false on the web or on WebViews without ArrayBuffer messaging.
+ */
+export function openBinaryChannel(): Promise<boolean> {
+  if (!Capacitor.isNativePlatform()) {
+    return Promise.resolve(false);
+  }
+  if (opening) {
+    return opening;
+  }
+
+  opening = new Promise<boolean>((resolve) => {
+    const onHandshake = (event: MessageEvent) => {
+      if (event.data !== HANDSHAKE || event.ports.length === 0) return;
+      window.removeEventListener('message', onHandshake);
+      port?.close();
+      port = event.ports[0];
+      port.onmessage = (message: MessageEvent) => dispatch(message.data);
+      resolve(true);
+    };
+    window.addEventListener('message', onHandshake);
+
+    NativeBinaryChannel.open()
+      .then(({ connected }) => {
+        if (!connected) {
+          window.removeEventListener('message', onHandshake);
+          resolve(false);
+        }
+      })
+      .catch(() => {
+        window.removeEventListener('message', onHandshake);
+        resolve(false);
+      });
+  }).finally(() => {
+    opening = null;
+  });
+  return opening;
+}
+
+function dispatch(data: unknown) {
+  if (!(data instanceof ArrayBuffer)) return;
+  const frame = decodeFrame(data);
+  const listener = listeners.get(frame.streamId);
+  if (!listener) return;
+  listener(frame);
+  if (frame.last) {
+    listeners.delete(frame.streamId);
+  }
+}
+
+/**
+ * Collect every frame of one stream. The listener is registered before the native call,
+ * since frames may arrive before the call resolves.
+ */
+async function receiveStream<T>(start: (streamId: number) => Promise<T>): Promise<{ frames: BinaryFrame[]; summary: T }> {
+  if (!port && !(await openBinaryChannel())) {
+    throw new Error('Binary channel is not available');
+  }
+
+  const streamId = nextStreamId++;
+  const frames: BinaryFrame[] = [];
+  const done = new Promise<void>((resolve) => {
+    listeners.set(streamId, (frame) => {
+      frames.push(frame);
+      if (frame.last) resolve();
+    });
+  });
+
+  try {
+    const summary = await start(streamId);
+    await done;
+    return { frames, summary };
+  } finally {
+    listeners.delete(streamId);
+  }
+}
+
+/**
+ * Workout sets from the native store, one frame per 16k sets.
+ */
+export async function streamWorkoutSets(workoutIds: string[]): Promise<BinaryFrame[]> {
+  const { frames } = await receiveStream((streamId) => NativeBinaryChannel.streamWorkoutSets({ workoutIds, streamId }));
+  return frames;
+}
+
+/**
+ * Round trip of a float64 payload of the given size over the channel and over the JSON bridge, in ms.
+ */
+export async function benchmarkBinaryChannel(bytes: number): Promise<{ channelMs: number; bridgeMs: number }> {
+  const channelStart = performance.now();
+  await receiveStream((streamId) => NativeBinaryChannel.benchmark({ bytes, via: 'channel', streamId }));
+  const channelMs = performance.now() - channelStart;
+
+  const bridgeStart = performance.now();
+  await NativeBinaryChannel.benchmark({ bytes, via: 'bridge' });
+  const bridgeMs = performance.now() - bridgeStart;
+
+  return { channelMs, bridgeMs };
+}
@@ -6,6 +6,7 @@
 import { offlineManager, networkErrorHandler } from './offlineUtils';
 import { dbManager } from '@/db/IndexedDBManager';
 import type { SyncOperation } from './syncQueue';
+import { enqueueNativeSync, isNativeSyncQueueAvailable, toNativeSyncOperation } from './nativeSyncQueue';
 
 export interface QueueOperation extends SyncOperation {
   networkRequirement: 'none' | 'low' | 'medium' | 'high';
@@ -120,6 +121,21 @@ export class IntelligentOfflineQueue {
         priority: intelligentPriority,
       };
 
+      // On Android the native queue persists and sends it, with its dependencies, also after the app is closed
+      const nativeOperation = isNativeSyncQueueAvailable()
+        ? toNativeSyncOperation(queueOperation, options.dependencies)
+        : null;
+      if (nativeOperation) {
+        try {
+          await enqueueNativeSync([nativeOperation]);
+          this.notifyListeners(queueOperation);
+          this.updateMetrics();
+          return queueOperation.id;
+        } catch (error) {
+          console.error('[IntelligentOfflineQueue] Native queue rejected operation, queueing in JS:', error);
+        }
+      }
+
       // Handle dependencies
       if (options.dependencies?.length) {
         this.operationDependencies.set(queueOperation.id, new Set(options.dependencies));
@@ -0,0 +1,75 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { PluginListenerHandle } from '@capacitor/core';
+
+/**
+ * JS end of the native Backup plugin: the full history is streamed to and from an NDJSON file
+ * (optionally gzipped) on the native side, so nothing is held in renderer memory.
+ * File layout is documented in android/.../BackupEngine.java.
+ */
+
+export interface NativeBackupSummary {
+  exercises: number;
+  workouts: number;
+  sets: number;
+  /** Uncompressed NDJSON bytes */
+  bytes: number;
+  compressed: boolean;
+  durationMs: number;
+}
+
+export interface NativeBackupFile extends NativeBackupSummary {
+  path: string;
+  /** content:// uri through the app FileProvider, ready to share */
+  uri: string;
+  fileBytes: number;
+}
+
+export interface NativeBackupProgress {
+  table: 'exercises' | 'workouts' | 'workout_sets';
+  records: number;
+}
+
+interface BackupPlugin {
+  exportHistory(options: { compress?: boolean; fileName?: string }): Promise<NativeBackupFile>;
+  importHistory(options: { path?: string; uri?: string; replace?: boolean }): Promise<NativeBackupSummary>;
+  addListener(event: 'backupProgress', listener: (progress: NativeBackupProgress) => void): Promise<PluginListenerHandle>;
+}
+
+const NativeBackup = registerPlugin<BackupPlugin>('Backup');
+
+export function isNativeBackupAvailable(): boolean {
+  return Capacitor.getPlatform() === 'android';
+}
+
+async function withProgress<T>(
+  run: () => Promise<T>,
+  onProgress?: (progress: NativeBackupProgress) => void
+): Promise<T> {
+  const handle = onProgress ? await NativeBackup.addListener('backupProgress', onProgress) : null;
+  try {
+    return await run();
+  } finally {
+    await handle?.remove();
+  }
+}
+
+/**
+ * Writes the whole history to a file in the app cache. Progress is reported every 10k records.
+ */
+export function exportHistory(
+  options: { compress?: boolean; fileName?: string } = {},
+  onProgress?: (progress: NativeBackupProgress) => void
+): Promise<NativeBackupFile> {
+  return withProgress(() => NativeBackup.exportHistory({ compress: true, ...options }), onProgress);
+}
+
+/**
+ * Restores from a file path or content:// uri. All or nothing: a damaged file leaves the store untouched.
+ */
+export function importHistory(
+  source: { path?: string; uri?: string },
+  options: { replace?: boolean } = {},
+  onProgress?: (progress: NativeBackupProgress) => void
+): Promise<NativeBackupSummary> {
+  return withProgress(() => NativeBackup.importHistory({ ...source, ...options }), onProgress);
+}
@@ -0,0 +1,61 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { Exercise } from '@/schemas/exercise';
+
+/**
+ * JS end of the native ExerciseSearch plugin: an accent-folded prefix/trigram index over names (en, es,
+ * aliases) and tags, ranked by muscle group, equipment and recent use.
+ * Scoring is documented in android/.../ExerciseSearchIndex.java.
+ */
+
+export interface NativeSearchResult {
+  ids: string[];
+  scores: number[];
+  tookUs: number;
+}
+
+interface ExerciseSearchPlugin {
+  setExercises(options: {
+    exercises: Array<Record<string, unknown>>;
+    recent?: Array<{ id: string; count: number; last_used_at: number }>;
+  }): Promise<{ count: number; postingsKb: number; buildMs: number }>;
+  search(options: { query: string; muscleGroup?: string; equipment?: string; limit?: number }): Promise<NativeSearchResult>;
+  recordUse(options: { id: string; used_at?: number }): Promise<void>;
+}
+
+const NativeExerciseSearch = registerPlugin<ExerciseSearchPlugin>('ExerciseSearch');
+
+export function isNativeExerciseSearchAvailable(): boolean {
+  return Capacitor.getPlatform() === 'android';
+}
+
+/**
+ * Rebuilds the index. Call whenever the catalog changes; use counts recorded so far carry over.
+ */
+export function setSearchExercises(exercises: Array<Exercise & { name_es?: string }>) {
+  return NativeExerciseSearch.setExercises({
+    exercises: exercises.map(exercise => ({
+      id: exercise.id,
+      name: exercise.name,
+      name_es: exercise.name_es,
+      aliases: exercise.aliases ?? [],
+      muscle_groups: exercise.muscle_groups ?? [],
+      body_parts: exercise.body_parts ?? [],
+      equipment: exercise.equipment,
+      category: exercise.category,
+    })),
+  });
+}
+
+/**
+ * Ranked ids for a query. muscleGroup and equipment only rank, they do not filter.
+ */
+export function searchExercises(
+  query: string,
+  options: { muscleGroup?: string; equipment?: string; limit?: number } = {}
+): Promise<NativeSearchResult> {
+  return NativeExerciseSearch.search({ query, ...options });
+}
+
+export function recordExerciseUse(id: string): Promise<void> {
+  return NativeExerciseSearch.recordUse({ id, used_at: Date.now() });
+}
@@ -0,0 +1,108 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { LeagueParticipant } from '@/types/league';
+
+/**
+ * JS end of the native Leaderboard plugin: league and weekly competition standings kept in order as XP
+ * arrives, instead of re-sorting group.participants on every update. Rank lookups, the members around a
+ * user and zone moves are O(log n). Ordering rules are documented in android/.../Leaderboard.java.
+ */
+
+export type LeaderboardZone = 'promotion' | 'safe' | 'relegation';
+
+export interface LeaderboardEntry {
+  userId: string;
+  points: number;
+  rank: number;
+  zone: LeaderboardZone;
+}
+
+export interface LeaderboardZoneChange {
+  userId: string;
+  /** Missing when the member just joined */
+  from?: LeaderboardZone;
+  /** Missing when the member left */
+  to?: LeaderboardZone;
+}
+
+export interface LeaderboardStanding {
+  /** 0 when the user is not on the board */
+  rank: number;
+  points: number;
+  zone?: LeaderboardZone;
+  size: number;
+  /** Points of the last promoted rank */
+  promotionCutoff: number;
+  /** Points of the last safe rank */
+  relegationCutoff: number;
+  around: LeaderboardEntry[];
+}
+
+interface LeaderboardPlugin {
+  setBoard(options: {
+    board: string;
+    members: Array<{ userId: string; weeklyPoints: number; reachedAt?: number }>;
+    promotionSize?: number;
+    relegationSize?: number;
+  }): Promise<{ size: number; buildMs: number }>;
+  addPoints(options: {
+    board: string;
+    userId: string;
+    points: number;
+    at?: number;
+    before?: number;
+    after?: number;
+  }): Promise<LeaderboardStanding & { zoneChanges: LeaderboardZoneChange[] }>;
+  removeMember(options: { board: string; userId: string }): Promise<{ removed: boolean; zoneChanges: LeaderboardZoneChange[] }>;
+  getStanding(options: { board: string; userId: string; before?: number; after?: number }): Promise<LeaderboardStanding>;
+  getRange(options: { board: string; from?: number; count?: number }): Promise<{ size: number; entries: LeaderboardEntry[] }>;
+  dropBoard(options: { board: string }): Promise<{ dropped: boolean }>;
+}
+
+const NativeLeaderboard = registerPlugin<LeaderboardPlugin>('Leaderboard');
+
+export function isNativeLeaderboardAvailable(): boolean {
+  return Capacitor.getPlatform() === 'android';
+}
+
+/**
+ * Loads a league group. Zone sizes default to the 5 promoted and 5 relegated of LeagueManager's groups.
+ */
+export function setBoard(
+  board: string,
+  participants: Array<Pick<LeagueParticipant, 'userId' | 'weeklyPoints' | 'joinedAt'>>,
+  zones: { promotionSize?: number; relegationSize?: number } = {}
+) {
+  return NativeLeaderboard.setBoard({
+    board,
+    members: participants.map(participant => ({
+      userId: participant.userId,
+      weeklyPoints: participant.weeklyPoints,
+      reachedAt: participant.joinedAt,
+    })),
+    ...zones,
+  });
+}
+
+/**
+ * Adds XP and returns the user's new standing with `around` neighbours each side, plus every member whose
+ * zone the update changed.
+ */
+export function addPoints(board: string, userId: string, points: number, around = 0) {
+  return NativeLeaderboard.addPoints({ board, userId, points, at: Date.now(), before: around, after: around });
+}
+
+export function removeMember(board: string, userId: string) {
+  return NativeLeaderboard.removeMember({ board, userId });
+}
+
+export function getStanding(board: string, userId: string, around = 5): Promise<LeaderboardStanding> {
+  return NativeLeaderboard.getStanding({ board, userId, before: around, after: around });
+}
+
+export function getRange(board: string, from = 1, count = 50) {
+  return NativeLeaderboard.getRange({ board, from, count });
+}
+
+export function dropBoard(board: string) {
+  return NativeLeaderboard.dropBoard({ board });
+}
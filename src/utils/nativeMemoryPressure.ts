@@ -0,0 +1,25 @@
+/**
+ * Memory pressure from the native memory policy (android/.../MemoryPolicyEngine.java). The native side
+ * trims its own caches and dispatches a `nativememorypressure` window event on every change of level; the
+ * decoded images, prefetching and JS caches it names in the detail are the web app's to release.
+ */
+
+export interface NativeMemoryPressure {
+  level: 'normal' | 'elevated' | 'high' | 'critical';
+  shrinkCaches: boolean;
+  dropDecodedImages: boolean;
+  pausePrefetch: boolean;
+}
+
+export const NATIVE_MEMORY_PRESSURE_EVENT = 'nativememorypressure';
+
+/**
+ * Calls the listener with every level the native policy reports, including the step back to normal.
+ * Returns the unsubscribe function.
+ */
+export function onNativeMemoryPressure(listener: (pressure: NativeMemoryPressure) => void): () => void {
+  if (typeof window === 'undefined') return () => undefined;
+  const handler = (event: Event) => listener((event as CustomEvent<NativeMemoryPressure>).detail);
+  window.addEventListener(NATIVE_MEMORY_PRESSURE_EVENT, handler);
+  return () => window.removeEventListener(NATIVE_MEMORY_PRESSURE_EVENT, handler);
+}
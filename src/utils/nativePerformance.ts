@@ -0,0 +1,44 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import { matchPath } from 'react-router-dom';
+
+/**
+ * JS end of the native Performance plugin: the native jank tracker files every frame under the route last
+ * reported here (see android/.../JankTracker.java), and markAppReady closes the cold start timeline.
+ */
+
+interface PerformancePlugin {
+  setRoute(options: { route: string }): Promise<void>;
+  markAppReady(): Promise<void>;
+}
+
+const NativePerformance = registerPlugin<PerformancePlugin>('NativePerformance');
+
+/** Routes with parameters in App.tsx, so every workout or exercise shares one set of frame stats */
+const PARAMETERIZED_ROUTES = ['/workout/:workoutId', '/exercises/:exerciseId'];
+
+let appReadyMarked = false;
+
+export function isNativePerformanceAvailable(): boolean {
+  return Capacitor.getPlatform() === 'android';
+}
+
+export function routePattern(pathname: string): string {
+  return PARAMETERIZED_ROUTES.find(pattern => matchPath(pattern, pathname)) ?? pathname;
+}
+
+/**
+ * Called on every navigation. The native side keeps up to 64 routes, later ones are counted as "other".
+ */
+export function reportRoute(pathname: string): Promise<void> {
+  return NativePerformance.setRoute({ route: routePattern(pathname) });
+}
+
+/**
+ * Called once the first screen has rendered, later calls do nothing. Records the last cold start phase,
+ * reports fully drawn to the system and, on first run, starts the native device tier measurement.
+ */
+export function markAppReady(): Promise<void> {
+  if (appReadyMarked) return Promise.resolve();
+  appReadyMarked = true;
+  return NativePerformance.markAppReady();
+}
@@ -0,0 +1,72 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { StreakDay, StreakSchedule } from '@/types/streaks';
+
+/**
+ * JS end of the native Streaks plugin: a user's training days kept as day bitsets, so the current and
+ * longest streaks come from a few word operations instead of sorting and walking the whole StreakDay
+ * history. Adjusted streaks let rest weekdays, sick, vacation and frozen days through as RealStreakService
+ * does. Details in android/.../StreakCalendar.java. The calendar lives in memory: call setHistory once
+ * per session before the other calls.
+ */
+
+export interface NativeStreaks {
+  currentStreak: number;
+  longestStreak: number;
+  currentAdjustedStreak: number;
+  longestAdjustedStreak: number;
+  workoutsLast7Days: number;
+  workoutsLast30Days: number;
+}
+
+interface StreaksPlugin {
+  setHistory(options: {
+    userId: string;
+    days: Array<Pick<StreakDay, 'date' | 'status'>>;
+    restDays?: number[];
+    today?: string;
+  }): Promise<NativeStreaks>;
+  recordWorkout(options: { userId: string; date: string; today?: string }): Promise<NativeStreaks>;
+  setFrozen(options: { userId: string; from: string; to: string; frozen?: boolean; today?: string }): Promise<NativeStreaks>;
+  setRestDays(options: { userId: string; restDays: number[]; today?: string }): Promise<NativeStreaks>;
+  getStreaks(options: { userId: string; today?: string }): Promise<NativeStreaks>;
+}
+
+const NativeStreaksPlugin = registerPlugin<StreaksPlugin>('Streaks');
+
+export function isNativeStreaksAvailable(): boolean {
+  return Capacitor.getPlatform() === 'android';
+}
+
+/**
+ * Loads a user's history. Dates are YYYY-MM-DD; `today` defaults to the device's local date.
+ */
+export function setHistory(
+  userId: string,
+  days: Array<Pick<StreakDay, 'date' | 'status'>>,
+  schedule?: Pick<StreakSchedule, 'restDays'>
+): Promise<NativeStreaks> {
+  return NativeStreaksPlugin.setHistory({
+    userId,
+    days: days.map(day => ({ date: day.date, status: day.status })),
+    restDays: schedule?.restDays ?? [],
+  });
+}
+
+export function recordWorkout(userId: string, date: string): Promise<NativeStreaks> {
+  return NativeStreaksPlugin.recordWorkout({ userId, date });
+}
+
+/**
+ * Streak freezes, sick and vacation days from..to inclusive; `frozen: false` lifts them.
+ */
+export function setFrozen(userId: string, from: string, to: string, frozen = true): Promise<NativeStreaks> {
+  return NativeStreaksPlugin.setFrozen({ userId, from, to, frozen });
+}
+
+export function setRestDays(userId: string, restDays: number[]): Promise<NativeStreaks> {
+  return NativeStreaksPlugin.setRestDays({ userId, restDays });
+}
+
+export function getStreaks(userId: string, today?: string): Promise<NativeStreaks> {
+  return NativeStreaksPlugin.getStreaks({ userId, today });
+}
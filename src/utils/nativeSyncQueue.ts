@@ -0,0 +1,78 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { SyncOperation } from './syncQueue';
+
+/**
+ * JS end of the native NativeSyncQueue plugin: operations are persisted in SQLite and pushed to Supabase
+ * by WorkManager in batches per table, also when the app is in the background or was killed. On Android
+ * the JS queues hand mappable operations over here instead of running their own retry loop.
+ * Batching and retries in android/.../NativeSyncQueue.java.
+ */
+
+export interface NativeSyncOperation {
+  id: string;
+  /** Supabase table */
+  entity: string;
+  recordId: string;
+  type: SyncOperation['type'];
+  data?: Record<string, unknown>;
+  priority: SyncOperation['priority'];
+  dependencies?: string[];
+}
+
+interface SyncQueuePlugin {
+  configure(options: { baseUrl: string; apiKey: string; accessToken?: string }): Promise<void>;
+  enqueue(options: { operations: NativeSyncOperation[] }): Promise<{ ids: string[] }>;
+  getStatus(): Promise<{ pending: number; failed: number }>;
+}
+
+const NativeSyncQueue = registerPlugin<SyncQueuePlugin>('NativeSyncQueue');
+
+/** The Supabase tables behind the JS queues' entities; settings have no table and stay in JS */
+const SYNC_TABLES: Partial<Record<SyncOperation['entity'], string>> = {
+  workout: 'workout_sessions',
+  exercise: 'exercises',
+  profile: 'user_profiles',
+};
+
+export function isNativeSyncQueueAvailable(): boolean {
+  return Capacitor.getPlatform() === 'android';
+}
+
+/**
+ * Called on sign-in and on every token refresh, the native worker sends as the signed-in user.
+ */
+export function configureNativeSync(baseUrl: string, apiKey: string, accessToken?: string): Promise<void> {
+  return NativeSyncQueue.configure({ baseUrl, apiKey, accessToken });
+}
+
+/**
+ * The native form of a queued operation, null for one the native queue cannot send: an entity without a
+ * table, or data that is not a row with an id.
+ */
+export function toNativeSyncOperation(
+  operation: Pick<SyncOperation, 'id' | 'type' | 'entity' | 'data' | 'priority'>,
+  dependencies?: string[]
+): NativeSyncOperation | null {
+  const table = SYNC_TABLES[operation.entity];
+  const data = operation.data;
+  if (!table || !data || typeof data !== 'object' || Array.isArray(data) || typeof data.id !== 'string') {
+    return null;
+  }
+  return {
+    id: operation.id,
+    entity: table,
+    recordId: data.id,
+    type: operation.type,
+    data: operation.type === 'DELETE' ? undefined : data,
+    priority: operation.priority,
+    dependencies,
+  };
+}
+
+export function enqueueNativeSync(operations: NativeSyncOperation[]): Promise<{ ids: string[] }> {
+  return NativeSyncQueue.enqueue({ operations });
+}
+
+export function getNativeSyncStatus(): Promise<{ pending: number; failed: number }> {
+  return NativeSyncQueue.getStatus();
+}
@@ -0,0 +1,113 @@
+import { Capacitor, registerPlugin } from '@capacitor/core';
+import type { Workout, WorkoutExercise, SetData } from '@/schemas/workout';
+
+/**
+ * JS end of the native WorkoutJournal plugin: every edit of the active workout is appended as a small
+ * record (the changed workout, exercise or set document) and fsynced natively, so a crash or a renderer
+ * kill mid-workout loses nothing. While the journal holds an unfinished workout the native side also keeps
+ * the renderer at important priority. Record format in android/.../WorkoutJournal.java.
+ */
+
+export type WorkoutJournalMutation =
+  | { type: 'putWorkout'; workoutId: string; data: Record<string, unknown> }
+  | { type: 'putExercise'; workoutId: string; exerciseId: string; data: Record<string, unknown> }
+  | { type: 'putSet'; workoutId: string; exerciseId: string; setId: string; data: Record<string, unknown> }
+  | { type: 'removeExercise'; workoutId: string; exerciseId: string }
+  | { type: 'removeSet'; workoutId: string; exerciseId: string; setId: string }
+  | { type: 'endWorkout'; workoutId: string };
+
+interface WorkoutJournalPlugin {
+  append(options: { mutations: WorkoutJournalMutation[] }): Promise<{ sequence: number }>;
+  recover(): Promise<{ workouts: Workout[] }>;
+}
+
+const NativeWorkoutJournal = registerPlugin<WorkoutJournalPlugin>('WorkoutJournal');
+
+export function isNativeWorkoutJournalAvailable(): boolean {
+  return Capacitor.getPlatform() === 'android';
+}
+
+/** Resolves once the mutations are on disk */
+export function appendWorkoutMutations(mutations: WorkoutJournalMutation[]): Promise<{ sequence: number }> {
+  return NativeWorkoutJournal.append({ mutations });
+}
+
+/**
+ * The workouts that were started but not ended, with their exercises and sets nested back in, as journaled
+ * before the page last reloaded or the app stopped.
+ */
+export async function recoverWorkouts(): Promise<Workout[]> {
+  const { workouts } = await NativeWorkoutJournal.recover();
+  // A workout whose own record was lost comes back without a document
+  return workouts.filter(workout => workout && workout.id);
+}
+
+// Template exercises carry no id of their own, the store addresses them by exercise_id
+function exerciseKey(exercise: WorkoutExercise): string {
+  return exercise.id ?? exercise.exercise_id;
+}
+
+function setKey(set: SetData, index: number): string {
+  return set.id ?? `set-${index}`;
+}
+
+function withoutField<T extends object>(document: T, field: keyof T): Record<string, unknown> {
+  const rest: Record<string, unknown> = { ...document };
+  delete rest[field as string];
+  return rest;
+}
+
+// Documents are replaced immutably, so a field that was not edited keeps its identity
+function sameDocument<T extends object>(before: T, after: T, children?: keyof T): boolean {
+  const keys = new Set([...Object.keys(before), ...Object.keys(after)] as Array<keyof T>);
+  for (const key of keys) {
+    if (key !== children && before[key] !== after[key]) return false;
+  }
+  return true;
+}
+
+/**
+ * The journal records that take the active workout from `previous` to `next`: only the documents that
+ * changed, removals for what is gone, endWorkout when the workout was completed, cancelled or replaced.
+ */
+export function workoutMutations(previous: Workout | null, next: Workout | null): WorkoutJournalMutation[] {
+  const mutations: WorkoutJournalMutation[] = [];
+  if (previous && previous.id !== next?.id) {
+    mutations.push({ type: 'endWorkout', workoutId: previous.id });
+  }
+  if (!next || next === previous) return mutations;
+
+  const workoutId = next.id;
+  const before = previous?.id === workoutId ? previous : null;
+  if (!before || !sameDocument(before, next, 'exercises')) {
+    mutations.push({ type: 'putWorkout', workoutId, data: withoutField(next, 'exercises') });
+  }
+
+  const beforeExercises = new Map((before?.exercises ?? []).map(exercise => [exerciseKey(exercise), exercise]));
+  for (const exercise of next.exercises) {
+    const exerciseId = exerciseKey(exercise);
+    const old = beforeExercises.get(exerciseId);
+    beforeExercises.delete(exerciseId);
+    if (old === exercise) continue;
+    if (!old || !sameDocument(old, exercise, 'sets')) {
+      mutations.push({ type: 'putExercise', workoutId, exerciseId, data: withoutField(exercise, 'sets') });
+    }
+
+    const beforeSets = new Map((old?.sets ?? []).map((set, index) => [setKey(set, index), set]));
+    exercise.sets.forEach((set, index) => {
+      const setId = setKey(set, index);
+      const oldSet = beforeSets.get(setId);
+      beforeSets.delete(setId);
+      if (!oldSet || (oldSet !== set && !sameDocument(oldSet, set))) {
+        mutations.push({ type: 'putSet', workoutId, exerciseId, setId, data: { ...set } });
+      }
+    });
+    for (const setId of beforeSets.keys()) {
+      mutations.push({ type: 'removeSet', workoutId, exerciseId, setId });
+    }
+  }
+  for (const exerciseId of beforeExercises.keys()) {
+    mutations.push({ type: 'removeExercise', workoutId, exerciseId });
+  }
+  return mutations;
+}
@@ -4,6 +4,12 @@
  */
 
 import { dbManager } from '@/db/IndexedDBManager';
+import {
+  enqueueNativeSync,
+  getNativeSyncStatus,
+  isNativeSyncQueueAvailable,
+  toNativeSyncOperation
+} from './nativeSyncQueue';
 
 export interface SyncOperation {
   id: string;
@@ -79,6 +85,18 @@ export class SyncQueue {
       status: 'pending',
     };
 
+    // On Android the native queue persists and sends it, also after the app is closed
+    const nativeOperation = isNativeSyncQueueAvailable() ? toNativeSyncOperation(syncOperation) : null;
+    if (nativeOperation) {
+      try {
+        await enqueueNativeSync([nativeOperation]);
+        this.notifyListeners(syncOperation);
+        return syncOperation.id;
+      } catch (error) {
+        console.error('[SyncQueue] Native queue rejected operation, queueing in JS:', error);
+      }
+    }
+
     try {
       await dbManager.put('syncQueue', syncOperation);
       console.log('[SyncQueue] Operation added:', syncOperation.id);
@@ -575,6 +593,13 @@ export class SyncQueue {
         stats[op.status]++;
       });
 
+      if (isNativeSyncQueueAvailable()) {
+        const native = await getNativeSyncStatus().catch(() => ({ pending: 0, failed: 0 }));
+        stats.pending += native.pending;
+        stats.failed += native.failed;
+        stats.total += native.pending + native.failed;
+      }
+
       return stats;
     } catch (error) {
       // Silently handle database not ready errors during initialization
@@ -1,11 +1,56 @@
-import { defineConfig } from 'vite';
+import { defineConfig, type Plugin } from 'vite';
 import react from '@vitejs/plugin-react';
 import { VitePWA } from 'vite-plugin-pwa';
 import path from 'path';
+import fs from 'fs';
+import zlib from 'zlib';
+
+// Writes .br and .gz copies of the hashed text bundles next to them. The Android AssetServer serves them
+// (decoded natively) when it runs in "precompressed" mode; static hosts can serve them as they are.
+// Only with PRECOMPRESS_ASSETS=true (npm run build:mobile:precompressed): the default "mapped" mode never
+// reads the copies, so every other build would ship each bundle three times.
+function precompressAssets(): Plugin {
+  const compressible = /\.(js|mjs|css|json|wasm|svg)$/;
+  let outDir = 'dist';
+  return {
+    name: 'precompress-assets',
+    apply: 'build',
+    configResolved(config) {
+      outDir = config.build.outDir;
+    },
+    writeBundle(_options, bundle) {
+      for (const fileName of Object.keys(bundle)) {
+        if (!fileName.startsWith('assets/') || !compressible.test(fileName)) {
+          continue;
+        }
+        const file = path.resolve(outDir, fileName);
+        const source = fs.readFileSync(file);
+        // Too small to be worth a second file
+        if (source.length < 1024) {
+          continue;
+        }
+        const brotli = zlib.brotliCompressSync(source, {
+          params: {
+            [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+            [zlib.constants.BROTLI_PARAM_SIZE_HINT]: source.length,
+          },
+        });
+        if (brotli.length < source.length) {
+          fs.writeFileSync(`${file}.br`, brotli);
+        }
+        const gzip = zlib.gzipSync(source, { level: zlib.constants.Z_BEST_COMPRESSION });
+        if (gzip.length < source.length) {
+          fs.writeFileSync(`${file}.gz`, gzip);
+        }
+      }
+    },
+  };
+}
 
 export default defineConfig({
   plugins: [
     react(),
+    process.env.PRECOMPRESS_ASSETS === 'true' && precompressAssets(),
     VitePWA({
       registerType: 'autoUpdate',
       workbox: {